@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2018, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The request wrappers of single-item write requests as they were before the expression attribute maps were copied on
+ * write, i.e., copying both maps of every request up front.  Kept as the baseline of {@code RequestMappingBenchmark}.
+ */
+final class EagerCopyRequestWrappers {
+
+    private EagerCopyRequestWrappers() {
+    }
+
+    static class PutItemRequestWrapper implements RequestWrapper {
+
+        private final PutItemRequest putItemRequest;
+
+        PutItemRequestWrapper(PutItemRequest putItemRequest) {
+            this.putItemRequest = putItemRequest;
+            if (this.putItemRequest.getExpressionAttributeNames() != null) {
+                this.putItemRequest.setExpressionAttributeNames(new HashMap<>(this.getExpressionAttributeNames()));
+            }
+            if (this.putItemRequest.getExpressionAttributeValues() != null) {
+                this.putItemRequest.setExpressionAttributeValues(new HashMap<>(this.getExpressionAttributeValues()));
+            }
+        }
+
+        @Override
+        public Map<String, String> getExpressionAttributeNames() {
+            return putItemRequest.getExpressionAttributeNames();
+        }
+
+        @Override
+        public void putExpressionAttributeName(String key, String value) {
+            if (putItemRequest.getExpressionAttributeNames() == null) {
+                putItemRequest.setExpressionAttributeNames(new HashMap<>());
+            }
+            putItemRequest.getExpressionAttributeNames().put(key, value);
+        }
+
+        @Override
+        public Map<String, AttributeValue> getExpressionAttributeValues() {
+            if (putItemRequest.getExpressionAttributeValues() == null) {
+                putItemRequest.setExpressionAttributeValues(new HashMap<>());
+            }
+            return putItemRequest.getExpressionAttributeValues();
+        }
+
+        @Override
+        public void putExpressionAttributeValue(String key, AttributeValue value) {
+            putItemRequest.getExpressionAttributeValues().put(key, value);
+        }
+
+        @Override
+        public String getPrimaryExpression() {
+            return putItemRequest.getConditionExpression();
+        }
+
+        @Override
+        public void setPrimaryExpression(String expression) {
+            putItemRequest.setConditionExpression(expression);
+        }
+
+        @Override
+        public String getFilterExpression() {
+            return putItemRequest.getConditionExpression();
+        }
+
+        @Override
+        public void setFilterExpression(String conditionalExpression) {
+            putItemRequest.setConditionExpression(conditionalExpression);
+        }
+
+        @Override
+        public String getIndexName() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setIndexName(String indexName) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Map<String, Condition> getLegacyExpression() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void clearLegacyExpression() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Map<String, AttributeValue> getExclusiveStartKey() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setExclusiveStartKey(Map<String, AttributeValue> exclusiveStartKey) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+    static class UpdateItemRequestWrapper implements RequestWrapper {
+
+        private final UpdateItemRequest updateItemRequest;
+
+        UpdateItemRequestWrapper(UpdateItemRequest updateItemRequest) {
+            this.updateItemRequest = updateItemRequest;
+            if (this.updateItemRequest.getExpressionAttributeNames() != null) {
+                this.updateItemRequest.setExpressionAttributeNames(
+                    new HashMap<>(updateItemRequest.getExpressionAttributeNames()));
+            }
+            if (this.updateItemRequest.getExpressionAttributeValues() != null) {
+                this.updateItemRequest.setExpressionAttributeValues(
+                    new HashMap<>(updateItemRequest.getExpressionAttributeValues()));
+            }
+        }
+
+        @Override
+        public Map<String, String> getExpressionAttributeNames() {
+            return updateItemRequest.getExpressionAttributeNames();
+        }
+
+        @Override
+        public void putExpressionAttributeName(String key, String value) {
+            if (updateItemRequest.getExpressionAttributeNames() == null) {
+                updateItemRequest.setExpressionAttributeNames(new HashMap<>());
+            }
+            updateItemRequest.getExpressionAttributeNames().put(key, value);
+        }
+
+        @Override
+        public Map<String, AttributeValue> getExpressionAttributeValues() {
+            if (updateItemRequest.getExpressionAttributeValues() == null) {
+                updateItemRequest.setExpressionAttributeValues(new HashMap<>());
+            }
+            return updateItemRequest.getExpressionAttributeValues();
+        }
+
+        @Override
+        public void putExpressionAttributeValue(String key, AttributeValue value) {
+            updateItemRequest.getExpressionAttributeValues().put(key, value);
+        }
+
+        @Override
+        public String getPrimaryExpression() {
+            return updateItemRequest.getUpdateExpression();
+        }
+
+        @Override
+        public void setPrimaryExpression(String expression) {
+            updateItemRequest.setUpdateExpression(expression);
+        }
+
+        @Override
+        public String getFilterExpression() {
+            return updateItemRequest.getConditionExpression();
+        }
+
+        @Override
+        public void setFilterExpression(String conditionalExpression) {
+            updateItemRequest.setConditionExpression(conditionalExpression);
+        }
+
+        @Override
+        public String getIndexName() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setIndexName(String indexName) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Map<String, Condition> getLegacyExpression() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void clearLegacyExpression() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Map<String, AttributeValue> getExclusiveStartKey() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setExclusiveStartKey(Map<String, AttributeValue> exclusiveStartKey) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+    static class DeleteItemRequestWrapper implements RequestWrapper {
+
+        private final DeleteItemRequest deleteItemRequest;
+
+        DeleteItemRequestWrapper(DeleteItemRequest deleteItemRequest) {
+            this.deleteItemRequest = deleteItemRequest;
+            if (this.deleteItemRequest.getExpressionAttributeNames() != null) {
+                this.deleteItemRequest.setExpressionAttributeNames(new HashMap<>(this.getExpressionAttributeNames()));
+            }
+            if (this.deleteItemRequest.getExpressionAttributeValues() != null) {
+                this.deleteItemRequest.setExpressionAttributeValues(new HashMap<>(this.getExpressionAttributeValues()));
+            }
+        }
+
+        @Override
+        public Map<String, String> getExpressionAttributeNames() {
+            return deleteItemRequest.getExpressionAttributeNames();
+        }
+
+        @Override
+        public void putExpressionAttributeName(String key, String value) {
+            if (deleteItemRequest.getExpressionAttributeNames() == null) {
+                deleteItemRequest.setExpressionAttributeNames(new HashMap<>());
+            }
+            deleteItemRequest.getExpressionAttributeNames().put(key, value);
+        }
+
+        @Override
+        public Map<String, AttributeValue> getExpressionAttributeValues() {
+            if (deleteItemRequest.getExpressionAttributeValues() == null) {
+                deleteItemRequest.setExpressionAttributeValues(new HashMap<>());
+            }
+            return deleteItemRequest.getExpressionAttributeValues();
+        }
+
+        @Override
+        public void putExpressionAttributeValue(String key, AttributeValue value) {
+            deleteItemRequest.getExpressionAttributeValues().put(key, value);
+        }
+
+        @Override
+        public String getPrimaryExpression() {
+            return deleteItemRequest.getConditionExpression();
+        }
+
+        @Override
+        public void setPrimaryExpression(String expression) {
+            deleteItemRequest.setConditionExpression(expression);
+        }
+
+        @Override
+        public String getFilterExpression() {
+            return null;
+        }
+
+        @Override
+        public void setFilterExpression(String conditionalExpression) {
+        }
+
+        @Override
+        public String getIndexName() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setIndexName(String indexName) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Map<String, Condition> getLegacyExpression() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void clearLegacyExpression() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Map<String, AttributeValue> getExclusiveStartKey() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setExclusiveStartKey(Map<String, AttributeValue> exclusiveStartKey) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2018, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.S;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.google.common.collect.ImmutableMap;
+import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
+import com.salesforce.dynamodbv2.mt.mappers.CreateTableRequestBuilder;
+import com.salesforce.dynamodbv2.mt.mappers.index.DynamoSecondaryIndexMapperByTypeImpl;
+import com.salesforce.dynamodbv2.mt.mappers.metadata.DynamoTableDescriptionImpl;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures mapping a query whose rewrite plan is cached, which only maps the hash key value, against parsing its
+ * expressions, which is the additional cost of a query whose plan is not cached yet.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExpressionMappingBenchmark {
+
+    private static final MtAmazonDynamoDbContextProvider MT_CONTEXT = () -> Optional.of("ctx");
+    private static final String KEY_CONDITION_EXPRESSION = "#hk = :hk AND #rk BETWEEN :lower AND :upper";
+    private static final String FILTER_EXPRESSION = "attribute_not_exists(#a) OR (#a <> :a AND size(#b) > :b)";
+    private static final Map<String, String> EXPRESSION_ATTRIBUTE_NAMES = ImmutableMap.of(
+        "#hk", "virtualHk", "#rk", "virtualRk", "#a", "a", "#b", "b");
+    private static final Map<String, AttributeValue> EXPRESSION_ATTRIBUTE_VALUES = ImmutableMap.of(
+        ":hk", new AttributeValue("hkValue"),
+        ":lower", new AttributeValue("lower"),
+        ":upper", new AttributeValue("upper"),
+        ":a", new AttributeValue("a"),
+        ":b", new AttributeValue().withN("1"));
+
+    private QueryAndScanMapper queryAndScanMapper;
+
+    /**
+     * Creates the mapper and caches the plan of the query.
+     */
+    @Setup
+    public void setup() {
+        TableMapping tableMapping = new TableMapping(
+            new DynamoTableDescriptionImpl(CreateTableRequestBuilder.builder()
+                .withTableName("virtualTable")
+                .withTableKeySchema("virtualHk", S, "virtualRk", S).build()),
+            new SingletonCreateTableRequestFactory(CreateTableRequestBuilder.builder()
+                .withTableName("physicalTable")
+                .withTableKeySchema("physicalHk", S, "physicalRk", S).build()),
+            new DynamoSecondaryIndexMapperByTypeImpl(),
+            MT_CONTEXT);
+        queryAndScanMapper = tableMapping.getQueryAndScanMapper();
+        queryAndScanMapper.apply(newQueryRequest());
+    }
+
+    @Benchmark
+    public Object mapQuery() {
+        QueryRequest queryRequest = newQueryRequest();
+        queryAndScanMapper.apply(queryRequest);
+        return queryRequest;
+    }
+
+    @Benchmark
+    public void parseExpressions(Blackhole blackhole) {
+        blackhole.consume(Expression.parse(KEY_CONDITION_EXPRESSION));
+        blackhole.consume(Expression.parse(FILTER_EXPRESSION));
+    }
+
+    private static QueryRequest newQueryRequest() {
+        return new QueryRequest("virtualTable")
+            .withKeyConditionExpression(KEY_CONDITION_EXPRESSION)
+            .withFilterExpression(FILTER_EXPRESSION)
+            .withExpressionAttributeNames(EXPRESSION_ATTRIBUTE_NAMES)
+            .withExpressionAttributeValues(EXPRESSION_ATTRIBUTE_VALUES);
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2018, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.B;
+import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.S;
+import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.FieldMapping.IndexType.TABLE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.FieldMapping.Field;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares qualifying key values with the field mappers, which cache the encoded prefix of each context, against the
+ * prefix functions, which encode the context and table name on every call.  Also measures unqualifying binary values,
+ * which returns views of the qualified value, both for heap and direct buffers.  Run with the gc profiler to compare
+ * the bytes allocated per operation as well.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FieldMapperBenchmark {
+
+    private static final String CONTEXT = "00Dxx0000001gEREAY";
+    private static final String TABLE_NAME = "com.salesforce.zero.someObject";
+    private static final MtAmazonDynamoDbContextProvider MT_CONTEXT = () -> Optional.of(CONTEXT);
+
+    private final FieldMapper stringFieldMapper = new StringFieldMapper(MT_CONTEXT, TABLE_NAME);
+    private final FieldMapper binaryFieldMapper = new BinaryFieldMapper(MT_CONTEXT, TABLE_NAME);
+    private final FieldMapping stringFieldMapping =
+        new FieldMapping(new Field("hk", S), new Field("hk", S), null, null, TABLE, true);
+    private final FieldMapping binaryFieldMapping =
+        new FieldMapping(new Field("hk", B), new Field("hk", B), null, null, TABLE, true);
+    private final String stringValue = "a0Bxx0000004CzqEAE";
+    private final AttributeValue stringAttributeValue = new AttributeValue(stringValue);
+    private final ByteBuffer binaryValue = ByteBuffer.wrap(stringValue.getBytes(UTF_8));
+    private final AttributeValue binaryAttributeValue = new AttributeValue().withB(binaryValue);
+    private final ByteBuffer qualifiedBinaryValue =
+        BinaryFieldPrefixFunction.INSTANCE.apply(new FieldValue<>(CONTEXT, TABLE_NAME, binaryValue));
+    private final ByteBuffer directQualifiedBinaryValue = ByteBuffer.allocateDirect(qualifiedBinaryValue.remaining())
+        .put(qualifiedBinaryValue.duplicate()).flip();
+
+    @Benchmark
+    public Object stringFieldMapper() {
+        return stringFieldMapper.apply(stringFieldMapping, stringAttributeValue);
+    }
+
+    @Benchmark
+    public Object stringPrefixFunction() {
+        return StringFieldPrefixFunction.INSTANCE.apply(new FieldValue<>(CONTEXT, TABLE_NAME, stringValue));
+    }
+
+    @Benchmark
+    public Object stringFilter() {
+        return stringFieldMapper.createFilter();
+    }
+
+    @Benchmark
+    public Object stringPrefixFunctionFilter() {
+        return StringFieldPrefixFunction.INSTANCE.createFilter(CONTEXT, TABLE_NAME);
+    }
+
+    @Benchmark
+    public Object binaryFieldMapper() {
+        return binaryFieldMapper.apply(binaryFieldMapping, binaryAttributeValue);
+    }
+
+    @Benchmark
+    public Object binaryPrefixFunction() {
+        return BinaryFieldPrefixFunction.INSTANCE.apply(new FieldValue<>(CONTEXT, TABLE_NAME, binaryValue));
+    }
+
+    @Benchmark
+    public Object binaryFilter() {
+        return binaryFieldMapper.createFilter();
+    }
+
+    @Benchmark
+    public Object binaryPrefixFunctionFilter() {
+        return BinaryFieldPrefixFunction.INSTANCE.createFilter(CONTEXT, TABLE_NAME);
+    }
+
+    @Benchmark
+    public Object binaryPrefixFunctionReverse() {
+        return BinaryFieldPrefixFunction.INSTANCE.reverse(qualifiedBinaryValue);
+    }
+
+    @Benchmark
+    public Object binaryPrefixFunctionReverseDirect() {
+        return BinaryFieldPrefixFunction.INSTANCE.reverse(directQualifiedBinaryValue);
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2018, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.S;
+import static com.salesforce.dynamodbv2.mt.mappers.index.DynamoSecondaryIndex.DynamoSecondaryIndexType.GSI;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
+import com.salesforce.dynamodbv2.mt.mappers.CreateTableRequestBuilder;
+import com.salesforce.dynamodbv2.mt.mappers.index.DynamoSecondaryIndexMapperByTypeImpl;
+import com.salesforce.dynamodbv2.mt.mappers.metadata.DynamoTableDescriptionImpl;
+import com.salesforce.dynamodbv2.mt.mappers.metadata.PrimaryKey;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the compiled {@link ItemMapper} against the previous implementation, which looked up the field mappings of
+ * every attribute and grew the mapped item from the default capacity, on items of different sizes.  The virtual table
+ * has a hash key, a range key, and a secondary index, so four physical fields are mapped per item.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItemMapperBenchmark {
+
+    private static final MtAmazonDynamoDbContextProvider MT_CONTEXT = () -> Optional.of("ctx");
+
+    @Param({"10", "50", "200"})
+    private int attributes;
+
+    private ItemMapper itemMapper;
+    private LookupItemMapper lookupItemMapper;
+    private Map<String, AttributeValue> virtualItem;
+    private Map<String, AttributeValue> physicalItem;
+
+    /**
+     * Creates the mappers and an item with the given number of attributes.
+     */
+    @Setup
+    public void setup() {
+        TableMapping tableMapping = new TableMapping(
+            new DynamoTableDescriptionImpl(CreateTableRequestBuilder.builder()
+                .withTableName("virtualTable")
+                .withTableKeySchema("virtualHk", S, "virtualRk", S)
+                .addSi("virtualGsi", GSI, new PrimaryKey("attribute0", S), 1L).build()),
+            new SingletonCreateTableRequestFactory(CreateTableRequestBuilder.builder()
+                .withTableName("physicalTable")
+                .withTableKeySchema("physicalHk", S, "physicalRk", S)
+                .addSi("physicalGsi", GSI, new PrimaryKey("physicalGsiHk", S), 1L).build()),
+            new DynamoSecondaryIndexMapperByTypeImpl(),
+            MT_CONTEXT);
+        itemMapper = tableMapping.getItemMapper();
+        lookupItemMapper = new LookupItemMapper(new StringFieldMapper(MT_CONTEXT, "virtualTable"),
+            tableMapping.getAllVirtualToPhysicalFieldMappings());
+
+        virtualItem = new HashMap<>();
+        virtualItem.put("virtualHk", new AttributeValue("hkValue"));
+        virtualItem.put("virtualRk", new AttributeValue("rkValue"));
+        for (int i = 0; virtualItem.size() < attributes; i++) {
+            virtualItem.put("attribute" + i, new AttributeValue("value" + i));
+        }
+        physicalItem = itemMapper.apply(virtualItem);
+    }
+
+    @Benchmark
+    public Object apply() {
+        return itemMapper.apply(virtualItem);
+    }
+
+    @Benchmark
+    public Object applyLookup() {
+        return lookupItemMapper.apply(virtualItem);
+    }
+
+    @Benchmark
+    public Object reverse() {
+        return itemMapper.reverse(physicalItem);
+    }
+
+    @Benchmark
+    public Object reverseLookup() {
+        return lookupItemMapper.reverse(physicalItem);
+    }
+
+    /*
+     * The previous item mapper, which looks up the field mappings of every attribute.
+     */
+    private static class LookupItemMapper {
+
+        private final FieldMapper fieldMapper;
+        private final Map<String, List<FieldMapping>> virtualToPhysicalFieldMappings;
+        private final Map<String, List<FieldMapping>> physicalToVirtualFieldMappings = new HashMap<>();
+
+        LookupItemMapper(FieldMapper fieldMapper, Map<String, List<FieldMapping>> virtualToPhysicalFieldMappings) {
+            this.fieldMapper = fieldMapper;
+            this.virtualToPhysicalFieldMappings = virtualToPhysicalFieldMappings;
+            virtualToPhysicalFieldMappings.values().forEach(fieldMappings -> fieldMappings.forEach(fieldMapping ->
+                physicalToVirtualFieldMappings.put(fieldMapping.getTarget().getName(), List.of(new FieldMapping(
+                    fieldMapping.getTarget(), fieldMapping.getSource(), fieldMapping.getVirtualIndexName(),
+                    fieldMapping.getPhysicalIndexName(), fieldMapping.getIndexType(),
+                    fieldMapping.isContextAware())))));
+        }
+
+        Map<String, AttributeValue> apply(Map<String, AttributeValue> item) {
+            Map<String, AttributeValue> mappedItem = new HashMap<>();
+            item.forEach((field, attribute) -> {
+                List<FieldMapping> fieldMappings = virtualToPhysicalFieldMappings.get(field);
+                if (fieldMappings != null && !fieldMappings.isEmpty()) {
+                    fieldMappings.forEach(fieldMapping -> mappedItem.put(fieldMapping.getTarget().getName(),
+                        fieldMapping.isContextAware() ? fieldMapper.apply(fieldMapping, attribute) : attribute));
+                } else {
+                    mappedItem.put(field, attribute);
+                }
+            });
+            return mappedItem;
+        }
+
+        Map<String, AttributeValue> reverse(Map<String, AttributeValue> item) {
+            Map<String, AttributeValue> mappedItem = new HashMap<>();
+            item.forEach((field, attribute) -> {
+                List<FieldMapping> fieldMappings = physicalToVirtualFieldMappings.get(field);
+                if (fieldMappings != null && !fieldMappings.isEmpty()) {
+                    fieldMappings.forEach(fieldMapping -> mappedItem.put(fieldMapping.getTarget().getName(),
+                        fieldMapping.isContextAware() ? fieldMapper.reverse(fieldMapping, attribute) : attribute));
+                } else {
+                    mappedItem.put(field, attribute);
+                }
+            });
+            return mappedItem;
+        }
+
+    }
+
+}
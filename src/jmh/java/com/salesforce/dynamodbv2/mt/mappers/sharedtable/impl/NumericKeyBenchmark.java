@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2018, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.B;
+import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.N;
+import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.S;
+import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.FieldMapping.IndexType.TABLE;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.FieldMapping.Field;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares mapping numeric hash key values to binary physical keys and back in the scale and unscaled value encoding
+ * against the compact long encoding, with the string mapping as a reference.  Non-integral values always use the
+ * former, so they measure the overhead of checking for the compact encoding.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NumericKeyBenchmark {
+
+    private static final String CONTEXT = "00Dxx0000001gEREAY";
+    private static final String TABLE_NAME = "com.salesforce.zero.someObject";
+    private static final MtAmazonDynamoDbContextProvider MT_CONTEXT = () -> Optional.of(CONTEXT);
+
+    @Param({"42", "1572281645123", "-3.14159"})
+    private String number;
+
+    private final FieldMapper stringFieldMapper = new StringFieldMapper(MT_CONTEXT, TABLE_NAME);
+    private final FieldMapper binaryFieldMapper = new BinaryFieldMapper(MT_CONTEXT, TABLE_NAME, false);
+    private final FieldMapper compactBinaryFieldMapper = new BinaryFieldMapper(MT_CONTEXT, TABLE_NAME, true);
+    private final FieldMapping stringFieldMapping =
+        new FieldMapping(new Field("hk", N), new Field("hk", S), null, null, TABLE, true);
+    private final FieldMapping stringReverseFieldMapping =
+        new FieldMapping(new Field("hk", S), new Field("hk", N), null, null, TABLE, true);
+    private final FieldMapping binaryFieldMapping =
+        new FieldMapping(new Field("hk", N), new Field("hk", B), null, null, TABLE, true);
+    private final FieldMapping binaryReverseFieldMapping =
+        new FieldMapping(new Field("hk", B), new Field("hk", N), null, null, TABLE, true);
+
+    private AttributeValue value;
+    private AttributeValue stringQualifiedValue;
+    private AttributeValue binaryQualifiedValue;
+    private AttributeValue compactBinaryQualifiedValue;
+
+    @Setup
+    public void setup() {
+        value = new AttributeValue().withN(number);
+        stringQualifiedValue = stringFieldMapper.apply(stringFieldMapping, value);
+        binaryQualifiedValue = binaryFieldMapper.apply(binaryFieldMapping, value);
+        compactBinaryQualifiedValue = compactBinaryFieldMapper.apply(binaryFieldMapping, value);
+    }
+
+    @Benchmark
+    public Object stringApply() {
+        return stringFieldMapper.apply(stringFieldMapping, value);
+    }
+
+    @Benchmark
+    public Object stringReverse() {
+        return stringFieldMapper.reverse(stringReverseFieldMapping, stringQualifiedValue);
+    }
+
+    @Benchmark
+    public Object binaryApply() {
+        return binaryFieldMapper.apply(binaryFieldMapping, value);
+    }
+
+    @Benchmark
+    public Object binaryReverse() {
+        return binaryFieldMapper.reverse(binaryReverseFieldMapping, binaryQualifiedValue);
+    }
+
+    @Benchmark
+    public Object compactBinaryApply() {
+        return compactBinaryFieldMapper.apply(binaryFieldMapping, value);
+    }
+
+    @Benchmark
+    public Object compactBinaryReverse() {
+        return compactBinaryFieldMapper.reverse(binaryReverseFieldMapping, compactBinaryQualifiedValue);
+    }
+
+}
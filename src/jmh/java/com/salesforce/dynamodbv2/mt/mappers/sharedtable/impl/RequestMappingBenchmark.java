@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2018, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.amazonaws.services.dynamodbv2.model.KeyType.HASH;
+import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.S;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughput;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.google.common.collect.ImmutableMap;
+import com.salesforce.dynamodbv2.dynamodblocal.AmazonDynamoDbLocal;
+import com.salesforce.dynamodbv2.mt.context.impl.MtAmazonDynamoDbContextProviderThreadLocalImpl;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.SharedTableBuilder;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of mapping single-item write requests against a shared table.  Run with the gc profiler to compare
+ * the bytes allocated per operation (gc.alloc.rate.norm), e.g., {@code -prof gc}.  The {@code eagerCopy} benchmarks map
+ * the same requests the same way as the corresponding plain benchmarks, but with the request wrappers that copied the
+ * expression attribute maps of every request up front (see {@code EagerCopyRequestWrappers}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RequestMappingBenchmark {
+
+    private static final String TENANT = "tenant";
+    private static final String TABLE = "table";
+
+    private MtAmazonDynamoDbBySharedTable sharedTable;
+    private PutItemRequest putItemRequest;
+    private PutItemRequest conditionalPutItemRequest;
+    private UpdateItemRequest updateItemRequest;
+    private DeleteItemRequest deleteItemRequest;
+    private DeleteItemRequest conditionalDeleteItemRequest;
+
+    /**
+     * Creates the virtual table and the requests to map.
+     */
+    @Setup
+    public void setup() {
+        MtAmazonDynamoDbContextProviderThreadLocalImpl mtContext = new MtAmazonDynamoDbContextProviderThreadLocalImpl();
+        sharedTable = SharedTableBuilder.builder()
+            .withAmazonDynamoDb(AmazonDynamoDbLocal.getAmazonDynamoDbLocal())
+            .withContext(mtContext)
+            .withTablePrefix("benchmark.")
+            .withCreateTablesEagerly(true)
+            .build();
+        mtContext.setContext(TENANT);
+        sharedTable.createTable(new CreateTableRequest()
+            .withTableName(TABLE)
+            .withKeySchema(new KeySchemaElement("hk", HASH))
+            .withAttributeDefinitions(new AttributeDefinition("hk", S))
+            .withProvisionedThroughput(new ProvisionedThroughput(1L, 1L)));
+
+        Map<String, AttributeValue> key = ImmutableMap.of("hk", new AttributeValue("hkValue"));
+        Map<String, AttributeValue> item = ImmutableMap.of(
+            "hk", new AttributeValue("hkValue"),
+            "someField", new AttributeValue("someValue"),
+            "otherField", new AttributeValue().withN("1"));
+        putItemRequest = new PutItemRequest(TABLE, item);
+        conditionalPutItemRequest = new PutItemRequest(TABLE, item)
+            .withConditionExpression("attribute_not_exists(#someField) or #someField = :someValue")
+            .withExpressionAttributeNames(ImmutableMap.of("#someField", "someField"))
+            .withExpressionAttributeValues(ImmutableMap.of(":someValue", new AttributeValue("someValue")));
+        updateItemRequest = new UpdateItemRequest()
+            .withTableName(TABLE)
+            .withKey(key)
+            .withUpdateExpression("set #someField = :someValue")
+            .withExpressionAttributeNames(ImmutableMap.of("#someField", "someField"))
+            .withExpressionAttributeValues(ImmutableMap.of(":someValue", new AttributeValue("someValue")));
+        deleteItemRequest = new DeleteItemRequest(TABLE, key);
+        conditionalDeleteItemRequest = new DeleteItemRequest(TABLE, key)
+            .withConditionExpression("#someField = :someValue")
+            .withExpressionAttributeNames(ImmutableMap.of("#someField", "someField"))
+            .withExpressionAttributeValues(ImmutableMap.of(":someValue", new AttributeValue("someValue")));
+    }
+
+    @Benchmark
+    public Object putItem() {
+        return sharedTable.mapPutItem(putItemRequest).getRequest();
+    }
+
+    @Benchmark
+    public Object conditionalPutItem() {
+        return mapPutItem(conditionalPutItemRequest, MtAmazonDynamoDbBySharedTable.PutItemRequestWrapper::new);
+    }
+
+    @Benchmark
+    public Object conditionalPutItemEagerCopy() {
+        return mapPutItem(conditionalPutItemRequest, EagerCopyRequestWrappers.PutItemRequestWrapper::new);
+    }
+
+    @Benchmark
+    public Object updateItem() {
+        return mapUpdateItem(updateItemRequest, MtAmazonDynamoDbBySharedTable.UpdateItemRequestWrapper::new);
+    }
+
+    @Benchmark
+    public Object updateItemEagerCopy() {
+        return mapUpdateItem(updateItemRequest, EagerCopyRequestWrappers.UpdateItemRequestWrapper::new);
+    }
+
+    @Benchmark
+    public Object deleteItem() {
+        return sharedTable.mapDeleteItem(deleteItemRequest).getRequest();
+    }
+
+    @Benchmark
+    public Object conditionalDeleteItem() {
+        return mapDeleteItem(conditionalDeleteItemRequest, MtAmazonDynamoDbBySharedTable.DeleteItemRequestWrapper::new);
+    }
+
+    @Benchmark
+    public Object conditionalDeleteItemEagerCopy() {
+        return mapDeleteItem(conditionalDeleteItemRequest, EagerCopyRequestWrappers.DeleteItemRequestWrapper::new);
+    }
+
+    /*
+     * The following map requests like MtAmazonDynamoDbBySharedTable does, but with the given request wrapper.
+     */
+    private PutItemRequest mapPutItem(PutItemRequest request, Function<PutItemRequest, RequestWrapper> wrapper) {
+        PutItemRequest putItemRequest = request.clone();
+        TableMapping tableMapping = sharedTable.getTableMapping(putItemRequest.getTableName());
+        putItemRequest.withTableName(tableMapping.getPhysicalTable().getTableName());
+        tableMapping.getConditionMapper().apply(wrapper.apply(putItemRequest));
+        putItemRequest.setItem(tableMapping.getItemMapper().apply(putItemRequest.getItem()));
+        return putItemRequest;
+    }
+
+    private UpdateItemRequest mapUpdateItem(UpdateItemRequest request,
+                                            Function<UpdateItemRequest, RequestWrapper> wrapper) {
+        UpdateItemRequest updateItemRequest = request.clone();
+        TableMapping tableMapping = sharedTable.getTableMapping(updateItemRequest.getTableName());
+        updateItemRequest.withTableName(tableMapping.getPhysicalTable().getTableName());
+        updateItemRequest.setKey(tableMapping.getItemMapper().apply(updateItemRequest.getKey()));
+        tableMapping.getConditionMapper().apply(wrapper.apply(updateItemRequest));
+        return updateItemRequest;
+    }
+
+    private DeleteItemRequest mapDeleteItem(DeleteItemRequest request,
+                                            Function<DeleteItemRequest, RequestWrapper> wrapper) {
+        DeleteItemRequest deleteItemRequest = request.clone();
+        TableMapping tableMapping = sharedTable.getTableMapping(deleteItemRequest.getTableName());
+        deleteItemRequest.withTableName(tableMapping.getPhysicalTable().getTableName());
+        deleteItemRequest.setKey(tableMapping.getItemMapper().apply(deleteItemRequest.getKey()));
+        tableMapping.getConditionMapper().apply(wrapper.apply(deleteItemRequest));
+        return deleteItemRequest;
+    }
+
+}
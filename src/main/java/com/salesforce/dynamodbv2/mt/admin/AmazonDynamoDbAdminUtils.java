@@ -12,14 +12,23 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.awaitility.Awaitility.await;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
+import com.amazonaws.services.dynamodbv2.model.CreateGlobalSecondaryIndexAction;
 import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
 import com.amazonaws.services.dynamodbv2.model.DeleteTableRequest;
+import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndex;
+import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndexUpdate;
+import com.amazonaws.services.dynamodbv2.model.IndexStatus;
 import com.amazonaws.services.dynamodbv2.model.ResourceInUseException;
 import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
+import com.amazonaws.services.dynamodbv2.model.StreamSpecification;
 import com.amazonaws.services.dynamodbv2.model.TableDescription;
 import com.amazonaws.services.dynamodbv2.model.TableStatus;
+import com.amazonaws.services.dynamodbv2.model.UpdateTableRequest;
 import com.salesforce.dynamodbv2.mt.mappers.metadata.DynamoTableDescription;
 import com.salesforce.dynamodbv2.mt.mappers.metadata.DynamoTableDescriptionImpl;
+import java.util.List;
+import java.util.Optional;
 import org.awaitility.Duration;
 import org.awaitility.pollinterval.FixedPollInterval;
 import org.slf4j.Logger;
@@ -102,6 +111,62 @@ public class AmazonDynamoDbAdminUtils {
             .until(() -> !tableExists(tableName, TableStatus.DELETING));
     }
 
+    /**
+     * Sets the stream specification of an existing table and waits for the update to complete.
+     *
+     * @param tableName the name of the table to update
+     * @param streamSpecification the stream specification to set
+     * @param pollIntervalSeconds the interval in seconds between attempts at checking the status of the table being
+     *     updated
+     */
+    public void updateStreamSpecification(String tableName, StreamSpecification streamSpecification,
+                                          int pollIntervalSeconds) {
+        amazonDynamoDb.updateTable(new UpdateTableRequest()
+            .withTableName(tableName)
+            .withStreamSpecification(streamSpecification));
+        int timeoutSeconds = TABLE_DDL_OPERATION_TIMEOUT_SECONDS;
+        log.info("awaiting " + timeoutSeconds + "s for table=" + tableName + " to finish updating ...");
+        await().pollInSameThread()
+            .pollInterval(new FixedPollInterval(new Duration(pollIntervalSeconds, SECONDS)))
+            .atMost(timeoutSeconds, SECONDS)
+            .until(() -> TableStatus.ACTIVE.equals(TableStatus.fromValue(describeTable(tableName).getTableStatus())));
+    }
+
+    /**
+     * Adds a global secondary index to an existing table and waits for the index to become active, i.e., for the
+     * backfill to complete.
+     *
+     * @param tableName the name of the table to update
+     * @param attributeDefinitions the definitions of the key attributes of the index
+     * @param index the index to create
+     * @param pollIntervalSeconds the interval in seconds between attempts at checking the status of the index being
+     *     created
+     */
+    public void createGlobalSecondaryIndex(String tableName, List<AttributeDefinition> attributeDefinitions,
+                                           GlobalSecondaryIndex index, int pollIntervalSeconds) {
+        amazonDynamoDb.updateTable(new UpdateTableRequest()
+            .withTableName(tableName)
+            .withAttributeDefinitions(attributeDefinitions)
+            .withGlobalSecondaryIndexUpdates(new GlobalSecondaryIndexUpdate().withCreate(
+                new CreateGlobalSecondaryIndexAction()
+                    .withIndexName(index.getIndexName())
+                    .withKeySchema(index.getKeySchema())
+                    .withProjection(index.getProjection())
+                    .withProvisionedThroughput(index.getProvisionedThroughput()))));
+        int timeoutSeconds = TABLE_DDL_OPERATION_TIMEOUT_SECONDS;
+        log.info("awaiting " + timeoutSeconds + "s for index=" + index.getIndexName() + " of table=" + tableName
+            + " to become active ...");
+        await().pollInSameThread()
+            .pollInterval(new FixedPollInterval(new Duration(pollIntervalSeconds, SECONDS)))
+            .atMost(timeoutSeconds, SECONDS)
+            .until(() -> Optional.ofNullable(describeTable(tableName).getGlobalSecondaryIndexes())
+                .flatMap(indexes -> indexes.stream()
+                    .filter(description -> index.getIndexName().equals(description.getIndexName()))
+                    .findFirst())
+                .map(description -> IndexStatus.ACTIVE.toString().equals(description.getIndexStatus()))
+                .orElse(false));
+    }
+
     private void awaitTableActive(String tableName, int pollIntervalSeconds) {
         int timeoutSeconds = TABLE_DDL_OPERATION_TIMEOUT_SECONDS;
         log.info("awaiting " + timeoutSeconds + "s for table=" + tableName + " to become active ...");
@@ -8,6 +8,7 @@
 package com.salesforce.dynamodbv2.mt.cache;
 
 import com.google.common.cache.Cache;
+import com.google.common.cache.CacheLoader;
 import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableMap;
 import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
@@ -16,6 +17,7 @@ import java.util.Objects;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 import javax.annotation.Nullable;
@@ -63,6 +65,24 @@ public class MtCache<V> implements Cache<Object, V> {
         this.cache = cache;
     }
 
+    /**
+     * Returns a loader for the cache that an {@code MtCache} wraps, which loads the value of a key by applying the
+     * given function to the key within the key's context.  A cache built with {@code refreshAfterWrite} and such a
+     * loader reloads stale entries while the {@code MtCache} keeps returning the current ones.
+     *
+     * @param contextProvider the context provider of the {@code MtCache} that wraps the cache
+     * @param loader function that loads the value of a key in the current context
+     * @param <V> the type of the values
+     * @return a loader that loads each key in its context
+     */
+    public static <V> CacheLoader<Object, V> newLoader(MtAmazonDynamoDbContextProvider contextProvider,
+                                                       Function<Object, V> loader) {
+        return CacheLoader.from(key -> {
+            Key contextKey = (Key) key;
+            return contextProvider.withContext(contextKey.context, () -> loader.apply(contextKey.key));
+        });
+    }
+
     private Key getKey(Object key) {
         return new Key(contextProvider.getContext(), key);
     }
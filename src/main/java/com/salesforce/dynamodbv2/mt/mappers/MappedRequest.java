@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2018, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers;
+
+import java.util.function.Function;
+
+/**
+ * A physical request together with the function that maps the corresponding physical result back to the virtual
+ * result.  Splitting a mapped operation this way allows the request to be mapped on the calling thread, and the result
+ * to be mapped on whichever thread completes the physical call.
+ *
+ * @param <RequestT> the request type
+ * @param <ResultT> the result type
+ */
+public class MappedRequest<RequestT, ResultT> {
+
+    private final RequestT request;
+    private final Function<ResultT, ResultT> resultMapper;
+
+    public MappedRequest(RequestT request, Function<ResultT, ResultT> resultMapper) {
+        this.request = request;
+        this.resultMapper = resultMapper;
+    }
+
+    /**
+     * Returns a mapped request whose physical result is returned as is.
+     */
+    public static <RequestT, ResultT> MappedRequest<RequestT, ResultT> withUnmappedResult(RequestT request) {
+        return new MappedRequest<>(request, Function.identity());
+    }
+
+    public RequestT getRequest() {
+        return request;
+    }
+
+    public ResultT mapResult(ResultT result) {
+        return resultMapper.apply(result);
+    }
+
+}
@@ -0,0 +1,381 @@
+/*
+ * Copyright (c) 2018, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.dynamodbv2.AbstractAmazonDynamoDBAsync;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsync;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
+import com.amazonaws.services.dynamodbv2.model.CreateTableResult;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemResult;
+import com.amazonaws.services.dynamodbv2.model.DeleteTableRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteTableResult;
+import com.amazonaws.services.dynamodbv2.model.DescribeTableRequest;
+import com.amazonaws.services.dynamodbv2.model.DescribeTableResult;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.TransactGetItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactGetItemsResult;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsResult;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Asynchronous facade for a multitenant {@code AmazonDynamoDB} instance.  All methods return
+ * {@code CompletableFuture}s and capture the multitenant context of the calling thread when the call is submitted.
+ *
+ * <p>If the multitenant instance implements {@link MtRequestMapper} and a physical {@code AmazonDynamoDBAsync} client
+ * is configured, get|put|update|delete Item, batchGet|batchWrite Item, and query requests are mapped on the calling
+ * thread, sent through the asynchronous client without blocking a thread, and their results are mapped in the
+ * completion stage under the captured context.  This allows a small thread pool to keep many requests in flight.  The
+ * asynchronous client must connect to the same account and region as the {@code AmazonDynamoDB} delegate of the
+ * multitenant instance.  Note that the batch get engine of shared tables is not applied to asynchronous requests.
+ *
+ * <p>All other methods, and all methods of instances that don't implement {@link MtRequestMapper} (e.g., by-account
+ * mappers), run the blocking call on a bounded executor with the captured context.
+ *
+ * <p>Synchronous methods are not supported.
+ */
+public class MtAmazonDynamoDbAsync extends AbstractAmazonDynamoDBAsync {
+
+    private final AmazonDynamoDB mtAmazonDynamoDb;
+    private final Optional<MtRequestMapper> requestMapper;
+    private final AmazonDynamoDBAsync amazonDynamoDbAsync;
+    private final MtAmazonDynamoDbContextProvider mtContext;
+    private final ExecutorService executor;
+
+    private MtAmazonDynamoDbAsync(AmazonDynamoDB mtAmazonDynamoDb,
+                                  AmazonDynamoDBAsync amazonDynamoDbAsync,
+                                  MtAmazonDynamoDbContextProvider mtContext,
+                                  ExecutorService executor) {
+        this.mtAmazonDynamoDb = mtAmazonDynamoDb;
+        this.requestMapper = amazonDynamoDbAsync != null && mtAmazonDynamoDb instanceof MtRequestMapper
+            ? Optional.of((MtRequestMapper) mtAmazonDynamoDb)
+            : Optional.empty();
+        this.amazonDynamoDbAsync = amazonDynamoDbAsync;
+        this.mtContext = mtContext;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<BatchGetItemResult> batchGetItemAsync(BatchGetItemRequest batchGetItemRequest) {
+        return batchGetItemAsync(batchGetItemRequest, null);
+    }
+
+    @Override
+    public CompletableFuture<BatchGetItemResult> batchGetItemAsync(
+        BatchGetItemRequest batchGetItemRequest,
+        AsyncHandler<BatchGetItemRequest, BatchGetItemResult> asyncHandler) {
+        return requestMapper
+            .map(mapper -> mapAndSend(batchGetItemRequest, asyncHandler, mapper::mapBatchGetItem,
+                amazonDynamoDbAsync::batchGetItemAsync))
+            .orElseGet(() -> execute(batchGetItemRequest, asyncHandler, mtAmazonDynamoDb::batchGetItem));
+    }
+
+    @Override
+    public CompletableFuture<BatchWriteItemResult> batchWriteItemAsync(BatchWriteItemRequest batchWriteItemRequest) {
+        return batchWriteItemAsync(batchWriteItemRequest, null);
+    }
+
+    @Override
+    public CompletableFuture<BatchWriteItemResult> batchWriteItemAsync(
+        BatchWriteItemRequest batchWriteItemRequest,
+        AsyncHandler<BatchWriteItemRequest, BatchWriteItemResult> asyncHandler) {
+        return requestMapper
+            .map(mapper -> mapAndSend(batchWriteItemRequest, asyncHandler, mapper::mapBatchWriteItem,
+                amazonDynamoDbAsync::batchWriteItemAsync))
+            .orElseGet(() -> execute(batchWriteItemRequest, asyncHandler, mtAmazonDynamoDb::batchWriteItem));
+    }
+
+    @Override
+    public CompletableFuture<CreateTableResult> createTableAsync(CreateTableRequest createTableRequest) {
+        return createTableAsync(createTableRequest, null);
+    }
+
+    @Override
+    public CompletableFuture<CreateTableResult> createTableAsync(
+        CreateTableRequest createTableRequest,
+        AsyncHandler<CreateTableRequest, CreateTableResult> asyncHandler) {
+        return execute(createTableRequest, asyncHandler, mtAmazonDynamoDb::createTable);
+    }
+
+    @Override
+    public CompletableFuture<DeleteItemResult> deleteItemAsync(DeleteItemRequest deleteItemRequest) {
+        return deleteItemAsync(deleteItemRequest, null);
+    }
+
+    @Override
+    public CompletableFuture<DeleteItemResult> deleteItemAsync(
+        DeleteItemRequest deleteItemRequest,
+        AsyncHandler<DeleteItemRequest, DeleteItemResult> asyncHandler) {
+        return requestMapper
+            .map(mapper -> mapAndSend(deleteItemRequest, asyncHandler, mapper::mapDeleteItem,
+                amazonDynamoDbAsync::deleteItemAsync))
+            .orElseGet(() -> execute(deleteItemRequest, asyncHandler, mtAmazonDynamoDb::deleteItem));
+    }
+
+    @Override
+    public CompletableFuture<DeleteTableResult> deleteTableAsync(DeleteTableRequest deleteTableRequest) {
+        return deleteTableAsync(deleteTableRequest, null);
+    }
+
+    @Override
+    public CompletableFuture<DeleteTableResult> deleteTableAsync(
+        DeleteTableRequest deleteTableRequest,
+        AsyncHandler<DeleteTableRequest, DeleteTableResult> asyncHandler) {
+        return execute(deleteTableRequest, asyncHandler, mtAmazonDynamoDb::deleteTable);
+    }
+
+    @Override
+    public CompletableFuture<DescribeTableResult> describeTableAsync(DescribeTableRequest describeTableRequest) {
+        return describeTableAsync(describeTableRequest, null);
+    }
+
+    @Override
+    public CompletableFuture<DescribeTableResult> describeTableAsync(
+        DescribeTableRequest describeTableRequest,
+        AsyncHandler<DescribeTableRequest, DescribeTableResult> asyncHandler) {
+        return execute(describeTableRequest, asyncHandler, mtAmazonDynamoDb::describeTable);
+    }
+
+    @Override
+    public CompletableFuture<GetItemResult> getItemAsync(GetItemRequest getItemRequest) {
+        return getItemAsync(getItemRequest, null);
+    }
+
+    @Override
+    public CompletableFuture<GetItemResult> getItemAsync(GetItemRequest getItemRequest,
+                                                         AsyncHandler<GetItemRequest, GetItemResult> asyncHandler) {
+        return requestMapper
+            .map(mapper -> mapAndSend(getItemRequest, asyncHandler, mapper::mapGetItem,
+                amazonDynamoDbAsync::getItemAsync))
+            .orElseGet(() -> execute(getItemRequest, asyncHandler, mtAmazonDynamoDb::getItem));
+    }
+
+    @Override
+    public CompletableFuture<PutItemResult> putItemAsync(PutItemRequest putItemRequest) {
+        return putItemAsync(putItemRequest, null);
+    }
+
+    @Override
+    public CompletableFuture<PutItemResult> putItemAsync(PutItemRequest putItemRequest,
+                                                         AsyncHandler<PutItemRequest, PutItemResult> asyncHandler) {
+        return requestMapper
+            .map(mapper -> mapAndSend(putItemRequest, asyncHandler, mapper::mapPutItem,
+                amazonDynamoDbAsync::putItemAsync))
+            .orElseGet(() -> execute(putItemRequest, asyncHandler, mtAmazonDynamoDb::putItem));
+    }
+
+    @Override
+    public CompletableFuture<QueryResult> queryAsync(QueryRequest queryRequest) {
+        return queryAsync(queryRequest, null);
+    }
+
+    @Override
+    public CompletableFuture<QueryResult> queryAsync(QueryRequest queryRequest,
+                                                     AsyncHandler<QueryRequest, QueryResult> asyncHandler) {
+        return requestMapper
+            .map(mapper -> mapAndSend(queryRequest, asyncHandler, mapper::mapQuery, amazonDynamoDbAsync::queryAsync))
+            .orElseGet(() -> execute(queryRequest, asyncHandler, mtAmazonDynamoDb::query));
+    }
+
+    @Override
+    public CompletableFuture<ScanResult> scanAsync(ScanRequest scanRequest) {
+        return scanAsync(scanRequest, null);
+    }
+
+    @Override
+    public CompletableFuture<ScanResult> scanAsync(ScanRequest scanRequest,
+                                                   AsyncHandler<ScanRequest, ScanResult> asyncHandler) {
+        return execute(scanRequest, asyncHandler, mtAmazonDynamoDb::scan);
+    }
+
+    @Override
+    public CompletableFuture<TransactGetItemsResult> transactGetItemsAsync(
+        TransactGetItemsRequest transactGetItemsRequest) {
+        return transactGetItemsAsync(transactGetItemsRequest, null);
+    }
+
+    @Override
+    public CompletableFuture<TransactGetItemsResult> transactGetItemsAsync(
+        TransactGetItemsRequest transactGetItemsRequest,
+        AsyncHandler<TransactGetItemsRequest, TransactGetItemsResult> asyncHandler) {
+        return execute(transactGetItemsRequest, asyncHandler, mtAmazonDynamoDb::transactGetItems);
+    }
+
+    @Override
+    public CompletableFuture<TransactWriteItemsResult> transactWriteItemsAsync(
+        TransactWriteItemsRequest transactWriteItemsRequest) {
+        return transactWriteItemsAsync(transactWriteItemsRequest, null);
+    }
+
+    @Override
+    public CompletableFuture<TransactWriteItemsResult> transactWriteItemsAsync(
+        TransactWriteItemsRequest transactWriteItemsRequest,
+        AsyncHandler<TransactWriteItemsRequest, TransactWriteItemsResult> asyncHandler) {
+        return execute(transactWriteItemsRequest, asyncHandler, mtAmazonDynamoDb::transactWriteItems);
+    }
+
+    @Override
+    public CompletableFuture<UpdateItemResult> updateItemAsync(UpdateItemRequest updateItemRequest) {
+        return updateItemAsync(updateItemRequest, null);
+    }
+
+    @Override
+    public CompletableFuture<UpdateItemResult> updateItemAsync(
+        UpdateItemRequest updateItemRequest,
+        AsyncHandler<UpdateItemRequest, UpdateItemResult> asyncHandler) {
+        return requestMapper
+            .map(mapper -> mapAndSend(updateItemRequest, asyncHandler, mapper::mapUpdateItem,
+                amazonDynamoDbAsync::updateItemAsync))
+            .orElseGet(() -> execute(updateItemRequest, asyncHandler, mtAmazonDynamoDb::updateItem));
+    }
+
+    /*
+     * Maps the request on the calling thread, sends the physical request through the asynchronous client, and maps
+     * the physical result under the captured context once it is available.
+     */
+    private <RequestT extends AmazonWebServiceRequest, ResultT> CompletableFuture<ResultT> mapAndSend(
+        RequestT request,
+        AsyncHandler<RequestT, ResultT> asyncHandler,
+        Function<RequestT, MappedRequest<RequestT, ResultT>> mapper,
+        BiFunction<RequestT, AsyncHandler<RequestT, ResultT>, Future<ResultT>> physicalOperation) {
+        final Optional<String> context = mtContext.getContextOpt();
+        final CompletableFuture<ResultT> physicalResult = new CompletableFuture<>();
+        final MappedRequest<RequestT, ResultT> mappedRequest;
+        try {
+            mappedRequest = mapper.apply(request);
+            physicalOperation.apply(mappedRequest.getRequest(), new AsyncHandler<>() {
+                @Override
+                public void onError(Exception exception) {
+                    physicalResult.completeExceptionally(exception);
+                }
+
+                @Override
+                public void onSuccess(RequestT physicalRequest, ResultT result) {
+                    physicalResult.complete(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            return withAsyncHandler(request, asyncHandler, CompletableFuture.failedFuture(e));
+        }
+        return withAsyncHandler(request, asyncHandler, physicalResult.thenApply(result ->
+            mtContext.withContext(context.orElse(null), mappedRequest::mapResult, result)));
+    }
+
+    /*
+     * Runs the blocking operation on the executor under the context captured on the calling thread.
+     */
+    private <RequestT extends AmazonWebServiceRequest, ResultT> CompletableFuture<ResultT> execute(
+        RequestT request,
+        AsyncHandler<RequestT, ResultT> asyncHandler,
+        Function<RequestT, ResultT> operation) {
+        final Optional<String> context = mtContext.getContextOpt();
+        return withAsyncHandler(request, asyncHandler, CompletableFuture.supplyAsync(() ->
+            mtContext.withContext(context.orElse(null), operation, request), executor));
+    }
+
+    private static <RequestT extends AmazonWebServiceRequest, ResultT> CompletableFuture<ResultT> withAsyncHandler(
+        RequestT request,
+        AsyncHandler<RequestT, ResultT> asyncHandler,
+        CompletableFuture<ResultT> future) {
+        if (asyncHandler == null) {
+            return future;
+        }
+        return future.whenComplete((result, throwable) -> {
+            if (throwable == null) {
+                asyncHandler.onSuccess(request, result);
+            } else {
+                Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                asyncHandler.onError(cause instanceof Exception ? (Exception) cause : new RuntimeException(cause));
+            }
+        });
+    }
+
+    public static MtAmazonDynamoDbAsyncBuilder builder() {
+        return new MtAmazonDynamoDbAsyncBuilder();
+    }
+
+    public static class MtAmazonDynamoDbAsyncBuilder {
+
+        private static final int DEFAULT_THREADS = 8;
+
+        private AmazonDynamoDB mtAmazonDynamoDb;
+        private AmazonDynamoDBAsync amazonDynamoDbAsync;
+        private MtAmazonDynamoDbContextProvider mtContext;
+        private ExecutorService executor;
+
+        public MtAmazonDynamoDbAsyncBuilder withMtAmazonDynamoDb(AmazonDynamoDB mtAmazonDynamoDb) {
+            this.mtAmazonDynamoDb = mtAmazonDynamoDb;
+            return this;
+        }
+
+        public MtAmazonDynamoDbAsyncBuilder withAmazonDynamoDbAsync(AmazonDynamoDBAsync amazonDynamoDbAsync) {
+            this.amazonDynamoDbAsync = amazonDynamoDbAsync;
+            return this;
+        }
+
+        public MtAmazonDynamoDbAsyncBuilder withContext(MtAmazonDynamoDbContextProvider mtContext) {
+            this.mtContext = mtContext;
+            return this;
+        }
+
+        public MtAmazonDynamoDbAsyncBuilder withExecutor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Builds the asynchronous facade.  If no executor is specified, a fixed pool of 8 daemon threads is used for
+         * operations that can't be sent asynchronously.
+         *
+         * @return a newly created {@code MtAmazonDynamoDbAsync} based on the contents of the
+         *     {@code MtAmazonDynamoDbAsyncBuilder}
+         */
+        public MtAmazonDynamoDbAsync build() {
+            Preconditions.checkNotNull(mtAmazonDynamoDb, "mtAmazonDynamoDb is required");
+            Preconditions.checkNotNull(mtContext, "mtContext is required");
+            setDefaults();
+            return new MtAmazonDynamoDbAsync(mtAmazonDynamoDb, amazonDynamoDbAsync, mtContext, executor);
+        }
+
+        private void setDefaults() {
+            if (executor == null) {
+                executor = Executors.newFixedThreadPool(DEFAULT_THREADS,
+                    new ThreadFactoryBuilder().setNameFormat("mt-dynamo-async-%d").setDaemon(true).build());
+            }
+        }
+
+    }
+
+}
@@ -94,10 +94,13 @@ import com.amazonaws.services.dynamodbv2.model.WriteRequest;
 import com.amazonaws.services.dynamodbv2.waiters.AmazonDynamoDBWaiters;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
 import io.micrometer.core.instrument.MeterRegistry;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 /**
@@ -180,12 +183,12 @@ public class MtAmazonDynamoDbBase implements MtAmazonDynamoDb {
 
     @Override
     public BatchWriteItemResult batchWriteItem(BatchWriteItemRequest batchWriteItemRequest) {
-        throw new UnsupportedOperationException();
+        return getAmazonDynamoDb().batchWriteItem(batchWriteItemRequest);
     }
 
     @Override
     public BatchWriteItemResult batchWriteItem(Map<String, List<WriteRequest>> requestItems) {
-        throw new UnsupportedOperationException();
+        return batchWriteItem(new BatchWriteItemRequest().withRequestItems(requestItems));
     }
 
     @Override
@@ -411,6 +414,37 @@ public class MtAmazonDynamoDbBase implements MtAmazonDynamoDb {
         return getAmazonDynamoDb().query(queryRequest);
     }
 
+    /**
+     * Returns an iterator over the items of all pages of the given query.  Subsequent pages are queried and mapped on
+     * the shared query prefetch executor under the current tenant context while the items of the current page are
+     * consumed.
+     *
+     * @param queryRequest the query to execute, whose exclusive start key, if any, is where the first page starts
+     * @param maxPrefetchedPages the maximum number of pages that have been read, but not yet consumed
+     * @param maxPrefetchedBytes the maximum estimated size in bytes of the items of pages that have been read, but not
+     *                           yet consumed
+     * @return an iterator over the items of the query, which should be closed if not consumed completely
+     */
+    public QueryIterator queryIterator(QueryRequest queryRequest, int maxPrefetchedPages, long maxPrefetchedBytes) {
+        return new QueryIterator(queryRequest, this::query, getMtContext(), getQueryPrefetchExecutor(),
+            maxPrefetchedPages, maxPrefetchedBytes);
+    }
+
+    /**
+     * Returns the executor that query iterators read pages on.  By default, all instances share a pool of daemon
+     * threads that are only held while a page is read and are released when idle.
+     */
+    protected Executor getQueryPrefetchExecutor() {
+        return QueryPrefetchExecutorHolder.EXECUTOR;
+    }
+
+    private static class QueryPrefetchExecutorHolder {
+
+        private static final Executor EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("mt-query-prefetch-%d").setDaemon(true).build());
+
+    }
+
     @Override
     public RestoreTableFromBackupResult restoreTableFromBackup(
         RestoreTableFromBackupRequest restoreTableFromBackupRequest) {
@@ -446,12 +480,12 @@ public class MtAmazonDynamoDbBase implements MtAmazonDynamoDb {
 
     @Override
     public TransactGetItemsResult transactGetItems(TransactGetItemsRequest transactGetItemsRequest) {
-        throw new UnsupportedOperationException();
+        return getAmazonDynamoDb().transactGetItems(transactGetItemsRequest);
     }
 
     @Override
     public TransactWriteItemsResult transactWriteItems(TransactWriteItemsRequest transactWriteItemsRequest) {
-        throw new UnsupportedOperationException();
+        return getAmazonDynamoDb().transactWriteItems(transactWriteItemsRequest);
     }
 
     @Override
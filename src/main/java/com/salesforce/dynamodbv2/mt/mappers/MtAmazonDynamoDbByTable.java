@@ -11,9 +11,13 @@ import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
 import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
 import com.amazonaws.services.dynamodbv2.model.BillingMode;
+import com.amazonaws.services.dynamodbv2.model.ConditionCheck;
 import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
 import com.amazonaws.services.dynamodbv2.model.CreateTableResult;
+import com.amazonaws.services.dynamodbv2.model.Delete;
 import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
 import com.amazonaws.services.dynamodbv2.model.DeleteItemResult;
 import com.amazonaws.services.dynamodbv2.model.DeleteTableRequest;
@@ -22,6 +26,7 @@ import com.amazonaws.services.dynamodbv2.model.DescribeTableRequest;
 import com.amazonaws.services.dynamodbv2.model.DescribeTableResult;
 import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
 import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.Put;
 import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
 import com.amazonaws.services.dynamodbv2.model.PutItemResult;
 import com.amazonaws.services.dynamodbv2.model.QueryRequest;
@@ -30,6 +35,13 @@ import com.amazonaws.services.dynamodbv2.model.ScanRequest;
 import com.amazonaws.services.dynamodbv2.model.ScanResult;
 import com.amazonaws.services.dynamodbv2.model.StreamSpecification;
 import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import com.amazonaws.services.dynamodbv2.model.TransactGetItem;
+import com.amazonaws.services.dynamodbv2.model.TransactGetItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactGetItemsResult;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItem;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsResult;
+import com.amazonaws.services.dynamodbv2.model.Update;
 import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
 import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
 import com.google.common.annotations.VisibleForTesting;
@@ -59,11 +71,12 @@ import java.util.stream.Collectors;
  * <p>The following are optional arguments ... - delimiter: a String delimiter used
  * to separate the tenant identifier prefix from the table name
  *
- * <p>Supported: batchGet|get|put Item, create|describe|delete Table, scan, query
+ * <p>Supported: batchGet|batchWrite|get|put Item, transactGet|transactWrite Items, create|describe|delete Table, scan,
+ * query
  *
  * @author msgroi
  */
-public class MtAmazonDynamoDbByTable extends MtAmazonDynamoDbBase {
+public class MtAmazonDynamoDbByTable extends MtAmazonDynamoDbBase implements MtRequestMapper {
 
     private final String delimiter;
     private final Optional<String> tablePrefix;
@@ -95,6 +108,13 @@ public class MtAmazonDynamoDbByTable extends MtAmazonDynamoDbBase {
      */
     @Override
     public BatchGetItemResult batchGetItem(BatchGetItemRequest batchGetItemRequest) {
+        MappedRequest<BatchGetItemRequest, BatchGetItemResult> mappedRequest = mapBatchGetItem(batchGetItemRequest);
+        return mappedRequest.mapResult(getAmazonDynamoDb().batchGetItem(mappedRequest.getRequest()));
+    }
+
+    @Override
+    public MappedRequest<BatchGetItemRequest, BatchGetItemResult> mapBatchGetItem(
+        BatchGetItemRequest batchGetItemRequest) {
         final BatchGetItemRequest batchGetItemRequestWithPrefixedTableNames = batchGetItemRequest.clone();
         batchGetItemRequestWithPrefixedTableNames.clearRequestItemsEntries();
         for (String unqualifiedTableName : batchGetItemRequest.getRequestItems().keySet()) {
@@ -102,20 +122,53 @@ public class MtAmazonDynamoDbByTable extends MtAmazonDynamoDbBase {
                     batchGetItemRequest.getRequestItems().get(unqualifiedTableName));
         }
 
-        final BatchGetItemResult batchGetItemResult = getAmazonDynamoDb()
-                .batchGetItem(batchGetItemRequestWithPrefixedTableNames);
+        return new MappedRequest<>(batchGetItemRequestWithPrefixedTableNames, batchGetItemResult -> {
+            final Map<String, List<Map<String, AttributeValue>>> responsesWithUnprefixedTableNames
+                    = new HashMap<>();
+            for (String qualifiedTableName : batchGetItemResult.getResponses().keySet()) {
+                responsesWithUnprefixedTableNames.put(stripTableNamePrefix(qualifiedTableName),
+                        batchGetItemResult.getResponses().get(qualifiedTableName));
+            }
+            batchGetItemResult.clearResponsesEntries();
+            batchGetItemResult.setUnprocessedKeys(batchGetItemResult.getUnprocessedKeys().entrySet().stream().collect(
+                Collectors.toMap(entry -> stripTableNamePrefix(entry.getKey()), Entry::getValue)));
+            responsesWithUnprefixedTableNames.forEach(batchGetItemResult::addResponsesEntry);
+            return batchGetItemResult;
+        });
+    }
+
+    /**
+     * Transform unqualified table names in request to qualified (by tenant) table names, make the dynamo request, then
+     * transform qualified table names back into unqualified table names in the unprocessed items of the response.
+     */
+    @Override
+    public BatchWriteItemResult batchWriteItem(BatchWriteItemRequest batchWriteItemRequest) {
+        MappedRequest<BatchWriteItemRequest, BatchWriteItemResult> mappedRequest =
+            mapBatchWriteItem(batchWriteItemRequest);
+        return mappedRequest.mapResult(getAmazonDynamoDb().batchWriteItem(mappedRequest.getRequest()));
+    }
 
-        final Map<String, List<Map<String, AttributeValue>>> responsesWithUnprefixedTableNames
-                = new HashMap<>();
-        for (String qualifiedTableName : batchGetItemResult.getResponses().keySet()) {
-            responsesWithUnprefixedTableNames.put(stripTableNamePrefix(qualifiedTableName),
-                    batchGetItemResult.getResponses().get(qualifiedTableName));
+    @Override
+    public MappedRequest<BatchWriteItemRequest, BatchWriteItemResult> mapBatchWriteItem(
+        BatchWriteItemRequest batchWriteItemRequest) {
+        final BatchWriteItemRequest batchWriteItemRequestWithPrefixedTableNames = batchWriteItemRequest.clone();
+        batchWriteItemRequestWithPrefixedTableNames.clearRequestItemsEntries();
+        for (String unqualifiedTableName : batchWriteItemRequest.getRequestItems().keySet()) {
+            batchWriteItemRequestWithPrefixedTableNames.addRequestItemsEntry(
+                buildPrefixedTableName(unqualifiedTableName),
+                batchWriteItemRequest.getRequestItems().get(unqualifiedTableName));
         }
-        batchGetItemResult.clearResponsesEntries();
-        batchGetItemResult.setUnprocessedKeys(batchGetItemResult.getUnprocessedKeys().entrySet().stream().collect(
-            Collectors.toMap(entry -> stripTableNamePrefix(entry.getKey()), Entry::getValue)));
-        responsesWithUnprefixedTableNames.forEach(batchGetItemResult::addResponsesEntry);
-        return batchGetItemResult;
+
+        return new MappedRequest<>(batchWriteItemRequestWithPrefixedTableNames, batchWriteItemResult -> {
+            batchWriteItemResult.setUnprocessedItems(batchWriteItemResult.getUnprocessedItems().entrySet().stream()
+                .collect(Collectors.toMap(entry -> stripTableNamePrefix(entry.getKey()), Entry::getValue)));
+            if (batchWriteItemResult.getItemCollectionMetrics() != null) {
+                batchWriteItemResult.setItemCollectionMetrics(batchWriteItemResult.getItemCollectionMetrics()
+                    .entrySet().stream()
+                    .collect(Collectors.toMap(entry -> stripTableNamePrefix(entry.getKey()), Entry::getValue)));
+            }
+            return batchWriteItemResult;
+        });
     }
 
     /**
@@ -136,9 +189,14 @@ public class MtAmazonDynamoDbByTable extends MtAmazonDynamoDbBase {
 
     @Override
     public DeleteItemResult deleteItem(DeleteItemRequest deleteItemRequest) {
+        return getAmazonDynamoDb().deleteItem(mapDeleteItem(deleteItemRequest).getRequest());
+    }
+
+    @Override
+    public MappedRequest<DeleteItemRequest, DeleteItemResult> mapDeleteItem(DeleteItemRequest deleteItemRequest) {
         deleteItemRequest = deleteItemRequest.clone();
         deleteItemRequest.withTableName(buildPrefixedTableName(deleteItemRequest.getTableName()));
-        return getAmazonDynamoDb().deleteItem(deleteItemRequest);
+        return MappedRequest.withUnmappedResult(deleteItemRequest);
     }
 
     /**
@@ -181,24 +239,39 @@ public class MtAmazonDynamoDbByTable extends MtAmazonDynamoDbBase {
 
     @Override
     public GetItemResult getItem(GetItemRequest getItemRequest) {
+        return getAmazonDynamoDb().getItem(mapGetItem(getItemRequest).getRequest());
+    }
+
+    @Override
+    public MappedRequest<GetItemRequest, GetItemResult> mapGetItem(GetItemRequest getItemRequest) {
         getItemRequest = getItemRequest.clone();
         String prefixedTableName = buildPrefixedTableName(getItemRequest.getTableName());
         getItemRequest.withTableName(prefixedTableName);
-        return getAmazonDynamoDb().getItem(getItemRequest);
+        return MappedRequest.withUnmappedResult(getItemRequest);
     }
 
     @Override
     public PutItemResult putItem(PutItemRequest putItemRequest) {
+        return getAmazonDynamoDb().putItem(mapPutItem(putItemRequest).getRequest());
+    }
+
+    @Override
+    public MappedRequest<PutItemRequest, PutItemResult> mapPutItem(PutItemRequest putItemRequest) {
         putItemRequest = putItemRequest.clone();
         putItemRequest.withTableName(buildPrefixedTableName(putItemRequest.getTableName()));
-        return getAmazonDynamoDb().putItem(putItemRequest);
+        return MappedRequest.withUnmappedResult(putItemRequest);
     }
 
     @Override
     public QueryResult query(QueryRequest queryRequest) {
+        return getAmazonDynamoDb().query(mapQuery(queryRequest).getRequest());
+    }
+
+    @Override
+    public MappedRequest<QueryRequest, QueryResult> mapQuery(QueryRequest queryRequest) {
         queryRequest = queryRequest.clone();
         queryRequest.withTableName(buildPrefixedTableName(queryRequest.getTableName()));
-        return getAmazonDynamoDb().query(queryRequest);
+        return MappedRequest.withUnmappedResult(queryRequest);
     }
 
     /**
@@ -224,11 +297,72 @@ public class MtAmazonDynamoDbByTable extends MtAmazonDynamoDbBase {
         }
     }
 
+    /**
+     * Transform unqualified table names of the gets in the request to qualified (by tenant) table names.  Responses
+     * don't contain table names, so the result is returned as is.
+     */
+    @Override
+    public TransactGetItemsResult transactGetItems(TransactGetItemsRequest transactGetItemsRequest) {
+        transactGetItemsRequest = transactGetItemsRequest.clone();
+        transactGetItemsRequest.setTransactItems(transactGetItemsRequest.getTransactItems().stream()
+            .map(transactGetItem -> new TransactGetItem().withGet(transactGetItem.getGet().clone()
+                .withTableName(buildPrefixedTableName(transactGetItem.getGet().getTableName()))))
+            .collect(Collectors.toList()));
+        return getAmazonDynamoDb().transactGetItems(transactGetItemsRequest);
+    }
+
+    /**
+     * Transform unqualified table names of the actions in the request to qualified (by tenant) table names, make the
+     * dynamo request, then transform qualified table names back into unqualified table names in the response.
+     */
+    @Override
+    public TransactWriteItemsResult transactWriteItems(TransactWriteItemsRequest transactWriteItemsRequest) {
+        transactWriteItemsRequest = transactWriteItemsRequest.clone();
+        transactWriteItemsRequest.setTransactItems(transactWriteItemsRequest.getTransactItems().stream()
+            .map(this::prefixTableName)
+            .collect(Collectors.toList()));
+        TransactWriteItemsResult transactWriteItemsResult = getAmazonDynamoDb()
+            .transactWriteItems(transactWriteItemsRequest);
+        if (transactWriteItemsResult.getItemCollectionMetrics() != null) {
+            transactWriteItemsResult.setItemCollectionMetrics(transactWriteItemsResult.getItemCollectionMetrics()
+                .entrySet().stream()
+                .collect(Collectors.toMap(entry -> stripTableNamePrefix(entry.getKey()), Entry::getValue)));
+        }
+        return transactWriteItemsResult;
+    }
+
+    private TransactWriteItem prefixTableName(TransactWriteItem transactWriteItem) {
+        if (transactWriteItem.getPut() != null) {
+            Put put = transactWriteItem.getPut();
+            return new TransactWriteItem().withPut(put.clone()
+                .withTableName(buildPrefixedTableName(put.getTableName())));
+        } else if (transactWriteItem.getUpdate() != null) {
+            Update update = transactWriteItem.getUpdate();
+            return new TransactWriteItem().withUpdate(update.clone()
+                .withTableName(buildPrefixedTableName(update.getTableName())));
+        } else if (transactWriteItem.getDelete() != null) {
+            Delete delete = transactWriteItem.getDelete();
+            return new TransactWriteItem().withDelete(delete.clone()
+                .withTableName(buildPrefixedTableName(delete.getTableName())));
+        } else {
+            Preconditions.checkArgument(transactWriteItem.getConditionCheck() != null,
+                "TransactWriteItem must contain a Put, Update, Delete, or ConditionCheck");
+            ConditionCheck conditionCheck = transactWriteItem.getConditionCheck();
+            return new TransactWriteItem().withConditionCheck(conditionCheck.clone()
+                .withTableName(buildPrefixedTableName(conditionCheck.getTableName())));
+        }
+    }
+
     @Override
     public UpdateItemResult updateItem(UpdateItemRequest updateItemRequest) {
+        return getAmazonDynamoDb().updateItem(mapUpdateItem(updateItemRequest).getRequest());
+    }
+
+    @Override
+    public MappedRequest<UpdateItemRequest, UpdateItemResult> mapUpdateItem(UpdateItemRequest updateItemRequest) {
         updateItemRequest = updateItemRequest.clone();
         updateItemRequest.withTableName(buildPrefixedTableName(updateItemRequest.getTableName()));
-        return getAmazonDynamoDb().updateItem(updateItemRequest);
+        return MappedRequest.withUnmappedResult(updateItemRequest);
     }
 
     public static MtAmazonDynamoDbBuilder builder() {
@@ -1,11 +1,13 @@
 package com.salesforce.dynamodbv2.mt.mappers;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBStreams;
 import com.amazonaws.services.dynamodbv2.model.GetRecordsResult;
 import com.amazonaws.services.dynamodbv2.model.Record;
+import com.amazonaws.services.dynamodbv2.model.StreamViewType;
 import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.MtAmazonDynamoDbBySharedTable;
 import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.MtAmazonDynamoDbStreamsBySharedTable;
 import com.salesforce.dynamodbv2.mt.util.CachingAmazonDynamoDbStreams;
@@ -112,14 +114,36 @@ public interface MtAmazonDynamoDbStreams extends AmazonDynamoDBStreams {
      * @return the appropriate {@link MtAmazonDynamoDbStreams} instance for the given {@link AmazonDynamoDB}
      */
     static MtAmazonDynamoDbStreams createFromDynamo(AmazonDynamoDB dynamoDb, AmazonDynamoDBStreams dynamoDbStreams) {
+        return createFromDynamo(dynamoDb, dynamoDbStreams, StreamViewType.NEW_AND_OLD_IMAGES);
+    }
+
+    /**
+     * Returns an appropriate {@link MtAmazonDynamoDbStreams} instance for the given {@link AmazonDynamoDB} instance
+     * that returns only the record images of the given projection, e.g., {@code KEYS_ONLY} for consumers that only
+     * read the keys of records.  With a shared table strategy, images outside the projection are dropped without being
+     * mapped.  Other strategies return records as they are, so they only support {@code NEW_AND_OLD_IMAGES}.
+     *
+     * @param dynamoDb         the {@link AmazonDynamoDB} instance being used for streaming
+     * @param dynamoDbStreams  the underlying {@link AmazonDynamoDBStreams} instance
+     * @param recordProjection the stream view type that determines which record images are returned
+     * @return the appropriate {@link MtAmazonDynamoDbStreams} instance for the given {@link AmazonDynamoDB}
+     */
+    static MtAmazonDynamoDbStreams createFromDynamo(AmazonDynamoDB dynamoDb,
+                                                    AmazonDynamoDBStreams dynamoDbStreams,
+                                                    StreamViewType recordProjection) {
         checkArgument(dynamoDb instanceof MtAmazonDynamoDbBase);
+        checkNotNull(recordProjection, "recordProjection is required");
 
-        if (dynamoDb instanceof MtAmazonDynamoDbByTable) {
-            return new MtAmazonDynamoDbStreamsByTable(dynamoDbStreams, (MtAmazonDynamoDbByTable) dynamoDb);
+        if (dynamoDb instanceof MtAmazonDynamoDbBySharedTable) {
+            return new MtAmazonDynamoDbStreamsBySharedTable(dynamoDbStreams, (MtAmazonDynamoDbBySharedTable) dynamoDb,
+                recordProjection);
         }
 
-        if (dynamoDb instanceof MtAmazonDynamoDbBySharedTable) {
-            return new MtAmazonDynamoDbStreamsBySharedTable(dynamoDbStreams, (MtAmazonDynamoDbBySharedTable) dynamoDb);
+        checkArgument(recordProjection == StreamViewType.NEW_AND_OLD_IMAGES,
+            "record projection " + recordProjection + " is only supported for shared tables");
+
+        if (dynamoDb instanceof MtAmazonDynamoDbByTable) {
+            return new MtAmazonDynamoDbStreamsByTable(dynamoDbStreams, (MtAmazonDynamoDbByTable) dynamoDb);
         }
 
         throw new UnsupportedOperationException(dynamoDb.getClass().getName() + " is currently not supported");
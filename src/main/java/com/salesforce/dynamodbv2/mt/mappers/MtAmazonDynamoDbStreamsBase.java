@@ -212,6 +212,26 @@ public abstract class MtAmazonDynamoDbStreamsBase<T extends MtAmazonDynamoDbBase
     protected MtGetRecordsResult getMtRecords(GetRecordsRequest request,
                                               Function<Record, MtRecord> mapper,
                                               DistributionSummary meter) {
+        return getMtRecordsInBatch(request, records -> {
+            final List<Record> mtRecords = new ArrayList<>(records.size());
+            for (Record record : records) {
+                mtRecords.add(mapper.apply(record));
+            }
+            return mtRecords;
+        }, meter);
+    }
+
+    /**
+     * Shared helper method for subclasses that map all records of a page at once.
+     *
+     * @param request     GetRecordsRequest for physical stream.
+     * @param batchMapper Function for mapping a list of Records to MtRecords in the same order.
+     * @param meter       Meter to emit size of returned records collection.
+     * @return MtGetRecordsResult result.
+     */
+    protected MtGetRecordsResult getMtRecordsInBatch(GetRecordsRequest request,
+                                                     Function<List<Record>, List<Record>> batchMapper,
+                                                     DistributionSummary meter) {
         final GetRecordsResult result = dynamoDbStreams.getRecords(request);
         final List<Record> records = result.getRecords();
         final String nextIterator = result.getNextShardIterator();
@@ -219,10 +239,7 @@ public abstract class MtAmazonDynamoDbStreamsBase<T extends MtAmazonDynamoDbBase
             meter.record(0);
             return new MtGetRecordsResult().withRecords(records).withNextShardIterator(nextIterator);
         }
-        final List<Record> mtRecords = new ArrayList<>(records.size());
-        for (Record record : records) {
-            mtRecords.add(mapper.apply(record));
-        }
+        final List<Record> mtRecords = batchMapper.apply(records);
         meter.record(mtRecords.size());
         return new MtGetRecordsResult()
             .withRecords(mtRecords)
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2018, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers;
+
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemResult;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+
+/**
+ * Implemented by mappers that can map a virtual request to a physical request separately from executing it.  Each
+ * method maps the given request using the current multitenant context and returns the physical request, which must be
+ * sent to the mapper's underlying {@code AmazonDynamoDB}, together with the function that maps its result back.
+ *
+ * <p>The given requests are not modified.
+ *
+ * @see MtAmazonDynamoDbAsync
+ */
+public interface MtRequestMapper {
+
+    MappedRequest<GetItemRequest, GetItemResult> mapGetItem(GetItemRequest getItemRequest);
+
+    MappedRequest<PutItemRequest, PutItemResult> mapPutItem(PutItemRequest putItemRequest);
+
+    MappedRequest<UpdateItemRequest, UpdateItemResult> mapUpdateItem(UpdateItemRequest updateItemRequest);
+
+    MappedRequest<DeleteItemRequest, DeleteItemResult> mapDeleteItem(DeleteItemRequest deleteItemRequest);
+
+    MappedRequest<QueryRequest, QueryResult> mapQuery(QueryRequest queryRequest);
+
+    MappedRequest<BatchGetItemRequest, BatchGetItemResult> mapBatchGetItem(BatchGetItemRequest batchGetItemRequest);
+
+    MappedRequest<BatchWriteItemRequest, BatchWriteItemResult> mapBatchWriteItem(
+        BatchWriteItemRequest batchWriteItemRequest);
+
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2018, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.google.common.base.Utf8;
+import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates over the items of all pages of a query.  Pages are read on the given executor under the tenant context of
+ * the thread that created the iterator, so the next page is read and mapped while the caller consumes the items of the
+ * current page.  At most one page is read at a time, and the next one is only requested once the previous one has
+ * been read and fewer than {@code maxPrefetchedPages} pages holding fewer than {@code maxPrefetchedBytes} bytes are
+ * buffered.  Item sizes are estimated like DynamoDB does, from the lengths of attribute names and values.  A single
+ * page larger than {@code maxPrefetchedBytes} is still buffered, so the limit does not stall queries with large pages.
+ *
+ * <p>Reading a page never blocks on the consumer, so an executor thread is only held while a page is read, and an
+ * iterator that is neither consumed nor closed stops reading ahead once its buffer is full.  Exceptions and errors
+ * thrown while reading a page are rethrown to the consumer.
+ *
+ * <p>The query's {@code Limit}, if any, bounds the number of items per page, not the total number of items returned.
+ * Once all items of a page have been returned, its last evaluated key is available through
+ * {@link #getLastEvaluatedKey()}, so that an interrupted query can be resumed from it.
+ *
+ * <p>Instances are not thread-safe and should be closed if not consumed completely.
+ */
+public class QueryIterator implements Iterator<Map<String, AttributeValue>>, AutoCloseable {
+
+    // approximate overhead of each list or map value, and of each element within them
+    private static final int CONTAINER_OVERHEAD = 3;
+    private static final int ELEMENT_OVERHEAD = 1;
+
+    private final QueryRequest queryRequest;
+    private final Function<QueryRequest, QueryResult> query;
+    private final MtAmazonDynamoDbContextProvider mtContext;
+    private final String context;
+    private final Executor executor;
+    private final int maxPrefetchedPages;
+    private final long maxPrefetchedBytes;
+
+    // guarded by this
+    private final Deque<Page> pages = new ArrayDeque<>();
+    private long prefetchedBytes;
+    private boolean reading;
+    private boolean lastPageRead;
+    private Throwable failure;
+    private boolean closed;
+
+    private Iterator<Map<String, AttributeValue>> currentItems = Collections.emptyIterator();
+    private Page currentPage;
+    private Map<String, AttributeValue> lastEvaluatedKey;
+    private boolean done;
+
+    /**
+     * Starts reading the pages of the given query.
+     *
+     * @param queryRequest the query request, whose exclusive start key, if any, is the first page's start key
+     * @param query function that executes a query request and returns its mapped result
+     * @param mtContext the context provider whose current context is used to execute the query
+     * @param executor executor used to read pages, which may be shared by many iterators
+     * @param maxPrefetchedPages maximum number of pages that have been read but not yet consumed
+     * @param maxPrefetchedBytes maximum estimated size of the items of pages that have been read but not yet consumed
+     */
+    QueryIterator(QueryRequest queryRequest,
+                  Function<QueryRequest, QueryResult> query,
+                  MtAmazonDynamoDbContextProvider mtContext,
+                  Executor executor,
+                  int maxPrefetchedPages,
+                  long maxPrefetchedBytes) {
+        checkArgument(maxPrefetchedPages > 0, "maxPrefetchedPages must be positive");
+        checkArgument(maxPrefetchedBytes > 0, "maxPrefetchedBytes must be positive");
+        this.queryRequest = queryRequest.clone();
+        this.query = query;
+        this.mtContext = mtContext;
+        this.context = mtContext.getContextOpt().orElse(null);
+        this.executor = executor;
+        this.maxPrefetchedPages = maxPrefetchedPages;
+        this.maxPrefetchedBytes = maxPrefetchedBytes;
+        synchronized (this) {
+            readNextPageIfRoom();
+        }
+    }
+
+    /*
+     * Submits a task that reads the next page, unless a page is being read already, all pages have been read, or the
+     * buffer is full.  Must be called while holding the lock.
+     */
+    private void readNextPageIfRoom() {
+        if (reading || lastPageRead || failure != null || closed || pages.size() >= maxPrefetchedPages
+            || (!pages.isEmpty() && prefetchedBytes >= maxPrefetchedBytes)) {
+            return;
+        }
+        reading = true;
+        final QueryRequest pageQueryRequest = queryRequest.clone();
+        try {
+            executor.execute(() -> mtContext.withContext(context, () -> readPage(pageQueryRequest)));
+        } catch (RejectedExecutionException e) {
+            reading = false;
+            failure = e;
+        }
+    }
+
+    private void readPage(QueryRequest pageQueryRequest) {
+        Page page = null;
+        Throwable pageFailure = null;
+        try {
+            QueryResult queryResult = query.apply(pageQueryRequest);
+            List<Map<String, AttributeValue>> items = queryResult.getItems() == null
+                ? Collections.emptyList() : queryResult.getItems();
+            page = new Page(items, queryResult.getLastEvaluatedKey(), getSize(items));
+        } catch (Throwable t) {
+            // hand over errors as well, so that the consumer never waits for a page that won't come
+            pageFailure = t;
+        }
+        synchronized (this) {
+            reading = false;
+            if (closed) {
+                return;
+            }
+            if (page != null) {
+                pages.add(page);
+                prefetchedBytes += page.size;
+                queryRequest.setExclusiveStartKey(page.lastEvaluatedKey);
+                lastPageRead = page.lastEvaluatedKey == null;
+            } else {
+                failure = pageFailure;
+            }
+            notifyAll();
+            readNextPageIfRoom();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!currentItems.hasNext()) {
+            // all items of the current page have been returned, so it's safe to record its key
+            if (currentPage != null) {
+                lastEvaluatedKey = currentPage.lastEvaluatedKey;
+                done = lastEvaluatedKey == null;
+                currentPage = null;
+            }
+            if (done) {
+                close();
+                return false;
+            }
+            currentPage = take();
+            currentItems = currentPage.items.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public Map<String, AttributeValue> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return currentItems.next();
+    }
+
+    private synchronized Page take() {
+        checkState(!closed, "query is closed");
+        while (pages.isEmpty() && failure == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new RuntimeException("interrupted while waiting for query page", e);
+            }
+        }
+        Page page = pages.poll();
+        if (page == null) {
+            close();
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            throw new RuntimeException("exception reading query page", failure);
+        }
+        prefetchedBytes -= page.size;
+        readNextPageIfRoom();
+        return page;
+    }
+
+    /**
+     * Returns a sequential stream over the remaining items that closes this iterator when it is closed.
+     */
+    public Stream<Map<String, AttributeValue>> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.NONNULL), false)
+            .onClose(this::close);
+    }
+
+    /**
+     * Returns the last evaluated key of the last page whose items have all been returned, or empty if no page has
+     * been consumed completely yet or if the query is complete.
+     */
+    public Optional<Map<String, AttributeValue>> getLastEvaluatedKey() {
+        return Optional.ofNullable(lastEvaluatedKey);
+    }
+
+    /**
+     * Stops reading ahead and releases the buffered pages.  A page that is being read is discarded once read.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        pages.clear();
+        prefetchedBytes = 0;
+    }
+
+    /*
+     * Estimates the size of the given items the way DynamoDB computes item sizes.
+     */
+    private static long getSize(List<Map<String, AttributeValue>> items) {
+        long size = 0;
+        for (Map<String, AttributeValue> item : items) {
+            size += getSize(item);
+        }
+        return size;
+    }
+
+    private static long getSize(Map<String, AttributeValue> attributes) {
+        long size = 0;
+        for (Map.Entry<String, AttributeValue> attribute : attributes.entrySet()) {
+            size += Utf8.encodedLength(attribute.getKey()) + getSize(attribute.getValue());
+        }
+        return size;
+    }
+
+    private static long getSize(AttributeValue value) {
+        if (value.getS() != null) {
+            return Utf8.encodedLength(value.getS());
+        }
+        if (value.getN() != null) {
+            return value.getN().length();
+        }
+        if (value.getB() != null) {
+            return value.getB().remaining();
+        }
+        if (value.getSS() != null) {
+            return value.getSS().stream().mapToLong(Utf8::encodedLength).sum();
+        }
+        if (value.getNS() != null) {
+            return value.getNS().stream().mapToLong(String::length).sum();
+        }
+        if (value.getBS() != null) {
+            return value.getBS().stream().mapToLong(ByteBuffer::remaining).sum();
+        }
+        if (value.getM() != null) {
+            return CONTAINER_OVERHEAD + getSize(value.getM()) + (long) ELEMENT_OVERHEAD * value.getM().size();
+        }
+        if (value.getL() != null) {
+            return CONTAINER_OVERHEAD
+                + value.getL().stream().mapToLong(element -> ELEMENT_OVERHEAD + getSize(element)).sum();
+        }
+        // BOOL and NULL
+        return 1;
+    }
+
+    private static class Page {
+
+        private final List<Map<String, AttributeValue>> items;
+        private final Map<String, AttributeValue> lastEvaluatedKey;
+        private final long size;
+
+        Page(List<Map<String, AttributeValue>> items, Map<String, AttributeValue> lastEvaluatedKey, long size) {
+            this.items = items;
+            this.lastEvaluatedKey = lastEvaluatedKey;
+            this.size = size;
+        }
+
+    }
+
+}
@@ -10,6 +10,7 @@ package com.salesforce.dynamodbv2.mt.mappers.sharedtable;
 import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.B;
 import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.N;
 import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.S;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.salesforce.dynamodbv2.mt.mappers.index.DynamoSecondaryIndex.DynamoSecondaryIndexType.GSI;
 import static com.salesforce.dynamodbv2.mt.mappers.index.DynamoSecondaryIndex.DynamoSecondaryIndexType.LSI;
@@ -17,6 +18,7 @@ import static java.util.Optional.empty;
 import static java.util.Optional.of;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBStreams;
 import com.amazonaws.services.dynamodbv2.model.BillingMode;
 import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
 import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType;
@@ -25,7 +27,10 @@ import com.amazonaws.services.dynamodbv2.model.StreamViewType;
 import com.amazonaws.services.dynamodbv2.model.TableDescription;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.salesforce.dynamodbv2.mt.cache.MtCache;
 import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
 import com.salesforce.dynamodbv2.mt.mappers.CreateTableRequestBuilder;
 import com.salesforce.dynamodbv2.mt.mappers.MappingException;
@@ -41,20 +46,34 @@ import com.salesforce.dynamodbv2.mt.mappers.index.PrimaryKeyMapperByTypeImpl;
 import com.salesforce.dynamodbv2.mt.mappers.metadata.DynamoTableDescription;
 import com.salesforce.dynamodbv2.mt.mappers.metadata.DynamoTableDescriptionImpl;
 import com.salesforce.dynamodbv2.mt.mappers.metadata.PrimaryKey;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.BatchGetItemEngine;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.BudgetedScanEngine;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.DeleteTableJobExecutor;
 import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.MtAmazonDynamoDbBySharedTable;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.ScanBudget;
 import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.TableMapping;
 import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.TableMappingFactory;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.TruncationEngine;
 import com.salesforce.dynamodbv2.mt.repo.MtDynamoDbTableDescriptionRepo;
 import com.salesforce.dynamodbv2.mt.repo.MtTableDescriptionRepo;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import java.security.SecureRandom;
 import java.time.Clock;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
 
 /**
  * Maps virtual tables to a set of 7 physical tables hard-coded into the builder by comparing the types of the elements
@@ -110,9 +129,16 @@ import java.util.stream.Collectors;
  *   Default: {@code MtDynamoDbTableDescriptionRepo}
  *   which stores table definitions in DynamoDB itself.
  * - {@code deleteTableAsync}: a {@code boolean} to indicate whether table data deletion may happen asynchronously after
- *   the table is dropped.  Default: FALSE.
+ *   the table is dropped.  Asynchronous deletes are recorded as jobs in the metadata table and run by any instance
+ *   that holds a lease of {@code deleteTableLeaseMillis} on them, at most {@code deleteTableMaxConcurrentJobs} at a
+ *   time per instance.  Instances poll for unleased jobs every {@code deleteTablePollIntervalMillis}, so jobs of
+ *   crashed instances are resumed and failed jobs are retried.  A job is stopped if its lease cannot be renewed.
+ *   Default: FALSE (max concurrent jobs: 2, lease: 300000, poll interval: 30000).
  * - {@code truncateOnDeleteTable}: a {@code boolean} to indicate whether all of a table's data should be deleted when a
- *   table is dropped.  Default: FALSE.
+ *   table is dropped.  Items are deleted in batches of 25 while scanning {@code truncateSegments} segments in
+ *   parallel on the {@code truncateExecutor}, consuming at most {@code truncateWriteCapacityUnits} write capacity units
+ *   per second.  Progress is recorded in the table's metadata, so an interrupted truncation resumes when the table is
+ *   deleted again.  Default: FALSE (segments: 4, write capacity units: unlimited, executor: one thread per segment).
  * - {@code createTablesEagerly}: a {@code boolean} to indicate whether the physical tables should be created eagerly.
  *   Default: TRUE.
  * - {@code tableMappingFactory}: the {@code TableMappingFactory} that maps virtual to physical table instances.
@@ -121,10 +147,40 @@ import java.util.stream.Collectors;
  *   Default: "MtAmazonDynamoDbBySharedTable".
  * - {@code pollIntervalSeconds}: an {@code Integer} representing the interval in seconds between attempts at checking
  *   the status of the table being created.  Default: 0.
+ * - {@code batchGetItemEngine}: a {@code boolean} to indicate whether batchGetItem requests should be split into
+ *   chunks of at most 100 keys that are sent in parallel on the {@code batchGetItemExecutor}, with unprocessed keys
+ *   retried until {@code batchGetItemTimeLimit} milliseconds have passed.  Default: FALSE (executor: 8 threads,
+ *   time limit: 5000).
+ * - {@code scanBudget}: a {@code ScanBudget} that bounds the physical pages, read capacity units, and time a
+ *   tenant-scoped scan call may spend before returning an empty page with a continuation key, and how the physical
+ *   limit and number of parallel segments (scanned on the {@code scanExecutor}) grow for sparse tenants.
+ *   Default: none, i.e., scans read until they find a matching item (executor: one thread per segment).
+ * - {@code scanContinuationKeySecret}: the AES {@code SecretKey} that encrypts and authenticates the continuation keys
+ *   of budgeted scans, which contain physical keys of other tenants.  Instances that serve the same clients must share
+ *   the secret key to resume each other's scans.  Default: a random 256-bit key per instance.
+ * - {@code parallelScanExecutor}: the bounded {@code ExecutorService} shared by all parallel scans across tenants,
+ *   which scan one segment per thread and queue the remaining segments.  Also scans the metadata table segments
+ *   during warm-up.  Default: 8 threads.
+ * - {@code lazyResultItems}: a {@code boolean} to indicate whether the items of tenant-scoped query and scan results
+ *   are read-only views of the physical items that reverse-map key fields when they are read, rather than copies.
+ *   Saves mapping work for callers that read few attributes of each item or only page through results.
+ *   Default: FALSE.
+ * - {@code streamViewType}: the {@code StreamViewType} of the streams of the default physical tables, if streams are
+ *   enabled.  Can be set per physical table by its name without table prefix, e.g., {@code KEYS_ONLY} for tables whose
+ *   stream consumers only need keys, which keeps stream records small.  Default: NEW_AND_OLD_IMAGES.
+ * - {@code compactNumericKeys}: a {@code boolean} to indicate whether numeric hash key values that are integers in the
+ *   range of a long are written in a compact tagged encoding rather than as scale and unscaled value, which is cheaper
+ *   to encode and decode.  Only applies with {@code binaryHashKey}.  Both encodings are always read, but a number
+ *   written in one encoding is not found by a key lookup in the other, so only enable this for deployments without
+ *   existing items with numeric hash keys.  Default: FALSE.
+ *
+ * <p>Shutting down the built instance stops its delete-table jobs and shuts down the executors that the builder created
+ * by default.  Executors passed to the builder are left to their owners.
  *
  * <p>Limitations ...
  *
- * <p>- Supported methods: create|describe|delete* Table, get|put|update** Item, query***, scan***
+ * <p>- Supported methods: create|describe|delete* Table, get|put|update** Item, batchGet|batchWrite Item,
+ * transactGet|transactWrite Items, query***, scan***
  * - Drop Tables: When dropping a table, if you don't explicitly specify `truncateOnDeleteTable=true`, then table
  * data will be left behind even after the table is dropped.  If a table with the same name is later recreated under
  * the same tenant identifier, the data will be restored.  Note that undetermined behavior should be expected in the
@@ -140,7 +196,10 @@ import java.util.stream.Collectors;
  * ** Updates on gsi hash keys are unsupported.  Performing updates via `UpdateItemRequest` objects
  * `withAttributeUpdates` and `addAttributeUpdateEntry` is not supported since they are considered 'legacy parameters'
  * according DynamoDB docs.  Standard update expressions are supported.
- * *** Only EQ, GT, GE, LT, and LE conditions are supported; GT, GE, LT, and LE via KeyConditions only
+ * *** Legacy KeyConditions support EQ, GT, GE, LT, LE, BETWEEN, and BEGINS_WITH; they are converted to the
+ * KeyConditionExpression, so DynamoDB only reads matching items.  Legacy ScanFilters additionally support NE, CONTAINS,
+ * NOT_CONTAINS, IN, NULL, and NOT_NULL; they are converted to the FilterExpression and joined by AND or OR according
+ * to the request's ConditionalOperator.  Legacy QueryFilters are not supported.
  *
  * <p>Design constraints:
  *
@@ -171,6 +230,8 @@ public class SharedTableBuilder implements TableBuilder {
 
     private BillingMode billingMode;
     private Boolean streamsEnabled;
+    private StreamViewType streamViewType;
+    private final Map<String, StreamViewType> streamViewTypes = new HashMap<>();
     private String name;
     private AmazonDynamoDB amazonDynamoDb;
     private MtAmazonDynamoDbContextProvider mtContext;
@@ -189,9 +250,31 @@ public class SharedTableBuilder implements TableBuilder {
     private String tableDescriptionTableName;
     private Cache<Object, TableMapping> tableMappingCache;
     private Cache<Object, TableDescription> tableDescriptionCache;
+    private Boolean binaryTableDescriptions;
     private MeterRegistry meterRegistry;
     private String scanTenantKey = MtAmazonDynamoDbBase.DEFAULT_SCAN_TENANT_KEY;
     private String scanVirtualTableKey = MtAmazonDynamoDbBase.DEFAULT_SCAN_VIRTUAL_TABLE_KEY;
+    private Boolean batchGetItemEngineEnabled;
+    private ExecutorService batchGetItemExecutor;
+    private Long batchGetItemTimeLimit;
+    private Integer truncateSegments;
+    private Double truncateWriteCapacityUnits;
+    private ExecutorService truncateExecutor;
+    private Integer deleteTableMaxConcurrentJobs;
+    private Long deleteTableLeaseMillis;
+    private Long deleteTablePollIntervalMillis;
+    private ScanBudget scanBudget;
+    private ExecutorService scanExecutor;
+    private SecretKey scanContinuationKeySecret;
+    private ExecutorService parallelScanExecutor;
+    private Boolean lazyResultItems;
+    private Boolean compactNumericKeys;
+    private Set<String> warmUpTenants;
+    private boolean warmUpAllTenants;
+    private Integer warmUpSegments;
+    private final List<ExecutorService> defaultExecutors = new ArrayList<>();
+    private AmazonDynamoDBStreams metadataStreamClient;
+    private Long metadataStreamPollIntervalMillis;
 
     public static SharedTableBuilder builder() {
         return new SharedTableBuilder();
@@ -220,6 +303,29 @@ public class SharedTableBuilder implements TableBuilder {
         return this;
     }
 
+    /**
+     * Sets the stream view type of the default physical tables that don't have a stream view type of their own.
+     *
+     * @param streamViewType the stream view type of the physical table streams
+     * @return this {@code SharedTableBuilder}
+     */
+    public SharedTableBuilder withStreamViewType(StreamViewType streamViewType) {
+        this.streamViewType = streamViewType;
+        return this;
+    }
+
+    /**
+     * Sets the stream view type of the given default physical table.
+     *
+     * @param physicalTableName the name of the physical table, without table prefix
+     * @param streamViewType the stream view type of the physical table's stream
+     * @return this {@code SharedTableBuilder}
+     */
+    public SharedTableBuilder withStreamViewType(String physicalTableName, StreamViewType streamViewType) {
+        this.streamViewTypes.put(physicalTableName, streamViewType);
+        return this;
+    }
+
     public SharedTableBuilder withGetRecordsTimeLimit(long getRecordsTimeLimit) {
         this.getRecordsTimeLimit = getRecordsTimeLimit;
         return this;
@@ -268,6 +374,147 @@ public class SharedTableBuilder implements TableBuilder {
         return this;
     }
 
+    /**
+     * Enables chunking, deduplication, parallel execution, and retrying of unprocessed keys for batchGetItem calls.
+     *
+     * @param batchGetItemEngineEnabled whether batchGetItem calls are handled by a {@code BatchGetItemEngine}
+     * @return this {@code SharedTableBuilder}
+     */
+    public SharedTableBuilder withBatchGetItemEngine(boolean batchGetItemEngineEnabled) {
+        this.batchGetItemEngineEnabled = batchGetItemEngineEnabled;
+        return this;
+    }
+
+    public SharedTableBuilder withBatchGetItemExecutor(ExecutorService batchGetItemExecutor) {
+        this.batchGetItemExecutor = batchGetItemExecutor;
+        return this;
+    }
+
+    public SharedTableBuilder withBatchGetItemTimeLimit(long batchGetItemTimeLimit) {
+        this.batchGetItemTimeLimit = batchGetItemTimeLimit;
+        return this;
+    }
+
+    /**
+     * Bounds the work of tenant-scoped scans, which otherwise read physical pages until they find a matching item.
+     *
+     * @param scanBudget the budget of each tenant-scoped scan call
+     * @return this {@code SharedTableBuilder}
+     */
+    public SharedTableBuilder withScanBudget(ScanBudget scanBudget) {
+        this.scanBudget = scanBudget;
+        return this;
+    }
+
+    public SharedTableBuilder withScanExecutor(ExecutorService scanExecutor) {
+        this.scanExecutor = scanExecutor;
+        return this;
+    }
+
+    /**
+     * Sets the key used to encrypt and authenticate the continuation keys of budgeted scans.
+     *
+     * @param scanContinuationKeySecret an AES key shared by all instances that may resume the same scans
+     * @return this {@code SharedTableBuilder}
+     */
+    public SharedTableBuilder withScanContinuationKeySecret(SecretKey scanContinuationKeySecret) {
+        this.scanContinuationKeySecret = scanContinuationKeySecret;
+        return this;
+    }
+
+    public SharedTableBuilder withParallelScanExecutor(ExecutorService parallelScanExecutor) {
+        this.parallelScanExecutor = parallelScanExecutor;
+        return this;
+    }
+
+    /**
+     * Returns the items of tenant-scoped query and scan results as read-only views of the physical items, rather than
+     * as reverse-mapped copies.
+     *
+     * @param lazyResultItems whether query and scan result items are read-only views
+     * @return this {@code SharedTableBuilder}
+     */
+    public SharedTableBuilder withLazyResultItems(boolean lazyResultItems) {
+        this.lazyResultItems = lazyResultItems;
+        return this;
+    }
+
+    /**
+     * Writes numeric hash key values that are integers in the range of a long in a compact encoding on physical tables
+     * with binary hash keys.
+     *
+     * @param compactNumericKeys whether to write integral numeric keys in the compact encoding
+     * @return this {@code SharedTableBuilder}
+     */
+    public SharedTableBuilder withCompactNumericKeys(boolean compactNumericKeys) {
+        this.compactNumericKeys = compactNumericKeys;
+        return this;
+    }
+
+    /**
+     * Loads the table metadata of the given tenants and creates their table mappings when the instance is built, so
+     * that their first requests don't miss the caches.  Requires the default {@code MtDynamoDbTableDescriptionRepo}.
+     *
+     * @param warmUpTenants the tenants whose table metadata to load
+     * @return this {@code SharedTableBuilder}
+     */
+    public SharedTableBuilder withWarmUpTenants(Set<String> warmUpTenants) {
+        this.warmUpTenants = warmUpTenants;
+        return this;
+    }
+
+    /**
+     * Loads the table metadata of all tenants and creates their table mappings when the instance is built.  Requires
+     * the default {@code MtDynamoDbTableDescriptionRepo}.
+     *
+     * @return this {@code SharedTableBuilder}
+     */
+    public SharedTableBuilder withWarmUpAllTenants() {
+        this.warmUpAllTenants = true;
+        return this;
+    }
+
+    /**
+     * Sets the number of segments in which the table metadata table is scanned in parallel during warm-up.
+     *
+     * @param warmUpSegments the number of parallel scan segments
+     * @return this {@code SharedTableBuilder}
+     */
+    public SharedTableBuilder withWarmUpSegments(int warmUpSegments) {
+        this.warmUpSegments = warmUpSegments;
+        return this;
+    }
+
+    /**
+     * Enables a stream on the table metadata table and follows it in the background until the built instance is shut
+     * down, so that cached table descriptions and table mappings of tables that were dropped or recreated on other
+     * nodes are refreshed or invalidated shortly after the change, rather than when the caches expire.  Requires the
+     * default {@code MtDynamoDbTableDescriptionRepo}.
+     *
+     * <p>Unless they are given, the table description and table mapping caches then default to caches that hold up to
+     * 100000 entries each for an hour.  In case the listener missed a change, an entry that is read five minutes after
+     * it was loaded is reloaded in the background on the parallel scan executor, while the current entry is returned
+     * in the meantime.  Without the listener, the caches are unbounded and never expire.
+     *
+     * @param metadataStreamClient the streams client to read the table metadata stream with
+     * @return this {@code SharedTableBuilder}
+     */
+    public SharedTableBuilder withMetadataStreamListener(AmazonDynamoDBStreams metadataStreamClient) {
+        this.metadataStreamClient = metadataStreamClient;
+        return this;
+    }
+
+    /**
+     * Sets the delay between polls of the table metadata stream.  Defaults to one second.
+     *
+     * @param metadataStreamPollIntervalMillis the delay between polls in milliseconds
+     * @return this {@code SharedTableBuilder}
+     */
+    public SharedTableBuilder withMetadataStreamPollIntervalMillis(long metadataStreamPollIntervalMillis) {
+        this.metadataStreamPollIntervalMillis = metadataStreamPollIntervalMillis;
+        return this;
+    }
+
     /**
      * TODO: write Javadoc.
      *
@@ -289,22 +536,79 @@ public class SharedTableBuilder implements TableBuilder {
                 secondaryIndexMapper,
                 amazonDynamoDb,
                 createTablesEagerly,
-                pollIntervalSeconds
+                pollIntervalSeconds,
+                compactNumericKeys
             );
         }
-        return new MtAmazonDynamoDbBySharedTable(name,
+        if (tableMappingCache == null) {
+            tableMappingCache = metadataStreamClient == null ? CacheBuilder.newBuilder().build()
+                : newRefreshingTableMappingCache();
+        }
+        MtAmazonDynamoDbBySharedTable mtAmazonDynamoDb = new MtAmazonDynamoDbBySharedTable(name,
             mtContext,
             amazonDynamoDb,
             tableMappingFactory,
             mtTableDescriptionRepo,
-            deleteTableAsync,
-            truncateOnDeleteTable,
+            deleteTableAsync
+                ? Optional.of(new DeleteTableJobExecutor(name, mtTableDescriptionRepo, mtContext,
+                    Executors.newFixedThreadPool(deleteTableMaxConcurrentJobs,
+                        new ThreadFactoryBuilder().setNameFormat("mt-delete-table-%d").setDaemon(true).build()),
+                    Executors.newSingleThreadScheduledExecutor(
+                        new ThreadFactoryBuilder().setNameFormat("mt-delete-table-poller-%d").setDaemon(true).build()),
+                    deleteTableMaxConcurrentJobs, deleteTableLeaseMillis, deleteTablePollIntervalMillis, clock,
+                    meterRegistry))
+                : Optional.empty(),
+            truncateOnDeleteTable
+                ? Optional.of(new TruncationEngine(name, amazonDynamoDb, truncateExecutor, truncateSegments,
+                    truncateWriteCapacityUnits, meterRegistry))
+                : Optional.empty(),
             getRecordsTimeLimit,
             clock,
             tableMappingCache,
             meterRegistry,
             scanTenantKey,
-            scanVirtualTableKey);
+            scanVirtualTableKey,
+            batchGetItemEngineEnabled
+                ? Optional.of(new BatchGetItemEngine(name, amazonDynamoDb, batchGetItemExecutor, batchGetItemTimeLimit,
+                    clock, meterRegistry))
+                : Optional.empty(),
+            Optional.ofNullable(scanBudget)
+                .map(budget -> new BudgetedScanEngine(name, amazonDynamoDb, budget, scanExecutor,
+                    scanContinuationKeySecret, clock, meterRegistry)),
+            parallelScanExecutor,
+            lazyResultItems,
+            defaultExecutors);
+        mtAmazonDynamoDb.startDeleteTableJobs();
+        if (warmUpAllTenants || warmUpTenants != null) {
+            MtDynamoDbTableDescriptionRepo repo = (MtDynamoDbTableDescriptionRepo) mtTableDescriptionRepo;
+            mtAmazonDynamoDb.warmUp(warmUpAllTenants
+                ? repo.warmUpAll(warmUpSegments)
+                : repo.warmUp(warmUpTenants, warmUpSegments));
+        }
+        if (metadataStreamClient != null) {
+            mtAmazonDynamoDb.startMetadataStreamListener(((MtDynamoDbTableDescriptionRepo) mtTableDescriptionRepo)
+                .newStreamListener(metadataStreamClient, mtAmazonDynamoDb::refreshTableMapping,
+                    metadataStreamPollIntervalMillis));
+        }
+        return mtAmazonDynamoDb;
+    }
+
+    /*
+     * Returns the default table mapping cache if the metadata stream keeps mappings up to date, which holds mappings
+     * for a long time and reloads mappings that are read after a while in the background, in case the listener missed
+     * a change.  The current mapping is returned until the reload completes.
+     */
+    private Cache<Object, TableMapping> newRefreshingTableMappingCache() {
+        TableMappingFactory mappingFactory = tableMappingFactory;
+        MtTableDescriptionRepo descriptionRepo = mtTableDescriptionRepo;
+        return CacheBuilder.newBuilder()
+            .maximumSize(DEFAULT_REFRESHING_CACHE_MAXIMUM_SIZE)
+            .expireAfterWrite(DEFAULT_REFRESHING_CACHE_EXPIRY_MINUTES, TimeUnit.MINUTES)
+            .refreshAfterWrite(DEFAULT_REFRESHING_CACHE_REFRESH_MINUTES, TimeUnit.MINUTES)
+            .build(CacheLoader.asyncReloading(MtCache.newLoader(mtContext, virtualTableName ->
+                mappingFactory.getTableMapping(new DynamoTableDescriptionImpl(
+                    descriptionRepo.getTableDescription((String) virtualTableName)))),
+                parallelScanExecutor));
     }
 
     private void setDefaults() {
@@ -317,12 +621,16 @@ public class SharedTableBuilder implements TableBuilder {
         if (this.streamsEnabled == null) {
             streamsEnabled = true;
         }
+        if (this.streamViewType == null) {
+            streamViewType = StreamViewType.NEW_AND_OLD_IMAGES;
+        }
         if (this.binaryHashKey == null) {
             binaryHashKey = false;
         }
         if (this.createTableRequests == null || this.createTableRequests.isEmpty()) {
             this.createTableRequests = buildDefaultCreateTableRequests(this.defaultProvisionedThroughput,
-                    this.billingMode, this.streamsEnabled, this.binaryHashKey);
+                    this.billingMode, this.streamsEnabled, this.binaryHashKey,
+                    tableName -> streamViewTypes.getOrDefault(tableName, streamViewType));
         } else if (this.billingMode.equals(BillingMode.PAY_PER_REQUEST)) {
             this.createTableRequests = createTableRequests.stream()
                     .map(createTableRequest ->
@@ -345,6 +653,24 @@ public class SharedTableBuilder implements TableBuilder {
         if (deleteTableAsync == null) {
             deleteTableAsync = false;
         }
+        if (deleteTableMaxConcurrentJobs == null) {
+            deleteTableMaxConcurrentJobs = DEFAULT_DELETE_TABLE_MAX_CONCURRENT_JOBS;
+        }
+        if (deleteTableLeaseMillis == null) {
+            deleteTableLeaseMillis = 300000L;
+        }
+        if (deleteTablePollIntervalMillis == null) {
+            deleteTablePollIntervalMillis = 30000L;
+        }
+        if (truncateSegments == null) {
+            truncateSegments = DEFAULT_TRUNCATE_SEGMENTS;
+        }
+        if (truncateWriteCapacityUnits == null) {
+            truncateWriteCapacityUnits = Double.POSITIVE_INFINITY;
+        }
+        if (truncateOnDeleteTable && truncateExecutor == null) {
+            truncateExecutor = newDefaultExecutor(truncateSegments, "mt-truncate-%d");
+        }
         if (createTablesEagerly == null) {
             createTablesEagerly = true;
         }
@@ -354,11 +680,20 @@ public class SharedTableBuilder implements TableBuilder {
         if (tableDescriptionTableName == null) {
             tableDescriptionTableName = DEFAULT_TABLE_DESCRIPTION_TABLE_NAME;
         }
-        if (tableDescriptionCache == null) {
-            tableDescriptionCache = CacheBuilder.newBuilder().build();
+        if (meterRegistry == null) {
+            meterRegistry = new CompositeMeterRegistry();
+        }
+        if (binaryTableDescriptions == null) {
+            binaryTableDescriptions = false;
         }
-        if (tableMappingCache == null) {
-            tableMappingCache = CacheBuilder.newBuilder().build();
+        if (warmUpSegments == null) {
+            warmUpSegments = 4;
+        }
+        if (metadataStreamPollIntervalMillis == null) {
+            metadataStreamPollIntervalMillis = 1000L;
+        }
+        if (parallelScanExecutor == null) {
+            parallelScanExecutor = newDefaultExecutor(DEFAULT_PARALLEL_SCAN_THREADS, "mt-parallel-scan-%d");
         }
         if (mtTableDescriptionRepo == null) {
             mtTableDescriptionRepo = MtDynamoDbTableDescriptionRepo.builder()
@@ -369,6 +704,11 @@ public class SharedTableBuilder implements TableBuilder {
                 .withPollIntervalSeconds(pollIntervalSeconds)
                 .withTablePrefix(tablePrefix)
                 .withTableDescriptionCache(tableDescriptionCache)
+                .withBinaryTableDescriptions(binaryTableDescriptions)
+                .withMetadataStream(metadataStreamClient != null)
+                .withDeleteTableJobs(deleteTableAsync)
+                .withWarmUpExecutor(parallelScanExecutor)
+                .withMeterRegistry(meterRegistry)
                 .build();
 
             ((MtDynamoDbTableDescriptionRepo) mtTableDescriptionRepo).createDefaultDescriptionTable();
@@ -379,11 +719,48 @@ public class SharedTableBuilder implements TableBuilder {
         if (clock == null) {
             clock = Clock.systemDefaultZone();
         }
-        if (meterRegistry == null) {
-            meterRegistry = new CompositeMeterRegistry();
+        if (batchGetItemEngineEnabled == null) {
+            batchGetItemEngineEnabled = false;
+        }
+        if (batchGetItemEngineEnabled && batchGetItemExecutor == null) {
+            batchGetItemExecutor = newDefaultExecutor(DEFAULT_BATCH_GET_ITEM_THREADS, "mt-batch-get-item-%d");
+        }
+        if (batchGetItemTimeLimit == null) {
+            batchGetItemTimeLimit = 5000L;
+        }
+        if (lazyResultItems == null) {
+            lazyResultItems = false;
+        }
+        if (compactNumericKeys == null) {
+            compactNumericKeys = false;
+        }
+        if (scanBudget != null && scanExecutor == null) {
+            scanExecutor = newDefaultExecutor(scanBudget.getMaxSegments(), "mt-scan-%d");
+        }
+        if (scanBudget != null && scanContinuationKeySecret == null) {
+            byte[] secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            scanContinuationKeySecret = new SecretKeySpec(secret, "AES");
         }
     }
 
+    /*
+     * Creates a bounded pool of daemon threads that is shut down along with the built instance.
+     */
+    private ExecutorService newDefaultExecutor(int threads, String nameFormat) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+            new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true).build());
+        defaultExecutors.add(executor);
+        return executor;
+    }
+
+    private static final int DEFAULT_BATCH_GET_ITEM_THREADS = 8;
+    private static final int DEFAULT_PARALLEL_SCAN_THREADS = 8;
+    private static final int DEFAULT_TRUNCATE_SEGMENTS = 4;
+    private static final int DEFAULT_DELETE_TABLE_MAX_CONCURRENT_JOBS = 2;
+    private static final long DEFAULT_REFRESHING_CACHE_MAXIMUM_SIZE = 100_000L;
+    private static final long DEFAULT_REFRESHING_CACHE_EXPIRY_MINUTES = 60L;
+    private static final long DEFAULT_REFRESHING_CACHE_REFRESH_MINUTES = 5L;
     private static final String HASH_KEY_FIELD = "hk";
     private static final String RANGE_KEY_FIELD = "rk";
 
@@ -391,7 +768,8 @@ public class SharedTableBuilder implements TableBuilder {
      * Builds the tables underlying the SharedTable implementation as described in the class-level Javadoc.
      */
     private static List<CreateTableRequest> buildDefaultCreateTableRequests(long provisionedThroughput,
-        BillingMode billingMode, boolean streamsEnabled, boolean binaryHashKey) {
+        BillingMode billingMode, boolean streamsEnabled, boolean binaryHashKey,
+        Function<String, StreamViewType> streamViewTypes) {
 
         ScalarAttributeType hashKeyType = binaryHashKey ? B : S;
 
@@ -428,7 +806,8 @@ public class SharedTableBuilder implements TableBuilder {
         ).stream().map(createTableRequestBuilder -> {
             setBillingMode(createTableRequestBuilder, billingMode, provisionedThroughput);
             addSis(createTableRequestBuilder, hashKeyType, provisionedThroughput);
-            addStreamSpecification(createTableRequestBuilder, streamsEnabled);
+            addStreamSpecification(createTableRequestBuilder, streamsEnabled,
+                streamViewTypes.apply(createTableRequestBuilder.getTableName()));
             return createTableRequestBuilder.build();
         }).collect(Collectors.toList());
     }
@@ -464,9 +843,9 @@ public class SharedTableBuilder implements TableBuilder {
     }
 
     private static void addStreamSpecification(CreateTableRequestBuilder createTableRequestBuilder,
-        boolean streamsEnabled) {
+        boolean streamsEnabled, StreamViewType streamViewType) {
         createTableRequestBuilder.withStreamSpecification(streamsEnabled
-                ? new StreamSpecification().withStreamViewType(StreamViewType.NEW_AND_OLD_IMAGES)
+                ? new StreamSpecification().withStreamViewType(streamViewType)
                                            .withStreamEnabled(true)
                 : new StreamSpecification().withStreamEnabled(false));
     }
@@ -534,11 +913,41 @@ public class SharedTableBuilder implements TableBuilder {
         return this;
     }
 
+    public SharedTableBuilder withDeleteTableMaxConcurrentJobs(int deleteTableMaxConcurrentJobs) {
+        this.deleteTableMaxConcurrentJobs = deleteTableMaxConcurrentJobs;
+        return this;
+    }
+
+    public SharedTableBuilder withDeleteTableLeaseMillis(long deleteTableLeaseMillis) {
+        this.deleteTableLeaseMillis = deleteTableLeaseMillis;
+        return this;
+    }
+
+    public SharedTableBuilder withDeleteTablePollIntervalMillis(long deleteTablePollIntervalMillis) {
+        this.deleteTablePollIntervalMillis = deleteTablePollIntervalMillis;
+        return this;
+    }
+
     public SharedTableBuilder withTruncateOnDeleteTable(Boolean truncateOnDrop) {
         truncateOnDeleteTable = truncateOnDrop;
         return this;
     }
 
+    public SharedTableBuilder withTruncateSegments(int truncateSegments) {
+        this.truncateSegments = truncateSegments;
+        return this;
+    }
+
+    public SharedTableBuilder withTruncateWriteCapacityUnits(double truncateWriteCapacityUnits) {
+        this.truncateWriteCapacityUnits = truncateWriteCapacityUnits;
+        return this;
+    }
+
+    public SharedTableBuilder withTruncateExecutor(ExecutorService truncateExecutor) {
+        this.truncateExecutor = truncateExecutor;
+        return this;
+    }
+
     public SharedTableBuilder withCreateTablesEagerly(boolean createTablesEagerly) {
         this.createTablesEagerly = createTablesEagerly;
         return this;
@@ -549,16 +958,41 @@ public class SharedTableBuilder implements TableBuilder {
         return this;
     }
 
+    /**
+     * Sets the cache of table mappings.  See {@link #withMetadataStreamListener} for the default.
+     *
+     * @param tableMappingCache cache of table mappings
+     * @return this {@code SharedTableBuilder}
+     */
     public SharedTableBuilder withTableMappingCache(Cache<Object, TableMapping> tableMappingCache) {
         this.tableMappingCache = tableMappingCache;
         return this;
     }
 
+    /**
+     * Sets the cache of table descriptions of the default {@code MtDynamoDbTableDescriptionRepo}.  See
+     * {@link #withMetadataStreamListener} for the default.
+     *
+     * @param tableDescriptionCache cache of table descriptions
+     * @return this {@code SharedTableBuilder}
+     */
     public SharedTableBuilder withTableDescriptionCache(Cache<Object, TableDescription> tableDescriptionCache) {
         this.tableDescriptionCache = tableDescriptionCache;
         return this;
     }
 
+    /**
+     * Stores virtual table definitions in a compact binary format instead of JSON.  Only enable once all instances that
+     * read the table metadata table can decode the binary format.
+     *
+     * @param binaryTableDescriptions whether to store table definitions in binary format
+     * @return this {@code SharedTableBuilder}
+     */
+    public SharedTableBuilder withBinaryTableDescriptions(boolean binaryTableDescriptions) {
+        this.binaryTableDescriptions = binaryTableDescriptions;
+        return this;
+    }
+
     private Optional<String> getTablePrefix() {
         return tablePrefix;
     }
@@ -567,6 +1001,11 @@ public class SharedTableBuilder implements TableBuilder {
         checkNotNull(amazonDynamoDb, "amazonDynamoDb is required");
         checkNotNull(mtContext, "mtContext is required");
         checkNotNull(createTableRequestFactory, "createTableRequestFactory is required");
+        checkArgument(!(warmUpAllTenants || warmUpTenants != null)
+                || mtTableDescriptionRepo instanceof MtDynamoDbTableDescriptionRepo,
+            "warm-up requires an MtDynamoDbTableDescriptionRepo");
+        checkArgument(metadataStreamClient == null || mtTableDescriptionRepo instanceof MtDynamoDbTableDescriptionRepo,
+            "metadata stream listener requires an MtDynamoDbTableDescriptionRepo");
     }
 
     private static class CreateTableRequestWrapper implements HasPrimaryKey {
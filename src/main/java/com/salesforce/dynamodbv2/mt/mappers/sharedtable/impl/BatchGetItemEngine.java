@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2018, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes physical {@code BatchGetItemRequest}s on behalf of {@code MtAmazonDynamoDbBySharedTable}.  Duplicate keys
+ * are removed and the remaining keys are split into chunks of at most 100 keys, which are sent concurrently on a
+ * bounded executor.  Unprocessed keys are retried with jittered exponential backoff until the time limit is reached.
+ * The chunk results are merged into a single result.  Keys that are still unprocessed when the time limit is reached
+ * are returned as unprocessed keys, so callers may continue to resubmit them.
+ *
+ * <p>Note that the 16 MB limit applies to the size of the items returned, which is not known upfront.  DynamoDB
+ * returns the keys that did not fit into a response as unprocessed keys, which are then retried like throttled keys.
+ */
+public class BatchGetItemEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchGetItemEngine.class);
+
+    static final int MAX_KEYS_PER_REQUEST = 100;
+    private static final long BASE_BACKOFF_MILLIS = 25L;
+    private static final long MAX_BACKOFF_MILLIS = 1000L;
+
+    private final AmazonDynamoDB amazonDynamoDb;
+    private final ExecutorService executor;
+    private final long timeLimit;
+    private final Clock clock;
+    private final Timer batchGetItemTime;
+    private final DistributionSummary batchGetItemChunks;
+    private final Counter batchGetItemRetries;
+    private final Counter batchGetItemThrottleRetries;
+
+    /**
+     * Creates a batch get engine.
+     *
+     * @param name the name used as the prefix of the reported metrics
+     * @param amazonDynamoDb the physical {@code AmazonDynamoDB} to send the chunked requests to
+     * @param executor bounded executor used to send chunks concurrently
+     * @param timeLimit time in milliseconds after which unprocessed keys are no longer retried
+     * @param clock clock instance used for enforcing the time limit
+     * @param meterRegistry MeterRegistry for reporting metrics
+     */
+    public BatchGetItemEngine(String name,
+                              AmazonDynamoDB amazonDynamoDb,
+                              ExecutorService executor,
+                              long timeLimit,
+                              Clock clock,
+                              MeterRegistry meterRegistry) {
+        checkArgument(timeLimit > 0, "timeLimit must be positive");
+        this.amazonDynamoDb = amazonDynamoDb;
+        this.executor = executor;
+        this.timeLimit = timeLimit;
+        this.clock = clock;
+        this.batchGetItemTime = meterRegistry.timer(name + ".BatchGetItem.Time");
+        this.batchGetItemChunks = meterRegistry.summary(name + ".BatchGetItem.Chunks");
+        this.batchGetItemRetries = meterRegistry.counter(name + ".BatchGetItem.Retries");
+        this.batchGetItemThrottleRetries = meterRegistry.counter(name + ".BatchGetItem.ThrottleRetries");
+    }
+
+    /**
+     * Retrieves the items for the keys in the given physical request, retrying unprocessed keys until the time limit.
+     */
+    BatchGetItemResult batchGetItem(BatchGetItemRequest request) {
+        return batchGetItemTime.record(() -> batchGetItemInternal(request));
+    }
+
+    private BatchGetItemResult batchGetItemInternal(BatchGetItemRequest request) {
+        long deadline = clock.millis() + timeLimit;
+        List<BatchGetItemRequest> chunks = split(request);
+        batchGetItemChunks.record(chunks.size());
+
+        // let DynamoDB reject empty requests as usual
+        if (chunks.isEmpty()) {
+            return amazonDynamoDb.batchGetItem(request);
+        }
+
+        // no need to hand off a single chunk to another thread
+        if (chunks.size() == 1) {
+            return execute(chunks.get(0), deadline);
+        }
+
+        List<Future<BatchGetItemResult>> futures = chunks.stream()
+            .map(chunk -> executor.submit(() -> execute(chunk, deadline)))
+            .collect(Collectors.toList());
+        BatchGetItemResult mergedResult = newResult();
+        for (Future<BatchGetItemResult> future : futures) {
+            merge(mergedResult, getResult(future));
+        }
+        return mergedResult;
+    }
+
+    /*
+     * Removes duplicate keys and splits the remaining keys into requests of at most MAX_KEYS_PER_REQUEST keys.
+     */
+    private static List<BatchGetItemRequest> split(BatchGetItemRequest request) {
+        List<BatchGetItemRequest> chunks = new ArrayList<>();
+        BatchGetItemRequest chunk = null;
+        int chunkSize = 0;
+        for (Map.Entry<String, KeysAndAttributes> entry : request.getRequestItems().entrySet()) {
+            KeysAndAttributes keysAndAttributes = entry.getValue();
+            for (Map<String, AttributeValue> key : new LinkedHashSet<>(keysAndAttributes.getKeys())) {
+                if (chunk == null || chunkSize == MAX_KEYS_PER_REQUEST) {
+                    chunk = request.clone().withRequestItems(new HashMap<>());
+                    chunks.add(chunk);
+                    chunkSize = 0;
+                }
+                chunk.getRequestItems().computeIfAbsent(entry.getKey(),
+                    tableName -> keysAndAttributes.clone().withKeys(new ArrayList<>())).getKeys().add(key);
+                chunkSize++;
+            }
+        }
+        return chunks;
+    }
+
+    /*
+     * Sends the given chunk and retries unprocessed keys with jittered exponential backoff until the deadline.
+     */
+    private BatchGetItemResult execute(BatchGetItemRequest chunk, long deadline) {
+        BatchGetItemResult chunkResult = newResult();
+        Map<String, KeysAndAttributes> unprocessedKeys = chunk.getRequestItems();
+        boolean throttled = false;
+        for (int attempt = 0; !unprocessedKeys.isEmpty(); attempt++) {
+            if (attempt > 0) {
+                long backoff = getBackoff(attempt);
+                if (clock.millis() + backoff >= deadline || !sleep(backoff)) {
+                    break;
+                }
+                batchGetItemRetries.increment();
+                if (throttled) {
+                    batchGetItemThrottleRetries.increment();
+                }
+            } else if (clock.millis() >= deadline) {
+                break;
+            }
+            try {
+                BatchGetItemResult result = amazonDynamoDb.batchGetItem(chunk.clone()
+                    .withRequestItems(unprocessedKeys));
+                unprocessedKeys = result.getUnprocessedKeys() == null ? new HashMap<>() : result.getUnprocessedKeys();
+                merge(chunkResult, result.withUnprocessedKeys(null));
+                throttled = false;
+            } catch (ProvisionedThroughputExceededException e) {
+                throttled = true;
+                // none of the keys were processed, so retry all of them
+                log.debug("batch get throttled on attempt " + attempt + ", retrying " + unprocessedKeys.size()
+                    + " tables");
+            }
+        }
+        return chunkResult.withUnprocessedKeys(unprocessedKeys);
+    }
+
+    private static long getBackoff(int attempt) {
+        long maxBackoff = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(attempt - 1, 16));
+        return ThreadLocalRandom.current().nextLong(maxBackoff + 1);
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static BatchGetItemResult getResult(Future<BatchGetItemResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for batch get chunk", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("exception executing batch get chunk", e.getCause());
+        }
+    }
+
+    private static BatchGetItemResult newResult() {
+        return new BatchGetItemResult().withResponses(new HashMap<>()).withUnprocessedKeys(new HashMap<>());
+    }
+
+    private static void merge(BatchGetItemResult target, BatchGetItemResult source) {
+        source.getResponses().forEach((tableName, items) ->
+            target.getResponses().computeIfAbsent(tableName, t -> new ArrayList<>()).addAll(items));
+        if (source.getUnprocessedKeys() != null) {
+            source.getUnprocessedKeys().forEach((tableName, keysAndAttributes) ->
+                target.getUnprocessedKeys().computeIfAbsent(tableName,
+                    t -> keysAndAttributes.clone().withKeys(new ArrayList<>()))
+                    .getKeys().addAll(keysAndAttributes.getKeys()));
+        }
+        if (source.getConsumedCapacity() != null) {
+            if (target.getConsumedCapacity() == null) {
+                target.setConsumedCapacity(new ArrayList<>());
+            }
+            target.getConsumedCapacity().addAll(source.getConsumedCapacity());
+        }
+    }
+
+}
@@ -7,6 +7,9 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -15,21 +18,53 @@ import java.util.function.Predicate;
 
 class BinaryFieldMapper implements FieldMapper {
 
+    /*
+     * Table mappings are shared by all tenants whose virtual tables have the same description, so a field mapper sees
+     * the contexts of many tenants.  The cached prefixes are the only per-tenant state of a table mapping, and the
+     * bound keeps the prefixes of the most recently active tenants.
+     */
+    private static final int MAX_CACHED_PREFIXES = 10000;
+
+    /*
+     * Numbers are encoded either as the 4-byte scale followed by the unscaled value of their BigDecimal, or, if they
+     * are integers that fit in a long, as this tag followed by the minimal two's-complement bytes of the long.  The
+     * scale of a DynamoDB number is within a few hundred of zero, so the first byte of the former is always 0x00 or
+     * 0xFF and never the tag.
+     */
+    private static final byte LONG_TAG = 0x01;
+    // any integer with up to 18 digits fits in a long
+    private static final int MAX_LONG_DIGITS = 18;
+
     private final MtAmazonDynamoDbContextProvider mtContext;
-    private final String virtualTableName;
+    private final LoadingCache<String, byte[]> prefixes;
+    private final boolean compactNumbers;
 
     BinaryFieldMapper(MtAmazonDynamoDbContextProvider mtContext,
                       String virtualTableName) {
+        this(mtContext, virtualTableName, false);
+    }
+
+    /*
+     * If compactNumbers is set, integral numbers that fit in a long are written in the tagged long format.  Both
+     * formats are read regardless.
+     */
+    BinaryFieldMapper(MtAmazonDynamoDbContextProvider mtContext,
+                      String virtualTableName,
+                      boolean compactNumbers) {
         this.mtContext = mtContext;
-        this.virtualTableName = virtualTableName;
+        this.compactNumbers = compactNumbers;
+        this.prefixes = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_PREFIXES)
+            .build(CacheLoader.from(context ->
+                BinaryFieldPrefixFunction.INSTANCE.getPrefix(context, virtualTableName)));
     }
 
     @Override
     public AttributeValue apply(FieldMapping fieldMapping, AttributeValue unqualifiedAttribute) {
         checkArgument(fieldMapping.getTarget().getType() == B);
         ByteBuffer binaryValue = convertToBinary(fieldMapping.getSource().getType(), unqualifiedAttribute);
-        FieldValue<ByteBuffer> fieldValue = new FieldValue<>(mtContext.getContext(), virtualTableName, binaryValue);
-        return new AttributeValue().withB(BinaryFieldPrefixFunction.INSTANCE.apply(fieldValue));
+        byte[] prefix = prefixes.getUnchecked(mtContext.getContext());
+        return new AttributeValue().withB(BinaryFieldPrefixFunction.INSTANCE.apply(prefix, binaryValue));
     }
 
     @Override
@@ -42,7 +77,7 @@ class BinaryFieldMapper implements FieldMapper {
     @Override
     public Predicate<AttributeValue> createFilter() {
         final Predicate<ByteBuffer> prefixFilter =
-            BinaryFieldPrefixFunction.INSTANCE.createFilter(mtContext.getContext(), virtualTableName);
+            BinaryFieldPrefixFunction.INSTANCE.createPrefixFilter(prefixes.getUnchecked(mtContext.getContext()));
         return attributeValue -> prefixFilter.test(attributeValue.getB());
     }
 
@@ -52,6 +87,9 @@ class BinaryFieldMapper implements FieldMapper {
             case S:
                 return ByteBuffer.wrap(attributeValue.getS().getBytes(UTF_8));
             case N:
+                if (compactNumbers && isLong(attributeValue.getN())) {
+                    return encodeLong(Long.parseLong(attributeValue.getN()));
+                }
                 BigDecimal bigDecimal = new BigDecimal(attributeValue.getN());
                 int scale = bigDecimal.scale();
                 byte[] unscaled = bigDecimal.unscaledValue().toByteArray();
@@ -67,16 +105,68 @@ class BinaryFieldMapper implements FieldMapper {
         AttributeValue unqualifiedAttribute = new AttributeValue();
         switch (type) {
             case S:
-                return unqualifiedAttribute.withS(new String(value.array(), UTF_8));
+                return unqualifiedAttribute.withS(value.hasArray()
+                    ? new String(value.array(), value.arrayOffset() + value.position(), value.remaining(), UTF_8)
+                    : UTF_8.decode(value.duplicate()).toString());
             case N:
-                int scale = value.getInt();
-                BigInteger unscaled = new BigInteger(value.array(), 4, value.remaining());
+                if (value.get(value.position()) == LONG_TAG) {
+                    return new AttributeValue().withN(Long.toString(decodeLong(value)));
+                }
+                int scale = value.getInt(value.position());
+                BigInteger unscaled = value.hasArray()
+                    ? new BigInteger(value.array(), value.arrayOffset() + value.position() + 4, value.remaining() - 4)
+                    : new BigInteger(getBytes(value, 4));
                 return new AttributeValue().withN(new BigDecimal(unscaled, scale).toPlainString());
             case B:
-                return unqualifiedAttribute.withB(value);
+                // copy, so that the returned value neither exposes the prefix nor pins the qualified buffer
+                return unqualifiedAttribute.withB(ByteBuffer.wrap(getBytes(value, 0)));
             default:
                 throw new IllegalArgumentException("unexpected type " + type + " encountered");
         }
     }
 
+    private static byte[] getBytes(ByteBuffer value, int offset) {
+        byte[] bytes = new byte[value.remaining() - offset];
+        value.duplicate().position(value.position() + offset).get(bytes);
+        return bytes;
+    }
+
+    /*
+     * Returns whether the given number is an integer without exponent that certainly fits in a long.
+     */
+    private static boolean isLong(String number) {
+        int start = !number.isEmpty() && number.charAt(0) == '-' ? 1 : 0;
+        int digits = number.length() - start;
+        if (digits == 0 || digits > MAX_LONG_DIGITS) {
+            return false;
+        }
+        for (int i = start; i < number.length(); i++) {
+            char c = number.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ByteBuffer encodeLong(long value) {
+        int bits = Long.SIZE + 1 - Long.numberOfLeadingZeros(value ^ (value >> (Long.SIZE - 1)));
+        int length = (bits + Byte.SIZE - 1) / Byte.SIZE;
+        ByteBuffer buffer = ByteBuffer.allocate(1 + length).put(LONG_TAG);
+        for (int i = length - 1; i >= 0; i--) {
+            buffer.put((byte) (value >> (i * Byte.SIZE)));
+        }
+        return buffer.flip();
+    }
+
+    private static long decodeLong(ByteBuffer buffer) {
+        int start = buffer.position() + 1;
+        // sign-extends the most significant byte
+        long value = buffer.get(start);
+        for (int i = start + 1; i < buffer.limit(); i++) {
+            value = (value << Byte.SIZE) | (buffer.get(i) & 0xFF);
+        }
+        return value;
+    }
+
 }
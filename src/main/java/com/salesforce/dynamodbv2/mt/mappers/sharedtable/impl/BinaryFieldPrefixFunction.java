@@ -3,6 +3,8 @@ package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.nio.ByteBuffer;
 import java.util.function.Predicate;
 
@@ -11,6 +13,11 @@ public class BinaryFieldPrefixFunction implements FieldPrefixFunction<ByteBuffer
     static final BinaryFieldPrefixFunction INSTANCE = new BinaryFieldPrefixFunction();
 
     private static final byte DELIMITER = 0x00;
+    private static final int MAX_CACHED_PREFIXES = 10000;
+
+    // decoded context and table name by their encoded prefix
+    private static final Cache<ByteBuffer, Prefix> PREFIXES =
+        CacheBuilder.newBuilder().maximumSize(MAX_CACHED_PREFIXES).build();
 
     private BinaryFieldPrefixFunction() {
         super();
@@ -25,36 +32,73 @@ public class BinaryFieldPrefixFunction implements FieldPrefixFunction<ByteBuffer
         return buffer;
     }
 
+    /*
+     * Returns a view of the unqualified value in the given buffer, without copying it, which works for heap buffers
+     * with an offset as well as direct buffers.  Context and table name are decoded once per distinct prefix.
+     */
     @Override
     public FieldValue<ByteBuffer> reverse(ByteBuffer b) {
-        byte[] qualifiedValue = b.array();
-        int idx = indexOf(qualifiedValue, DELIMITER, 0);
+        final int start = b.position();
+        int idx = indexOf(b, DELIMITER, start);
         checkArgument(idx != -1);
-        final String context = new String(qualifiedValue, 0, idx, UTF_8);
-
-        idx++;
-        int idx2 = indexOf(qualifiedValue, DELIMITER, idx);
+        int idx2 = indexOf(b, DELIMITER, idx + 1);
         checkArgument(idx2 != -1);
-        final String tableName = new String(qualifiedValue, idx, idx2 - idx, UTF_8);
 
-        idx2++;
-        byte[] value = new byte[qualifiedValue.length - idx2];
-        System.arraycopy(qualifiedValue, idx2, value, 0, value.length);
+        final Prefix prefix = getPrefix(b.duplicate().position(start).limit(idx2), idx - start);
+        final ByteBuffer value = b.duplicate().position(idx2 + 1).slice();
+        return new FieldValue<>(prefix.context, prefix.tableName, value);
+    }
 
-        return new FieldValue<>(context, tableName, ByteBuffer.wrap(value));
+    private static Prefix getPrefix(ByteBuffer qualifiedPrefix, int contextLength) {
+        Prefix prefix = PREFIXES.getIfPresent(qualifiedPrefix);
+        if (prefix == null) {
+            // copy the key, so that the cache doesn't hold on to the given buffer
+            final byte[] bytes = new byte[qualifiedPrefix.remaining()];
+            qualifiedPrefix.get(bytes);
+            prefix = new Prefix(new String(bytes, 0, contextLength, UTF_8),
+                new String(bytes, contextLength + 1, bytes.length - contextLength - 1, UTF_8));
+            PREFIXES.put(ByteBuffer.wrap(bytes).asReadOnlyBuffer(), prefix);
+        }
+        return prefix;
     }
 
     @Override
     public Predicate<ByteBuffer> createFilter(String context, String tableName) {
+        return createPrefixFilter(getPrefix(context, tableName));
+    }
+
+    /*
+     * Returns the prefix of all qualified values of the given context and table, so that callers can cache it.  The
+     * returned array must not be modified.
+     */
+    byte[] getPrefix(String context, String tableName) {
+        return newBuffer(context, tableName, 0).array();
+    }
+
+    /*
+     * Qualifies the given value with a prefix returned by getPrefix.
+     */
+    ByteBuffer apply(byte[] prefix, ByteBuffer value) {
+        final ByteBuffer unqualifiedValue = value.asReadOnlyBuffer();
+        final byte[] qualifiedValue = new byte[prefix.length + unqualifiedValue.remaining()];
+        System.arraycopy(prefix, 0, qualifiedValue, 0, prefix.length);
+        unqualifiedValue.get(qualifiedValue, prefix.length, qualifiedValue.length - prefix.length);
+        return ByteBuffer.wrap(qualifiedValue);
+    }
+
+    /*
+     * Returns a filter that matches the qualified values with a prefix returned by getPrefix.
+     */
+    Predicate<ByteBuffer> createPrefixFilter(byte[] prefix) {
         // equivalent of String.startsWith
-        final ByteBuffer prefix = newBuffer(context, tableName, 0).flip();
-        final int end = prefix.limit();
-        return b -> b.mismatch(prefix) == end;
+        final ByteBuffer prefixBuffer = ByteBuffer.wrap(prefix).asReadOnlyBuffer();
+        final int end = prefix.length;
+        return b -> b.mismatch(prefixBuffer) == end;
     }
 
-    private static int indexOf(byte[] array, byte target, int start) {
-        for (int i = start; i < array.length; i++) {
-            if (array[i] == target) {
+    private static int indexOf(ByteBuffer buffer, byte target, int start) {
+        for (int i = start; i < buffer.limit(); i++) {
+            if (buffer.get(i) == target) {
                 return i;
             }
         }
@@ -72,4 +116,16 @@ public class BinaryFieldPrefixFunction implements FieldPrefixFunction<ByteBuffer
         return buffer;
     }
 
+    private static class Prefix {
+
+        private final String context;
+        private final String tableName;
+
+        Prefix(String context, String tableName) {
+            this.context = context;
+            this.tableName = tableName;
+        }
+
+    }
+
 }
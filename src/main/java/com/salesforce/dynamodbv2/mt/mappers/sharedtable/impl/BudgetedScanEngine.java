@@ -0,0 +1,451 @@
+/*
+ * Copyright (c) 2018, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.google.common.annotations.VisibleForTesting;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * Executes tenant-scoped physical scans on behalf of {@code MtAmazonDynamoDbBySharedTable} within a {@link ScanBudget}.
+ * Rather than reading physical pages until it finds an item of the current tenant, a call returns an empty page once
+ * its budget is exhausted.  The returned last evaluated key is then a continuation key that encodes the progress of
+ * each segment along with the adapted physical limit and parallelism, so callers page through the results as usual.
+ *
+ * <p>The progress of a segment is the physical key of the last item scanned, which may belong to another tenant.
+ * Continuation keys are therefore encrypted and authenticated with the given secret key, bound to the scope of the
+ * scan, i.e., the tenant and virtual table.  Callers can neither read nor alter them, nor use them in another scope.
+ * All instances that may receive the continuation keys of a scan must use the same secret key.
+ *
+ * <p>Scans are split into {@code maxSegments} segments, unless the request already specifies a segment or resumes
+ * from a virtual key.  Segments are scanned in order, starting with one segment at a time.  If the match density of a
+ * round of physical pages is low, the physical limit and number of segments scanned in parallel are doubled.  A call
+ * returns at most as many items as the request's {@code Limit}, however, even if the adapted physical limit or
+ * parallel segments yield more matching items.
+ */
+public class BudgetedScanEngine {
+
+    @VisibleForTesting
+    static final String CONTINUATION_KEY = "_mt_scan_continuation";
+    private static final byte VERSION = 1;
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH = 128;
+    private static final byte SEGMENT_NOT_STARTED = 0;
+    private static final byte SEGMENT_STARTED = 1;
+    private static final byte SEGMENT_COMPLETED = 2;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final AmazonDynamoDB amazonDynamoDb;
+    private final ScanBudget budget;
+    private final ExecutorService executor;
+    private final SecretKey continuationKeySecret;
+    private final Clock clock;
+    private final DistributionSummary scanPages;
+    private final Counter scanBudgetExhausted;
+
+    /**
+     * Creates a budgeted scan engine.
+     *
+     * @param name the name used as the prefix of the reported metrics
+     * @param amazonDynamoDb the physical {@code AmazonDynamoDB} to send scan requests to
+     * @param budget the budget of each scan call
+     * @param executor executor used to scan segments in parallel
+     * @param continuationKeySecret AES key used to encrypt and authenticate continuation keys
+     * @param clock clock instance used for enforcing the time budget
+     * @param meterRegistry MeterRegistry for reporting metrics
+     */
+    public BudgetedScanEngine(String name,
+                              AmazonDynamoDB amazonDynamoDb,
+                              ScanBudget budget,
+                              ExecutorService executor,
+                              SecretKey continuationKeySecret,
+                              Clock clock,
+                              MeterRegistry meterRegistry) {
+        this.amazonDynamoDb = amazonDynamoDb;
+        this.budget = budget;
+        this.executor = executor;
+        this.continuationKeySecret = continuationKeySecret;
+        this.clock = clock;
+        this.scanPages = meterRegistry.summary(name + ".Scan.Pages");
+        this.scanBudgetExhausted = meterRegistry.counter(name + ".Scan.BudgetExhausted");
+    }
+
+    /**
+     * Returns whether the given exclusive start key is a continuation key returned by this engine, as opposed to a
+     * virtual key.
+     */
+    static boolean isContinuationKey(Map<String, AttributeValue> exclusiveStartKey) {
+        return exclusiveStartKey != null && exclusiveStartKey.containsKey(CONTINUATION_KEY);
+    }
+
+    /**
+     * Scans physical pages until at least one item matches, the scan is complete, or the budget is exhausted.
+     *
+     * @param scanRequest the mapped physical scan request
+     * @param continuationKey the continuation key to resume from, or {@code null} to start a new scan
+     * @param scope identifies the tenant and virtual table, so that continuation keys are only valid for the same scope
+     * @param keyAttributeNames names of the physical key attributes of the scanned table or index
+     * @return the matching physical items and, unless the scan is complete, a continuation key
+     */
+    ScanResult scan(ScanRequest scanRequest,
+                    Map<String, AttributeValue> continuationKey,
+                    String scope,
+                    Set<String> keyAttributeNames) {
+        final long start = clock.millis();
+        final ScanState state = continuationKey == null ? newState(scanRequest) : decode(continuationKey, scope);
+        final Integer maxItems = scanRequest.getLimit();
+        final boolean returnConsumedCapacity = scanRequest.getReturnConsumedCapacity() != null
+            && !ReturnConsumedCapacity.NONE.toString().equals(scanRequest.getReturnConsumedCapacity());
+        final ScanRequest physicalScanRequest = scanRequest.clone().withExclusiveStartKey(null);
+        if (returnConsumedCapacity || budget.hasReadCapacityUnitsLimit()) {
+            physicalScanRequest.setReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        }
+
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        int pages = 0;
+        int scannedCount = 0;
+        double readCapacityUnits = 0;
+        while (!state.checkpoint.isCompleted()) {
+            // scan the next page of the first incomplete segments in parallel
+            List<Integer> segments = IntStream.range(0, state.checkpoint.getTotalSegments())
+                .filter(segment -> !state.checkpoint.isCompleted(segment))
+                .limit(Math.min(state.parallelism, budget.getMaxPages() - pages))
+                .boxed()
+                .collect(Collectors.toList());
+            List<ScanResult> results = scanSegments(physicalScanRequest, state, segments);
+
+            int roundItems = 0;
+            int roundScannedCount = 0;
+            for (int i = 0; i < segments.size(); i++) {
+                ScanResult result = results.get(i);
+                List<Map<String, AttributeValue>> segmentItems = result.getItems();
+                if (maxItems != null && items.size() + segmentItems.size() > maxItems) {
+                    // return only up to the caller's limit and resume the segment after the last returned item;
+                    // segments of which no items are returned are resumed from their previous key
+                    int remaining = maxItems - items.size();
+                    if (remaining > 0) {
+                        items.addAll(segmentItems.subList(0, remaining));
+                        state.checkpoint.update(segments.get(i),
+                            getKey(segmentItems.get(remaining - 1), keyAttributeNames));
+                    }
+                } else {
+                    state.checkpoint.update(segments.get(i), result.getLastEvaluatedKey());
+                    items.addAll(segmentItems);
+                }
+                roundItems += segmentItems.size();
+                roundScannedCount += result.getScannedCount() == null ? 0 : result.getScannedCount();
+                if (result.getConsumedCapacity() != null && result.getConsumedCapacity().getCapacityUnits() != null) {
+                    readCapacityUnits += result.getConsumedCapacity().getCapacityUnits();
+                }
+            }
+            pages += segments.size();
+            scannedCount += roundScannedCount;
+            adapt(state, roundItems, roundScannedCount);
+
+            if (!items.isEmpty() || state.checkpoint.isCompleted()) {
+                break;
+            }
+            if (pages >= budget.getMaxPages()
+                || readCapacityUnits >= budget.getMaxReadCapacityUnits()
+                || clock.millis() - start >= budget.getMaxTimeMillis()) {
+                scanBudgetExhausted.increment();
+                break;
+            }
+        }
+        scanPages.record(pages);
+
+        ScanResult scanResult = new ScanResult()
+            .withItems(items)
+            .withCount(items.size())
+            .withScannedCount(scannedCount)
+            .withLastEvaluatedKey(state.checkpoint.isCompleted() ? null : encode(state, scope));
+        if (returnConsumedCapacity) {
+            scanResult.setConsumedCapacity(new ConsumedCapacity()
+                .withTableName(scanRequest.getTableName())
+                .withCapacityUnits(readCapacityUnits));
+        }
+        return scanResult;
+    }
+
+    /*
+     * If the request specifies a segment or resumes from a virtual key, it is scanned as a single segment, since the
+     * key is not valid for other segments.
+     */
+    private ScanState newState(ScanRequest scanRequest) {
+        boolean split = scanRequest.getTotalSegments() == null && scanRequest.getExclusiveStartKey() == null;
+        ParallelScanCheckpoint checkpoint = new ParallelScanCheckpoint(split ? budget.getMaxSegments() : 1);
+        if (scanRequest.getExclusiveStartKey() != null) {
+            checkpoint.update(0, scanRequest.getExclusiveStartKey());
+        }
+        return new ScanState(checkpoint, 1, scanRequest.getLimit());
+    }
+
+    private List<ScanResult> scanSegments(ScanRequest scanRequest, ScanState state, List<Integer> segments) {
+        List<ScanRequest> segmentScanRequests = segments.stream()
+            .map(segment -> {
+                ScanRequest segmentScanRequest = scanRequest.clone()
+                    .withExclusiveStartKey(state.checkpoint.getLastEvaluatedKey(segment).orElse(null))
+                    .withLimit(state.limit);
+                // single segment scans preserve the segment of the request, if any
+                if (state.checkpoint.getTotalSegments() > 1) {
+                    segmentScanRequest.withSegment(segment).withTotalSegments(state.checkpoint.getTotalSegments());
+                }
+                return segmentScanRequest;
+            })
+            .collect(Collectors.toList());
+
+        // no need to hand off a single segment to another thread
+        if (segmentScanRequests.size() == 1) {
+            return List.of(amazonDynamoDb.scan(segmentScanRequests.get(0)));
+        }
+
+        List<Future<ScanResult>> futures = segmentScanRequests.stream()
+            .map(segmentScanRequest -> executor.submit(() -> amazonDynamoDb.scan(segmentScanRequest)))
+            .collect(Collectors.toList());
+        List<ScanResult> results = new ArrayList<>(futures.size());
+        for (Future<ScanResult> future : futures) {
+            results.add(getResult(future));
+        }
+        return results;
+    }
+
+    /*
+     * Doubles the physical limit and parallelism if few of the scanned items matched.
+     */
+    private void adapt(ScanState state, int matchedCount, int scannedCount) {
+        if (scannedCount == 0 || (double) matchedCount / scannedCount >= budget.getLowMatchDensity()) {
+            return;
+        }
+        state.parallelism = Math.min(state.parallelism * 2, state.checkpoint.getTotalSegments());
+        if (state.limit != null && state.limit < budget.getMaxLimit()) {
+            state.limit = (int) Math.min((long) state.limit * 2, budget.getMaxLimit());
+        }
+    }
+
+    private static ScanResult getResult(Future<ScanResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for scan segment", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("exception scanning segment", e.getCause());
+        }
+    }
+
+    private static Map<String, AttributeValue> getKey(Map<String, AttributeValue> item,
+                                                      Set<String> keyAttributeNames) {
+        Map<String, AttributeValue> key = new HashMap<>();
+        keyAttributeNames.forEach(name -> key.put(name, item.get(name)));
+        return key;
+    }
+
+    /*
+     * Serializes the scan state and encrypts it with the scope as associated data.
+     */
+    @VisibleForTesting
+    Map<String, AttributeValue> encode(ScanState state, String scope) {
+        byte[] plaintext;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(VERSION);
+            out.writeInt(state.checkpoint.getTotalSegments());
+            out.writeInt(state.parallelism);
+            out.writeInt(state.limit == null ? -1 : state.limit);
+            for (int segment = 0; segment < state.checkpoint.getTotalSegments(); segment++) {
+                Map<String, AttributeValue> key = state.checkpoint.getLastEvaluatedKey(segment).orElse(null);
+                if (state.checkpoint.isCompleted(segment)) {
+                    out.writeByte(SEGMENT_COMPLETED);
+                } else if (key == null) {
+                    out.writeByte(SEGMENT_NOT_STARTED);
+                } else {
+                    out.writeByte(SEGMENT_STARTED);
+                    writeKey(out, key);
+                }
+            }
+            plaintext = bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to encode continuation key", e);
+        }
+
+        byte[] iv = new byte[IV_LENGTH];
+        RANDOM.nextBytes(iv);
+        byte[] ciphertext;
+        try {
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, continuationKeySecret, new GCMParameterSpec(TAG_LENGTH, iv));
+            cipher.updateAAD(scope.getBytes(UTF_8));
+            ciphertext = cipher.doFinal(plaintext);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("failed to encrypt continuation key", e);
+        }
+        byte[] value = Arrays.copyOf(iv, iv.length + ciphertext.length);
+        System.arraycopy(ciphertext, 0, value, iv.length, ciphertext.length);
+        Map<String, AttributeValue> continuationKey = new HashMap<>();
+        continuationKey.put(CONTINUATION_KEY, new AttributeValue().withB(ByteBuffer.wrap(value)));
+        return continuationKey;
+    }
+
+    /*
+     * Decrypts and deserializes the scan state, rejecting keys that were not encoded by an engine with the same secret
+     * key for the same scope.
+     */
+    @VisibleForTesting
+    ScanState decode(Map<String, AttributeValue> continuationKey, String scope) {
+        checkArgument(isContinuationKey(continuationKey) && continuationKey.get(CONTINUATION_KEY).getB() != null
+            && continuationKey.get(CONTINUATION_KEY).getB().remaining() > IV_LENGTH, "invalid continuation key");
+        ByteBuffer value = continuationKey.get(CONTINUATION_KEY).getB().duplicate();
+        byte[] bytes = new byte[value.remaining()];
+        value.get(bytes);
+        byte[] plaintext;
+        try {
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.DECRYPT_MODE, continuationKeySecret,
+                new GCMParameterSpec(TAG_LENGTH, Arrays.copyOf(bytes, IV_LENGTH)));
+            cipher.updateAAD(scope.getBytes(UTF_8));
+            plaintext = cipher.doFinal(bytes, IV_LENGTH, bytes.length - IV_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("invalid continuation key", e);
+        }
+
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(plaintext));
+            checkArgument(in.readByte() == VERSION, "unsupported continuation key version");
+            ParallelScanCheckpoint checkpoint = new ParallelScanCheckpoint(in.readInt());
+            int parallelism = in.readInt();
+            int limit = in.readInt();
+            checkArgument(parallelism > 0 && parallelism <= checkpoint.getTotalSegments() && limit >= -1,
+                "invalid continuation key");
+            for (int segment = 0; segment < checkpoint.getTotalSegments(); segment++) {
+                byte segmentState = in.readByte();
+                if (segmentState == SEGMENT_COMPLETED) {
+                    checkpoint.update(segment, null);
+                } else if (segmentState == SEGMENT_STARTED) {
+                    checkpoint.update(segment, readKey(in));
+                }
+            }
+            return new ScanState(checkpoint, parallelism, limit < 0 ? null : limit);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("invalid continuation key", e);
+        }
+    }
+
+    private static void writeKey(DataOutputStream out, Map<String, AttributeValue> key) throws IOException {
+        out.writeInt(key.size());
+        for (Map.Entry<String, AttributeValue> entry : key.entrySet()) {
+            out.writeUTF(entry.getKey());
+            AttributeValue value = entry.getValue();
+            if (value.getS() != null) {
+                out.writeByte('S');
+                out.writeUTF(value.getS());
+            } else if (value.getN() != null) {
+                out.writeByte('N');
+                out.writeUTF(value.getN());
+            } else {
+                checkArgument(value.getB() != null, "unsupported key attribute " + entry.getKey());
+                ByteBuffer b = value.getB().duplicate();
+                out.writeByte('B');
+                out.writeInt(b.remaining());
+                while (b.hasRemaining()) {
+                    out.writeByte(b.get());
+                }
+            }
+        }
+    }
+
+    private static Map<String, AttributeValue> readKey(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Map<String, AttributeValue> key = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            String name = in.readUTF();
+            byte type = in.readByte();
+            switch (type) {
+                case 'S':
+                    key.put(name, new AttributeValue().withS(in.readUTF()));
+                    break;
+                case 'N':
+                    key.put(name, new AttributeValue().withN(in.readUTF()));
+                    break;
+                case 'B':
+                    byte[] b = new byte[in.readInt()];
+                    in.readFully(b);
+                    key.put(name, new AttributeValue().withB(ByteBuffer.wrap(b)));
+                    break;
+                default:
+                    throw new IllegalArgumentException("invalid continuation key");
+            }
+        }
+        return key;
+    }
+
+    @VisibleForTesting
+    static class ScanState {
+
+        private final ParallelScanCheckpoint checkpoint;
+        private int parallelism;
+        private Integer limit;
+
+        ScanState(ParallelScanCheckpoint checkpoint, int parallelism, Integer limit) {
+            this.checkpoint = checkpoint;
+            this.parallelism = parallelism;
+            this.limit = limit;
+        }
+
+        ParallelScanCheckpoint getCheckpoint() {
+            return checkpoint;
+        }
+
+        int getParallelism() {
+            return parallelism;
+        }
+
+        Integer getLimit() {
+            return limit;
+        }
+
+    }
+
+}
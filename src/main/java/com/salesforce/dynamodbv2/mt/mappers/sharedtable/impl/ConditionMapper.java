@@ -1,66 +1,116 @@
 package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
 
+import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.S;
+
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.salesforce.dynamodbv2.mt.mappers.index.DynamoSecondaryIndex;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.Expression.Token;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.FieldMapping.Field;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Stream;
 
 /**
  * Applies mapping and prefixing to condition query and conditional update expressions.
  *
+ * <p>Expressions are parsed (see {@link Expression}) to find the virtual fields they refer to and the values those
+ * fields are compared with or set to.  The result is a plan of the expression attribute names to rename, the field
+ * literals to replace, and the values to map, which depends only on the expressions and their expression attribute
+ * names.  Plans are cached, so mapping a request that has the same shape as an earlier request only maps its values.
+ *
  * @author msgroi
  */
 class ConditionMapper {
 
     static final String NAME_PLACEHOLDER = "#___name___";
+    static final String VALUE_PLACEHOLDER = ":___value___";
+
+    /*
+     * Plans don't depend on the tenant, and table mappings are shared by all tenants whose virtual tables have the same
+     * description, so the plans of a condition mapper cover the distinct request shapes that all of those tenants use
+     * against one virtual table.
+     */
+    private static final int MAX_CACHED_PLANS = 1000;
 
     private final TableMapping tableMapping;
     private final FieldMapper fieldMapper;
+    private final Cache<PlanKey, Plan> plans;
 
     ConditionMapper(TableMapping tableMapping, FieldMapper fieldMapper) {
         this.tableMapping = tableMapping;
         this.fieldMapper = fieldMapper;
+        this.plans = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_PLANS).build();
     }
 
     /**
      * Extracts literals referenced in primary and filter expressions and turns them into references to
      * expression names and values.
      */
+    @VisibleForTesting
     void convertFieldNameLiteralsToExpressionNames(RequestWrapper request) {
-        Collection<FieldMapping> fieldMappings =
-            tableMapping.getAllVirtualToPhysicalFieldMappingsDeduped().values();
-        request.setPrimaryExpression(
-            convertFieldNameLiteralsToExpressionNamesInternal(fieldMappings, request.getPrimaryExpression(), request));
-        request.setFilterExpression(
-            convertFieldNameLiteralsToExpressionNamesInternal(fieldMappings, request.getFilterExpression(), request));
+        Map<String, String> expressionAttributeNames = copy(request.getExpressionAttributeNames());
+        Map<String, String> literalPlaceholders = new HashMap<>();
+        AtomicInteger counter = new AtomicInteger(1);
+        request.setPrimaryExpression(getText(convertFieldNameLiterals(request.getPrimaryExpression(),
+            expressionAttributeNames, literalPlaceholders, counter)));
+        request.setFilterExpression(getText(convertFieldNameLiterals(request.getFilterExpression(),
+            expressionAttributeNames, literalPlaceholders, counter)));
+        literalPlaceholders.forEach((literal, placeholder) -> request.putExpressionAttributeName(placeholder, literal));
     }
 
     /**
      * For each virtual-physical field mapping, maps field names and applies field value prefixing for tenant isolation.
      */
     void apply(RequestWrapper request) {
-        convertFieldNameLiteralsToExpressionNames(request);
-        tableMapping.getAllVirtualToPhysicalFieldMappingsDeduped().values().forEach(
-            fieldMapping -> applyKeyConditionToField(request, fieldMapping));
+        PlanKey key = new PlanKey(null, false, request);
+        Plan plan = plans.getIfPresent(key);
+        if (plan == null) {
+            plan = compile(key.copy(), tableMapping.getAllVirtualToPhysicalFieldMappingsDeduped().values(), null);
+            plans.put(plan.key, plan);
+        }
+        apply(plan, request);
     }
 
     /**
-     * Finds a virtual field name reference in the expression attribute names, finds the value in the right-hand side
-     * operand in the primary expression or filter expression, gets its value in the expression attribute values,
-     * applies the mapping, and sets the physical name of the field to that of the target field.
+     * Maps the key condition expression of a query or the filter expression of a scan of the virtual table or the
+     * given virtual secondary index, if not {@code null}.  Field names and values are mapped like for other requests,
+     * except that only the key fields of the index are renamed for queries and scans of an index.  If the expression
+     * does not require the hash key of the table or index to equal a value, a begins_with condition on the physical
+     * hash key is added, so that only items of the current tenant's virtual table are returned.  The prefix it is
+     * compared with is left to the caller: the returned field mapping maps an empty value to the prefix.
      */
-    void applyKeyConditionToField(RequestWrapper request, FieldMapping fieldMapping) {
-        applyKeyConditionToField(
-            request,
-            fieldMapping,
-            request.getPrimaryExpression(),
-            request.getFilterExpression());
+    Optional<FieldMapping> applyToQueryOrScan(RequestWrapper request, DynamoSecondaryIndex virtualSecondaryIndex) {
+        PlanKey key = new PlanKey(virtualSecondaryIndex == null ? null : virtualSecondaryIndex.getIndexName(), true,
+            request);
+        Plan plan = plans.getIfPresent(key);
+        if (plan == null) {
+            Collection<FieldMapping> fieldMappings;
+            String virtualHashKey;
+            if (virtualSecondaryIndex == null) {
+                fieldMappings = tableMapping.getAllVirtualToPhysicalFieldMappingsDeduped().values();
+                virtualHashKey = tableMapping.getVirtualTable().getPrimaryKey().getHashKey();
+            } else {
+                fieldMappings = tableMapping.getIndexPrimaryKeyFieldMappings(virtualSecondaryIndex);
+                virtualHashKey = virtualSecondaryIndex.getPrimaryKey().getHashKey();
+            }
+            plan = compile(key.copy(), fieldMappings, virtualHashKey);
+            plans.put(plan.key, plan);
+        }
+        apply(plan, request);
+        return Optional.ofNullable(plan.prefixFieldMapping);
     }
 
     /**
@@ -75,59 +125,181 @@ class ConditionMapper {
         String primaryExpression, // "#field1 = :value"
         String filterExpression) {
         if (primaryExpression != null) {
+            Expression primary = Expression.parse(primaryExpression);
+            Expression filter = filterExpression == null ? null : Expression.parse(filterExpression);
             String virtualAttrName = fieldMapping.getSource().getName(); // "virtualHk"
             Map<String, String> expressionAttrNames = request.getExpressionAttributeNames(); // "#field1" -> "virtualHk"
-            Optional<String> keyFieldName = expressionAttrNames != null ? expressionAttrNames.entrySet().stream()
-                .filter(entry -> entry.getValue().equals(virtualAttrName)).map(Entry::getKey).findAny()
-                : Optional.empty(); // Optional[#field1]
-            if (keyFieldName.isPresent() && !keyFieldName.get().equals(NAME_PLACEHOLDER)) {
-                Optional<String> virtualValuePlaceholderOpt =
-                    findVirtualValuePlaceholder(primaryExpression, filterExpression, keyFieldName.get()); // ":value"
-                if (virtualValuePlaceholderOpt.isPresent()) {
-                    String virtualValuePlaceholder = virtualValuePlaceholderOpt.get();
+            for (String keyFieldName : getNamePlaceholders(expressionAttrNames, virtualAttrName)) { // "#field1"
+                for (String virtualValuePlaceholder : getValuePlaceholders(primary, filter, keyFieldName)) { // ":value"
                     AttributeValue virtualAttr =
-                            request.getExpressionAttributeValues().get(virtualValuePlaceholder); // {S: hkValue,}
+                        request.getExpressionAttributeValues().get(virtualValuePlaceholder); // {S: hkValue,}
                     AttributeValue physicalAttr =
                         fieldMapping.isContextAware()
-                                ? fieldMapper.apply(fieldMapping, virtualAttr) // {S: ctx.virtualTable.hkValue,}
-                                : virtualAttr;
+                            ? fieldMapper.apply(fieldMapping, virtualAttr) // {S: ctx.virtualTable.hkValue,}
+                            : virtualAttr;
                     request.putExpressionAttributeValue(virtualValuePlaceholder, physicalAttr);
                 }
-                request.putExpressionAttributeName(keyFieldName.get(), fieldMapping.getTarget().getName());
+                request.putExpressionAttributeName(keyFieldName, fieldMapping.getTarget().getName());
             }
         }
     }
 
-    /**
-     * Extracts literals referenced in expressions and turns them into references to expression names and values.
+    /*
+     * Computes the plan for mapping requests with the given key, renaming and mapping the values of the given fields.
+     * If a virtual hash key is given, adds a begins_with condition on its physical field unless the primary expression
+     * requires it to equal a value.
+     */
+    private Plan compile(PlanKey key, Collection<FieldMapping> fieldMappings, String virtualHashKey) {
+        Map<String, String> expressionAttributeNames = copy(key.expressionAttributeNames);
+        Map<String, String> literalPlaceholders = new HashMap<>();
+        AtomicInteger counter = new AtomicInteger(1);
+        Expression primary = convertFieldNameLiterals(key.primaryExpression, expressionAttributeNames,
+            literalPlaceholders, counter);
+        Expression filter = convertFieldNameLiterals(key.filterExpression, expressionAttributeNames,
+            literalPlaceholders, counter);
+
+        FieldMapping prefixFieldMapping = null;
+        if (virtualHashKey != null && !hasEqualityCondition(primary, expressionAttributeNames, virtualHashKey)) {
+            FieldMapping hashKeyFieldMapping = fieldMappings.stream()
+                .filter(fieldMapping -> fieldMapping.getSource().getName().equals(virtualHashKey))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                    "field mapping not found hash-key field " + virtualHashKey));
+            prefixFieldMapping = new FieldMapping(new Field(null, S),
+                new Field(null, hashKeyFieldMapping.getTarget().getType()),
+                hashKeyFieldMapping.getVirtualIndexName(),
+                hashKeyFieldMapping.getPhysicalIndexName(),
+                hashKeyFieldMapping.getIndexType(),
+                hashKeyFieldMapping.isContextAware());
+            expressionAttributeNames.put(NAME_PLACEHOLDER, hashKeyFieldMapping.getTarget().getName());
+            String beginsWith = "begins_with(" + NAME_PLACEHOLDER + ", " + VALUE_PLACEHOLDER + ")";
+            primary = Expression.parse(primary == null ? beginsWith : primary.and(beginsWith));
+        }
+
+        // renames are based on the virtual names, so that renaming one field doesn't affect the next
+        Map<String, String> renamedNames = new HashMap<>();
+        Set<String> mappedValues = new HashSet<>();
+        List<ValueMapping> valueMappings = new ArrayList<>();
+        for (FieldMapping fieldMapping : fieldMappings) {
+            for (String namePlaceholder : getNamePlaceholders(expressionAttributeNames,
+                fieldMapping.getSource().getName())) {
+                renamedNames.put(namePlaceholder, fieldMapping.getTarget().getName());
+                if (fieldMapping.isContextAware()) {
+                    getValuePlaceholders(primary, filter, namePlaceholder).stream()
+                        .filter(mappedValues::add)
+                        .forEach(valuePlaceholder -> valueMappings.add(new ValueMapping(valuePlaceholder,
+                            fieldMapping)));
+                }
+            }
+        }
+        expressionAttributeNames.putAll(renamedNames);
+        expressionAttributeNames.entrySet().removeIf(entry -> key.expressionAttributeNames != null
+            && entry.getValue().equals(key.expressionAttributeNames.get(entry.getKey())));
+
+        return new Plan(key, getText(primary), getText(filter), expressionAttributeNames, valueMappings,
+            prefixFieldMapping);
+    }
+
+    private void apply(Plan plan, RequestWrapper request) {
+        if (!Objects.equals(plan.primaryExpression, request.getPrimaryExpression())) {
+            request.setPrimaryExpression(plan.primaryExpression);
+        }
+        if (!Objects.equals(plan.filterExpression, request.getFilterExpression())) {
+            request.setFilterExpression(plan.filterExpression);
+        }
+        plan.expressionAttributeNames.forEach(request::putExpressionAttributeName);
+        if (!plan.valueMappings.isEmpty()) {
+            Map<String, AttributeValue> virtualValues = request.getExpressionAttributeValues();
+            for (ValueMapping valueMapping : plan.valueMappings) {
+                // undefined placeholders are left for DynamoDB to report
+                AttributeValue virtualValue = virtualValues == null ? null
+                    : virtualValues.get(valueMapping.valuePlaceholder);
+                if (virtualValue != null) {
+                    request.putExpressionAttributeValue(valueMapping.valuePlaceholder,
+                        fieldMapper.apply(valueMapping.fieldMapping, virtualValue));
+                }
+            }
+        }
+    }
+
+    /*
+     * Parses the given expression and replaces literal references to virtual fields with expression attribute names,
+     * reusing the placeholder of a literal that was replaced before.  Returns null if the expression is null.
      *
      * <p>Comments show expected variable values with a sample set of inputs.
      */
-    private String convertFieldNameLiteralsToExpressionNamesInternal(
-        Collection<FieldMapping> fieldMappings, // source = "field", target="field"
+    private Expression convertFieldNameLiterals(
         String conditionExpression, // "field = :value and field2 = :value2 and field = :value3"
-        RequestWrapper request) {
-        String newConditionExpression = conditionExpression;
-        if (conditionExpression != null) {
-            AtomicInteger counter = new AtomicInteger(1);
-            for (FieldMapping fieldMapping : fieldMappings) {
-                String virtualFieldName = fieldMapping.getSource().getName(); // "field"
-                String toFind = " " + virtualFieldName + " ="; // " field ="
-                int start = (" " + newConditionExpression).indexOf(toFind); // 0 - TODO add support for non-EQ operators
-                while (start >= 0) {
-                    String fieldLiteral =
-                            newConditionExpression.substring(start, start + virtualFieldName.length()); // "field"
-                    String fieldPlaceholder =
-                            getNextFieldPlaceholder(request.getExpressionAttributeNames(), counter); // "#field1"
-                    newConditionExpression = conditionExpression
-                        .replaceAll(fieldLiteral + " ", fieldPlaceholder + " ");
-                    // "#field1 = :value and field2 = :value2 and #field1 = :value3"
-                    request.putExpressionAttributeName(fieldPlaceholder, fieldLiteral);
-                    start = (" " + newConditionExpression).indexOf(toFind); // -1
-                }
+        Map<String, String> expressionAttributeNames,
+        Map<String, String> literalPlaceholders,
+        AtomicInteger counter) {
+        if (conditionExpression == null) {
+            return null;
+        }
+        Expression expression = Expression.parse(conditionExpression);
+        Map<String, FieldMapping> fieldMappings = tableMapping.getAllVirtualToPhysicalFieldMappingsDeduped();
+        Map<Token, String> replacements = new HashMap<>();
+        for (Token literal : expression.getLiteralNames()) {
+            String virtualFieldName = literal.getText(); // "field"
+            if (fieldMappings.containsKey(virtualFieldName)) {
+                replacements.put(literal, literalPlaceholders.computeIfAbsent(virtualFieldName, name -> {
+                    String fieldPlaceholder = getNextFieldPlaceholder(expressionAttributeNames, counter); // "#field1"
+                    expressionAttributeNames.put(fieldPlaceholder, name);
+                    return fieldPlaceholder;
+                }));
+            }
+        }
+        // "#field1 = :value and field2 = :value2 and #field1 = :value3"
+        return replacements.isEmpty() ? expression : Expression.parse(expression.replace(replacements));
+    }
+
+    private static boolean hasEqualityCondition(Expression primary,
+                                                Map<String, String> expressionAttributeNames,
+                                                String virtualFieldName) {
+        if (primary == null) {
+            // no filter criteria
+            return false;
+        }
+        return primary.hasEqualityCondition(virtualFieldName)
+            || getNamePlaceholders(expressionAttributeNames, virtualFieldName).stream()
+            .anyMatch(primary::hasEqualityCondition);
+    }
+
+    /*
+     * Returns the expression attribute names that refer to the given virtual field, except for the placeholder of the
+     * physical hash key added by begins_with conditions.
+     */
+    private static List<String> getNamePlaceholders(Map<String, String> expressionAttributeNames,
+                                                    String virtualFieldName) {
+        if (expressionAttributeNames == null) {
+            return Collections.emptyList();
+        }
+        List<String> namePlaceholders = new ArrayList<>();
+        for (Entry<String, String> entry : expressionAttributeNames.entrySet()) {
+            if (entry.getValue().equals(virtualFieldName) && !entry.getKey().equals(NAME_PLACEHOLDER)) {
+                namePlaceholders.add(entry.getKey());
             }
         }
-        return newConditionExpression;
+        return namePlaceholders;
+    }
+
+    private static Set<String> getValuePlaceholders(Expression primary, Expression filter, String name) {
+        Set<String> valuePlaceholders = new LinkedHashSet<>();
+        if (primary != null) {
+            valuePlaceholders.addAll(primary.getValuePlaceholders(name));
+        }
+        if (filter != null) {
+            valuePlaceholders.addAll(filter.getValuePlaceholders(name));
+        }
+        return valuePlaceholders;
+    }
+
+    private static String getText(Expression expression) {
+        return expression == null ? null : expression.getText();
+    }
+
+    private static Map<String, String> copy(Map<String, String> expressionAttributeNames) {
+        return expressionAttributeNames == null ? new HashMap<>() : new HashMap<>(expressionAttributeNames);
     }
 
     /*
@@ -151,29 +323,119 @@ class ConditionMapper {
     static Optional<String> findVirtualValuePlaceholder(String primaryExpression,
         String filterExpression,
         String keyFieldName) {
-        return Stream.of(
-            findVirtualValuePlaceholder(primaryExpression, keyFieldName),
-            findVirtualValuePlaceholder(filterExpression, keyFieldName))
-            .filter(Optional::isPresent)
-            .map(Optional::get)
-            .findFirst();
+        Optional<String> virtualValuePlaceholder = findVirtualValuePlaceholder(primaryExpression, keyFieldName);
+        return virtualValuePlaceholder.isPresent() ? virtualValuePlaceholder
+            : findVirtualValuePlaceholder(filterExpression, keyFieldName);
     }
 
     /**
      * Finds the value in the right-hand side operand of an expression where the left-hand operator is a given field.
-     *
-     * <p>Comments show expected variable values with a sample set of inputs.
      */
     @VisibleForTesting
     static Optional<String> findVirtualValuePlaceholder(String conditionExpression, String keyFieldName) {
-        if (conditionExpression == null) {
+        if (conditionExpression == null || keyFieldName == null) {
             return Optional.empty();
         }
+        return Expression.parse(conditionExpression).getValuePlaceholders(keyFieldName).stream().findFirst();
+    }
+
+    /*
+     * Identifies the requests that share a plan: requests with the same expressions and expression attribute names
+     * against the same virtual table or index.
+     */
+    private static final class PlanKey {
+
+        private final String virtualIndexName;
+        private final boolean queryOrScan;
+        private final String primaryExpression;
+        private final String filterExpression;
+        private final Map<String, String> expressionAttributeNames;
+
+        private PlanKey(String virtualIndexName, boolean queryOrScan, String primaryExpression,
+                        String filterExpression, Map<String, String> expressionAttributeNames) {
+            this.virtualIndexName = virtualIndexName;
+            this.queryOrScan = queryOrScan;
+            this.primaryExpression = primaryExpression;
+            this.filterExpression = filterExpression;
+            this.expressionAttributeNames = expressionAttributeNames;
+        }
+
+        /*
+         * Creates a lookup key that refers to the request's expression attribute names, which may change later.
+         */
+        private PlanKey(String virtualIndexName, boolean queryOrScan, RequestWrapper request) {
+            this(virtualIndexName, queryOrScan, request.getPrimaryExpression(), request.getFilterExpression(),
+                request.getExpressionAttributeNames());
+        }
+
+        /*
+         * Returns a key that can be cached, with its own copy of the expression attribute names.
+         */
+        private PlanKey copy() {
+            return new PlanKey(virtualIndexName, queryOrScan, primaryExpression, filterExpression,
+                expressionAttributeNames == null ? null : new HashMap<>(expressionAttributeNames));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PlanKey other = (PlanKey) o;
+            return queryOrScan == other.queryOrScan
+                && Objects.equals(virtualIndexName, other.virtualIndexName)
+                && Objects.equals(primaryExpression, other.primaryExpression)
+                && Objects.equals(filterExpression, other.filterExpression)
+                && Objects.equals(expressionAttributeNames, other.expressionAttributeNames);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(virtualIndexName, queryOrScan, primaryExpression, filterExpression,
+                expressionAttributeNames);
+        }
+
+    }
+
+    /*
+     * The mapped expressions, the expression attribute names to add or replace, and the values to map of requests with
+     * the same plan key.
+     */
+    private static final class Plan {
+
+        private final PlanKey key;
+        private final String primaryExpression;
+        private final String filterExpression;
+        private final Map<String, String> expressionAttributeNames;
+        private final List<ValueMapping> valueMappings;
+        private final FieldMapping prefixFieldMapping;
+
+        private Plan(PlanKey key, String primaryExpression, String filterExpression,
+                     Map<String, String> expressionAttributeNames, List<ValueMapping> valueMappings,
+                     FieldMapping prefixFieldMapping) {
+            this.key = key;
+            this.primaryExpression = primaryExpression;
+            this.filterExpression = filterExpression;
+            this.expressionAttributeNames = expressionAttributeNames;
+            this.valueMappings = valueMappings;
+            this.prefixFieldMapping = prefixFieldMapping;
+        }
+
+    }
+
+    private static final class ValueMapping {
+
+        private final String valuePlaceholder;
+        private final FieldMapping fieldMapping;
+
+        private ValueMapping(String valuePlaceholder, FieldMapping fieldMapping) {
+            this.valuePlaceholder = valuePlaceholder;
+            this.fieldMapping = fieldMapping;
+        }
 
-        // TODO add support for non-EQ operators
-        final Pattern p = Pattern.compile(keyFieldName + " = ([^ ,]*)");
-        final Matcher m = p.matcher(conditionExpression);
-        return m.find() ? Optional.of(m.group(1)) : Optional.empty();
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2018, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
+import com.salesforce.dynamodbv2.mt.mappers.MtAmazonDynamoDb.TenantTable;
+import com.salesforce.dynamodbv2.mt.repo.MtTableDescriptionRepo;
+import com.salesforce.dynamodbv2.mt.repo.MtTableDescriptionRepo.DeleteTableJob;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.time.Clock;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes asynchronous delete-table requests of {@code MtAmazonDynamoDbBySharedTable} as durable jobs.  A job is
+ * recorded in the metadata of the table to delete, so it survives restarts of the JVM that accepted it.  Any instance
+ * may run a job after acquiring a lease on it.  Leases of running jobs are renewed periodically, so the job of an
+ * instance that crashed is picked up by another instance once its lease has expired.  Failed jobs are retried the same
+ * way.  If a lease cannot be renewed, e.g., because it expired and another instance took over the job, the job is
+ * stopped by interrupting its worker thread.
+ *
+ * <p>At most {@code maxConcurrentJobs} jobs run at a time on a shared worker pool.  A poller periodically renews the
+ * leases of running jobs and claims jobs that are not leased, as long as there is capacity.  Reported metrics are
+ * the number of jobs waiting to be claimed, the number of running jobs, the time from accepting a job to completing
+ * it, and the number of failed jobs.
+ *
+ * <p>The executor owns its worker pool and poller, and shuts both down when it is closed.  Jobs that are still running
+ * are interrupted and, since their leases are no longer renewed, resumed by another instance once the leases expire.
+ */
+public class DeleteTableJobExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(DeleteTableJobExecutor.class);
+
+    private final MtTableDescriptionRepo mtTableDescriptionRepo;
+    private final MtAmazonDynamoDbContextProvider mtContext;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService poller;
+    private final Semaphore capacity;
+    private final long leaseMillis;
+    private final long pollIntervalMillis;
+    private final Clock clock;
+    private final String owner = UUID.randomUUID().toString();
+    private final Map<TenantTable, Future<?>> runningJobs = new ConcurrentHashMap<>();
+    private final AtomicInteger queuedJobs = new AtomicInteger();
+    private final Timer jobLatency;
+    private final Counter jobFailures;
+    private final Counter lostLeases;
+    private volatile Consumer<TenantTable> jobRunner;
+
+    /**
+     * Creates a delete-table job executor.  Jobs are not run until the executor is started.
+     *
+     * @param name the name used as the prefix of the reported metrics
+     * @param mtTableDescriptionRepo the repo that stores the table metadata and jobs
+     * @param mtContext the multitenant context provider
+     * @param workers executor that runs jobs, must have at least {@code maxConcurrentJobs} threads
+     * @param poller executor that periodically renews leases and claims jobs
+     * @param maxConcurrentJobs maximum number of jobs to run at a time
+     * @param leaseMillis time in milliseconds that a job is leased for, must exceed {@code pollIntervalMillis}
+     * @param pollIntervalMillis time in milliseconds between polls
+     * @param clock clock instance used for leases and latency
+     * @param meterRegistry MeterRegistry for reporting metrics
+     */
+    public DeleteTableJobExecutor(String name,
+                                  MtTableDescriptionRepo mtTableDescriptionRepo,
+                                  MtAmazonDynamoDbContextProvider mtContext,
+                                  ExecutorService workers,
+                                  ScheduledExecutorService poller,
+                                  int maxConcurrentJobs,
+                                  long leaseMillis,
+                                  long pollIntervalMillis,
+                                  Clock clock,
+                                  MeterRegistry meterRegistry) {
+        checkArgument(maxConcurrentJobs > 0, "maxConcurrentJobs must be positive");
+        checkArgument(pollIntervalMillis > 0, "pollIntervalMillis must be positive");
+        checkArgument(leaseMillis > pollIntervalMillis, "leaseMillis must exceed pollIntervalMillis");
+        this.mtTableDescriptionRepo = mtTableDescriptionRepo;
+        this.mtContext = mtContext;
+        this.workers = workers;
+        this.poller = poller;
+        this.capacity = new Semaphore(maxConcurrentJobs);
+        this.leaseMillis = leaseMillis;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.clock = clock;
+        meterRegistry.gauge(name + ".DeleteTable.QueuedJobs", queuedJobs);
+        meterRegistry.gaugeMapSize(name + ".DeleteTable.RunningJobs", Tags.empty(), runningJobs);
+        this.jobLatency = meterRegistry.timer(name + ".DeleteTable.JobLatency");
+        this.jobFailures = meterRegistry.counter(name + ".DeleteTable.JobFailures");
+        this.lostLeases = meterRegistry.counter(name + ".DeleteTable.LostLeases");
+    }
+
+    /**
+     * Starts polling for jobs, which are run by the given function under the context of the job's tenant.  The function
+     * should stop when its thread is interrupted, which happens if the lease on its job is lost.
+     */
+    void start(Consumer<TenantTable> jobRunner) {
+        checkState(this.jobRunner == null, "already started");
+        this.jobRunner = jobRunner;
+        poller.scheduleWithFixedDelay(this::poll, 0, pollIntervalMillis, MILLISECONDS);
+    }
+
+    /**
+     * Records a job to delete the given table of the current tenant and runs it right away if there is capacity.
+     */
+    void submit(String tableName) {
+        checkState(jobRunner != null, "not started");
+        long enqueuedAt = clock.millis();
+        mtTableDescriptionRepo.addDeleteTableJob(tableName, enqueuedAt);
+        if (!tryRun(new DeleteTableJob(new TenantTable(tableName, mtContext.getContext()), enqueuedAt))) {
+            queuedJobs.incrementAndGet();
+        }
+    }
+
+    private void poll() {
+        // an exception would cancel all subsequent polls
+        try {
+            renewLeases();
+            List<DeleteTableJob> jobs = mtTableDescriptionRepo.listDeleteTableJobs(clock.millis());
+            int queued = 0;
+            for (DeleteTableJob job : jobs) {
+                if (!runningJobs.containsKey(job.getTenantTable()) && !tryRun(job)) {
+                    queued++;
+                }
+            }
+            queuedJobs.set(queued);
+        } catch (RuntimeException e) {
+            log.error("failed to poll delete table jobs", e);
+        }
+    }
+
+    /**
+     * Stops polling for jobs and renewing leases, interrupts the running jobs, and waits for them to stop for up to the
+     * lease duration, after which other instances may take them over anyway.
+     */
+    public void close() {
+        poller.shutdownNow();
+        workers.shutdownNow();
+        try {
+            if (!workers.awaitTermination(leaseMillis, MILLISECONDS)) {
+                log.warn("delete table jobs did not stop within " + leaseMillis + "ms: " + runningJobs.keySet());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void renewLeases() {
+        runningJobs.forEach((tenantTable, job) -> {
+            if (job.isCancelled()) {
+                // stopping, but its capacity is held until its worker returns
+                return;
+            }
+            try {
+                if (!acquireLease(tenantTable)) {
+                    // another instance may be running the job by now, so it must not continue here
+                    lostLeases.increment();
+                    log.warn("lost lease on job to delete table=" + tenantTable.getVirtualTableName() + " of tenant="
+                        + tenantTable.getTenantName() + ", stopping job");
+                    job.cancel(true);
+                }
+            } catch (RuntimeException e) {
+                // the lease is still held until it expires, so retry on the next poll
+                log.warn("failed to renew lease on job to delete table=" + tenantTable.getVirtualTableName()
+                    + " of tenant=" + tenantTable.getTenantName(), e);
+            }
+        });
+    }
+
+    private boolean acquireLease(TenantTable tenantTable) {
+        long now = clock.millis();
+        return mtContext.withContext(tenantTable.getTenantName(), () -> mtTableDescriptionRepo
+            .acquireDeleteTableJobLease(tenantTable.getVirtualTableName(), owner, now, now + leaseMillis));
+    }
+
+    private void releaseLease(TenantTable tenantTable) {
+        long now = clock.millis();
+        try {
+            mtContext.withContext(tenantTable.getTenantName(), () -> mtTableDescriptionRepo
+                .acquireDeleteTableJobLease(tenantTable.getVirtualTableName(), owner, now, now));
+        } catch (RuntimeException e) {
+            // the lease expires eventually
+            log.warn("failed to release lease on job to delete table=" + tenantTable.getVirtualTableName()
+                + " of tenant=" + tenantTable.getTenantName(), e);
+        }
+    }
+
+    private boolean tryRun(DeleteTableJob job) {
+        if (!capacity.tryAcquire()) {
+            return false;
+        }
+        TenantTable tenantTable = job.getTenantTable();
+        boolean running = false;
+        try {
+            if (!acquireLease(tenantTable)) {
+                // another instance holds the lease, so the job isn't queued here
+                return true;
+            }
+            // whoever claims the task first, i.e., the worker or a cancellation before it started, finishes the job
+            AtomicBoolean claimed = new AtomicBoolean();
+            FutureTask<Void> task = new FutureTask<>(() -> {
+                if (claimed.compareAndSet(false, true)) {
+                    run(job);
+                }
+            }, null) {
+                @Override
+                protected void done() {
+                    if (claimed.compareAndSet(false, true)) {
+                        finish(tenantTable);
+                    }
+                }
+            };
+            runningJobs.put(tenantTable, task);
+            try {
+                workers.execute(task);
+            } catch (RejectedExecutionException e) {
+                // e.g., closed, so let another instance take the job over right away
+                runningJobs.remove(tenantTable);
+                releaseLease(tenantTable);
+                log.warn("rejected job to delete table=" + tenantTable.getVirtualTableName() + " of tenant="
+                    + tenantTable.getTenantName(), e);
+                return false;
+            }
+            running = true;
+            return true;
+        } finally {
+            if (!running) {
+                capacity.release();
+            }
+        }
+    }
+
+    /*
+     * Releases the capacity of a job only once its worker has returned, so that a job that was cancelled but is still
+     * stopping counts towards the maximum number of concurrent jobs.
+     */
+    private void finish(TenantTable tenantTable) {
+        runningJobs.remove(tenantTable);
+        capacity.release();
+    }
+
+    private void run(DeleteTableJob job) {
+        TenantTable tenantTable = job.getTenantTable();
+        try {
+            jobRunner.accept(tenantTable);
+            jobLatency.record(clock.millis() - job.getEnqueuedAt(), MILLISECONDS);
+        } catch (RuntimeException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                // stopped after losing the lease
+                return;
+            }
+            // the lease is no longer renewed, so the job is retried once it expires
+            jobFailures.increment();
+            log.error("failed to delete table=" + tenantTable.getVirtualTableName() + " of tenant="
+                + tenantTable.getTenantName() + ", retrying in " + leaseMillis + "ms", e);
+        } finally {
+            finish(tenantTable);
+        }
+    }
+
+}
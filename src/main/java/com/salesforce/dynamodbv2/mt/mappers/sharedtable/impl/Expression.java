@@ -0,0 +1,551 @@
+/*
+ * Copyright (c) 2018, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * A parsed condition, key condition, filter, or update expression.  The expression text is split into tokens, which
+ * keep their position in the text, and parsed into a syntax tree of document paths, value placeholders, functions,
+ * comparisons, logical operators, and update actions, following the expression grammar of the DynamoDB developer
+ * guide.  Mappers use the tree to find the attributes an expression refers to and the values they are compared with or
+ * set to, and rewrite the expression by replacing individual tokens.
+ *
+ * <p>Expressions are parsed, not validated: the parser accepts the expressions DynamoDB accepts, but may accept some
+ * that DynamoDB rejects, e.g., functions that don't exist, which are left for DynamoDB to report.
+ */
+class Expression {
+
+    private static final Set<String> UPDATE_CLAUSES = Set.of("SET", "REMOVE", "ADD", "DELETE");
+    private static final Set<String> COMPARATORS = Set.of("=", "<>", "<", "<=", ">", ">=");
+    // operators whose first operand is compared with or set to the remaining operands
+    private static final Set<String> VALUE_OPERATORS = Set.of("=", "<>", "<", "<=", ">", ">=", "BETWEEN", "IN", "SET");
+    private static final String SYMBOLS = "(),.[]+-";
+
+    private final String text;
+    private final List<Token> tokens;
+    private final Node root;
+
+    private Expression(String text, List<Token> tokens, Node root) {
+        this.text = text;
+        this.tokens = tokens;
+        this.root = root;
+    }
+
+    /*
+     * Parses the given expression.  Update expressions are recognized by their leading SET, REMOVE, ADD, or DELETE
+     * clause, which are reserved words that cannot start a condition.
+     */
+    static Expression parse(String text) {
+        List<Token> tokens = tokenize(text);
+        return new Expression(text, tokens, new Parser(text, tokens).parse());
+    }
+
+    /*
+     * Parses a projection expression into its document paths.  Each path is a list of its elements, which are
+     * attribute names, literal or expression attribute names, or list indexes like "[1]".
+     */
+    static List<List<String>> parseProjection(String text) {
+        return new Parser(text, tokenize(text)).parseProjection();
+    }
+
+    /*
+     * Returns the expression attribute names that the given expression refers to.
+     */
+    static Set<String> getNames(String text) {
+        return tokenize(text).stream().filter(token -> token.type == TokenType.NAME).map(Token::getText)
+            .collect(Collectors.toSet());
+    }
+
+    String getText() {
+        return text;
+    }
+
+    /*
+     * Returns the tokens of attribute names that are referenced literally, i.e., not through expression attribute
+     * names, as the first element of a document path.
+     */
+    List<Token> getLiteralNames() {
+        List<Token> literalNames = new ArrayList<>();
+        visit(root, node -> {
+            if (node instanceof PathNode && ((PathNode) node).head.type == TokenType.IDENTIFIER) {
+                literalNames.add(((PathNode) node).head);
+            }
+        });
+        return literalNames;
+    }
+
+    /*
+     * Returns the value placeholders that the given attribute, a literal or expression attribute name, is compared with
+     * or set to, in the order they appear.  Only operands that refer to the whole attribute are considered, e.g., ":v"
+     * for "#a" in "#a = :v", "#a BETWEEN :v AND :w", "#a IN (:v, :w)", "begins_with(#a, :v)", or "SET #a = :v", but
+     * not in "#a.b = :v" or "size(#a) = :v".
+     */
+    Set<String> getValuePlaceholders(String name) {
+        Set<String> valuePlaceholders = new LinkedHashSet<>();
+        visit(root, node -> {
+            if (node instanceof OperationNode) {
+                OperationNode operation = (OperationNode) node;
+                List<Node> operands = operation.operands;
+                if (COMPARATORS.contains(operation.operator) && isAttribute(operands.get(1), name)) {
+                    addValuePlaceholder(valuePlaceholders, operands.get(0));
+                } else if (VALUE_OPERATORS.contains(operation.operator) && isAttribute(operands.get(0), name)) {
+                    operands.subList(1, operands.size())
+                        .forEach(operand -> addValuePlaceholder(valuePlaceholders, operand));
+                }
+            } else if (node instanceof FunctionNode) {
+                FunctionNode function = (FunctionNode) node;
+                if (function.name.equals("begins_with") && function.arguments.size() == 2
+                    && isAttribute(function.arguments.get(0), name)) {
+                    addValuePlaceholder(valuePlaceholders, function.arguments.get(1));
+                }
+            }
+        });
+        return valuePlaceholders;
+    }
+
+    /*
+     * Returns whether the expression requires the given attribute, a literal or expression attribute name, to equal a
+     * value, i.e., whether one of its top-level conjuncts is an equality comparison of the attribute with a value
+     * placeholder.  Comparisons nested in OR or NOT don't count, since they don't restrict the attribute.
+     */
+    boolean hasEqualityCondition(String name) {
+        return hasEqualityCondition(root, name);
+    }
+
+    private static boolean hasEqualityCondition(Node node, String name) {
+        if (!(node instanceof OperationNode)) {
+            return false;
+        }
+        OperationNode operation = (OperationNode) node;
+        if (operation.operator.equals("AND")) {
+            return operation.operands.stream().anyMatch(operand -> hasEqualityCondition(operand, name));
+        }
+        return operation.operator.equals("=")
+            && ((isAttribute(operation.operands.get(0), name) && operation.operands.get(1) instanceof ValueNode)
+            || (isAttribute(operation.operands.get(1), name) && operation.operands.get(0) instanceof ValueNode));
+    }
+
+    /*
+     * Returns the conjunction of this condition expression and the given condition.  This condition is parenthesized if
+     * it is a disjunction, since AND takes precedence over OR.
+     */
+    String and(String condition) {
+        boolean disjunction = root instanceof OperationNode && ((OperationNode) root).operator.equals("OR");
+        return (disjunction ? "(" + text + ")" : text) + " and " + condition;
+    }
+
+    /*
+     * Returns the expression text with the given tokens replaced.
+     */
+    String replace(Map<Token, String> replacements) {
+        if (replacements.isEmpty()) {
+            return text;
+        }
+        StringBuilder replaced = new StringBuilder(text.length() + 8 * replacements.size());
+        int position = 0;
+        for (Token token : tokens) {
+            String replacement = replacements.get(token);
+            if (replacement != null) {
+                replaced.append(text, position, token.start).append(replacement);
+                position = token.end;
+            }
+        }
+        return replaced.append(text, position, text.length()).toString();
+    }
+
+    private static boolean isAttribute(Node node, String name) {
+        return node instanceof PathNode && ((PathNode) node).length == 1 && ((PathNode) node).head.text.equals(name);
+    }
+
+    private static void addValuePlaceholder(Set<String> valuePlaceholders, Node node) {
+        if (node instanceof ValueNode) {
+            valuePlaceholders.add(((ValueNode) node).placeholder.text);
+        }
+    }
+
+    private static void visit(Node node, Consumer<Node> visitor) {
+        visitor.accept(node);
+        if (node instanceof OperationNode) {
+            ((OperationNode) node).operands.forEach(operand -> visit(operand, visitor));
+        } else if (node instanceof FunctionNode) {
+            ((FunctionNode) node).arguments.forEach(argument -> visit(argument, visitor));
+        }
+    }
+
+    private static List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            int start = i;
+            TokenType type;
+            if (c == '#' || c == ':') {
+                i = skipWordCharacters(text, i + 1);
+                checkArgument(i > start + 1, "invalid expression " + text);
+                type = c == '#' ? TokenType.NAME : TokenType.VALUE;
+            } else if (Character.isLetter(c) || c == '_') {
+                i = skipWordCharacters(text, i + 1);
+                type = TokenType.IDENTIFIER;
+            } else if (Character.isDigit(c)) {
+                i = skipWordCharacters(text, i + 1);
+                type = TokenType.NUMBER;
+            } else if (c == '=' || c == '<' || c == '>') {
+                i++;
+                if (i < text.length() && ((text.charAt(i) == '=' && c != '=') || (text.charAt(i) == '>' && c == '<'))) {
+                    i++;
+                }
+                type = TokenType.COMPARATOR;
+            } else {
+                checkArgument(SYMBOLS.indexOf(c) >= 0, "invalid expression " + text);
+                i++;
+                type = TokenType.SYMBOL;
+            }
+            tokens.add(new Token(type, text.substring(start, i), start, i));
+        }
+        return tokens;
+    }
+
+    private static int skipWordCharacters(String text, int i) {
+        while (i < text.length() && (Character.isLetterOrDigit(text.charAt(i)) || text.charAt(i) == '_')) {
+            i++;
+        }
+        return i;
+    }
+
+    enum TokenType {
+        NAME, VALUE, IDENTIFIER, NUMBER, COMPARATOR, SYMBOL
+    }
+
+    /*
+     * A token of an expression and its position in the expression text.  Tokens are compared by identity, so that the
+     * occurrences of the same name can be told apart.
+     */
+    static final class Token {
+
+        private final TokenType type;
+        private final String text;
+        private final int start;
+        private final int end;
+
+        private Token(TokenType type, String text, int start, int end) {
+            this.type = type;
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
+
+        String getText() {
+            return text;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+
+    }
+
+    private abstract static class Node {
+    }
+
+    /*
+     * A document path, e.g., "#a.b[1]".  Only the first element matters for mapping.
+     */
+    private static final class PathNode extends Node {
+
+        private final Token head;
+        private final int length;
+
+        private PathNode(Token head, int length) {
+            this.head = head;
+            this.length = length;
+        }
+
+    }
+
+    private static final class ValueNode extends Node {
+
+        private final Token placeholder;
+
+        private ValueNode(Token placeholder) {
+            this.placeholder = placeholder;
+        }
+
+    }
+
+    private static final class FunctionNode extends Node {
+
+        private final String name;
+        private final List<Node> arguments;
+
+        private FunctionNode(String name, List<Node> arguments) {
+            this.name = name;
+            this.arguments = arguments;
+        }
+
+    }
+
+    /*
+     * A comparison, BETWEEN, IN, logical operator, or arithmetic operator of a condition, or an action of an update
+     * expression, whose operator is the clause keyword and whose first operand is the path the action applies to.
+     * Keywords are upper case.
+     */
+    private static final class OperationNode extends Node {
+
+        private final String operator;
+        private final List<Node> operands;
+
+        private OperationNode(String operator, List<Node> operands) {
+            this.operator = operator;
+            this.operands = operands;
+        }
+
+    }
+
+    /*
+     * Recursive descent parser.  Precedence from lowest to highest is OR, AND, NOT, and comparisons, BETWEEN, IN, and
+     * functions.
+     */
+    private static final class Parser {
+
+        private final String text;
+        private final List<Token> tokens;
+        private int position;
+
+        private Parser(String text, List<Token> tokens) {
+            this.text = text;
+            this.tokens = tokens;
+        }
+
+        private Node parse() {
+            checkArgument(!tokens.isEmpty(), "invalid expression " + text);
+            Node node = isUpdate() ? parseUpdate() : parseOr();
+            checkArgument(position == tokens.size(), "invalid expression " + text);
+            return node;
+        }
+
+        private List<List<String>> parseProjection() {
+            checkArgument(!tokens.isEmpty(), "invalid expression " + text);
+            List<List<String>> paths = new ArrayList<>();
+            do {
+                List<String> path = new ArrayList<>();
+                parsePath(path);
+                paths.add(path);
+            } while (accept(","));
+            checkArgument(position == tokens.size(), "invalid expression " + text);
+            return paths;
+        }
+
+        private boolean isUpdate() {
+            return tokens.size() > 1 && tokens.get(0).type == TokenType.IDENTIFIER
+                && UPDATE_CLAUSES.contains(keyword(tokens.get(0)))
+                && (tokens.get(1).type == TokenType.NAME || tokens.get(1).type == TokenType.IDENTIFIER);
+        }
+
+        private Node parseUpdate() {
+            List<Node> actions = new ArrayList<>();
+            while (position < tokens.size()) {
+                Token clauseToken = next();
+                String clause = keyword(clauseToken);
+                checkArgument(clauseToken.type == TokenType.IDENTIFIER && UPDATE_CLAUSES.contains(clause),
+                    "invalid expression " + text);
+                do {
+                    Node path = parsePath();
+                    if (clause.equals("SET")) {
+                        checkArgument(acceptComparator("="), "invalid expression " + text);
+                        actions.add(new OperationNode(clause, List.of(path, parseSetValue())));
+                    } else if (clause.equals("REMOVE")) {
+                        actions.add(new OperationNode(clause, List.of(path)));
+                    } else {
+                        actions.add(new OperationNode(clause, List.of(path, parseOperand())));
+                    }
+                } while (accept(","));
+            }
+            return new OperationNode("UPDATE", actions);
+        }
+
+        private Node parseSetValue() {
+            Node operand = parseOperand();
+            if (peek("+") || peek("-")) {
+                String operator = next().text;
+                return new OperationNode(operator, List.of(operand, parseOperand()));
+            }
+            return operand;
+        }
+
+        private Node parseOr() {
+            List<Node> operands = new ArrayList<>();
+            do {
+                operands.add(parseAnd());
+            } while (acceptKeyword("OR"));
+            return operands.size() == 1 ? operands.get(0) : new OperationNode("OR", operands);
+        }
+
+        private Node parseAnd() {
+            List<Node> operands = new ArrayList<>();
+            do {
+                operands.add(parseNot());
+            } while (acceptKeyword("AND"));
+            return operands.size() == 1 ? operands.get(0) : new OperationNode("AND", operands);
+        }
+
+        private Node parseNot() {
+            if (acceptKeyword("NOT")) {
+                return new OperationNode("NOT", List.of(parseNot()));
+            }
+            return parseCondition();
+        }
+
+        private Node parseCondition() {
+            if (accept("(")) {
+                Node condition = parseOr();
+                expect(")");
+                return condition;
+            }
+            Node operand = parseOperand();
+            if (position < tokens.size() && tokens.get(position).type == TokenType.COMPARATOR) {
+                String comparator = next().text;
+                return new OperationNode(comparator, List.of(operand, parseOperand()));
+            }
+            if (acceptKeyword("BETWEEN")) {
+                Node lower = parseOperand();
+                checkArgument(acceptKeyword("AND"), "invalid expression " + text);
+                return new OperationNode("BETWEEN", List.of(operand, lower, parseOperand()));
+            }
+            if (acceptKeyword("IN")) {
+                List<Node> operands = new ArrayList<>();
+                operands.add(operand);
+                operands.addAll(parseArguments());
+                return new OperationNode("IN", operands);
+            }
+            checkArgument(operand instanceof FunctionNode, "invalid expression " + text);
+            return operand;
+        }
+
+        private Node parseOperand() {
+            checkArgument(position < tokens.size(), "invalid expression " + text);
+            Token token = tokens.get(position);
+            if (token.type == TokenType.VALUE) {
+                position++;
+                return new ValueNode(token);
+            }
+            if (token.type == TokenType.IDENTIFIER && position + 1 < tokens.size()
+                && tokens.get(position + 1).text.equals("(")) {
+                position++;
+                return new FunctionNode(token.text, parseArguments());
+            }
+            return parsePath();
+        }
+
+        private List<Node> parseArguments() {
+            expect("(");
+            List<Node> arguments = new ArrayList<>();
+            if (!accept(")")) {
+                do {
+                    arguments.add(parseOperand());
+                } while (accept(","));
+                expect(")");
+            }
+            return arguments;
+        }
+
+        private Node parsePath() {
+            checkArgument(position < tokens.size(), "invalid expression " + text);
+            Token head = tokens.get(position);
+            List<String> elements = new ArrayList<>();
+            parsePath(elements);
+            return new PathNode(head, elements.size());
+        }
+
+        /*
+         * Parses a document path, adding its elements to the given list.  List indexes are added with their brackets.
+         */
+        private void parsePath(List<String> elements) {
+            elements.add(parsePathName());
+            while (true) {
+                if (accept(".")) {
+                    elements.add(parsePathName());
+                } else if (accept("[")) {
+                    Token index = next();
+                    checkArgument(index.type == TokenType.NUMBER, "invalid expression " + text);
+                    expect("]");
+                    elements.add("[" + index.text + "]");
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private String parsePathName() {
+            Token name = next();
+            checkArgument(name.type == TokenType.NAME || name.type == TokenType.IDENTIFIER,
+                "invalid expression " + text);
+            return name.text;
+        }
+
+        private Token next() {
+            checkArgument(position < tokens.size(), "invalid expression " + text);
+            return tokens.get(position++);
+        }
+
+        private boolean peek(String symbol) {
+            return position < tokens.size() && tokens.get(position).type == TokenType.SYMBOL
+                && tokens.get(position).text.equals(symbol);
+        }
+
+        private boolean accept(String symbol) {
+            if (peek(symbol)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String symbol) {
+            checkArgument(accept(symbol), "invalid expression " + text);
+        }
+
+        private boolean acceptComparator(String comparator) {
+            if (position < tokens.size() && tokens.get(position).type == TokenType.COMPARATOR
+                && tokens.get(position).text.equals(comparator)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean acceptKeyword(String keyword) {
+            if (position < tokens.size() && tokens.get(position).type == TokenType.IDENTIFIER
+                && keyword(tokens.get(position)).equals(keyword)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private static String keyword(Token token) {
+            return token.text.toUpperCase(Locale.ROOT);
+        }
+
+    }
+
+}
@@ -11,10 +11,14 @@ import static com.amazonaws.util.CollectionUtils.isNullOrEmpty;
 
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.BiFunction;
 
 /**
  * Maps items representing records in virtual tables so they can be read from and written to their physical table
@@ -22,18 +26,25 @@ import java.util.Map;
  * The apply() method is used to map keys in getItem, putItem, updateItem, deleteItem and for mapping item responses
  * in query and scan.
  *
+ * <p>The field mappings are compiled into fixed slots when the mapper is created, so mapping an item only looks up
+ * the mapped fields, copies all other attributes as is, and allocates the mapped item with its final size.
+ *
  * @author msgroi
  */
 class ItemMapper {
 
-    private final FieldMapper fieldMapper;
-    private final Map<String, List<FieldMapping>> virtualToPhysicalFieldMappings;
-    private final Map<String, List<FieldMapping>> physicalToVirtualFieldMappings;
+    private final CompiledFieldMappings virtualToPhysicalFieldMappings;
+    private final CompiledFieldMappings physicalToVirtualFieldMappings;
+    private final ReverseMappedItemView.Mapping reverseViewMapping;
 
     ItemMapper(FieldMapper fieldMapper, Map<String, List<FieldMapping>> virtualToPhysicalFieldMappings) {
-        this.fieldMapper = fieldMapper;
-        this.virtualToPhysicalFieldMappings = virtualToPhysicalFieldMappings;
-        this.physicalToVirtualFieldMappings = invertMapping(virtualToPhysicalFieldMappings);
+        Map<String, List<FieldMapping>> physicalToVirtualFieldMappings = invertMapping(virtualToPhysicalFieldMappings);
+        this.virtualToPhysicalFieldMappings =
+            new CompiledFieldMappings(virtualToPhysicalFieldMappings, fieldMapper::apply);
+        this.physicalToVirtualFieldMappings =
+            new CompiledFieldMappings(physicalToVirtualFieldMappings, fieldMapper::reverse);
+        this.reverseViewMapping = new ReverseMappedItemView.Mapping(physicalToVirtualFieldMappings,
+            fieldMapper::reverse);
     }
 
     /*
@@ -44,20 +55,7 @@ class ItemMapper {
      * Used for adding context to GetItemRequest, PutItemRequest, UpdateItemRequest, or DeleteItemRequest objects.
      */
     Map<String, AttributeValue> apply(Map<String, AttributeValue> unqualifiedItem) {
-        Map<String, AttributeValue> qualifiedItem = new HashMap<>();
-        unqualifiedItem.forEach((field, attribute) -> {
-            List<FieldMapping> fieldMappings = virtualToPhysicalFieldMappings.get(field);
-            if (!isNullOrEmpty(fieldMappings)) {
-                fieldMappings.forEach(fieldMapping -> qualifiedItem.put(fieldMapping.getTarget().getName(),
-                    fieldMapping.isContextAware()
-                        ? fieldMapper.apply(fieldMapping, attribute)
-                        : attribute));
-            } else {
-                qualifiedItem.put(field, attribute);
-            }
-        });
-
-        return qualifiedItem;
+        return virtualToPhysicalFieldMappings.map(unqualifiedItem);
     }
 
     /*
@@ -70,19 +68,20 @@ class ItemMapper {
         if (qualifiedItem == null) {
             return null;
         }
-        Map<String, AttributeValue> unqualifiedItem = new HashMap<>();
-        qualifiedItem.forEach((field, attribute) -> {
-            List<FieldMapping> fieldMappings = physicalToVirtualFieldMappings.get((field));
-            if (fieldMappings != null && !fieldMappings.isEmpty()) {
-                fieldMappings.forEach(fieldMapping -> unqualifiedItem.put(fieldMapping.getTarget().getName(),
-                    fieldMapping.isContextAware()
-                        ? fieldMapper.reverse(fieldMapping, attribute)
-                        : attribute));
-            } else {
-                unqualifiedItem.put(field, attribute);
-            }
-        });
-        return unqualifiedItem;
+        return physicalToVirtualFieldMappings.map(qualifiedItem);
+    }
+
+    /*
+     * Like reverse, but returns a read-only view of the given physical item that reverse-maps fields when they are
+     * read.
+     *
+     * Used for query and scan results if lazy result items are enabled.
+     */
+    Map<String, AttributeValue> reverseView(Map<String, AttributeValue> qualifiedItem) {
+        if (qualifiedItem == null) {
+            return null;
+        }
+        return new ReverseMappedItemView(qualifiedItem, reverseViewMapping);
     }
 
     private static Map<String, List<FieldMapping>> invertMapping(
@@ -100,4 +99,58 @@ class ItemMapper {
         return fieldMappings;
     }
 
-}
\ No newline at end of file
+    /*
+     * Field mappings in one direction, resolved to one slot per mapped source field.
+     */
+    private static class CompiledFieldMappings {
+
+        private final String[] sourceFields;
+        private final FieldMapping[][] fieldMappings;
+        private final int targetFieldCount;
+        private final BiFunction<FieldMapping, AttributeValue, AttributeValue> fieldMapper;
+
+        CompiledFieldMappings(Map<String, List<FieldMapping>> fieldMappingsBySourceField,
+                              BiFunction<FieldMapping, AttributeValue, AttributeValue> fieldMapper) {
+            List<String> sourceFieldList = new ArrayList<>();
+            List<FieldMapping[]> fieldMappingList = new ArrayList<>();
+            int targetFields = 0;
+            for (Entry<String, List<FieldMapping>> entry : fieldMappingsBySourceField.entrySet()) {
+                if (!isNullOrEmpty(entry.getValue())) {
+                    sourceFieldList.add(entry.getKey());
+                    fieldMappingList.add(entry.getValue().toArray(new FieldMapping[0]));
+                    targetFields += entry.getValue().size();
+                }
+            }
+            this.sourceFields = sourceFieldList.toArray(new String[0]);
+            this.fieldMappings = fieldMappingList.toArray(new FieldMapping[0][]);
+            this.targetFieldCount = targetFields;
+            this.fieldMapper = fieldMapper;
+        }
+
+        /*
+         * Copies the given item, replacing each mapped source field with its target fields.  All source fields are
+         * removed before any target field is added, so a target field is never removed if it has the same name as
+         * another source field.
+         */
+        Map<String, AttributeValue> map(Map<String, AttributeValue> item) {
+            Map<String, AttributeValue> mappedItem = Maps.newHashMapWithExpectedSize(item.size() + targetFieldCount);
+            mappedItem.putAll(item);
+            for (String sourceField : sourceFields) {
+                mappedItem.remove(sourceField);
+            }
+            for (int i = 0; i < sourceFields.length; i++) {
+                AttributeValue attribute = item.get(sourceFields[i]);
+                if (attribute != null) {
+                    for (FieldMapping fieldMapping : fieldMappings[i]) {
+                        mappedItem.put(fieldMapping.getTarget().getName(), fieldMapping.isContextAware()
+                            ? fieldMapper.apply(fieldMapping, attribute)
+                            : attribute);
+                    }
+                }
+            }
+            return mappedItem;
+        }
+
+    }
+
+}
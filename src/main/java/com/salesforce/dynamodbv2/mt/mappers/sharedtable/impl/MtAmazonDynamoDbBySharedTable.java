@@ -9,6 +9,7 @@ package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
 
 import static com.amazonaws.services.dynamodbv2.model.KeyType.HASH;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 import static java.util.stream.Collectors.toList;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
@@ -16,30 +17,51 @@ import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
 import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.CancellationReason;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.ConditionCheck;
 import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
 import com.amazonaws.services.dynamodbv2.model.CreateTableResult;
+import com.amazonaws.services.dynamodbv2.model.Delete;
 import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
 import com.amazonaws.services.dynamodbv2.model.DeleteItemResult;
+import com.amazonaws.services.dynamodbv2.model.DeleteRequest;
 import com.amazonaws.services.dynamodbv2.model.DeleteTableRequest;
 import com.amazonaws.services.dynamodbv2.model.DeleteTableResult;
 import com.amazonaws.services.dynamodbv2.model.DescribeTableRequest;
 import com.amazonaws.services.dynamodbv2.model.DescribeTableResult;
+import com.amazonaws.services.dynamodbv2.model.Get;
 import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
 import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.ItemCollectionMetrics;
+import com.amazonaws.services.dynamodbv2.model.ItemResponse;
 import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
 import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.Put;
 import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
 import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
 import com.amazonaws.services.dynamodbv2.model.QueryRequest;
 import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
 import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType;
 import com.amazonaws.services.dynamodbv2.model.ScanRequest;
 import com.amazonaws.services.dynamodbv2.model.ScanResult;
 import com.amazonaws.services.dynamodbv2.model.StreamSpecification;
 import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import com.amazonaws.services.dynamodbv2.model.TransactGetItem;
+import com.amazonaws.services.dynamodbv2.model.TransactGetItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactGetItemsResult;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItem;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsResult;
+import com.amazonaws.services.dynamodbv2.model.TransactionCanceledException;
+import com.amazonaws.services.dynamodbv2.model.Update;
 import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
 import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.cache.Cache;
@@ -47,20 +69,30 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.salesforce.dynamodbv2.mt.cache.MtCache;
 import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
+import com.salesforce.dynamodbv2.mt.mappers.MappedRequest;
 import com.salesforce.dynamodbv2.mt.mappers.MtAmazonDynamoDbBase;
+import com.salesforce.dynamodbv2.mt.mappers.MtRequestMapper;
 import com.salesforce.dynamodbv2.mt.mappers.metadata.DynamoTableDescriptionImpl;
 import com.salesforce.dynamodbv2.mt.mappers.metadata.PrimaryKey;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.ProjectionMapper.Projection;
 import com.salesforce.dynamodbv2.mt.repo.MtTableDescriptionRepo;
+import com.salesforce.dynamodbv2.mt.repo.TableMetadataStreamListener;
 import com.salesforce.dynamodbv2.mt.util.StreamArn;
 import io.micrometer.core.instrument.MeterRegistry;
 import java.time.Clock;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
@@ -76,7 +108,7 @@ import org.slf4j.LoggerFactory;
  *
  * @author msgroi
  */
-public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
+public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase implements MtRequestMapper {
 
     private static final Logger log = LoggerFactory.getLogger(MtAmazonDynamoDbBySharedTable.class);
 
@@ -85,13 +117,19 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
     private final MtTableDescriptionRepo mtTableDescriptionRepo;
     private final Cache<Object, TableMapping> tableMappingCache;
     private final TableMappingFactory tableMappingFactory;
-    private final boolean deleteTableAsync;
-    private final boolean truncateOnDeleteTable;
+    private final Optional<DeleteTableJobExecutor> deleteTableJobExecutor;
+    private final Optional<TruncationEngine> truncationEngine;
     private final Map<String, CreateTableRequest> mtTables;
     private final long getRecordsTimeLimit;
     private final Clock clock;
     private final String scanTenantKey;
     private final String scanVirtualTableKey;
+    private final Optional<BatchGetItemEngine> batchGetItemEngine;
+    private final Optional<BudgetedScanEngine> budgetedScanEngine;
+    private final ExecutorService parallelScanExecutor;
+    private final boolean lazyResultItems;
+    private final List<ExecutorService> ownedExecutors;
+    private volatile TableMetadataStreamListener metadataStreamListener;
 
     /**
      * Shared table constructor.
@@ -101,41 +139,90 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
      * @param amazonDynamoDb the underlying {@code AmazonDynamoDB} delegate
      * @param tableMappingFactory the table-mapping factory for mapping virtual to physical table instances
      * @param mtTableDescriptionRepo the {@code MtTableDescriptionRepo} impl
-     * @param deleteTableAsync a flag indicating whether to perform delete-table operations async. (as opposed to sync.)
-     * @param truncateOnDeleteTable a flag indicating whether to delete all table data when a virtual table is deleted
+     * @param deleteTableJobExecutor executor that performs delete-table operations as durable async jobs, if present
+     * @param truncationEngine engine that deletes all table data when a virtual table is deleted, if present
      * @param getRecordsTimeLimit soft time limit for getting records out of the shared stream.
      * @param clock clock instance to use for enforcing time limit (injected for unit tests).
      * @param tableMappingCache Guava cache instance that is used to start virtual table to physical table description
      * @param meterRegistry MeterRegistry for reporting metrics.
      * @param scanTenantKey name of column in multitenant scans to return tenant key encoded into scan result set
      * @param scanVirtualTableKey name of column in multitenant scans to return virtual table name encoded into result
+     * @param batchGetItemEngine optional engine that chunks and retries physical batch get requests
+     * @param budgetedScanEngine optional engine that bounds the physical pages read by tenant-scoped scans
+     * @param parallelScanExecutor bounded executor shared by parallel scans across tenants
+     * @param lazyResultItems whether query and scan result items are read-only views that reverse-map fields on read
+     * @param ownedExecutors executors created for this instance, which are shut down along with it
      */
     public MtAmazonDynamoDbBySharedTable(String name,
                                          MtAmazonDynamoDbContextProvider mtContext,
                                          AmazonDynamoDB amazonDynamoDb,
                                          TableMappingFactory tableMappingFactory,
                                          MtTableDescriptionRepo mtTableDescriptionRepo,
-                                         boolean deleteTableAsync,
-                                         boolean truncateOnDeleteTable,
+                                         Optional<DeleteTableJobExecutor> deleteTableJobExecutor,
+                                         Optional<TruncationEngine> truncationEngine,
                                          long getRecordsTimeLimit,
                                          Clock clock,
                                          Cache<Object, TableMapping> tableMappingCache,
                                          MeterRegistry meterRegistry,
                                          String scanTenantKey,
-                                         String scanVirtualTableKey) {
+                                         String scanVirtualTableKey,
+                                         Optional<BatchGetItemEngine> batchGetItemEngine,
+                                         Optional<BudgetedScanEngine> budgetedScanEngine,
+                                         ExecutorService parallelScanExecutor,
+                                         boolean lazyResultItems,
+                                         List<ExecutorService> ownedExecutors) {
         super(mtContext, amazonDynamoDb, meterRegistry);
         this.name = name;
         this.mtTableDescriptionRepo = mtTableDescriptionRepo;
         this.tableMappingCache = new MtCache<>(mtContext, tableMappingCache);
         this.tableMappingFactory = tableMappingFactory;
-        this.deleteTableAsync = deleteTableAsync;
-        this.truncateOnDeleteTable = truncateOnDeleteTable;
+        this.deleteTableJobExecutor = deleteTableJobExecutor;
+        this.truncationEngine = truncationEngine;
         this.mtTables = tableMappingFactory.getCreateTableRequestFactory().getPhysicalTables().stream()
                 .collect(Collectors.toMap(CreateTableRequest::getTableName, Function.identity()));
         this.getRecordsTimeLimit = getRecordsTimeLimit;
         this.clock = clock;
         this.scanTenantKey = scanTenantKey;
         this.scanVirtualTableKey = scanVirtualTableKey;
+        this.batchGetItemEngine = batchGetItemEngine;
+        this.budgetedScanEngine = budgetedScanEngine;
+        this.parallelScanExecutor = parallelScanExecutor;
+        this.lazyResultItems = lazyResultItems;
+        this.ownedExecutors = ownedExecutors;
+    }
+
+    /**
+     * Starts running the delete-table jobs of all tenants if deletes are asynchronous.  Must be called once this
+     * instance is fully constructed, since jobs run on other threads.
+     */
+    public void startDeleteTableJobs() {
+        deleteTableJobExecutor.ifPresent(executor -> executor.start(this::runDeleteTableJob));
+    }
+
+    /**
+     * Starts the given listener, which follows the metadata stream to refresh the table mappings of this instance, and
+     * closes it when this instance is shut down.  Must be called at most once.
+     *
+     * @param metadataStreamListener a listener that is not polling yet
+     */
+    public void startMetadataStreamListener(TableMetadataStreamListener metadataStreamListener) {
+        Preconditions.checkState(this.metadataStreamListener == null, "metadata stream listener already started");
+        this.metadataStreamListener = metadataStreamListener;
+        metadataStreamListener.start();
+    }
+
+    /**
+     * Stops following the metadata stream, stops running delete-table jobs, which other instances resume once their
+     * leases expire, and shuts down the executors owned by this instance.
+     */
+    @Override
+    public void shutdown() {
+        if (metadataStreamListener != null) {
+            metadataStreamListener.close();
+        }
+        deleteTableJobExecutor.ifPresent(DeleteTableJobExecutor::close);
+        ownedExecutors.forEach(ExecutorService::shutdownNow);
+        super.shutdown();
     }
 
     long getGetRecordsTimeLimit() {
@@ -180,78 +267,437 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
     }
 
     /**
-     * Retrieves batches of items using their primary key.
+     * Retrieves batches of items using their primary key.  Virtual tables that share a physical table are read in the
+     * same physical request.  If a {@code BatchGetItemEngine} is configured, the physical request is chunked and
+     * unprocessed keys are retried by the engine.
      */
     @Override
     public BatchGetItemResult batchGetItem(BatchGetItemRequest unqualifiedBatchGetItemRequest) {
-        // validate
-        unqualifiedBatchGetItemRequest.getRequestItems().values()
-            .forEach(MtAmazonDynamoDbBySharedTable::validateGetItemKeysAndAttribute);
+        MappedRequest<BatchGetItemRequest, BatchGetItemResult> mappedRequest =
+            mapBatchGetItem(unqualifiedBatchGetItemRequest);
 
+        // batch get
+        final BatchGetItemRequest qualifiedBatchGetItemRequest = mappedRequest.getRequest();
+        return mappedRequest.mapResult(batchGetItemEngine
+            .map(engine -> engine.batchGetItem(qualifiedBatchGetItemRequest))
+            .orElseGet(() -> getAmazonDynamoDb().batchGetItem(qualifiedBatchGetItemRequest)));
+    }
+
+    @Override
+    public MappedRequest<BatchGetItemRequest, BatchGetItemResult> mapBatchGetItem(
+        BatchGetItemRequest unqualifiedBatchGetItemRequest) {
         // clone request and clear items
         Map<String, KeysAndAttributes> unqualifiedKeysByTable = unqualifiedBatchGetItemRequest.getRequestItems();
         BatchGetItemRequest qualifiedBatchGetItemRequest = unqualifiedBatchGetItemRequest.clone();
         qualifiedBatchGetItemRequest.clearRequestItemsEntries();
 
-        // create a map of physical table names to TableMapping for use when handling the request later
-        Map<String, TableMapping> tableMappingByPhysicalTableName = new HashMap<>();
+        // create maps of virtual table names to TableMapping and projection for use when handling the result later
+        Map<String, TableMapping> tableMappingByVirtualTableName = new HashMap<>();
+        Map<String, Projection> projectionByVirtualTableName = new HashMap<>();
 
-        // for each table in the batch request, map table name and keys
+        // for each table in the batch request, map table name and keys, grouping by physical table
+        Map<String, KeysAndAttributes> qualifiedKeysByTable = new HashMap<>();
+        Map<String, Optional<Projection>> projectionByPhysicalTableName = new HashMap<>();
         unqualifiedKeysByTable.forEach((unqualifiedTableName, unqualifiedKeys) -> {
             // map table name
             TableMapping tableMapping = getTableMapping(unqualifiedTableName);
-            String qualifiedTableName = tableMapping.getPhysicalTable().getTableName();
-            tableMappingByPhysicalTableName.put(qualifiedTableName, tableMapping);
-            // map key
-            qualifiedBatchGetItemRequest.addRequestItemsEntry(
-                qualifiedTableName,
-                new KeysAndAttributes().withKeys(unqualifiedKeys.getKeys().stream().map(
-                    key -> tableMapping.getItemMapper().apply(key)).collect(Collectors.toList())));
+            tableMappingByVirtualTableName.put(unqualifiedTableName, tableMapping);
+            // map projection, including the hash key that identifies the virtual table of result items
+            Optional<Projection> projection = tableMapping.getProjectionMapper().apply(
+                unqualifiedKeys.getProjectionExpression(), unqualifiedKeys.getAttributesToGet(),
+                unqualifiedKeys.getExpressionAttributeNames(),
+                List.of(tableMapping.getVirtualTable().getPrimaryKey().getHashKey()));
+            projection.ifPresent(p -> projectionByVirtualTableName.put(unqualifiedTableName, p));
+            // virtual tables that share a physical table share its projection, which is unbounded if any is
+            projectionByPhysicalTableName.merge(tableMapping.getPhysicalTable().getTableName(), projection,
+                (p1, p2) -> p1.isPresent() && p2.isPresent() ? Optional.of(p1.get().union(p2.get()))
+                    : Optional.empty());
+            KeysAndAttributes qualifiedKeys = qualifiedKeysByTable.computeIfAbsent(
+                tableMapping.getPhysicalTable().getTableName(),
+                qualifiedTableName -> new KeysAndAttributes().withKeys(new ArrayList<>()));
+            // read consistently if any of the virtual tables sharing the physical table asks for it
+            if (Boolean.TRUE.equals(unqualifiedKeys.getConsistentRead())) {
+                qualifiedKeys.setConsistentRead(true);
+            }
+            // map keys
+            unqualifiedKeys.getKeys().forEach(key ->
+                qualifiedKeys.getKeys().add(tableMapping.getItemMapper().apply(key)));
         });
+        projectionByPhysicalTableName.forEach((qualifiedTableName, projection) -> projection.ifPresent(p -> {
+            Map<String, String> expressionAttributeNames = new HashMap<>();
+            qualifiedKeysByTable.get(qualifiedTableName)
+                .withProjectionExpression(p.toExpression(expressionAttributeNames))
+                .withExpressionAttributeNames(expressionAttributeNames);
+        }));
+        qualifiedBatchGetItemRequest.setRequestItems(qualifiedKeysByTable);
+
+        return new MappedRequest<>(qualifiedBatchGetItemRequest, qualifiedBatchGetItemResult ->
+            mapBatchGetItemResult(qualifiedBatchGetItemResult, unqualifiedKeysByTable, tableMappingByVirtualTableName,
+                projectionByVirtualTableName));
+    }
 
-        // batch get
-        final BatchGetItemResult qualifiedBatchGetItemResult = getAmazonDynamoDb()
-            .batchGetItem(qualifiedBatchGetItemRequest);
-        Map<String, List<Map<String, AttributeValue>>> qualifiedItemsByTable = qualifiedBatchGetItemResult
-                .getResponses();
-
-        // map result
+    private BatchGetItemResult mapBatchGetItemResult(BatchGetItemResult qualifiedBatchGetItemResult,
+                                                     Map<String, KeysAndAttributes> unqualifiedKeysByTable,
+                                                     Map<String, TableMapping> tableMappingByVirtualTableName,
+                                                     Map<String, Projection> projectionByVirtualTableName) {
+        // map result, resolving the virtual table of each item from its qualified hash key
         final BatchGetItemResult unqualifiedBatchGetItemResult = qualifiedBatchGetItemResult.clone();
-        unqualifiedBatchGetItemResult.clearResponsesEntries();
-        qualifiedItemsByTable.forEach((qualifiedTableName, qualifiedItems) -> {
-            TableMapping tableMapping = tableMappingByPhysicalTableName.get(qualifiedTableName);
-            unqualifiedBatchGetItemResult.addResponsesEntry(
-                tableMapping.getVirtualTable().getTableName(),
-                qualifiedItems.stream().map(keysAndAttributes ->
-                    tableMapping.getItemMapper().reverse(keysAndAttributes)).collect(Collectors.toList()));
-            // map unprocessedKeys
-            if (!qualifiedBatchGetItemResult.getUnprocessedKeys().isEmpty()) {
-                unqualifiedBatchGetItemResult.clearUnprocessedKeysEntries();
-                qualifiedBatchGetItemResult.getUnprocessedKeys()
-                    .forEach((qualifiedTableNameUk, qualifiedUkKeysAndAttributes) -> {
-                        TableMapping tableMappingUk = tableMappingByPhysicalTableName.get(qualifiedTableNameUk);
-                        unqualifiedBatchGetItemResult.addUnprocessedKeysEntry(
-                            tableMappingUk.getVirtualTable().getTableName(),
-                            new KeysAndAttributes()
-                                .withConsistentRead(qualifiedUkKeysAndAttributes.getConsistentRead())
-                                .withKeys(qualifiedUkKeysAndAttributes.getKeys().stream()
-                                .map(keysAndAttributes ->
-                                    tableMapping.getKeyMapper().reverse(keysAndAttributes))
-                                    .collect(Collectors.toList())));
-                    });
+        Map<String, List<Map<String, AttributeValue>>> unqualifiedItemsByTable = new HashMap<>();
+        tableMappingByVirtualTableName.forEach((unqualifiedTableName, tableMapping) -> {
+            if (qualifiedBatchGetItemResult.getResponses().containsKey(
+                tableMapping.getPhysicalTable().getTableName())) {
+                unqualifiedItemsByTable.put(unqualifiedTableName, new ArrayList<>());
             }
         });
+        qualifiedBatchGetItemResult.getResponses().forEach((qualifiedTableName, qualifiedItems) -> {
+            Function<Map<String, AttributeValue>, FieldValue<?>> fieldValueFunction =
+                getFieldValueFunction(qualifiedTableName);
+            qualifiedItems.forEach(qualifiedItem -> {
+                String unqualifiedTableName = fieldValueFunction.apply(qualifiedItem).getTableName();
+                Map<String, AttributeValue> unqualifiedItem =
+                    tableMappingByVirtualTableName.get(unqualifiedTableName).getItemMapper().reverse(qualifiedItem);
+                Projection projection = projectionByVirtualTableName.get(unqualifiedTableName);
+                unqualifiedItemsByTable.get(unqualifiedTableName).add(
+                    projection == null ? unqualifiedItem : projection.strip(unqualifiedItem));
+            });
+        });
+        unqualifiedBatchGetItemResult.setResponses(unqualifiedItemsByTable);
+
+        // map unprocessedKeys
+        Map<String, KeysAndAttributes> unqualifiedUnprocessedKeys = new HashMap<>();
+        qualifiedBatchGetItemResult.getUnprocessedKeys().forEach((qualifiedTableName, qualifiedKeys) -> {
+            Function<Map<String, AttributeValue>, FieldValue<?>> fieldValueFunction =
+                getFieldValueFunction(qualifiedTableName);
+            qualifiedKeys.getKeys().forEach(qualifiedKey -> {
+                String unqualifiedTableName = fieldValueFunction.apply(qualifiedKey).getTableName();
+                unqualifiedUnprocessedKeys.computeIfAbsent(unqualifiedTableName, tableName ->
+                    unqualifiedKeysByTable.get(tableName).clone().withKeys(new ArrayList<>()))
+                    .getKeys().add(
+                        tableMappingByVirtualTableName.get(unqualifiedTableName).getKeyMapper().reverse(qualifiedKey));
+            });
+        });
+        unqualifiedBatchGetItemResult.setUnprocessedKeys(unqualifiedUnprocessedKeys);
 
         return unqualifiedBatchGetItemResult;
     }
 
-    private static void validateGetItemKeysAndAttribute(KeysAndAttributes keysAndAttributes) {
-        checkArgument(keysAndAttributes.getAttributesToGet() == null,
-            "attributesToGet are not supported on BatchGetItemRequest calls");
-        checkArgument(keysAndAttributes.getProjectionExpression() == null,
-            "projectionExpression is not supported on BatchGetItemRequest calls");
-        checkArgument(keysAndAttributes.getExpressionAttributeNames() == null,
-            "expressionAttributeNames are not supported on BatchGetItemRequest calls");
+    /**
+     * Puts or deletes batches of items in one or more virtual tables.  Virtual tables that share a physical table are
+     * written in the same physical request.  Unprocessed items are mapped back to their virtual tables.
+     */
+    @Override
+    public BatchWriteItemResult batchWriteItem(BatchWriteItemRequest unqualifiedBatchWriteItemRequest) {
+        MappedRequest<BatchWriteItemRequest, BatchWriteItemResult> mappedRequest =
+            mapBatchWriteItem(unqualifiedBatchWriteItemRequest);
+        return mappedRequest.mapResult(getAmazonDynamoDb().batchWriteItem(mappedRequest.getRequest()));
+    }
+
+    @Override
+    public MappedRequest<BatchWriteItemRequest, BatchWriteItemResult> mapBatchWriteItem(
+        BatchWriteItemRequest unqualifiedBatchWriteItemRequest) {
+        // clone request and clear items
+        Map<String, List<WriteRequest>> unqualifiedWriteRequestsByTable =
+            unqualifiedBatchWriteItemRequest.getRequestItems();
+        BatchWriteItemRequest qualifiedBatchWriteItemRequest = unqualifiedBatchWriteItemRequest.clone();
+        qualifiedBatchWriteItemRequest.clearRequestItemsEntries();
+
+        // create a map of virtual table names to TableMapping for use when handling the result later
+        Map<String, TableMapping> tableMappingByVirtualTableName = new HashMap<>();
+
+        // for each table in the batch request, map table name and items or keys, grouping by physical table
+        Map<String, List<WriteRequest>> qualifiedWriteRequestsByTable = new HashMap<>();
+        unqualifiedWriteRequestsByTable.forEach((unqualifiedTableName, unqualifiedWriteRequests) -> {
+            // map table name
+            TableMapping tableMapping = getTableMapping(unqualifiedTableName);
+            tableMappingByVirtualTableName.put(unqualifiedTableName, tableMapping);
+            List<WriteRequest> qualifiedWriteRequests = qualifiedWriteRequestsByTable.computeIfAbsent(
+                tableMapping.getPhysicalTable().getTableName(), qualifiedTableName -> new ArrayList<>());
+            // map items and keys
+            unqualifiedWriteRequests.forEach(unqualifiedWriteRequest ->
+                qualifiedWriteRequests.add(mapWriteRequest(tableMapping, unqualifiedWriteRequest, true)));
+        });
+        qualifiedBatchWriteItemRequest.setRequestItems(qualifiedWriteRequestsByTable);
+
+        return new MappedRequest<>(qualifiedBatchWriteItemRequest, qualifiedBatchWriteItemResult ->
+            mapBatchWriteItemResult(qualifiedBatchWriteItemResult, tableMappingByVirtualTableName));
+    }
+
+    private BatchWriteItemResult mapBatchWriteItemResult(BatchWriteItemResult qualifiedBatchWriteItemResult,
+                                                         Map<String, TableMapping> tableMappingByVirtualTableName) {
+        // map unprocessedItems, resolving the virtual table of each item from its qualified hash key
+        final BatchWriteItemResult unqualifiedBatchWriteItemResult = qualifiedBatchWriteItemResult.clone();
+        Map<String, List<WriteRequest>> unqualifiedUnprocessedItems = new HashMap<>();
+        qualifiedBatchWriteItemResult.getUnprocessedItems().forEach((qualifiedTableName, qualifiedWriteRequests) -> {
+            Function<Map<String, AttributeValue>, FieldValue<?>> fieldValueFunction =
+                getFieldValueFunction(qualifiedTableName);
+            qualifiedWriteRequests.forEach(qualifiedWriteRequest -> {
+                Map<String, AttributeValue> qualifiedItemOrKey = qualifiedWriteRequest.getPutRequest() != null
+                    ? qualifiedWriteRequest.getPutRequest().getItem()
+                    : qualifiedWriteRequest.getDeleteRequest().getKey();
+                String unqualifiedTableName = fieldValueFunction.apply(qualifiedItemOrKey).getTableName();
+                unqualifiedUnprocessedItems.computeIfAbsent(unqualifiedTableName, tableName -> new ArrayList<>())
+                    .add(mapWriteRequest(tableMappingByVirtualTableName.get(unqualifiedTableName),
+                        qualifiedWriteRequest, false));
+            });
+        });
+        unqualifiedBatchWriteItemResult.setUnprocessedItems(unqualifiedUnprocessedItems);
+
+        // map itemCollectionMetrics
+        if (qualifiedBatchWriteItemResult.getItemCollectionMetrics() != null) {
+            unqualifiedBatchWriteItemResult.setItemCollectionMetrics(mapItemCollectionMetrics(
+                qualifiedBatchWriteItemResult.getItemCollectionMetrics(), tableMappingByVirtualTableName));
+        }
+
+        return unqualifiedBatchWriteItemResult;
+    }
+
+    /*
+     * Maps item collection metrics back to their virtual tables, resolving the virtual table of each item collection
+     * from its qualified hash key.
+     */
+    private Map<String, List<ItemCollectionMetrics>> mapItemCollectionMetrics(
+        Map<String, List<ItemCollectionMetrics>> qualifiedItemCollectionMetrics,
+        Map<String, TableMapping> tableMappingByVirtualTableName) {
+        Map<String, List<ItemCollectionMetrics>> unqualifiedItemCollectionMetrics = new HashMap<>();
+        qualifiedItemCollectionMetrics.forEach((qualifiedTableName, metrics) -> {
+            Function<Map<String, AttributeValue>, FieldValue<?>> fieldValueFunction =
+                getFieldValueFunction(qualifiedTableName);
+            metrics.forEach(qualifiedMetrics -> {
+                String unqualifiedTableName =
+                    fieldValueFunction.apply(qualifiedMetrics.getItemCollectionKey()).getTableName();
+                unqualifiedItemCollectionMetrics.computeIfAbsent(unqualifiedTableName,
+                    tableName -> new ArrayList<>()).add(qualifiedMetrics.clone().withItemCollectionKey(
+                        tableMappingByVirtualTableName.get(unqualifiedTableName).getItemMapper()
+                            .reverse(qualifiedMetrics.getItemCollectionKey())));
+            });
+        });
+        return unqualifiedItemCollectionMetrics;
+    }
+
+    /*
+     * Maps the item of a put request or the key of a delete request to (apply) or from (reverse) its physical table.
+     */
+    private static WriteRequest mapWriteRequest(TableMapping tableMapping, WriteRequest writeRequest, boolean apply) {
+        if (writeRequest.getPutRequest() != null) {
+            ItemMapper itemMapper = tableMapping.getItemMapper();
+            Map<String, AttributeValue> item = writeRequest.getPutRequest().getItem();
+            return new WriteRequest(new PutRequest(apply ? itemMapper.apply(item) : itemMapper.reverse(item)));
+        } else {
+            checkArgument(writeRequest.getDeleteRequest() != null,
+                "WriteRequest must contain either a PutRequest or a DeleteRequest");
+            ItemMapper keyMapper = tableMapping.getKeyMapper();
+            Map<String, AttributeValue> key = writeRequest.getDeleteRequest().getKey();
+            return new WriteRequest(new DeleteRequest(apply ? keyMapper.apply(key) : keyMapper.reverse(key)));
+        }
+    }
+
+    /**
+     * Writes items in one or more virtual tables in a single all-or-nothing transaction.  Each action is mapped like
+     * the corresponding single-item operation, so a transaction may span several virtual and physical tables.
+     */
+    @Override
+    public TransactWriteItemsResult transactWriteItems(
+        TransactWriteItemsRequest unqualifiedTransactWriteItemsRequest) {
+        // create a map of virtual table names to TableMapping for use when handling the result later
+        Map<String, TableMapping> tableMappingByVirtualTableName = new HashMap<>();
+
+        // map table name, key or item, and conditions of each action, keeping the TableMapping of each action for
+        // mapping cancellation reasons
+        List<TableMapping> tableMappings = new ArrayList<>();
+        List<TransactWriteItem> qualifiedTransactItems = new ArrayList<>();
+        for (TransactWriteItem unqualifiedTransactItem : unqualifiedTransactWriteItemsRequest.getTransactItems()) {
+            qualifiedTransactItems.add(mapTransactWriteItem(unqualifiedTransactItem, tableMappingByVirtualTableName));
+            tableMappings.add(tableMappingByVirtualTableName.get(getTableName(unqualifiedTransactItem)));
+        }
+        TransactWriteItemsRequest qualifiedTransactWriteItemsRequest = unqualifiedTransactWriteItemsRequest.clone()
+            .withTransactItems(qualifiedTransactItems);
+
+        // transact write
+        final TransactWriteItemsResult qualifiedTransactWriteItemsResult;
+        try {
+            qualifiedTransactWriteItemsResult = getAmazonDynamoDb().transactWriteItems(
+                qualifiedTransactWriteItemsRequest);
+        } catch (TransactionCanceledException e) {
+            throw mapCancellationReasons(e, tableMappings);
+        }
+
+        // map itemCollectionMetrics
+        final TransactWriteItemsResult unqualifiedTransactWriteItemsResult = qualifiedTransactWriteItemsResult.clone();
+        if (qualifiedTransactWriteItemsResult.getItemCollectionMetrics() != null) {
+            unqualifiedTransactWriteItemsResult.setItemCollectionMetrics(mapItemCollectionMetrics(
+                qualifiedTransactWriteItemsResult.getItemCollectionMetrics(), tableMappingByVirtualTableName));
+        }
+
+        return unqualifiedTransactWriteItemsResult;
+    }
+
+    /*
+     * Maps a transactional write action by mapping the equivalent single-item request, so that keys, items, and
+     * conditions are qualified exactly as they are for putItem, updateItem, and deleteItem.
+     */
+    private TransactWriteItem mapTransactWriteItem(TransactWriteItem transactWriteItem,
+                                                   Map<String, TableMapping> tableMappingByVirtualTableName) {
+        if (transactWriteItem.getPut() != null) {
+            Put put = transactWriteItem.getPut();
+            PutItemRequest putItemRequest = new PutItemRequest()
+                .withTableName(put.getTableName())
+                .withItem(put.getItem())
+                .withConditionExpression(put.getConditionExpression())
+                .withExpressionAttributeNames(put.getExpressionAttributeNames())
+                .withExpressionAttributeValues(put.getExpressionAttributeValues());
+            tableMappingByVirtualTableName.put(put.getTableName(), mapPutItemRequest(putItemRequest));
+            return new TransactWriteItem().withPut(put.clone()
+                .withTableName(putItemRequest.getTableName())
+                .withItem(putItemRequest.getItem())
+                .withConditionExpression(putItemRequest.getConditionExpression())
+                .withExpressionAttributeNames(putItemRequest.getExpressionAttributeNames())
+                .withExpressionAttributeValues(putItemRequest.getExpressionAttributeValues()));
+        } else if (transactWriteItem.getUpdate() != null) {
+            Update update = transactWriteItem.getUpdate();
+            UpdateItemRequest updateItemRequest = new UpdateItemRequest()
+                .withTableName(update.getTableName())
+                .withKey(update.getKey())
+                .withUpdateExpression(update.getUpdateExpression())
+                .withConditionExpression(update.getConditionExpression())
+                .withExpressionAttributeNames(update.getExpressionAttributeNames())
+                .withExpressionAttributeValues(update.getExpressionAttributeValues());
+            tableMappingByVirtualTableName.put(update.getTableName(), mapUpdateItemRequest(updateItemRequest));
+            return new TransactWriteItem().withUpdate(update.clone()
+                .withTableName(updateItemRequest.getTableName())
+                .withKey(updateItemRequest.getKey())
+                .withUpdateExpression(updateItemRequest.getUpdateExpression())
+                .withConditionExpression(updateItemRequest.getConditionExpression())
+                .withExpressionAttributeNames(updateItemRequest.getExpressionAttributeNames())
+                .withExpressionAttributeValues(updateItemRequest.getExpressionAttributeValues()));
+        } else if (transactWriteItem.getDelete() != null) {
+            Delete delete = transactWriteItem.getDelete();
+            DeleteItemRequest deleteItemRequest = newDeleteItemRequest(delete.getTableName(), delete.getKey(),
+                delete.getConditionExpression(), delete.getExpressionAttributeNames(),
+                delete.getExpressionAttributeValues());
+            tableMappingByVirtualTableName.put(delete.getTableName(), mapDeleteItemRequest(deleteItemRequest));
+            return new TransactWriteItem().withDelete(delete.clone()
+                .withTableName(deleteItemRequest.getTableName())
+                .withKey(deleteItemRequest.getKey())
+                .withConditionExpression(deleteItemRequest.getConditionExpression())
+                .withExpressionAttributeNames(deleteItemRequest.getExpressionAttributeNames())
+                .withExpressionAttributeValues(deleteItemRequest.getExpressionAttributeValues()));
+        } else {
+            checkArgument(transactWriteItem.getConditionCheck() != null,
+                "TransactWriteItem must contain a Put, Update, Delete, or ConditionCheck");
+            // a condition check is mapped like a conditional delete: both consist of a key and a condition
+            ConditionCheck conditionCheck = transactWriteItem.getConditionCheck();
+            DeleteItemRequest deleteItemRequest = newDeleteItemRequest(conditionCheck.getTableName(),
+                conditionCheck.getKey(), conditionCheck.getConditionExpression(),
+                conditionCheck.getExpressionAttributeNames(), conditionCheck.getExpressionAttributeValues());
+            tableMappingByVirtualTableName.put(conditionCheck.getTableName(),
+                mapDeleteItemRequest(deleteItemRequest));
+            return new TransactWriteItem().withConditionCheck(conditionCheck.clone()
+                .withTableName(deleteItemRequest.getTableName())
+                .withKey(deleteItemRequest.getKey())
+                .withConditionExpression(deleteItemRequest.getConditionExpression())
+                .withExpressionAttributeNames(deleteItemRequest.getExpressionAttributeNames())
+                .withExpressionAttributeValues(deleteItemRequest.getExpressionAttributeValues()));
+        }
+    }
+
+    private static String getTableName(TransactWriteItem transactWriteItem) {
+        if (transactWriteItem.getPut() != null) {
+            return transactWriteItem.getPut().getTableName();
+        } else if (transactWriteItem.getUpdate() != null) {
+            return transactWriteItem.getUpdate().getTableName();
+        } else if (transactWriteItem.getDelete() != null) {
+            return transactWriteItem.getDelete().getTableName();
+        } else {
+            return transactWriteItem.getConditionCheck().getTableName();
+        }
+    }
+
+    /*
+     * Unqualifies the items of the cancellation reasons, which are in the order of the transaction's actions, so that
+     * the physical keys of the shared table are not exposed to the tenant.
+     */
+    private static TransactionCanceledException mapCancellationReasons(TransactionCanceledException e,
+                                                                       List<TableMapping> tableMappings) {
+        List<CancellationReason> qualifiedReasons = e.getCancellationReasons();
+        if (qualifiedReasons != null) {
+            List<CancellationReason> unqualifiedReasons = new ArrayList<>(qualifiedReasons.size());
+            for (int i = 0; i < qualifiedReasons.size(); i++) {
+                CancellationReason qualifiedReason = qualifiedReasons.get(i);
+                unqualifiedReasons.add(qualifiedReason.getItem() == null
+                    ? qualifiedReason
+                    : qualifiedReason.clone()
+                        .withItem(tableMappings.get(i).getItemMapper().reverse(qualifiedReason.getItem())));
+            }
+            e.setCancellationReasons(unqualifiedReasons);
+        }
+        return e;
+    }
+
+    private static DeleteItemRequest newDeleteItemRequest(String tableName,
+                                                          Map<String, AttributeValue> key,
+                                                          String conditionExpression,
+                                                          Map<String, String> expressionAttributeNames,
+                                                          Map<String, AttributeValue> expressionAttributeValues) {
+        return new DeleteItemRequest()
+            .withTableName(tableName)
+            .withKey(key)
+            .withConditionExpression(conditionExpression)
+            .withExpressionAttributeNames(expressionAttributeNames)
+            .withExpressionAttributeValues(expressionAttributeValues);
+    }
+
+    /**
+     * Reads items from one or more virtual tables in a single transaction.  Gets may span several virtual and physical
+     * tables.  Item responses are returned in the order of the requested gets.
+     */
+    @Override
+    public TransactGetItemsResult transactGetItems(TransactGetItemsRequest unqualifiedTransactGetItemsRequest) {
+        // map table name and key of each get, keeping the TableMapping of each for handling the result later
+        List<TableMapping> tableMappings = new ArrayList<>();
+        List<TransactGetItem> qualifiedTransactItems = new ArrayList<>();
+        for (TransactGetItem unqualifiedTransactItem : unqualifiedTransactGetItemsRequest.getTransactItems()) {
+            // validate
+            Get get = unqualifiedTransactItem.getGet();
+            checkArgument(get.getProjectionExpression() == null,
+                "projectionExpression is not supported on TransactGetItemsRequest calls");
+            checkArgument(get.getExpressionAttributeNames() == null,
+                "expressionAttributeNames are not supported on TransactGetItemsRequest calls");
+
+            // map table name and key
+            GetItemRequest getItemRequest = new GetItemRequest().withTableName(get.getTableName())
+                .withKey(get.getKey());
+            tableMappings.add(mapGetItemRequest(getItemRequest));
+            qualifiedTransactItems.add(new TransactGetItem().withGet(get.clone()
+                .withTableName(getItemRequest.getTableName())
+                .withKey(getItemRequest.getKey())));
+        }
+        TransactGetItemsRequest qualifiedTransactGetItemsRequest = unqualifiedTransactGetItemsRequest.clone()
+            .withTransactItems(qualifiedTransactItems);
+
+        // transact get
+        final TransactGetItemsResult qualifiedTransactGetItemsResult;
+        try {
+            qualifiedTransactGetItemsResult = getAmazonDynamoDb().transactGetItems(qualifiedTransactGetItemsRequest);
+        } catch (TransactionCanceledException e) {
+            throw mapCancellationReasons(e, tableMappings);
+        }
+
+        // map result, relying on responses being in the same order as the gets
+        final TransactGetItemsResult unqualifiedTransactGetItemsResult = qualifiedTransactGetItemsResult.clone();
+        if (qualifiedTransactGetItemsResult.getResponses() != null) {
+            List<ItemResponse> qualifiedResponses = qualifiedTransactGetItemsResult.getResponses();
+            List<ItemResponse> unqualifiedResponses = new ArrayList<>(qualifiedResponses.size());
+            for (int i = 0; i < qualifiedResponses.size(); i++) {
+                ItemResponse qualifiedResponse = qualifiedResponses.get(i);
+                unqualifiedResponses.add(qualifiedResponse.getItem() == null
+                    ? qualifiedResponse
+                    : qualifiedResponse.clone()
+                        .withItem(tableMappings.get(i).getItemMapper().reverse(qualifiedResponse.getItem())));
+            }
+            unqualifiedTransactGetItemsResult.setResponses(unqualifiedResponses);
+        }
+
+        return unqualifiedTransactGetItemsResult;
     }
 
     /**
@@ -272,8 +718,22 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
      */
     @Override
     public DeleteItemResult deleteItem(DeleteItemRequest deleteItemRequest) {
-        // map table name
+        return getAmazonDynamoDb().deleteItem(mapDeleteItem(deleteItemRequest).getRequest());
+    }
+
+    @Override
+    public MappedRequest<DeleteItemRequest, DeleteItemResult> mapDeleteItem(DeleteItemRequest deleteItemRequest) {
+        // map table name, key, and conditions
         deleteItemRequest = deleteItemRequest.clone();
+        mapDeleteItemRequest(deleteItemRequest);
+        return MappedRequest.withUnmappedResult(deleteItemRequest);
+    }
+
+    /*
+     * Maps the table name, key, and conditions of the given (cloned) request in place.
+     */
+    private TableMapping mapDeleteItemRequest(DeleteItemRequest deleteItemRequest) {
+        // map table name
         TableMapping tableMapping = getTableMapping(deleteItemRequest.getTableName());
         deleteItemRequest.withTableName(tableMapping.getPhysicalTable().getTableName());
 
@@ -283,8 +743,7 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
         // map conditions
         tableMapping.getConditionMapper().apply(new DeleteItemRequestWrapper(deleteItemRequest));
 
-        // delete
-        return getAmazonDynamoDb().deleteItem(deleteItemRequest);
+        return tableMapping;
     }
 
     /**
@@ -293,20 +752,18 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
      * Therefore this command is a relatively [or extraordinarily] expensive operation requiring running a full scan
      * the shared table to find relevant rows for the given tenant-table to delete before table metadata can be deleted.
      *
-     * <p>Additionally, for asynchronous deletes, there is no support for this JVM crashing during the delete,
-     * in which case, although a successful delete response my be handed back to the client,
-     * the virtual table and its relevant data may not actually be properly deleted. Therefore, use with caution.
+     * <p>Asynchronous deletes are recorded as durable jobs in the table metadata before a response is handed back to
+     * the client.  If this JVM crashes during the delete, the job is resumed by any instance once its lease expires.
      *
      * @return a DeleteTableResult with the description of the virtual table deleted.
      */
     @Override
     public DeleteTableResult deleteTable(DeleteTableRequest deleteTableRequest) {
-        if (deleteTableAsync) {
-            Executors.newSingleThreadExecutor().submit(() -> {
-                deleteTableInternal(deleteTableRequest);
-            });
-            return new DeleteTableResult()
+        if (deleteTableJobExecutor.isPresent()) {
+            DeleteTableResult deleteTableResult = new DeleteTableResult()
                 .withTableDescription(mtTableDescriptionRepo.getTableDescription(deleteTableRequest.getTableName()));
+            deleteTableJobExecutor.get().submit(deleteTableRequest.getTableName());
+            return deleteTableResult;
         } else {
             return deleteTableInternal(deleteTableRequest);
         }
@@ -335,31 +792,48 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
      */
     @Override
     public GetItemResult getItem(GetItemRequest getItemRequest) {
-        // validate
-        checkArgument(getItemRequest.getAttributesToGet() == null,
-            "attributesToGet are not supported on GetItemRequest calls");
-        checkArgument(getItemRequest.getProjectionExpression() == null,
-            "projectionExpression is not supported on GetItemRequest calls");
-        checkArgument(getItemRequest.getExpressionAttributeNames() == null,
-            "expressionAttributeNames are not supported on GetItemRequest calls");
+        MappedRequest<GetItemRequest, GetItemResult> mappedRequest = mapGetItem(getItemRequest);
+        return mappedRequest.mapResult(getAmazonDynamoDb().getItem(mappedRequest.getRequest()));
+    }
 
-        // map table name
+    @Override
+    public MappedRequest<GetItemRequest, GetItemResult> mapGetItem(GetItemRequest getItemRequest) {
+        // map table name and key
         getItemRequest = getItemRequest.clone();
+        TableMapping tableMapping = mapGetItemRequest(getItemRequest);
+
+        // map projection
+        Optional<Projection> projection = tableMapping.getProjectionMapper().apply(
+            getItemRequest.getProjectionExpression(), getItemRequest.getAttributesToGet(),
+            getItemRequest.getExpressionAttributeNames(), List.of());
+        if (projection.isPresent()) {
+            Map<String, String> expressionAttributeNames = new HashMap<>();
+            getItemRequest.setProjectionExpression(projection.get().toExpression(expressionAttributeNames));
+            getItemRequest.setExpressionAttributeNames(expressionAttributeNames);
+            getItemRequest.setAttributesToGet(null);
+        }
+
+        return new MappedRequest<>(getItemRequest, getItemResult -> {
+            // map result
+            if (getItemResult.getItem() != null) {
+                getItemResult.withItem(tableMapping.getItemMapper().reverse(getItemResult.getItem()));
+            }
+            return getItemResult;
+        });
+    }
+
+    /*
+     * Maps the table name and key of the given (cloned) request in place.
+     */
+    private TableMapping mapGetItemRequest(GetItemRequest getItemRequest) {
+        // map table name
         TableMapping tableMapping = getTableMapping(getItemRequest.getTableName());
         getItemRequest.withTableName(tableMapping.getPhysicalTable().getTableName());
 
         // map key
         getItemRequest.setKey(tableMapping.getKeyMapper().apply(getItemRequest.getKey()));
 
-        // get
-        GetItemResult getItemResult = getAmazonDynamoDb().getItem(getItemRequest);
-
-        // map result
-        if (getItemResult.getItem() != null) {
-            getItemResult.withItem(tableMapping.getItemMapper().reverse(getItemResult.getItem()));
-        }
-
-        return getItemResult;
+        return tableMapping;
     }
 
     TableMapping getTableMapping(String virtualTableName) {
@@ -372,10 +846,61 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
         }
     }
 
+    /**
+     * Creates the table mappings of the given virtual tables and adds them to the table mapping cache, e.g., with the
+     * table descriptions that were loaded by {@code MtDynamoDbTableDescriptionRepo.warmUp}, so that the first requests
+     * of each tenant after startup don't have to load them.  Each physical table is described at most once.
+     *
+     * @param tableDescriptions the descriptions of the virtual tables to map by tenant table
+     */
+    public void warmUp(Map<TenantTable, TableDescription> tableDescriptions) {
+        Map<String, DynamoTableDescriptionImpl> physicalTables = new HashMap<>();
+        tableDescriptions.forEach((tenantTable, tableDescription) -> getMtContext().withContext(
+            tenantTable.getTenantName(), () -> tableMappingCache.put(tenantTable.getVirtualTableName(),
+                tableMappingFactory.getTableMapping(new DynamoTableDescriptionImpl(tableDescription),
+                    physicalTables))));
+    }
+
+    /**
+     * Refreshes the cached table mapping of the given virtual table from its current table description, or removes it
+     * if the virtual table no longer exists, e.g., when notified by a {@code TableMetadataStreamListener} that the
+     * table was dropped or recreated on another node.  Mappings that are not cached are not created.  The mapping
+     * shared by tenants is reused if its physical table is unchanged, and rebuilt otherwise.
+     *
+     * @param tenantTable the virtual table whose mapping to refresh
+     */
+    public void refreshTableMapping(TenantTable tenantTable) {
+        getMtContext().withContext(tenantTable.getTenantName(), () -> {
+            String virtualTableName = tenantTable.getVirtualTableName();
+            if (tableMappingCache.getIfPresent(virtualTableName) != null) {
+                try {
+                    tableMappingCache.put(virtualTableName, tableMappingFactory.refreshTableMapping(
+                        new DynamoTableDescriptionImpl(mtTableDescriptionRepo.getTableDescription(virtualTableName))));
+                } catch (ResourceNotFoundException e) {
+                    tableMappingCache.invalidate(virtualTableName);
+                }
+            }
+        });
+    }
+
     @Override
     public PutItemResult putItem(PutItemRequest putItemRequest) {
-        // map table name
+        return getAmazonDynamoDb().putItem(mapPutItem(putItemRequest).getRequest());
+    }
+
+    @Override
+    public MappedRequest<PutItemRequest, PutItemResult> mapPutItem(PutItemRequest putItemRequest) {
+        // map table name, conditions, and item
         putItemRequest = putItemRequest.clone();
+        mapPutItemRequest(putItemRequest);
+        return MappedRequest.withUnmappedResult(putItemRequest);
+    }
+
+    /*
+     * Maps the table name, conditions, and item of the given (cloned) request in place.
+     */
+    private TableMapping mapPutItemRequest(PutItemRequest putItemRequest) {
+        // map table name
         TableMapping tableMapping = getTableMapping(putItemRequest.getTableName());
         putItemRequest.withTableName(tableMapping.getPhysicalTable().getTableName());
 
@@ -385,30 +910,50 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
         // map item
         putItemRequest.setItem(tableMapping.getItemMapper().apply(putItemRequest.getItem()));
 
-        // put
-        return getAmazonDynamoDb().putItem(putItemRequest);
+        return tableMapping;
     }
 
     @Override
     public QueryResult query(QueryRequest queryRequest) {
+        MappedRequest<QueryRequest, QueryResult> mappedRequest = mapQuery(queryRequest);
+        return mappedRequest.mapResult(getAmazonDynamoDb().query(mappedRequest.getRequest()));
+    }
+
+    @Override
+    public MappedRequest<QueryRequest, QueryResult> mapQuery(QueryRequest queryRequest) {
         final TableMapping tableMapping = getTableMapping(queryRequest.getTableName());
 
         // map table name
         final QueryRequest clonedQueryRequest = queryRequest.clone();
         clonedQueryRequest.withTableName(tableMapping.getPhysicalTable().getTableName());
 
+        // map projection against the virtual expression attribute names
+        Optional<Projection> projection = tableMapping.getProjectionMapper().apply(
+            queryRequest.getProjectionExpression(), queryRequest.getAttributesToGet(),
+            queryRequest.getExpressionAttributeNames(), List.of());
+
         // map query request
         tableMapping.getQueryAndScanMapper().apply(clonedQueryRequest);
+        projection.ifPresent(p -> {
+            Map<String, String> expressionAttributeNames = ProjectionMapper.getReferencedNames(
+                clonedQueryRequest.getExpressionAttributeNames(), clonedQueryRequest.getKeyConditionExpression(),
+                clonedQueryRequest.getFilterExpression());
+            clonedQueryRequest.setProjectionExpression(p.toExpression(expressionAttributeNames));
+            clonedQueryRequest.setExpressionAttributeNames(expressionAttributeNames);
+            clonedQueryRequest.setAttributesToGet(null);
+        });
 
-        // map result
-        final QueryResult queryResult = getAmazonDynamoDb().query(clonedQueryRequest);
-        queryResult.setItems(queryResult.getItems().stream().map(tableMapping.getItemMapper()::reverse)
-            .collect(toList()));
-        if (queryResult.getLastEvaluatedKey() != null) {
-            queryResult.setLastEvaluatedKey(tableMapping.getItemMapper().reverse(queryResult.getLastEvaluatedKey()));
-        }
-
-        return queryResult;
+        return new MappedRequest<>(clonedQueryRequest, queryResult -> {
+            // map result
+            queryResult.setItems(queryResult.getItems().stream().map(item -> reverseResultItem(tableMapping, item))
+                .map(item -> projection.map(p -> p.strip(item)).orElse(item))
+                .collect(toList()));
+            if (queryResult.getLastEvaluatedKey() != null) {
+                queryResult.setLastEvaluatedKey(
+                    tableMapping.getItemMapper().reverse(queryResult.getLastEvaluatedKey()));
+            }
+            return queryResult;
+        });
     }
 
     /**
@@ -421,6 +966,9 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
      * If used, it needs to be on a non-web request, as this makes several repeat callouts to dynamo to fill a single
      * result set. Performance of this call degrades with data size of all other tenant table data stored, and will
      * likely time out a synchronous web request if querying a sparse table-tenant in the shared table.
+     *
+     * <p>If a {@code BudgetedScanEngine} is configured, tenant-scoped scans return an empty page with a continuation
+     * key once the configured {@code ScanBudget} is exhausted, rather than reading until a matching item is found.
      */
     @Override
     public ScanResult scan(ScanRequest scanRequest) {
@@ -432,21 +980,58 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
         PrimaryKey key = scanRequest.getIndexName() == null ? tableMapping.getVirtualTable().getPrimaryKey()
             : tableMapping.getVirtualTable().findSi(scanRequest.getIndexName()).getPrimaryKey();
 
-        // Projection must include primary key, since we use it for paging.
-        // (We could add key fields into projection and filter result in the future)
-        checkArgument(projectionContainsKey(scanRequest, key),
-            "Multitenant scans must include key in projection expression");
+        // map projection against the virtual expression attribute names, including the key used for paging; budgeted
+        // scans may resume after any returned item, which requires the table key for index scans as well
+        Set<String> requiredAttributes = new HashSet<>(getKeyAttributeNames(key));
+        if (budgetedScanEngine.isPresent()) {
+            requiredAttributes.addAll(getKeyAttributeNames(tableMapping.getVirtualTable().getPrimaryKey()));
+        }
+        Optional<Projection> projection = tableMapping.getProjectionMapper().apply(
+            scanRequest.getProjectionExpression(), scanRequest.getAttributesToGet(),
+            scanRequest.getExpressionAttributeNames(), requiredAttributes);
 
         // map table name
         ScanRequest clonedScanRequest = scanRequest.clone();
         clonedScanRequest.withTableName(tableMapping.getPhysicalTable().getTableName());
 
+        // continuation keys of budgeted scans are not virtual keys, so they are passed to the engine unmapped
+        Optional<Map<String, AttributeValue>> continuationKey = budgetedScanEngine
+            .map(engine -> clonedScanRequest.getExclusiveStartKey())
+            .filter(BudgetedScanEngine::isContinuationKey);
+        continuationKey.ifPresent(exclusiveStartKey -> clonedScanRequest.setExclusiveStartKey(null));
+
         // map scan request
         clonedScanRequest.setExpressionAttributeNames(Optional.ofNullable(clonedScanRequest.getFilterExpression())
             .map(s -> new HashMap<>(clonedScanRequest.getExpressionAttributeNames())).orElseGet(HashMap::new));
         clonedScanRequest.setExpressionAttributeValues(Optional.ofNullable(clonedScanRequest.getFilterExpression())
             .map(s -> new HashMap<>(clonedScanRequest.getExpressionAttributeValues())).orElseGet(HashMap::new));
         tableMapping.getQueryAndScanMapper().apply(clonedScanRequest);
+        projection.ifPresent(p -> {
+            Map<String, String> expressionAttributeNames = ProjectionMapper.getReferencedNames(
+                clonedScanRequest.getExpressionAttributeNames(), clonedScanRequest.getFilterExpression());
+            clonedScanRequest.setProjectionExpression(p.toExpression(expressionAttributeNames));
+            clonedScanRequest.setExpressionAttributeNames(expressionAttributeNames);
+            clonedScanRequest.setAttributesToGet(null);
+        });
+
+        // scan within budget, returning a continuation key rather than the last item's key
+        if (budgetedScanEngine.isPresent()) {
+            Set<String> physicalKeyAttributeNames = new HashSet<>(
+                getKeyAttributeNames(tableMapping.getPhysicalTable().getPrimaryKey()));
+            if (clonedScanRequest.getIndexName() != null) {
+                physicalKeyAttributeNames.addAll(getKeyAttributeNames(
+                    tableMapping.getPhysicalTable().findSi(clonedScanRequest.getIndexName()).getPrimaryKey()));
+            }
+            // continuation keys are only valid for the tenant, table, and index they were returned for
+            String scope = String.join("\0", getMtContext().getContext(), scanRequest.getTableName(),
+                Objects.toString(scanRequest.getIndexName(), ""));
+            ScanResult scanResult = budgetedScanEngine.get().scan(clonedScanRequest, continuationKey.orElse(null),
+                scope, physicalKeyAttributeNames);
+            scanResult.setItems(scanResult.getItems().stream().map(item -> reverseResultItem(tableMapping, item))
+                .map(item -> projection.map(p -> p.strip(item)).orElse(item))
+                .collect(toList()));
+            return scanResult;
+        }
 
         // keep moving forward pages until we find at least one record for current tenant or reach end
         ScanResult scanResult;
@@ -458,72 +1043,111 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
         // map result
         List<Map<String, AttributeValue>> items = scanResult.getItems();
         if (!items.isEmpty()) {
-            scanResult.setItems(items.stream().map(tableMapping.getItemMapper()::reverse).collect(toList()));
+            scanResult.setItems(items.stream().map(item -> reverseResultItem(tableMapping, item)).collect(toList()));
             if (scanResult.getLastEvaluatedKey() != null) {
                 scanResult.setLastEvaluatedKey(getKeyFromItem(Iterables.getLast(scanResult.getItems()), key));
             }
+            List<Map<String, AttributeValue>> mappedItems = scanResult.getItems();
+            projection.ifPresent(p -> mappedItems.replaceAll(p::strip));
         } // else: while loop ensures that getLastEvaluatedKey is null (no need to map)
 
         return scanResult;
     }
 
+    /*
+     * Reverse-maps an item of a query or scan result, as a read-only view if lazy result items are enabled.
+     */
+    private Map<String, AttributeValue> reverseResultItem(TableMapping tableMapping, Map<String, AttributeValue> item) {
+        return lazyResultItems
+            ? tableMapping.getItemMapper().reverseView(item)
+            : tableMapping.getItemMapper().reverse(item);
+    }
+
     private ScanResult scanAllTenants(ScanRequest scanRequest) {
         Preconditions.checkArgument(mtTables.containsKey(scanRequest.getTableName()), scanRequest.getTableName());
         ScanResult scanResult =  getAmazonDynamoDb().scan(scanRequest);
+        return scanResult.withItems(unpackItems(scanRequest.getTableName(), scanResult.getItems()));
+    }
 
-        // given the shared table we're working with,
-        // get the function to map the primary key back to
-        // tuple (tenant, virtual table name, and primary attributes)
-        Function<Map<String, AttributeValue>, FieldValue<?>> fieldMapperFunction =
-            getFieldValueFunction(scanRequest.getTableName());
-        List<Map<String, AttributeValue>> unpackedItems = new ArrayList<>(scanResult.getItems().size());
-        for (Map<String, AttributeValue> item : scanResult.getItems()) {
-            // go through each row in the scan, and pull out the tenant and table information from the primary key
-            // to separate attributes in each items map
-            FieldValue virtualFieldKeys = fieldMapperFunction.apply(item);
-            TableMapping tableMapping = getMtContext().withContext(virtualFieldKeys.getContext(), this::getTableMapping,
-                virtualFieldKeys.getTableName());
-            Map<String, AttributeValue> unpackedVirtualItem = tableMapping.getItemMapper().reverse(item);
-            unpackedVirtualItem.put(scanTenantKey, new AttributeValue(virtualFieldKeys.getTableName()));
-            unpackedVirtualItem.put(scanVirtualTableKey, new AttributeValue(virtualFieldKeys.getContext()));
-            unpackedItems.add(unpackedVirtualItem);
-        }
-
-        return scanResult.withItems(unpackedItems);
+    /**
+     * Scans the items of all tenants in the given shared table using parallel segment scans.  Must be called without a
+     * tenant context.  Each segment is scanned by a separate worker on the parallel scan executor, and each page is
+     * mapped to virtual items as soon as it is read.  The progress of each segment is recorded in the given
+     * checkpoint, which allows resuming failed scans by passing in the same checkpoint.  The returned iterator must be
+     * closed if not consumed completely.
+     *
+     * @param scanRequest the scan request for the shared table, without segment information
+     * @param checkpoint the checkpoint that defines the total number of segments and to resume from
+     * @param maxBufferedPages the maximum number of pages that have been read, but not yet consumed
+     * @return an iterator over the virtual items of all tenants, including tenant and virtual table name attributes
+     */
+    public ParallelScanIterator parallelScanAllTenants(ScanRequest scanRequest,
+                                                       ParallelScanCheckpoint checkpoint,
+                                                       int maxBufferedPages) {
+        checkArgument(getMtContext().getContextOpt().isEmpty(), "parallel scans are only supported across tenants");
+        checkArgument(mtTables.containsKey(scanRequest.getTableName()), scanRequest.getTableName());
+        checkArgument(scanRequest.getSegment() == null && scanRequest.getTotalSegments() == null,
+            "segments are defined by the checkpoint");
+        final String tableName = scanRequest.getTableName();
+        final AmazonDynamoDB amazonDynamoDb = getAmazonDynamoDb();
+        return new ParallelScanIterator(scanRequest, amazonDynamoDb::scan, items -> unpackItems(tableName, items),
+            checkpoint, maxBufferedPages, parallelScanExecutor);
     }
 
-    @VisibleForTesting
-    static boolean projectionContainsKey(ScanRequest request, PrimaryKey key) {
-        String projection = request.getProjectionExpression();
-        List<String> legacyProjection = request.getAttributesToGet();
+    private List<Map<String, AttributeValue>> unpackItems(String tableName, List<Map<String, AttributeValue>> items) {
+        // map the items of each tenant table at once and add the tenant and table information from the primary key as
+        // separate attributes to each item
+        return mapAcrossTenants(tableName, items, Function.identity(), (tenantTable, tableMapping) -> item -> {
+            Map<String, AttributeValue> unpackedVirtualItem = tableMapping.getItemMapper().reverse(item);
+            unpackedVirtualItem.put(scanTenantKey, new AttributeValue(tenantTable.getVirtualTableName()));
+            unpackedVirtualItem.put(scanVirtualTableKey, new AttributeValue(tenantTable.getTenantName()));
+            return unpackedVirtualItem;
+        });
+    }
 
-        // vacuously true if projection not specified
-        if (projection == null && legacyProjection == null) {
-            return true;
-        } else {
-            Map<String, String> expressionNames = request.getExpressionAttributeNames();
-            return projectionContainsKey(projection, expressionNames, legacyProjection, key.getHashKey()) && key
-                .getRangeKey()
-                .map(rangeKey -> projectionContainsKey(projection, expressionNames, legacyProjection, rangeKey))
-                .orElse(true);
-        }
-    }
-
-    private static boolean projectionContainsKey(String projection, Map<String, String> expressionNames,
-                                          List<String> legacyProjection, String key) {
-        if (projection != null) {
-            // TODO we should probably parse expressions or use more sophisticated matching
-            if (expressionNames != null) {
-                String name = expressionNames.get(key);
-                if (name != null && projection.contains(name)) {
-                    return true;
-                }
-            }
-            if (projection.contains(key)) {
-                return true;
+    /**
+     * Maps a page of elements of the given shared table across tenants, e.g., scanned items or stream records.  The
+     * tenant and virtual table of each element are parsed from its key once, and the elements are grouped by them, so
+     * that each group is mapped under a single context switch and table mapping lookup.
+     *
+     * @param sharedTableName the name of the shared table that the elements were read from
+     * @param elements the elements to map
+     * @param keyFunction returns the physical key of an element
+     * @param groupMapper returns the function that maps the elements of a tenant table, given its table mapping, which
+     *     is called under the context of the tenant
+     * @param <T> the type of the elements
+     * @param <R> the type of the mapped elements
+     * @return the mapped elements, in the order of the given elements
+     */
+    <T, R> List<R> mapAcrossTenants(String sharedTableName,
+                                    List<T> elements,
+                                    Function<T, Map<String, AttributeValue>> keyFunction,
+                                    BiFunction<TenantTable, TableMapping, Function<T, R>> groupMapper) {
+        final Function<Map<String, AttributeValue>, FieldValue<?>> fieldValueFunction =
+            getFieldValueFunction(sharedTableName);
+        final Map<TenantTable, List<Integer>> groups = new LinkedHashMap<>();
+        TenantTable tenantTable = null;
+        List<Integer> group = null;
+        for (int i = 0; i < elements.size(); i++) {
+            final FieldValue<?> fieldValue = fieldValueFunction.apply(keyFunction.apply(elements.get(i)));
+            // consecutive elements often belong to the same tenant table
+            if (tenantTable == null
+                || !tenantTable.getTenantName().equals(fieldValue.getContext())
+                || !tenantTable.getVirtualTableName().equals(fieldValue.getTableName())) {
+                tenantTable = new TenantTable(fieldValue.getTableName(), fieldValue.getContext());
+                group = groups.computeIfAbsent(tenantTable, key -> new ArrayList<>());
             }
+            group.add(i);
         }
-        return legacyProjection != null && legacyProjection.contains(key);
+
+        final List<R> mappedElements = new ArrayList<>(Collections.nCopies(elements.size(), null));
+        groups.forEach((key, indexes) -> getMtContext().withContext(key.getTenantName(), () -> {
+            final Function<T, R> mapper = groupMapper.apply(key, getTableMapping(key.getVirtualTableName()));
+            for (int index : indexes) {
+                mappedElements.set(index, mapper.apply(elements.get(index)));
+            }
+        }));
+        return mappedElements;
     }
 
     /**
@@ -533,11 +1157,25 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
      */
     @Override
     public UpdateItemResult updateItem(UpdateItemRequest updateItemRequest) {
+        return getAmazonDynamoDb().updateItem(mapUpdateItem(updateItemRequest).getRequest());
+    }
+
+    @Override
+    public MappedRequest<UpdateItemRequest, UpdateItemResult> mapUpdateItem(UpdateItemRequest updateItemRequest) {
         // validate that attributeUpdates are not being used
         validateUpdateItemRequest(updateItemRequest);
 
-        // map table name
+        // map table name, key, and conditions
         updateItemRequest = updateItemRequest.clone();
+        mapUpdateItemRequest(updateItemRequest);
+        return MappedRequest.withUnmappedResult(updateItemRequest);
+    }
+
+    /*
+     * Maps the table name, key, and conditions of the given (cloned) request in place.
+     */
+    private TableMapping mapUpdateItemRequest(UpdateItemRequest updateItemRequest) {
+        // map table name
         TableMapping tableMapping = getTableMapping(updateItemRequest.getTableName());
         updateItemRequest.withTableName(tableMapping.getPhysicalTable().getTableName());
 
@@ -547,11 +1185,9 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
         // map conditions
         tableMapping.getConditionMapper().apply(new UpdateItemRequestWrapper(updateItemRequest));
 
-        // update
-        return getAmazonDynamoDb().updateItem(updateItemRequest);
+        return tableMapping;
     }
 
-
     /**
      * See class level Javadoc for explanation of why the use of addAttributeUpdateEntry and withAttributeUpdates is
      * not supported.
@@ -567,28 +1203,47 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
     }
 
     private DeleteTableResult deleteTableInternal(DeleteTableRequest deleteTableRequest) {
-        String tableDesc = "table=" + deleteTableRequest.getTableName() + " " + (deleteTableAsync ? "asynchronously"
-            : "synchronously");
+        String tableDesc = "table=" + deleteTableRequest.getTableName() + " "
+            + (deleteTableJobExecutor.isPresent() ? "asynchronously" : "synchronously");
         log.warn("dropping " + tableDesc);
         truncateTable(deleteTableRequest.getTableName());
+        // an async job is interrupted if it lost its lease, in which case another instance may be running it
+        checkState(!Thread.currentThread().isInterrupted(), "interrupted while dropping " + tableDesc);
         DeleteTableResult deleteTableResult = new DeleteTableResult()
             .withTableDescription(mtTableDescriptionRepo.deleteTable(deleteTableRequest.getTableName()));
         log.warn("dropped " + tableDesc);
         return deleteTableResult;
     }
 
-    private void truncateTable(String tableName) {
-        if (truncateOnDeleteTable) {
-            ScanResult scanResult = scan(new ScanRequest().withTableName(tableName));
-            log.warn("truncating " + scanResult.getItems().size() + " items from table=" + tableName);
-            for (Map<String, AttributeValue> item : scanResult.getItems()) {
-                deleteItem(new DeleteItemRequest().withTableName(tableName).withKey(getKeyFromItem(item, tableName)));
-            }
-            log.warn("truncation of " + scanResult.getItems().size() + " items from table=" + tableName
-                + (scanResult.getLastEvaluatedKey() == null
-                    ? " complete. "
-                    : "but data may have been dropped to the floor, beware."));
+    private void runDeleteTableJob(TenantTable tenantTable) {
+        getMtContext().withContext(tenantTable.getTenantName(), () -> {
+            deleteTableInternal(new DeleteTableRequest(tenantTable.getVirtualTableName()));
+        });
+    }
 
+    private void truncateTable(String tableName) {
+        if (truncationEngine.isPresent()) {
+            // map a scan that selects all items of the virtual table
+            TableMapping tableMapping = getTableMapping(tableName);
+            ScanRequest scanRequest = new ScanRequest()
+                .withTableName(tableMapping.getPhysicalTable().getTableName())
+                .withExpressionAttributeNames(new HashMap<>())
+                .withExpressionAttributeValues(new HashMap<>());
+            tableMapping.getQueryAndScanMapper().apply(scanRequest);
+
+            // resume from the progress of an interrupted truncation, if any
+            ParallelScanCheckpoint checkpoint = Optional.ofNullable(mtTableDescriptionRepo
+                .getTruncationProgress(tableName))
+                .map(ParallelScanCheckpoint::fromItem)
+                .orElseGet(truncationEngine.get()::newCheckpoint);
+            log.warn("truncating table=" + tableName + " from " + checkpoint);
+
+            // segments are truncated on other threads, so record progress under the current context
+            String context = getMtContext().getContext();
+            truncationEngine.get().truncate(scanRequest, tableMapping.getPhysicalTable().getPrimaryKey(), checkpoint,
+                progress -> getMtContext().withContext(context,
+                    () -> mtTableDescriptionRepo.updateTruncationProgress(tableName, progress.toItem())));
+            log.warn("truncation of table=" + tableName + " complete");
         } else {
             log.info("truncateOnDeleteTable is disabled for " + tableName + ", skipping truncation. "
                 + "Data has been dropped, clean up on aisle "
@@ -596,12 +1251,6 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
         }
     }
 
-    private Map<String, AttributeValue> getKeyFromItem(Map<String, AttributeValue> item, String tableName) {
-        return describeTable(new DescribeTableRequest().withTableName(tableName)).getTable().getKeySchema().stream()
-            .collect(Collectors.toMap(KeySchemaElement::getAttributeName,
-                keySchemaElement -> item.get(keySchemaElement.getAttributeName())));
-    }
-
     private static Map<String, AttributeValue> getKeyFromItem(Map<String, AttributeValue> item, PrimaryKey primaryKey) {
         String hashKey = primaryKey.getHashKey();
         return primaryKey.getRangeKey()
@@ -609,64 +1258,62 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
             .orElseGet(() -> ImmutableMap.of(hashKey, item.get(hashKey)));
     }
 
-    private static class PutItemRequestWrapper implements RequestWrapper {
+    private static List<String> getKeyAttributeNames(PrimaryKey primaryKey) {
+        return primaryKey.getRangeKey()
+            .map(rangeKey -> List.of(primaryKey.getHashKey(), rangeKey))
+            .orElseGet(() -> List.of(primaryKey.getHashKey()));
+    }
 
-        private final PutItemRequest putItemRequest;
+    /*
+     * Base class of the wrappers of single-item write requests.  The mapped request initially shares the expression
+     * attribute name and value maps of the virtual request.  Each map is copied on its first write only, so mapping a
+     * request whose expressions don't refer to any mapped fields copies neither map.
+     */
+    @VisibleForTesting
+    abstract static class ItemRequestWrapper implements RequestWrapper {
 
-        PutItemRequestWrapper(PutItemRequest putItemRequest) {
-            this.putItemRequest = putItemRequest;
-            if (this.putItemRequest.getExpressionAttributeNames() != null) {
-                this.putItemRequest.setExpressionAttributeNames(new HashMap<>(this.getExpressionAttributeNames()));
-            }
-            if (this.putItemRequest.getExpressionAttributeValues() != null) {
-                this.putItemRequest.setExpressionAttributeValues(new HashMap<>(this.getExpressionAttributeValues()));
-            }
-        }
+        private boolean expressionAttributeNamesCopied;
+        private boolean expressionAttributeValuesCopied;
+
+        abstract Map<String, String> getRequestExpressionAttributeNames();
+
+        abstract void setRequestExpressionAttributeNames(Map<String, String> expressionAttributeNames);
+
+        abstract Map<String, AttributeValue> getRequestExpressionAttributeValues();
+
+        abstract void setRequestExpressionAttributeValues(Map<String, AttributeValue> expressionAttributeValues);
 
         @Override
         public Map<String, String> getExpressionAttributeNames() {
-            return putItemRequest.getExpressionAttributeNames();
+            return getRequestExpressionAttributeNames();
         }
 
         @Override
         public void putExpressionAttributeName(String key, String value) {
-            if (putItemRequest.getExpressionAttributeNames() == null) {
-                putItemRequest.setExpressionAttributeNames(new HashMap<>());
+            if (!expressionAttributeNamesCopied) {
+                setRequestExpressionAttributeNames(copy(getRequestExpressionAttributeNames()));
+                expressionAttributeNamesCopied = true;
             }
-            putItemRequest.getExpressionAttributeNames().put(key, value);
+            getRequestExpressionAttributeNames().put(key, value);
         }
 
         @Override
         public Map<String, AttributeValue> getExpressionAttributeValues() {
-            if (putItemRequest.getExpressionAttributeValues() == null) {
-                putItemRequest.setExpressionAttributeValues(new HashMap<>());
-            }
-            return putItemRequest.getExpressionAttributeValues();
+            Map<String, AttributeValue> expressionAttributeValues = getRequestExpressionAttributeValues();
+            return expressionAttributeValues == null ? Collections.emptyMap() : expressionAttributeValues;
         }
 
         @Override
         public void putExpressionAttributeValue(String key, AttributeValue value) {
-            putItemRequest.getExpressionAttributeValues().put(key, value);
-        }
-
-        @Override
-        public String getPrimaryExpression() {
-            return putItemRequest.getConditionExpression();
-        }
-
-        @Override
-        public void setPrimaryExpression(String expression) {
-            putItemRequest.setConditionExpression(expression);
-        }
-
-        @Override
-        public String getFilterExpression() {
-            return putItemRequest.getConditionExpression();
+            if (!expressionAttributeValuesCopied) {
+                setRequestExpressionAttributeValues(copy(getRequestExpressionAttributeValues()));
+                expressionAttributeValuesCopied = true;
+            }
+            getRequestExpressionAttributeValues().put(key, value);
         }
 
-        @Override
-        public void setFilterExpression(String conditionalExpression) {
-            putItemRequest.setConditionExpression(conditionalExpression);
+        private static <K, V> Map<K, V> copy(Map<K, V> map) {
+            return map == null ? new HashMap<>() : new HashMap<>(map);
         }
 
         @Override
@@ -701,138 +1348,135 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
 
     }
 
-    private static class UpdateItemRequestWrapper implements RequestWrapper {
+    @VisibleForTesting
+    static class PutItemRequestWrapper extends ItemRequestWrapper {
 
-        private final UpdateItemRequest updateItemRequest;
+        private final PutItemRequest putItemRequest;
 
-        UpdateItemRequestWrapper(UpdateItemRequest updateItemRequest) {
-            this.updateItemRequest = updateItemRequest;
-            if (this.updateItemRequest.getExpressionAttributeNames() != null) {
-                this.updateItemRequest.setExpressionAttributeNames(
-                    new HashMap<>(updateItemRequest.getExpressionAttributeNames()));
-            }
-            if (this.updateItemRequest.getExpressionAttributeValues() != null) {
-                this.updateItemRequest.setExpressionAttributeValues(
-                    new HashMap<>(updateItemRequest.getExpressionAttributeValues()));
-            }
+        PutItemRequestWrapper(PutItemRequest putItemRequest) {
+            this.putItemRequest = putItemRequest;
         }
 
         @Override
-        public Map<String, String> getExpressionAttributeNames() {
-            return updateItemRequest.getExpressionAttributeNames();
+        Map<String, String> getRequestExpressionAttributeNames() {
+            return putItemRequest.getExpressionAttributeNames();
         }
 
         @Override
-        public void putExpressionAttributeName(String key, String value) {
-            if (updateItemRequest.getExpressionAttributeNames() == null) {
-                updateItemRequest.setExpressionAttributeNames(new HashMap<>());
-            }
-            updateItemRequest.getExpressionAttributeNames().put(key, value);
+        void setRequestExpressionAttributeNames(Map<String, String> expressionAttributeNames) {
+            putItemRequest.setExpressionAttributeNames(expressionAttributeNames);
         }
 
         @Override
-        public Map<String, AttributeValue> getExpressionAttributeValues() {
-            if (updateItemRequest.getExpressionAttributeValues() == null) {
-                updateItemRequest.setExpressionAttributeValues(new HashMap<>());
-            }
-            return updateItemRequest.getExpressionAttributeValues();
+        Map<String, AttributeValue> getRequestExpressionAttributeValues() {
+            return putItemRequest.getExpressionAttributeValues();
         }
 
         @Override
-        public void putExpressionAttributeValue(String key, AttributeValue value) {
-            updateItemRequest.getExpressionAttributeValues().put(key, value);
+        void setRequestExpressionAttributeValues(Map<String, AttributeValue> expressionAttributeValues) {
+            putItemRequest.setExpressionAttributeValues(expressionAttributeValues);
         }
 
         @Override
         public String getPrimaryExpression() {
-            return updateItemRequest.getUpdateExpression();
+            return putItemRequest.getConditionExpression();
         }
 
         @Override
         public void setPrimaryExpression(String expression) {
-            updateItemRequest.setUpdateExpression(expression);
+            putItemRequest.setConditionExpression(expression);
         }
 
         @Override
         public String getFilterExpression() {
-            return updateItemRequest.getConditionExpression();
+            return putItemRequest.getConditionExpression();
         }
 
         @Override
         public void setFilterExpression(String conditionalExpression) {
-            updateItemRequest.setConditionExpression(conditionalExpression);
+            putItemRequest.setConditionExpression(conditionalExpression);
+        }
+
+    }
+
+    @VisibleForTesting
+    static class UpdateItemRequestWrapper extends ItemRequestWrapper {
+
+        private final UpdateItemRequest updateItemRequest;
+
+        UpdateItemRequestWrapper(UpdateItemRequest updateItemRequest) {
+            this.updateItemRequest = updateItemRequest;
         }
 
         @Override
-        public String getIndexName() {
-            throw new UnsupportedOperationException();
+        Map<String, String> getRequestExpressionAttributeNames() {
+            return updateItemRequest.getExpressionAttributeNames();
         }
 
         @Override
-        public void setIndexName(String indexName) {
-            throw new UnsupportedOperationException();
+        void setRequestExpressionAttributeNames(Map<String, String> expressionAttributeNames) {
+            updateItemRequest.setExpressionAttributeNames(expressionAttributeNames);
         }
 
         @Override
-        public Map<String, Condition> getLegacyExpression() {
-            throw new UnsupportedOperationException();
+        Map<String, AttributeValue> getRequestExpressionAttributeValues() {
+            return updateItemRequest.getExpressionAttributeValues();
         }
 
         @Override
-        public void clearLegacyExpression() {
-            throw new UnsupportedOperationException();
+        void setRequestExpressionAttributeValues(Map<String, AttributeValue> expressionAttributeValues) {
+            updateItemRequest.setExpressionAttributeValues(expressionAttributeValues);
         }
 
         @Override
-        public Map<String, AttributeValue> getExclusiveStartKey() {
-            throw new UnsupportedOperationException();
+        public String getPrimaryExpression() {
+            return updateItemRequest.getUpdateExpression();
         }
 
         @Override
-        public void setExclusiveStartKey(Map<String, AttributeValue> exclusiveStartKey) {
-            throw new UnsupportedOperationException();
+        public void setPrimaryExpression(String expression) {
+            updateItemRequest.setUpdateExpression(expression);
+        }
+
+        @Override
+        public String getFilterExpression() {
+            return updateItemRequest.getConditionExpression();
+        }
+
+        @Override
+        public void setFilterExpression(String conditionalExpression) {
+            updateItemRequest.setConditionExpression(conditionalExpression);
         }
 
     }
 
-    private static class DeleteItemRequestWrapper implements RequestWrapper {
+    @VisibleForTesting
+    static class DeleteItemRequestWrapper extends ItemRequestWrapper {
 
         private final DeleteItemRequest deleteItemRequest;
 
         DeleteItemRequestWrapper(DeleteItemRequest deleteItemRequest) {
             this.deleteItemRequest = deleteItemRequest;
-            if (this.deleteItemRequest.getExpressionAttributeNames() != null) {
-                this.deleteItemRequest.setExpressionAttributeNames(new HashMap<>(this.getExpressionAttributeNames()));
-            }
-            if (this.deleteItemRequest.getExpressionAttributeValues() != null) {
-                this.deleteItemRequest.setExpressionAttributeValues(new HashMap<>(this.getExpressionAttributeValues()));
-            }
         }
 
         @Override
-        public Map<String, String> getExpressionAttributeNames() {
+        Map<String, String> getRequestExpressionAttributeNames() {
             return deleteItemRequest.getExpressionAttributeNames();
         }
 
         @Override
-        public void putExpressionAttributeName(String key, String value) {
-            if (deleteItemRequest.getExpressionAttributeNames() == null) {
-                deleteItemRequest.setExpressionAttributeNames(new HashMap<>());
-            }
-            deleteItemRequest.getExpressionAttributeNames().put(key, value);
+        void setRequestExpressionAttributeNames(Map<String, String> expressionAttributeNames) {
+            deleteItemRequest.setExpressionAttributeNames(expressionAttributeNames);
         }
 
         @Override
-        public Map<String, AttributeValue> getExpressionAttributeValues() {
-            if (deleteItemRequest.getExpressionAttributeValues() == null) {
-                deleteItemRequest.setExpressionAttributeValues(new HashMap<>());
-            }
+        Map<String, AttributeValue> getRequestExpressionAttributeValues() {
             return deleteItemRequest.getExpressionAttributeValues();
         }
 
         @Override
-        public void putExpressionAttributeValue(String key, AttributeValue value) {
-            deleteItemRequest.getExpressionAttributeValues().put(key, value);
+        void setRequestExpressionAttributeValues(Map<String, AttributeValue> expressionAttributeValues) {
+            deleteItemRequest.setExpressionAttributeValues(expressionAttributeValues);
         }
 
         @Override
@@ -854,36 +1498,6 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
         public void setFilterExpression(String conditionalExpression) {
         }
 
-        @Override
-        public String getIndexName() {
-            throw new UnsupportedOperationException();
-        }
-
-        @Override
-        public void setIndexName(String indexName) {
-            throw new UnsupportedOperationException();
-        }
-
-        @Override
-        public Map<String, Condition> getLegacyExpression() {
-            throw new UnsupportedOperationException();
-        }
-
-        @Override
-        public void clearLegacyExpression() {
-            throw new UnsupportedOperationException();
-        }
-
-        @Override
-        public Map<String, AttributeValue> getExclusiveStartKey() {
-            throw new UnsupportedOperationException();
-        }
-
-        @Override
-        public void setExclusiveStartKey(Map<String, AttributeValue> exclusiveStartKey) {
-            throw new UnsupportedOperationException();
-        }
-
     }
 
-}
\ No newline at end of file
+}
@@ -5,12 +5,12 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Iterables.getLast;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBStreams;
-import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.GetRecordsRequest;
 import com.amazonaws.services.dynamodbv2.model.GetRecordsResult;
 import com.amazonaws.services.dynamodbv2.model.GetShardIteratorRequest;
 import com.amazonaws.services.dynamodbv2.model.GetShardIteratorResult;
 import com.amazonaws.services.dynamodbv2.model.Record;
+import com.amazonaws.services.dynamodbv2.model.StreamViewType;
 import com.salesforce.dynamodbv2.mt.mappers.MtAmazonDynamoDb.MtRecord;
 import com.salesforce.dynamodbv2.mt.mappers.MtAmazonDynamoDbStreamsBase;
 import com.salesforce.dynamodbv2.mt.util.StreamArn;
@@ -20,7 +20,6 @@ import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -34,6 +33,7 @@ public class MtAmazonDynamoDbStreamsBySharedTable extends MtAmazonDynamoDbStream
     private final Timer getRecordsTime;
     private final DistributionSummary getRecordsSize;
     private final DistributionSummary getRecordsLoadedCounter;
+    private final StreamViewType recordProjection;
 
     /**
      * Default constructor.
@@ -43,7 +43,23 @@ public class MtAmazonDynamoDbStreamsBySharedTable extends MtAmazonDynamoDbStream
      */
     public MtAmazonDynamoDbStreamsBySharedTable(AmazonDynamoDBStreams dynamoDbStreams,
                                                 MtAmazonDynamoDbBySharedTable mtDynamoDb) {
+        this(dynamoDbStreams, mtDynamoDb, StreamViewType.NEW_AND_OLD_IMAGES);
+    }
+
+    /**
+     * Creates a streams instance that maps only the images of the given projection, e.g., {@code KEYS_ONLY} for
+     * consumers that only read the keys of records.  Images that are not part of the projection are dropped from the
+     * returned records without being mapped.
+     *
+     * @param dynamoDbStreams  underlying streams instance
+     * @param mtDynamoDb       corresponding shared table dynamo DB instance
+     * @param recordProjection the stream view type that determines which record images are mapped
+     */
+    public MtAmazonDynamoDbStreamsBySharedTable(AmazonDynamoDBStreams dynamoDbStreams,
+                                                MtAmazonDynamoDbBySharedTable mtDynamoDb,
+                                                StreamViewType recordProjection) {
         super(dynamoDbStreams, mtDynamoDb);
+        this.recordProjection = recordProjection;
         final MeterRegistry meterRegistry = mtDynamoDb.getMeterRegistry();
         final String name = MtAmazonDynamoDbStreamsBySharedTable.class.getSimpleName();
         getRecordsTime = meterRegistry.timer(name + ".GetRecords.Time");
@@ -53,6 +69,15 @@ public class MtAmazonDynamoDbStreamsBySharedTable extends MtAmazonDynamoDbStream
         getAllRecordsSize = meterRegistry.summary(name + ".GetAllRecords.Size");
     }
 
+    /**
+     * Returns the stream view type that determines which record images are mapped.
+     *
+     * @return the record projection
+     */
+    public StreamViewType getRecordProjection() {
+        return recordProjection;
+    }
+
     @Override
     public GetShardIteratorResult getShardIterator(GetShardIteratorRequest request) {
         return super.getShardIterator(request);
@@ -68,21 +93,19 @@ public class MtAmazonDynamoDbStreamsBySharedTable extends MtAmazonDynamoDbStream
     @Override
     protected MtGetRecordsResult getAllRecords(GetRecordsRequest request, StreamArn streamArn) {
         return getAllRecordsTime.record(() ->
-            getMtRecords(request, getRecordMapper(streamArn.getTableName()), getAllRecordsSize));
+            getMtRecordsInBatch(request, records -> mapRecords(streamArn.getTableName(), records), getAllRecordsSize));
     }
 
-    private Function<Record, MtRecord> getRecordMapper(String physicalTableName) {
-        // get function that extracts tenant context and table name from key prefix
-        final Function<Map<String, AttributeValue>, FieldValue<?>> fieldValueFunction =
-            mtDynamoDb.getFieldValueFunction(physicalTableName);
-        return record -> {
-            // when called to map a record, extract tenant context and table
-            final FieldValue<?> fieldValue = fieldValueFunction.apply(record.getDynamodb().getKeys());
-            // then establish context to map physical to virtual record, i.e., remove index key prefixes
-            return mtDynamoDb.getMtContext().withContext(fieldValue.getContext(), () ->
-                mtDynamoDb.getTableMapping(fieldValue.getTableName()).getRecordMapper().apply(record)
-            );
-        };
+    /*
+     * Maps the records of all tenants at once: extracts tenant context and table name from the key prefix of each
+     * record, then maps the records of each tenant table under its context, i.e., removes index key prefixes.
+     */
+    private List<Record> mapRecords(String physicalTableName, List<Record> records) {
+        return mtDynamoDb.mapAcrossTenants(physicalTableName, records, record -> record.getDynamodb().getKeys(),
+            (tenantTable, tableMapping) -> {
+                final RecordMapper recordMapper = tableMapping.getRecordMapper();
+                return record -> recordMapper.apply(record, recordProjection);
+            });
     }
 
     /**
@@ -115,11 +138,13 @@ public class MtAmazonDynamoDbStreamsBySharedTable extends MtAmazonDynamoDbStream
             final RecordMapper recordMapper =
                 mtDynamoDb.getTableMapping(mtStreamArn.getTenantTableName()).getRecordMapper();
             final Predicate<Record> recordFilter = recordMapper.createFilter();
+            final Function<Record, MtRecord> projectedRecordMapper =
+                record -> recordMapper.apply(record, recordProjection);
 
             int recordsLoaded;
             int recordsLoadedSum = 0;
             do {
-                recordsLoaded = loadRecords(result, limit, recordFilter, recordMapper);
+                recordsLoaded = loadRecords(result, limit, recordFilter, projectedRecordMapper);
                 recordsLoadedSum += recordsLoaded;
             } while (result.getRecords().size() < limit     // only continue if we need more tenant records,
                 && recordsLoaded == MAX_LIMIT               // have not reached current end of the underlying stream,
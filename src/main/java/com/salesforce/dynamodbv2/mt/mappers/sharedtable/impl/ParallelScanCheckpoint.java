@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2018, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Records the progress of a parallel scan per segment: the last evaluated key of the last page whose items were all
+ * returned to the caller, or whether the segment was scanned completely.  A new parallel scan started with the same
+ * checkpoint resumes each segment where it left off and skips completed segments.  Checkpoints can be converted to
+ * and from attribute values, so they can be stored in DynamoDB or returned as part of a key.
+ */
+public class ParallelScanCheckpoint {
+
+    private static final String TOTAL_SEGMENTS = "totalSegments";
+    private static final String COMPLETED_SEGMENTS = "completedSegments";
+    private static final String LAST_EVALUATED_KEYS = "lastEvaluatedKeys";
+
+    private final int totalSegments;
+    private final Map<Integer, Map<String, AttributeValue>> lastEvaluatedKeys = new ConcurrentHashMap<>();
+    private final Set<Integer> completedSegments = ConcurrentHashMap.newKeySet();
+
+    public ParallelScanCheckpoint(int totalSegments) {
+        checkArgument(totalSegments > 0, "totalSegments must be positive");
+        this.totalSegments = totalSegments;
+    }
+
+    public int getTotalSegments() {
+        return totalSegments;
+    }
+
+    public Optional<Map<String, AttributeValue>> getLastEvaluatedKey(int segment) {
+        return Optional.ofNullable(lastEvaluatedKeys.get(segment));
+    }
+
+    public boolean isCompleted(int segment) {
+        return completedSegments.contains(segment);
+    }
+
+    public boolean isCompleted() {
+        return completedSegments.size() == totalSegments;
+    }
+
+    /**
+     * Records the given segment's last evaluated key, or that the segment is complete if the key is {@code null}.
+     */
+    public void update(int segment, Map<String, AttributeValue> lastEvaluatedKey) {
+        checkArgument(segment >= 0 && segment < totalSegments, "invalid segment " + segment);
+        if (lastEvaluatedKey == null) {
+            completedSegments.add(segment);
+            lastEvaluatedKeys.remove(segment);
+        } else {
+            lastEvaluatedKeys.put(segment, lastEvaluatedKey);
+        }
+    }
+
+    /**
+     * Returns the attribute values that represent this checkpoint.
+     */
+    public Map<String, AttributeValue> toItem() {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put(TOTAL_SEGMENTS, new AttributeValue().withN(String.valueOf(totalSegments)));
+        List<String> completed = IntStream.range(0, totalSegments)
+            .filter(this::isCompleted)
+            .mapToObj(String::valueOf)
+            .collect(Collectors.toList());
+        if (!completed.isEmpty()) {
+            item.put(COMPLETED_SEGMENTS, new AttributeValue().withNS(completed));
+        }
+        Map<String, AttributeValue> keys = new HashMap<>();
+        lastEvaluatedKeys.forEach((segment, key) -> keys.put(String.valueOf(segment), new AttributeValue().withM(key)));
+        item.put(LAST_EVALUATED_KEYS, new AttributeValue().withM(keys));
+        return item;
+    }
+
+    /**
+     * Creates a checkpoint from attribute values returned by {@link #toItem()}.
+     */
+    public static ParallelScanCheckpoint fromItem(Map<String, AttributeValue> item) {
+        checkArgument(item.containsKey(TOTAL_SEGMENTS), "invalid checkpoint " + item);
+        ParallelScanCheckpoint checkpoint =
+            new ParallelScanCheckpoint(Integer.parseInt(item.get(TOTAL_SEGMENTS).getN()));
+        if (item.containsKey(COMPLETED_SEGMENTS)) {
+            item.get(COMPLETED_SEGMENTS).getNS()
+                .forEach(segment -> checkpoint.update(Integer.parseInt(segment), null));
+        }
+        if (item.containsKey(LAST_EVALUATED_KEYS)) {
+            item.get(LAST_EVALUATED_KEYS).getM()
+                .forEach((segment, key) -> checkpoint.update(Integer.parseInt(segment), key.getM()));
+        }
+        return checkpoint;
+    }
+
+    @Override
+    public String toString() {
+        return "ParallelScanCheckpoint{"
+            + "totalSegments=" + totalSegments
+            + ", lastEvaluatedKeys=" + lastEvaluatedKeys
+            + ", completedSegments=" + completedSegments
+            + '}';
+    }
+
+}
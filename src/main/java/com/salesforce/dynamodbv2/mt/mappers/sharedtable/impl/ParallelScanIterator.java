@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2018, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates over the items of a parallel segmented scan.  Each segment that is not complete according to the given
+ * {@link ParallelScanCheckpoint} is scanned by a worker on the given executor, starting from the segment's checkpointed
+ * key.  The executor is typically bounded and shared by all parallel scans, so segments beyond its number of threads
+ * are scanned as threads become available.  Workers map each page as soon as it is read and hand it off through a
+ * bounded buffer, so at most {@code maxBufferedPages} pages are held in memory while the caller consumes items.
+ *
+ * <p>Once all items of a page have been returned, the page's last evaluated key is recorded in the checkpoint, so an
+ * interrupted scan can be resumed by starting a new scan with the same checkpoint.  Items of partially consumed pages
+ * may be returned again on resume.
+ *
+ * <p>Instances are not thread-safe and should be closed if not consumed completely, since workers of unconsumed
+ * segments otherwise keep occupying executor threads.
+ */
+public class ParallelScanIterator implements Iterator<Map<String, AttributeValue>>, AutoCloseable {
+
+    private final ParallelScanCheckpoint checkpoint;
+    private final BlockingQueue<Page> pages;
+    private final List<Future<?>> workers;
+    private volatile boolean closed;
+    private int remainingSegments;
+    private Page currentPage;
+    private Iterator<Map<String, AttributeValue>> currentItems = Collections.emptyIterator();
+
+    /**
+     * Starts scanning all incomplete segments.
+     *
+     * @param scanRequest the physical scan request without segment information
+     * @param scan function that executes a physical scan request
+     * @param pageMapper function that maps the items of a physical page
+     * @param checkpoint checkpoint to resume from and to record progress in
+     * @param maxBufferedPages maximum number of pages that have been read but not yet consumed
+     * @param executor executor on which segments are scanned
+     */
+    ParallelScanIterator(ScanRequest scanRequest,
+                         Function<ScanRequest, ScanResult> scan,
+                         UnaryOperator<List<Map<String, AttributeValue>>> pageMapper,
+                         ParallelScanCheckpoint checkpoint,
+                         int maxBufferedPages,
+                         ExecutorService executor) {
+        checkArgument(maxBufferedPages > 0, "maxBufferedPages must be positive");
+        this.checkpoint = checkpoint;
+        this.pages = new ArrayBlockingQueue<>(maxBufferedPages);
+        List<Integer> segments = IntStream.range(0, checkpoint.getTotalSegments())
+            .filter(segment -> !checkpoint.isCompleted(segment))
+            .boxed()
+            .collect(Collectors.toList());
+        this.remainingSegments = segments.size();
+        this.workers = segments.stream()
+            .map(segment -> executor.submit(() -> scanSegment(scanRequest, segment, scan, pageMapper)))
+            .collect(Collectors.toList());
+    }
+
+    private void scanSegment(ScanRequest scanRequest,
+                             int segment,
+                             Function<ScanRequest, ScanResult> scan,
+                             UnaryOperator<List<Map<String, AttributeValue>>> pageMapper) {
+        ScanRequest segmentScanRequest = scanRequest.clone()
+            .withSegment(segment)
+            .withTotalSegments(checkpoint.getTotalSegments())
+            .withExclusiveStartKey(checkpoint.getLastEvaluatedKey(segment).orElse(null));
+        try {
+            boolean morePages = true;
+            while (morePages && !closed) {
+                ScanResult scanResult = scan.apply(segmentScanRequest);
+                Map<String, AttributeValue> lastEvaluatedKey = scanResult.getLastEvaluatedKey();
+                if (!put(new Page(segment, pageMapper.apply(scanResult.getItems()), lastEvaluatedKey, null))) {
+                    return;
+                }
+                segmentScanRequest.setExclusiveStartKey(lastEvaluatedKey);
+                morePages = lastEvaluatedKey != null;
+            }
+        } catch (RuntimeException e) {
+            put(new Page(segment, Collections.emptyList(), null, e));
+        }
+    }
+
+    private boolean put(Page page) {
+        try {
+            pages.put(page);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!currentItems.hasNext()) {
+            // all items of the current page have been returned, so it's safe to record its key
+            if (currentPage != null) {
+                checkpoint.update(currentPage.segment, currentPage.lastEvaluatedKey);
+                if (currentPage.lastEvaluatedKey == null) {
+                    remainingSegments--;
+                }
+                currentPage = null;
+            }
+            if (remainingSegments == 0) {
+                close();
+                return false;
+            }
+            Page page = take();
+            if (page.exception != null) {
+                close();
+                throw page.exception;
+            }
+            currentPage = page;
+            currentItems = page.items.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public Map<String, AttributeValue> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return currentItems.next();
+    }
+
+    private Page take() {
+        checkState(!closed, "scan is closed");
+        try {
+            return pages.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new RuntimeException("interrupted while waiting for scan page", e);
+        }
+    }
+
+    /**
+     * Returns a sequential stream over the remaining items that closes this iterator when it is closed.
+     */
+    public Stream<Map<String, AttributeValue>> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.NONNULL), false)
+            .onClose(this::close);
+    }
+
+    public ParallelScanCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        // interrupts workers that are blocked on a full buffer and drops segments that haven't started yet
+        workers.forEach(worker -> worker.cancel(true));
+    }
+
+    private static class Page {
+
+        private final int segment;
+        private final List<Map<String, AttributeValue>> items;
+        private final Map<String, AttributeValue> lastEvaluatedKey;
+        private final RuntimeException exception;
+
+        Page(int segment,
+             List<Map<String, AttributeValue>> items,
+             Map<String, AttributeValue> lastEvaluatedKey,
+             RuntimeException exception) {
+            this.segment = segment;
+            this.items = items;
+            this.lastEvaluatedKey = lastEvaluatedKey;
+            this.exception = exception;
+        }
+
+    }
+
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2018, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.base.Joiner;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Maps projections of get, batch get, query, and scan requests against virtual tables to their physical table
+ * counterparts.  Projections are given as a projection expression, whose document paths may refer to expression
+ * attribute names, or as legacy attributes to get.  Virtual key fields are renamed to the physical fields they map
+ * to, and all attribute names are replaced with generated expression attribute names, so that physical projections
+ * of virtual tables that share a physical table can be combined.  Attributes that are not projected, but needed for
+ * mapping results back to virtual items or for paging, are added to the physical projection and removed from the
+ * results again.
+ */
+class ProjectionMapper {
+
+    private static final String NAME_PLACEHOLDER_PREFIX = "#___attr";
+    private static final String NAME_PLACEHOLDER_SUFFIX = "___";
+
+    private final Map<String, List<FieldMapping>> virtualToPhysicalFieldMappings;
+
+    ProjectionMapper(Map<String, List<FieldMapping>> virtualToPhysicalFieldMappings) {
+        this.virtualToPhysicalFieldMappings = virtualToPhysicalFieldMappings;
+    }
+
+    /*
+     * Returns the physical projection of the given virtual projection, or empty if the request does not specify a
+     * projection, i.e., all attributes are returned.  The required attributes are virtual top-level attributes that are
+     * added to the physical projection if not projected already.
+     */
+    Optional<Projection> apply(String projectionExpression,
+                               List<String> attributesToGet,
+                               Map<String, String> expressionAttributeNames,
+                               Collection<String> requiredAttributes) {
+        checkArgument(projectionExpression == null || attributesToGet == null,
+            "projectionExpression and attributesToGet are mutually exclusive");
+        List<List<String>> virtualPaths;
+        if (projectionExpression != null) {
+            virtualPaths = parse(projectionExpression, expressionAttributeNames);
+        } else if (attributesToGet != null) {
+            virtualPaths = attributesToGet.stream().map(List::of).collect(Collectors.toList());
+        } else {
+            return Optional.empty();
+        }
+
+        // the top-level attributes of the virtual items to return
+        Set<String> virtualAttributes = virtualPaths.stream().map(path -> path.get(0))
+            .collect(Collectors.toCollection(HashSet::new));
+        List<List<String>> physicalPaths = new ArrayList<>();
+        virtualPaths.forEach(virtualPath -> addPhysicalPaths(physicalPaths, virtualPath));
+        requiredAttributes.stream()
+            .filter(requiredAttribute -> !virtualAttributes.contains(requiredAttribute))
+            .forEach(requiredAttribute -> addPhysicalPaths(physicalPaths, List.of(requiredAttribute)));
+        return Optional.of(new Projection(dedupe(physicalPaths), virtualAttributes));
+    }
+
+    /*
+     * Adds a copy of the given virtual path for every physical field that its top-level attribute maps to.
+     */
+    private void addPhysicalPaths(List<List<String>> physicalPaths, List<String> virtualPath) {
+        List<FieldMapping> fieldMappings = virtualToPhysicalFieldMappings.get(virtualPath.get(0));
+        if (fieldMappings == null || fieldMappings.isEmpty()) {
+            physicalPaths.add(virtualPath);
+        } else {
+            fieldMappings.stream().map(fieldMapping -> fieldMapping.getTarget().getName()).distinct()
+                .forEach(physicalName -> {
+                    List<String> physicalPath = new ArrayList<>(virtualPath);
+                    physicalPath.set(0, physicalName);
+                    physicalPaths.add(physicalPath);
+                });
+        }
+    }
+
+    /*
+     * Parses a projection expression into document paths.  Each path is a list of its segments, which are either
+     * attribute names, with expression attribute names resolved, or list indexes like "[1]".
+     */
+    private static List<List<String>> parse(String projectionExpression, Map<String, String> expressionAttributeNames) {
+        List<List<String>> paths = Expression.parseProjection(projectionExpression);
+        paths.forEach(path -> path.replaceAll(segment -> segment.startsWith("[") ? segment
+            : resolveName(segment, expressionAttributeNames, projectionExpression)));
+        return paths;
+    }
+
+    private static String resolveName(String name, Map<String, String> expressionAttributeNames,
+                                      String projectionExpression) {
+        checkArgument(!name.isEmpty(), "invalid projectionExpression " + projectionExpression);
+        if (name.startsWith("#")) {
+            String resolvedName = expressionAttributeNames == null ? null : expressionAttributeNames.get(name);
+            checkArgument(resolvedName != null, "expression attribute name " + name + " in projectionExpression "
+                + projectionExpression + " is not defined");
+            return resolvedName;
+        }
+        return name;
+    }
+
+    /*
+     * Removes paths that are contained in other paths, since DynamoDB rejects overlapping document paths.
+     */
+    private static List<List<String>> dedupe(List<List<String>> paths) {
+        List<List<String>> dedupedPaths = new ArrayList<>();
+        for (List<String> path : new LinkedHashSet<>(paths)) {
+            if (paths.stream().noneMatch(other -> other.size() < path.size()
+                && other.equals(path.subList(0, other.size())))) {
+                dedupedPaths.add(path);
+            }
+        }
+        return dedupedPaths;
+    }
+
+    /*
+     * Returns the given expression attribute names without the names that are not referenced by any of the given
+     * expressions.  Used to remove the names that were only referenced by a virtual projection.
+     */
+    static Map<String, String> getReferencedNames(Map<String, String> expressionAttributeNames,
+                                                  String... expressions) {
+        Map<String, String> referencedNames = new HashMap<>();
+        if (expressionAttributeNames != null) {
+            Set<String> names = new HashSet<>();
+            for (String expression : expressions) {
+                if (expression != null) {
+                    names.addAll(Expression.getNames(expression));
+                }
+            }
+            expressionAttributeNames.forEach((placeholder, name) -> {
+                if (names.contains(placeholder)) {
+                    referencedNames.put(placeholder, name);
+                }
+            });
+        }
+        return referencedNames;
+    }
+
+    /*
+     * The physical projection of a virtual projection.
+     */
+    static class Projection {
+
+        private final List<List<String>> physicalPaths;
+        private final Set<String> virtualAttributes;
+
+        private Projection(List<List<String>> physicalPaths, Set<String> virtualAttributes) {
+            this.physicalPaths = physicalPaths;
+            this.virtualAttributes = virtualAttributes;
+        }
+
+        /*
+         * Combines this projection with the projection of another virtual table that shares the physical table.
+         */
+        Projection union(Projection other) {
+            List<List<String>> paths = new ArrayList<>(physicalPaths);
+            paths.addAll(other.physicalPaths);
+            Set<String> attributes = new HashSet<>(virtualAttributes);
+            attributes.addAll(other.virtualAttributes);
+            return new Projection(dedupe(paths), attributes);
+        }
+
+        /*
+         * Returns the physical projection expression, adding its expression attribute names to the given map.
+         */
+        String toExpression(Map<String, String> expressionAttributeNames) {
+            Map<String, String> placeholders = new HashMap<>();
+            List<String> pathExpressions = new ArrayList<>(physicalPaths.size());
+            for (List<String> path : physicalPaths) {
+                StringBuilder pathExpression = new StringBuilder();
+                for (String segment : path) {
+                    if (segment.startsWith("[")) {
+                        pathExpression.append(segment);
+                    } else {
+                        if (pathExpression.length() > 0) {
+                            pathExpression.append('.');
+                        }
+                        pathExpression.append(placeholders.computeIfAbsent(segment, name -> {
+                            String placeholder = NAME_PLACEHOLDER_PREFIX + (placeholders.size() + 1)
+                                + NAME_PLACEHOLDER_SUFFIX;
+                            expressionAttributeNames.put(placeholder, name);
+                            return placeholder;
+                        }));
+                    }
+                }
+                pathExpressions.add(pathExpression.toString());
+            }
+            return Joiner.on(", ").join(pathExpressions);
+        }
+
+        /*
+         * Removes the top-level attributes that are not part of the virtual projection from the given virtual item,
+         * i.e., the attributes that were added for mapping or paging, or projected for another virtual table.
+         * Read-only item views are not modified, but replaced with a view that omits these attributes.
+         */
+        Map<String, AttributeValue> strip(Map<String, AttributeValue> virtualItem) {
+            if (virtualItem instanceof ReverseMappedItemView) {
+                return ((ReverseMappedItemView) virtualItem).retain(virtualAttributes);
+            }
+            if (virtualItem != null) {
+                virtualItem.keySet().retainAll(virtualAttributes);
+            }
+            return virtualItem;
+        }
+
+    }
+
+}
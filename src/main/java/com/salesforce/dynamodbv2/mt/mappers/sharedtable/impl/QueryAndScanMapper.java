@@ -7,33 +7,39 @@
 
 package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
 
+import static com.amazonaws.services.dynamodbv2.model.ComparisonOperator.BEGINS_WITH;
+import static com.amazonaws.services.dynamodbv2.model.ComparisonOperator.BETWEEN;
+import static com.amazonaws.services.dynamodbv2.model.ComparisonOperator.CONTAINS;
 import static com.amazonaws.services.dynamodbv2.model.ComparisonOperator.EQ;
 import static com.amazonaws.services.dynamodbv2.model.ComparisonOperator.GE;
 import static com.amazonaws.services.dynamodbv2.model.ComparisonOperator.GT;
+import static com.amazonaws.services.dynamodbv2.model.ComparisonOperator.IN;
 import static com.amazonaws.services.dynamodbv2.model.ComparisonOperator.LE;
 import static com.amazonaws.services.dynamodbv2.model.ComparisonOperator.LT;
-import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.S;
+import static com.amazonaws.services.dynamodbv2.model.ComparisonOperator.NE;
+import static com.amazonaws.services.dynamodbv2.model.ComparisonOperator.NOT_CONTAINS;
+import static com.amazonaws.services.dynamodbv2.model.ComparisonOperator.NOT_NULL;
+import static com.amazonaws.services.dynamodbv2.model.ComparisonOperator.NULL;
 import static com.google.common.base.Preconditions.checkArgument;
-import static com.google.common.base.Preconditions.checkNotNull;
-import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.ConditionMapper.NAME_PLACEHOLDER;
+import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.ConditionMapper.VALUE_PLACEHOLDER;
 
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.ConditionalOperator;
 import com.amazonaws.services.dynamodbv2.model.QueryRequest;
 import com.amazonaws.services.dynamodbv2.model.ScanRequest;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.salesforce.dynamodbv2.mt.mappers.index.DynamoSecondaryIndex;
-import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.FieldMapping.Field;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -47,18 +53,30 @@ import java.util.function.BiFunction;
  */
 class QueryAndScanMapper {
 
-    private static final String VALUE_PLACEHOLDER = ":___value___";
-    private static final Map<ComparisonOperator, BiFunction<String, String, String>>
-            FIELD_AND_VALUE_TO_EXPRESSION_STRINGS
-        = new ImmutableMap.Builder<ComparisonOperator, BiFunction<String, String, String>>()
-        .put(EQ, (field, value) -> field + " = " + value)
-        .put(GT, (field, value) -> field + " > " + value)
-        .put(GE, (field, value) -> field + " >= " + value)
-        .put(LT, (field, value) -> field + " < " + value)
-        .put(LE, (field, value) -> field + " <= " + value)
+    /*
+     * Expressions of the comparison operators of legacy conditions, given the field placeholder and the value
+     * placeholders.
+     */
+    private static final Map<ComparisonOperator, BiFunction<String, List<String>, String>>
+            FIELD_AND_VALUES_TO_EXPRESSION_STRINGS
+        = new ImmutableMap.Builder<ComparisonOperator, BiFunction<String, List<String>, String>>()
+        .put(EQ, (field, values) -> field + " = " + values.get(0))
+        .put(NE, (field, values) -> field + " <> " + values.get(0))
+        .put(GT, (field, values) -> field + " > " + values.get(0))
+        .put(GE, (field, values) -> field + " >= " + values.get(0))
+        .put(LT, (field, values) -> field + " < " + values.get(0))
+        .put(LE, (field, values) -> field + " <= " + values.get(0))
+        .put(BETWEEN, (field, values) -> field + " BETWEEN " + values.get(0) + " AND " + values.get(1))
+        .put(BEGINS_WITH, (field, values) -> "begins_with(" + field + ", " + values.get(0) + ")")
+        .put(CONTAINS, (field, values) -> "contains(" + field + ", " + values.get(0) + ")")
+        .put(NOT_CONTAINS, (field, values) -> "NOT contains(" + field + ", " + values.get(0) + ")")
+        .put(IN, (field, values) -> field + " IN (" + Joiner.on(", ").join(values) + ")")
+        .put(NULL, (field, values) -> "attribute_not_exists(" + field + ")")
+        .put(NOT_NULL, (field, values) -> "attribute_exists(" + field + ")")
         .build();
-    private static final Set<ComparisonOperator> SUPPORTED_COMPARISON_OPERATORS = FIELD_AND_VALUE_TO_EXPRESSION_STRINGS
-        .keySet();
+    // the comparison operators that DynamoDB supports in key conditions
+    private static final Set<ComparisonOperator> KEY_CONDITION_COMPARISON_OPERATORS =
+        ImmutableSet.of(EQ, GT, GE, LT, LE, BETWEEN, BEGINS_WITH);
 
     private final FieldMapper fieldMapper;
     private final TableMapping tableMapping;
@@ -74,7 +92,7 @@ class QueryAndScanMapper {
      */
     void apply(QueryRequest queryRequest) {
         validateQueryRequest(queryRequest);
-        apply(new QueryRequestWrapper(queryRequest));
+        apply(new QueryRequestWrapper(queryRequest), ConditionalOperator.AND);
     }
 
     /*
@@ -83,81 +101,36 @@ class QueryAndScanMapper {
      */
     void apply(ScanRequest scanRequest) {
         validateScanRequest(scanRequest);
-        apply(new ScanRequestWrapper(scanRequest));
+        apply(new ScanRequestWrapper(scanRequest), scanRequest.getConditionalOperator() == null
+            ? ConditionalOperator.AND : ConditionalOperator.fromValue(scanRequest.getConditionalOperator()));
     }
 
-    private void apply(RequestWrapper request) {
-        convertLegacyExpression(request);
-        applyConvertFieldNameLiterals(request);
+    private void apply(RequestWrapper request, ConditionalOperator legacyConditionalOperator) {
+        convertLegacyExpression(request, legacyConditionalOperator);
         applyKeyCondition(request);
         applyExclusiveStartKey(request);
     }
 
+    /*
+     * Converts field name literals, adds a begins_with condition on the hash key if the expression does not contain
+     * an equality condition on it, maps each field to its target name, and applies field prefixing as appropriate.
+     */
     private void applyKeyCondition(RequestWrapper request) {
-        String virtualHashKey;
-        Collection<FieldMapping> fieldMappings;
+        Optional<FieldMapping> fieldMappingForPrefix;
         if (request.getIndexName() == null) {
             // query or scan does NOT use index
-            virtualHashKey = tableMapping.getVirtualTable().getPrimaryKey().getHashKey();
-            fieldMappings = tableMapping.getAllVirtualToPhysicalFieldMappingsDeduped().values();
+            fieldMappingForPrefix = tableMapping.getConditionMapper().applyToQueryOrScan(request, null);
         } else {
             // query uses index
             DynamoSecondaryIndex virtualSecondaryIndex = tableMapping.getVirtualTable().findSi(request.getIndexName());
-            fieldMappings = tableMapping.getIndexPrimaryKeyFieldMappings(virtualSecondaryIndex);
-            request.setIndexName(((List<FieldMapping>) fieldMappings).get(0).getPhysicalIndexName());
-            virtualHashKey = virtualSecondaryIndex.getPrimaryKey().getHashKey();
-        }
-
-        if (!queryContainsHashKeyCondition(request, virtualHashKey)) {
-            /*
-             * the expression does not contain the table or index key that's being used in the
-             * query, add begins_with clause
-             */
-            Field physicalHashKey = fieldMappings.stream()
-                .filter(fieldMapping -> fieldMapping.getSource().getName().equals(virtualHashKey))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException(
-                    "field mapping not found hash-key field " + virtualHashKey))
-                .getTarget();
-
-            FieldMapping fieldMapping = fieldMappings.stream()
-                .filter(fieldMapping1 -> fieldMapping1.getSource().getName().equals(virtualHashKey))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException(
-                    "field mapping not found hash-key field " + virtualHashKey));
-
-            addBeginsWith(request, physicalHashKey, fieldMapping);
-        }
-
-        checkNotNull(request.getPrimaryExpression(), "request expression is required");
-
-        // map each field to its target name and apply field prefixing as appropriate
-        fieldMappings.forEach(targetFieldMapping ->
-            tableMapping.getConditionMapper().applyKeyConditionToField(request, targetFieldMapping));
-    }
-
-    private void addBeginsWith(RequestWrapper request, Field hashKey, FieldMapping fieldMapping) {
-        /*
-         * TODO make sure it properly identifies that it doesn't need to add this ... make sure it's an equals
-         * condition and that the equals condition can't be hacked ... make sure you can't negate the begins_with
-         * by adding an OR condition
-         */
-        FieldMapping fieldMappingForPrefix = new FieldMapping(new Field(null, S),
-            new Field(null, hashKey.getType()),
-            fieldMapping.getVirtualIndexName(),
-            fieldMapping.getPhysicalIndexName(),
-            fieldMapping.getIndexType(),
-            fieldMapping.isContextAware());
-        AttributeValue physicalValuePrefixAttribute = fieldMapper.apply(fieldMappingForPrefix, new AttributeValue(""));
-        request.putExpressionAttributeName(NAME_PLACEHOLDER, hashKey.getName());
-        request.putExpressionAttributeValue(VALUE_PLACEHOLDER, physicalValuePrefixAttribute);
-        request.setPrimaryExpression(
-            (request.getPrimaryExpression() != null ? request.getPrimaryExpression() + " and " : "")
-                + "begins_with(" + NAME_PLACEHOLDER + ", " + VALUE_PLACEHOLDER + ")");
-    }
-
-    private void applyConvertFieldNameLiterals(RequestWrapper request) {
-        tableMapping.getConditionMapper().convertFieldNameLiteralsToExpressionNames(request);
+            fieldMappingForPrefix = tableMapping.getConditionMapper().applyToQueryOrScan(request,
+                virtualSecondaryIndex);
+            request.setIndexName(tableMapping.getIndexPrimaryKeyFieldMappings(virtualSecondaryIndex).get(0)
+                .getPhysicalIndexName());
+        }
+        // the begins_with condition compares the hash key with the prefix of the tenant's virtual table
+        fieldMappingForPrefix.ifPresent(fieldMapping -> request.putExpressionAttributeValue(VALUE_PLACEHOLDER,
+            fieldMapper.apply(fieldMapping, new AttributeValue(""))));
     }
 
     private void applyExclusiveStartKey(RequestWrapper request) {
@@ -167,22 +140,6 @@ class QueryAndScanMapper {
         }
     }
 
-    private boolean queryContainsHashKeyCondition(RequestWrapper request,
-        String hashKeyField) { // TODO look for hash key in literals
-        String conditionExpression = request.getPrimaryExpression();
-        if (conditionExpression == null) {
-            // no filter criteria
-            return false;
-        }
-        Map<String, String> expressionAttrNames = request.getExpressionAttributeNames();
-        Optional<String> keyFieldName = expressionAttrNames != null ? expressionAttrNames.entrySet().stream()
-            .filter(entry -> entry.getValue().equals(hashKeyField)).map(Entry::getKey).findFirst() : Optional.empty();
-        String fieldToFind = (keyFieldName.orElse(hashKeyField));
-        String toFind = fieldToFind + " = ";
-        int start = conditionExpression.indexOf(toFind);
-        return start != -1;
-    }
-
     @VisibleForTesting
     static class QueryRequestWrapper implements RequestWrapper {
 
@@ -348,6 +305,7 @@ class QueryAndScanMapper {
         @Override
         public void clearLegacyExpression() {
             scanRequest.clearScanFilterEntries();
+            scanRequest.setConditionalOperator((String) null);
         }
 
         @Override
@@ -367,7 +325,8 @@ class QueryAndScanMapper {
     }
 
     /*
-     * Validate that there are keyConditions or a keyConditionExpression, but not both.
+     * Validate that there are keyConditions or a keyConditionExpression, but not both, and no legacy queryFilter, which
+     * is not mapped to the physical table.
      */
     private void validateQueryRequest(QueryRequest queryRequest) {
         boolean hasKeyConditionExpression = !Strings.isNullOrEmpty(queryRequest.getKeyConditionExpression());
@@ -377,6 +336,15 @@ class QueryAndScanMapper {
             "keyConditionExpression or keyConditions are required");
         checkArgument(!hasKeyConditionExpression || !hasKeyConditions,
             "ambiguous QueryRequest: both keyConditionExpression and keyConditions were provided");
+        checkArgument(queryRequest.getQueryFilter() == null || queryRequest.getQueryFilter().isEmpty(),
+            "unsupported legacy queryFilter, use filterExpression instead");
+        if (hasKeyConditions) {
+            queryRequest.getKeyConditions().values().forEach(condition -> checkArgument(
+                KEY_CONDITION_COMPARISON_OPERATORS.contains(ComparisonOperator.valueOf(
+                    condition.getComparisonOperator())),
+                "unsupported comparison operator " + condition.getComparisonOperator() + " in keyCondition="
+                    + condition));
+        }
     }
 
     private void validateScanRequest(ScanRequest scanRequest) {
@@ -393,30 +361,55 @@ class QueryAndScanMapper {
      * fields are considered 'legacy parameters'.  However, we support them by converting them to keyConditionExpression
      * and filterExpression fields respectively because they are used by the DynamoDB document API
      * (https://docs.aws.amazon.com/AWSJavaSDK/latest/javadoc/com/amazonaws/services/dynamodbv2/document/DynamoDB.html).
+     * Range key conditions like BETWEEN and BEGINS_WITH become part of the physical key condition expression, so that
+     * DynamoDB only reads the matching items.  Key conditions are always conjoined, whereas scan filter conditions are
+     * joined according to the request's conditionalOperator, which is cleared along with the scan filter, since
+     * DynamoDB rejects it in combination with a filterExpression.
      */
-    private void convertLegacyExpression(RequestWrapper request) {
+    private void convertLegacyExpression(RequestWrapper request, ConditionalOperator conditionalOperator) {
         if ((request.getLegacyExpression() != null && !request.getLegacyExpression().keySet().isEmpty())) {
             List<String> keyConditionExpressionParts = new ArrayList<>();
-            AtomicInteger counter = new AtomicInteger(1);
+            AtomicInteger fieldCounter = new AtomicInteger(1);
+            AtomicInteger valueCounter = new AtomicInteger(1);
             request.getLegacyExpression().forEach((key, condition) -> {
                 final ComparisonOperator comparisonOperator = ComparisonOperator
                     .valueOf(condition.getComparisonOperator());
-                checkArgument(SUPPORTED_COMPARISON_OPERATORS.contains(comparisonOperator),
+                checkArgument(FIELD_AND_VALUES_TO_EXPRESSION_STRINGS.containsKey(comparisonOperator),
                     "unsupported comparison operator " + condition.getComparisonOperator() + " in condition="
                         + condition);
-                checkArgument(condition.getAttributeValueList().size() == 1,
-                    "keyCondition with more than one (" + condition.getAttributeValueList().size()
-                        + ") attribute value encountered in condition=" + condition);
-                String field = "#field" + counter;
-                String value = ":value" + counter.getAndIncrement();
-                keyConditionExpressionParts
-                    .add(FIELD_AND_VALUE_TO_EXPRESSION_STRINGS.get(comparisonOperator).apply(field, value));
+                List<AttributeValue> attributeValues = condition.getAttributeValueList() == null
+                    ? Collections.emptyList() : condition.getAttributeValueList();
+                checkArgument(comparisonOperator == IN ? !attributeValues.isEmpty()
+                        : attributeValues.size() == getAttributeValueCount(comparisonOperator),
+                    "unexpected number of attribute values (" + attributeValues.size() + ") in condition="
+                        + condition);
+                String field = "#field" + fieldCounter.getAndIncrement();
                 request.putExpressionAttributeName(field, key);
-                request.putExpressionAttributeValue(value, condition.getAttributeValueList().get(0));
+                List<String> values = new ArrayList<>(attributeValues.size());
+                for (AttributeValue attributeValue : attributeValues) {
+                    String value = ":value" + valueCounter.getAndIncrement();
+                    request.putExpressionAttributeValue(value, attributeValue);
+                    values.add(value);
+                }
+                keyConditionExpressionParts
+                    .add(FIELD_AND_VALUES_TO_EXPRESSION_STRINGS.get(comparisonOperator).apply(field, values));
             });
-            request.setPrimaryExpression(Joiner.on(" AND ").join(keyConditionExpressionParts));
+            request.setPrimaryExpression(Joiner.on(conditionalOperator == ConditionalOperator.OR ? " OR " : " AND ")
+                .join(keyConditionExpressionParts));
             request.clearLegacyExpression();
         }
     }
 
-}
\ No newline at end of file
+    private static int getAttributeValueCount(ComparisonOperator comparisonOperator) {
+        switch (comparisonOperator) {
+            case NULL:
+            case NOT_NULL:
+                return 0;
+            case BETWEEN:
+                return 2;
+            default:
+                return 1;
+        }
+    }
+
+}
@@ -3,6 +3,7 @@ package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.Record;
 import com.amazonaws.services.dynamodbv2.model.StreamRecord;
+import com.amazonaws.services.dynamodbv2.model.StreamViewType;
 import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
 import com.salesforce.dynamodbv2.mt.mappers.MtAmazonDynamoDb.MtRecord;
 import java.util.function.Function;
@@ -10,7 +11,8 @@ import java.util.function.Predicate;
 
 /**
  * Maps physical stream records into virtual stream records. Also exposes a filter method to allow pushing tenant table
- * predicate as low as possible when traversing a shared stream.
+ * predicate as low as possible when traversing a shared stream. Records can be mapped with a projection given as a
+ * stream view type, in which case the images that the projection does not include are dropped rather than mapped.
  */
 public class RecordMapper implements Function<Record, MtRecord> {
 
@@ -39,6 +41,18 @@ public class RecordMapper implements Function<Record, MtRecord> {
 
     @Override
     public MtRecord apply(Record record) {
+        return apply(record, StreamViewType.NEW_AND_OLD_IMAGES);
+    }
+
+    /**
+     * Maps the given physical record to a virtual record that contains only the keys and images included in the given
+     * projection. The stream view type of the virtual record is narrowed to the images it contains.
+     *
+     * @param record the physical stream record
+     * @param projection the stream view type that determines which images are mapped
+     * @return the virtual stream record
+     */
+    public MtRecord apply(Record record, StreamViewType projection) {
         final StreamRecord streamRecord = record.getDynamodb();
         MtRecord ret = new MtRecord();
         if (record.getAwsRegion() != null) {
@@ -68,11 +82,36 @@ public class RecordMapper implements Function<Record, MtRecord> {
             .withTableName(virtualTableName)
             .withDynamodb(new StreamRecord()
                 .withKeys(itemMapper.reverse(streamRecord.getKeys())) // should this use key mapper?
-                .withNewImage(itemMapper.reverse(streamRecord.getNewImage()))
-                .withOldImage(itemMapper.reverse(streamRecord.getOldImage()))
+                .withNewImage(includesNewImage(projection) ? itemMapper.reverse(streamRecord.getNewImage()) : null)
+                .withOldImage(includesOldImage(projection) ? itemMapper.reverse(streamRecord.getOldImage()) : null)
                 .withSequenceNumber(streamRecord.getSequenceNumber())
-                .withStreamViewType(streamRecord.getStreamViewType())
+                .withStreamViewType(project(streamRecord.getStreamViewType(), projection))
                 .withApproximateCreationDateTime(streamRecord.getApproximateCreationDateTime())
                 .withSizeBytes(streamRecord.getSizeBytes()));
     }
+
+    private static boolean includesNewImage(StreamViewType streamViewType) {
+        return streamViewType == StreamViewType.NEW_IMAGE || streamViewType == StreamViewType.NEW_AND_OLD_IMAGES;
+    }
+
+    private static boolean includesOldImage(StreamViewType streamViewType) {
+        return streamViewType == StreamViewType.OLD_IMAGE || streamViewType == StreamViewType.NEW_AND_OLD_IMAGES;
+    }
+
+    /*
+     * Returns the view type of a record of the given view type that is mapped with the given projection.
+     */
+    private static String project(String streamViewType, StreamViewType projection) {
+        if (streamViewType == null || projection == StreamViewType.NEW_AND_OLD_IMAGES) {
+            return streamViewType;
+        }
+        StreamViewType recordViewType = StreamViewType.fromValue(streamViewType);
+        boolean newImage = includesNewImage(recordViewType) && includesNewImage(projection);
+        boolean oldImage = includesOldImage(recordViewType) && includesOldImage(projection);
+        StreamViewType projectedViewType = newImage
+            ? (oldImage ? StreamViewType.NEW_AND_OLD_IMAGES : StreamViewType.NEW_IMAGE)
+            : (oldImage ? StreamViewType.OLD_IMAGE : StreamViewType.KEYS_ONLY);
+        return projectedViewType.toString();
+    }
+
 }
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2018, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.amazonaws.util.CollectionUtils.isNullOrEmpty;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import javax.annotation.Nullable;
+
+/**
+ * A read-only view of an item of a physical table as an item of a virtual table.  Mapped fields are reverse-mapped
+ * when they are read, while all other attributes are read straight from the physical item, so items of query and scan
+ * results are not copied.  The view has the same entries as the item returned by {@link ItemMapper#reverse(Map)}.
+ * Reverse-mapping does not depend on the multitenant context, so views may be read after the request has completed.
+ */
+class ReverseMappedItemView extends AbstractMap<String, AttributeValue> {
+
+    private final Map<String, AttributeValue> physicalItem;
+    private final Mapping mapping;
+    @Nullable
+    private final Set<String> retainedFields;
+    private final AttributeValue[] mappedValues;
+    private Set<Entry<String, AttributeValue>> entrySet;
+
+    ReverseMappedItemView(Map<String, AttributeValue> physicalItem, Mapping mapping) {
+        this(physicalItem, mapping, null);
+    }
+
+    private ReverseMappedItemView(Map<String, AttributeValue> physicalItem,
+                                  Mapping mapping,
+                                  @Nullable Set<String> retainedFields) {
+        this.physicalItem = physicalItem;
+        this.mapping = mapping;
+        this.retainedFields = retainedFields;
+        this.mappedValues = new AttributeValue[mapping.virtualFields.length];
+    }
+
+    /*
+     * Returns a view of the same physical item that only contains the given virtual fields.
+     */
+    ReverseMappedItemView retain(Set<String> fields) {
+        return new ReverseMappedItemView(physicalItem, mapping, fields);
+    }
+
+    @Override
+    public AttributeValue get(Object key) {
+        if (!isRetained(key)) {
+            return null;
+        }
+        Integer slot = mapping.slotsByVirtualField.get(key);
+        AttributeValue mappedValue = slot == null ? null : getMappedValue(slot);
+        if (mappedValue != null) {
+            return mappedValue;
+        }
+        return mapping.physicalFields.contains(key) ? null : physicalItem.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        // attribute values are never null
+        return get(key) != null;
+    }
+
+    @Override
+    public Set<Entry<String, AttributeValue>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private boolean isRetained(Object field) {
+        return retainedFields == null || retainedFields.contains(field);
+    }
+
+    private AttributeValue getMappedValue(int slot) {
+        AttributeValue mappedValue = mappedValues[slot];
+        if (mappedValue == null) {
+            for (FieldMapping fieldMapping : mapping.fieldMappings[slot]) {
+                AttributeValue physicalValue = physicalItem.get(fieldMapping.getSource().getName());
+                if (physicalValue != null) {
+                    mappedValue = fieldMapping.isContextAware()
+                        ? mapping.fieldMapper.apply(fieldMapping, physicalValue)
+                        : physicalValue;
+                    mappedValues[slot] = mappedValue;
+                    break;
+                }
+            }
+        }
+        return mappedValue;
+    }
+
+    /*
+     * Whether the given attribute of the physical item is hidden by the view, because it's a mapped physical field or
+     * has the name of a mapped virtual field that is present.
+     */
+    private boolean isHidden(String physicalField) {
+        if (mapping.physicalFields.contains(physicalField)) {
+            return true;
+        }
+        Integer slot = mapping.slotsByVirtualField.get(physicalField);
+        return slot != null && getMappedValue(slot) != null;
+    }
+
+    private class EntrySet extends AbstractSet<Entry<String, AttributeValue>> {
+
+        private int size = -1;
+
+        @Override
+        public Iterator<Entry<String, AttributeValue>> iterator() {
+            Iterator<Entry<String, AttributeValue>> mappedEntries = new AbstractIterator<>() {
+                private int slot;
+
+                @Override
+                protected Entry<String, AttributeValue> computeNext() {
+                    while (slot < mapping.virtualFields.length) {
+                        String virtualField = mapping.virtualFields[slot];
+                        AttributeValue mappedValue = isRetained(virtualField) ? getMappedValue(slot) : null;
+                        slot++;
+                        if (mappedValue != null) {
+                            return Maps.immutableEntry(virtualField, mappedValue);
+                        }
+                    }
+                    return endOfData();
+                }
+            };
+            Iterator<Entry<String, AttributeValue>> unmappedEntries = Iterators.transform(
+                Iterators.filter(physicalItem.entrySet().iterator(),
+                    entry -> isRetained(entry.getKey()) && !isHidden(entry.getKey())),
+                entry -> Maps.immutableEntry(entry.getKey(), entry.getValue()));
+            return Iterators.concat(mappedEntries, unmappedEntries);
+        }
+
+        @Override
+        public int size() {
+            if (size < 0) {
+                size = Iterators.size(iterator());
+            }
+            return size;
+        }
+
+    }
+
+    /*
+     * The physical to virtual field mappings of a table, compiled into one slot per virtual field.
+     */
+    static class Mapping {
+
+        private final String[] virtualFields;
+        private final FieldMapping[][] fieldMappings;
+        private final Map<String, Integer> slotsByVirtualField;
+        private final Set<String> physicalFields;
+        private final BiFunction<FieldMapping, AttributeValue, AttributeValue> fieldMapper;
+
+        Mapping(Map<String, List<FieldMapping>> physicalToVirtualFieldMappings,
+                BiFunction<FieldMapping, AttributeValue, AttributeValue> fieldMapper) {
+            Map<String, List<FieldMapping>> fieldMappingsByVirtualField = new HashMap<>();
+            physicalFields = new HashSet<>();
+            physicalToVirtualFieldMappings.forEach((physicalField, fieldMappings) -> {
+                if (!isNullOrEmpty(fieldMappings)) {
+                    physicalFields.add(physicalField);
+                    fieldMappings.forEach(fieldMapping -> fieldMappingsByVirtualField
+                        .computeIfAbsent(fieldMapping.getTarget().getName(), field -> new ArrayList<>())
+                        .add(fieldMapping));
+                }
+            });
+            virtualFields = fieldMappingsByVirtualField.keySet().toArray(new String[0]);
+            fieldMappings = new FieldMapping[virtualFields.length][];
+            slotsByVirtualField = new HashMap<>();
+            for (int i = 0; i < virtualFields.length; i++) {
+                fieldMappings[i] = fieldMappingsByVirtualField.get(virtualFields[i]).toArray(new FieldMapping[0]);
+                slotsByVirtualField.put(virtualFields[i], i);
+            }
+            this.fieldMapper = fieldMapper;
+        }
+
+    }
+
+}
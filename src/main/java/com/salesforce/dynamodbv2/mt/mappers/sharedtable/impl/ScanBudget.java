@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2018, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Bounds the work a single tenant-scoped scan call may do on a shared table, and how it adapts to sparse tenants.
+ *
+ * <p>A call stops scanning physical pages as soon as it found matching items, or once it has read {@code maxPages}
+ * physical pages, consumed {@code maxReadCapacityUnits}, or run for {@code maxTimeMillis}, whichever comes first.
+ * Unset budgets are unlimited.  If the ratio of matching to scanned items of a round of physical pages is below
+ * {@code lowMatchDensity}, the physical {@code Limit} is doubled up to {@code maxLimit} and the number of segments
+ * scanned in parallel is doubled up to {@code maxSegments}.
+ */
+public class ScanBudget {
+
+    private final int maxPages;
+    private final double maxReadCapacityUnits;
+    private final long maxTimeMillis;
+    private final int maxLimit;
+    private final int maxSegments;
+    private final double lowMatchDensity;
+
+    private ScanBudget(int maxPages,
+                       double maxReadCapacityUnits,
+                       long maxTimeMillis,
+                       int maxLimit,
+                       int maxSegments,
+                       double lowMatchDensity) {
+        this.maxPages = maxPages;
+        this.maxReadCapacityUnits = maxReadCapacityUnits;
+        this.maxTimeMillis = maxTimeMillis;
+        this.maxLimit = maxLimit;
+        this.maxSegments = maxSegments;
+        this.lowMatchDensity = lowMatchDensity;
+    }
+
+    public static ScanBudgetBuilder builder() {
+        return new ScanBudgetBuilder();
+    }
+
+    public int getMaxPages() {
+        return maxPages;
+    }
+
+    public double getMaxReadCapacityUnits() {
+        return maxReadCapacityUnits;
+    }
+
+    public long getMaxTimeMillis() {
+        return maxTimeMillis;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public int getMaxSegments() {
+        return maxSegments;
+    }
+
+    public double getLowMatchDensity() {
+        return lowMatchDensity;
+    }
+
+    boolean hasReadCapacityUnitsLimit() {
+        return maxReadCapacityUnits < Double.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return "ScanBudget{"
+            + "maxPages=" + maxPages
+            + ", maxReadCapacityUnits=" + maxReadCapacityUnits
+            + ", maxTimeMillis=" + maxTimeMillis
+            + ", maxLimit=" + maxLimit
+            + ", maxSegments=" + maxSegments
+            + ", lowMatchDensity=" + lowMatchDensity
+            + '}';
+    }
+
+    public static class ScanBudgetBuilder {
+
+        private static final int DEFAULT_MAX_LIMIT = 1000;
+        private static final double DEFAULT_LOW_MATCH_DENSITY = 0.1;
+
+        private Integer maxPages;
+        private Double maxReadCapacityUnits;
+        private Long maxTimeMillis;
+        private Integer maxLimit;
+        private Integer maxSegments;
+        private Double lowMatchDensity;
+
+        public ScanBudgetBuilder withMaxPages(int maxPages) {
+            this.maxPages = maxPages;
+            return this;
+        }
+
+        public ScanBudgetBuilder withMaxReadCapacityUnits(double maxReadCapacityUnits) {
+            this.maxReadCapacityUnits = maxReadCapacityUnits;
+            return this;
+        }
+
+        public ScanBudgetBuilder withMaxTimeMillis(long maxTimeMillis) {
+            this.maxTimeMillis = maxTimeMillis;
+            return this;
+        }
+
+        public ScanBudgetBuilder withMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        public ScanBudgetBuilder withMaxSegments(int maxSegments) {
+            this.maxSegments = maxSegments;
+            return this;
+        }
+
+        public ScanBudgetBuilder withLowMatchDensity(double lowMatchDensity) {
+            this.lowMatchDensity = lowMatchDensity;
+            return this;
+        }
+
+        /**
+         * Builds the budget, defaulting unset budgets to unlimited, the maximum limit to 1000, the maximum number of
+         * segments to 1, and the low match density to 0.1.
+         */
+        public ScanBudget build() {
+            setDefaults();
+            checkArgument(maxPages > 0, "maxPages must be positive");
+            checkArgument(maxReadCapacityUnits > 0, "maxReadCapacityUnits must be positive");
+            checkArgument(maxTimeMillis > 0, "maxTimeMillis must be positive");
+            checkArgument(maxLimit > 0, "maxLimit must be positive");
+            checkArgument(maxSegments > 0, "maxSegments must be positive");
+            checkArgument(lowMatchDensity >= 0 && lowMatchDensity <= 1, "lowMatchDensity must be between 0 and 1");
+            return new ScanBudget(maxPages, maxReadCapacityUnits, maxTimeMillis, maxLimit, maxSegments,
+                lowMatchDensity);
+        }
+
+        private void setDefaults() {
+            if (maxPages == null) {
+                maxPages = Integer.MAX_VALUE;
+            }
+            if (maxReadCapacityUnits == null) {
+                maxReadCapacityUnits = Double.MAX_VALUE;
+            }
+            if (maxTimeMillis == null) {
+                maxTimeMillis = Long.MAX_VALUE;
+            }
+            if (maxLimit == null) {
+                maxLimit = DEFAULT_MAX_LIMIT;
+            }
+            if (maxSegments == null) {
+                maxSegments = 1;
+            }
+            if (lowMatchDensity == null) {
+                lowMatchDensity = DEFAULT_LOW_MATCH_DENSITY;
+            }
+        }
+
+    }
+
+}
@@ -13,6 +13,9 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
 import java.nio.ByteBuffer;
 import java.util.Base64;
@@ -25,21 +28,31 @@ import java.util.function.Predicate;
  */
 class StringFieldMapper implements FieldMapper {
 
+    /*
+     * Table mappings are shared by all tenants whose virtual tables have the same description, so a field mapper sees
+     * the contexts of many tenants.  The cached prefixes are the only per-tenant state of a table mapping, and the
+     * bound keeps the prefixes of the most recently active tenants.
+     */
+    private static final int MAX_CACHED_PREFIXES = 10000;
+
     private final MtAmazonDynamoDbContextProvider mtContext;
-    private final String virtualTableName;
+    private final LoadingCache<String, String> prefixes;
 
     StringFieldMapper(MtAmazonDynamoDbContextProvider mtContext,
                       String virtualTableName) {
         this.mtContext = mtContext;
-        this.virtualTableName = virtualTableName;
+        this.prefixes = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_PREFIXES)
+            .build(CacheLoader.from(context ->
+                StringFieldPrefixFunction.INSTANCE.getPrefix(context, virtualTableName)));
     }
 
     @Override
     public AttributeValue apply(FieldMapping fieldMapping, AttributeValue unqualifiedAttribute) {
         checkArgument(fieldMapping.getTarget().getType() == S);
         String stringValue = convertToStringNotNull(fieldMapping.getSource().getType(), unqualifiedAttribute);
-        FieldValue<String> fieldValue = new FieldValue<>(mtContext.getContext(), virtualTableName, stringValue);
-        return new AttributeValue(StringFieldPrefixFunction.INSTANCE.apply(fieldValue));
+        String prefix = prefixes.getUnchecked(mtContext.getContext());
+        return new AttributeValue(StringFieldPrefixFunction.INSTANCE.apply(prefix, stringValue));
     }
 
     @Override
@@ -52,7 +65,7 @@ class StringFieldMapper implements FieldMapper {
     @Override
     public Predicate<AttributeValue> createFilter() {
         final Predicate<String> prefixFilter =
-            StringFieldPrefixFunction.INSTANCE.createFilter(mtContext.getContext(), virtualTableName);
+            StringFieldPrefixFunction.INSTANCE.createPrefixFilter(prefixes.getUnchecked(mtContext.getContext()));
         return attributeValue -> prefixFilter.test(attributeValue.getS());
     }
 
@@ -71,7 +84,11 @@ class StringFieldMapper implements FieldMapper {
             case N:
                 return attributeValue.getN();
             case B:
-                return Base64.getEncoder().encodeToString(attributeValue.getB().array());
+                // the buffer may be a slice or have a non-zero position, so encode its remaining bytes only
+                ByteBuffer binaryValue = attributeValue.getB();
+                byte[] bytes = new byte[binaryValue.remaining()];
+                binaryValue.duplicate().get(bytes);
+                return Base64.getEncoder().encodeToString(bytes);
             default:
                 throw new IllegalArgumentException("unexpected type " + type + " encountered");
         }
@@ -55,7 +55,28 @@ class StringFieldPrefixFunction implements FieldPrefixFunction<String> {
 
     @Override
     public Predicate<String> createFilter(String context, String tableName) {
-        final String prefix = newPrefixBuffer(context, tableName, 0).toString();
+        return createPrefixFilter(getPrefix(context, tableName));
+    }
+
+    /*
+     * Returns the prefix of all qualified values of the given context and table, so that callers can cache it.
+     */
+    String getPrefix(String context, String tableName) {
+        assert context.indexOf(DELIMITER) == -1 && tableName.indexOf(DELIMITER) == -1;
+        return newPrefixBuffer(context, tableName, 0).toString();
+    }
+
+    /*
+     * Qualifies the given value with a prefix returned by getPrefix.
+     */
+    String apply(String prefix, String value) {
+        return prefix.concat(value);
+    }
+
+    /*
+     * Returns a filter that matches the qualified values with a prefix returned by getPrefix.
+     */
+    Predicate<String> createPrefixFilter(String prefix) {
         return qualifiedValue -> qualifiedValue.startsWith(prefix);
     }
 
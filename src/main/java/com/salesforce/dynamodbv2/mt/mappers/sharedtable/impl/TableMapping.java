@@ -33,18 +33,23 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 /**
  * Holds the state of mapping of a virtual table to a physical table.  It provides methods for retrieving the virtual
  * and physical descriptions, the mapping of fields from virtual to physical and back.
  *
+ * <p>A table mapping is immutable and does not depend on the tenant: its mappers qualify and unqualify values with the
+ * prefix of the tenant in the current context.  {@code TableMappingFactory} therefore shares one table mapping across
+ * all tenants whose virtual tables have the same description.
+ *
  * @author msgroi
  */
 public class TableMapping {
 
     private final DynamoTableDescription virtualTable;
-    private DynamoTableDescription physicalTable;
+    private final DynamoTableDescription physicalTable;
     private final DynamoSecondaryIndexMapper secondaryIndexMapper;
     private final Map<String, List<FieldMapping>> virtualToPhysicalMappings;
     private final Map<DynamoSecondaryIndex, List<FieldMapping>> secondaryIndexFieldMappings;
@@ -54,22 +59,46 @@ public class TableMapping {
     private final RecordMapper recordMapper;
     private final QueryAndScanMapper queryAndScanMapper;
     private final ConditionMapper conditionMapper;
+    private final ProjectionMapper projectionMapper;
 
     TableMapping(DynamoTableDescription virtualTable,
                  CreateTableRequestFactory createTableRequestFactory,
                  DynamoSecondaryIndexMapper secondaryIndexMapper,
                  MtAmazonDynamoDbContextProvider mtContext) {
-        physicalTable = lookupPhysicalTable(virtualTable, createTableRequestFactory);
+        this(virtualTable, createTableRequestFactory, secondaryIndexMapper, mtContext, false);
+    }
+
+    TableMapping(DynamoTableDescription virtualTable,
+                 CreateTableRequestFactory createTableRequestFactory,
+                 DynamoSecondaryIndexMapper secondaryIndexMapper,
+                 MtAmazonDynamoDbContextProvider mtContext,
+                 boolean compactNumericKeys) {
+        this(virtualTable, createTableRequestFactory, secondaryIndexMapper, mtContext, compactNumericKeys,
+            UnaryOperator.identity());
+    }
+
+    /*
+     * The given function is called with the physical table that the virtual table maps to, e.g., to create it, and
+     * returns the physical table description of this mapping, which may include properties that are only known once
+     * the table exists, like its stream ARN.  Fields are mapped according to the physical table it is called with.
+     */
+    TableMapping(DynamoTableDescription virtualTable,
+                 CreateTableRequestFactory createTableRequestFactory,
+                 DynamoSecondaryIndexMapper secondaryIndexMapper,
+                 MtAmazonDynamoDbContextProvider mtContext,
+                 boolean compactNumericKeys,
+                 UnaryOperator<DynamoTableDescription> physicalTableFunction) {
+        DynamoTableDescription physicalTable = lookupPhysicalTable(virtualTable, createTableRequestFactory);
         validatePhysicalTable(physicalTable);
         this.secondaryIndexMapper = secondaryIndexMapper;
         this.virtualTable = virtualTable;
         this.secondaryIndexFieldMappings =
             buildIndexPrimaryKeyFieldMappings(virtualTable, physicalTable, secondaryIndexMapper);
-        this.virtualToPhysicalMappings = buildAllVirtualToPhysicalFieldMappings(virtualTable);
-        validateMapping();
+        this.virtualToPhysicalMappings = buildAllVirtualToPhysicalFieldMappings(virtualTable, physicalTable);
+        validateVirtualPhysicalCompatibility(physicalTable);
         FieldMapper fieldMapper = physicalTable.getPrimaryKey().getHashKeyType() == S
             ? new StringFieldMapper(mtContext, virtualTable.getTableName())
-            : new BinaryFieldMapper(mtContext, virtualTable.getTableName());
+            : new BinaryFieldMapper(mtContext, virtualTable.getTableName(), compactNumericKeys);
 
         itemMapper = new ItemMapper(
                 fieldMapper,
@@ -77,12 +106,14 @@ public class TableMapping {
         );
         keyMapper = new ItemMapper(
                 fieldMapper,
-                buildVirtualToPhysicalKeyFieldMappings()
+                buildVirtualToPhysicalKeyFieldMappings(physicalTable)
         );
         recordMapper = new RecordMapper(mtContext, virtualTable.getTableName(), itemMapper, fieldMapper,
             physicalTable.getPrimaryKey().getHashKey());
         queryAndScanMapper = new QueryAndScanMapper(this, fieldMapper);
         conditionMapper = new ConditionMapper(this, fieldMapper);
+        projectionMapper = new ProjectionMapper(virtualToPhysicalMappings);
+        this.physicalTable = physicalTableFunction.apply(physicalTable);
     }
 
     DynamoTableDescription getVirtualTable() {
@@ -113,6 +144,10 @@ public class TableMapping {
         return conditionMapper;
     }
 
+    ProjectionMapper getProjectionMapper() {
+        return projectionMapper;
+    }
+
     /*
      * Returns a mapping of virtual to physical fields.
      */
@@ -166,7 +201,7 @@ public class TableMapping {
     /*
      * Returns a mapping of table-level primary key fields only, virtual to physical.
      */
-    private List<FieldMapping> getTablePrimaryKeyFieldMappings() {
+    private List<FieldMapping> getTablePrimaryKeyFieldMappings(DynamoTableDescription physicalTable) {
         List<FieldMapping> fieldMappings = new ArrayList<>();
         fieldMappings.add(new FieldMapping(new Field(virtualTable.getPrimaryKey().getHashKey(),
             virtualTable.getPrimaryKey().getHashKeyType()),
@@ -193,8 +228,8 @@ public class TableMapping {
      * Calls the provided CreateTableRequestFactory passing in the virtual table description and returns the
      * corresponding physical table.  Throws a ResourceNotFoundException if the implementation returns null.
      */
-    private DynamoTableDescription lookupPhysicalTable(DynamoTableDescription virtualTable,
-                                                       CreateTableRequestFactory createTableRequestFactory) {
+    private static DynamoTableDescription lookupPhysicalTable(DynamoTableDescription virtualTable,
+                                                              CreateTableRequestFactory createTableRequestFactory) {
         return new DynamoTableDescriptionImpl(
             createTableRequestFactory.getCreateTableRequest(virtualTable)
             .orElseThrow((Supplier<ResourceNotFoundException>) () ->
@@ -202,8 +237,9 @@ public class TableMapping {
     }
 
     private Map<String, List<FieldMapping>> buildAllVirtualToPhysicalFieldMappings(
-        DynamoTableDescription virtualTable) {
-        Map<String, List<FieldMapping>> fieldMappings = new HashMap<>(buildVirtualToPhysicalKeyFieldMappings());
+        DynamoTableDescription virtualTable, DynamoTableDescription physicalTable) {
+        Map<String, List<FieldMapping>> fieldMappings =
+            new HashMap<>(buildVirtualToPhysicalKeyFieldMappings(physicalTable));
         virtualTable.getSis().forEach(virtualSi -> getIndexPrimaryKeyFieldMappings(virtualSi)
             .forEach(fieldMapping -> addFieldMapping(fieldMappings, fieldMapping)));
         return fieldMappings;
@@ -211,8 +247,14 @@ public class TableMapping {
 
     @VisibleForTesting
     Map<String, List<FieldMapping>> buildVirtualToPhysicalKeyFieldMappings() {
+        return buildVirtualToPhysicalKeyFieldMappings(physicalTable);
+    }
+
+    private Map<String, List<FieldMapping>> buildVirtualToPhysicalKeyFieldMappings(
+        DynamoTableDescription physicalTable) {
         Map<String, List<FieldMapping>> fieldMappings = new HashMap<>();
-        getTablePrimaryKeyFieldMappings().forEach(fieldMapping -> addFieldMapping(fieldMappings, fieldMapping));
+        getTablePrimaryKeyFieldMappings(physicalTable)
+            .forEach(fieldMapping -> addFieldMapping(fieldMappings, fieldMapping));
         return fieldMappings;
     }
 
@@ -263,18 +305,11 @@ public class TableMapping {
         fieldMapping.add(fieldMappingToAdd);
     }
 
-    /*
-     * Validates the table mapping.
-     */
-    private void validateMapping() {
-        validateVirtualPhysicalCompatibility();
-    }
-
     /*
      * Validate that the key schema elements match between the table's virtual and physical primary key as
      * well as indexes.
      */
-    private void validateVirtualPhysicalCompatibility() {
+    private void validateVirtualPhysicalCompatibility(DynamoTableDescription physicalTable) {
         // validate primary key
         try {
             validateCompatiblePrimaryKey(virtualTable.getPrimaryKey(), physicalTable.getPrimaryKey());
@@ -351,8 +386,4 @@ public class TableMapping {
                 + primaryKey.getHashKeyType());
     }
 
-    void setPhysicalTable(DynamoTableDescription physicalTable) {
-        this.physicalTable = physicalTable;
-    }
-
 }
\ No newline at end of file
@@ -13,12 +13,17 @@ import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
 import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
 import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.salesforce.dynamodbv2.mt.admin.AmazonDynamoDbAdminUtils;
 import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
 import com.salesforce.dynamodbv2.mt.mappers.index.DynamoSecondaryIndexMapper;
 import com.salesforce.dynamodbv2.mt.mappers.metadata.DynamoTableDescription;
 import com.salesforce.dynamodbv2.mt.mappers.metadata.DynamoTableDescriptionImpl;
 import com.salesforce.dynamodbv2.mt.mappers.sharedtable.CreateTableRequestFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,6 +35,15 @@ import org.slf4j.LoggerFactory;
  *
  * <p>This class is also responsible for triggering the creation of the physical tables appropriately.
  *
+ * <p>Table mappings are interned: all tenants whose virtual tables have the same description share one table mapping,
+ * so that the mapping state is held once per distinct schema rather than once per tenant, and mapping the table of a
+ * new tenant with a known schema neither builds a mapping nor describes the physical table.  Since the physical table
+ * of a virtual table is determined by the virtual table description, tenants that share a mapping also share the
+ * physical table.  Interned mappings are held weakly, i.e., until no tenant table mapping cache refers to them.
+ * Since virtual table descriptions don't identify the physical table instance, e.g., a physical table that was
+ * recreated with a new stream, mappings that may be stale are refreshed rather than looked up.  Refreshing describes
+ * the physical table once and only replaces the interned mapping if the physical table changed.
+ *
  * @author msgroi
  */
 public class TableMappingFactory {
@@ -42,6 +56,9 @@ public class TableMappingFactory {
     private final DynamoSecondaryIndexMapper secondaryIndexMapper;
     private final AmazonDynamoDB amazonDynamoDb;
     private final int pollIntervalSeconds;
+    private final boolean compactNumericKeys;
+    private final Cache<DynamoTableDescription, TableMapping> tableMappings =
+        CacheBuilder.newBuilder().weakValues().build();
 
     /**
      * TODO: write Javadoc.
@@ -60,12 +77,37 @@ public class TableMappingFactory {
                                AmazonDynamoDB amazonDynamoDb,
                                boolean createTablesEagerly,
                                int pollIntervalSeconds) {
+        this(createTableRequestFactory, mtContext, secondaryIndexMapper, amazonDynamoDb, createTablesEagerly,
+            pollIntervalSeconds, false);
+    }
+
+    /**
+     * Creates a table mapping factory.
+     *
+     * @param createTableRequestFactory maps virtual to physical table instances
+     * @param mtContext the multitenant context provider
+     * @param secondaryIndexMapper maps virtual to physical indexes
+     * @param amazonDynamoDb the underlying {@code AmazonDynamoDB} delegate
+     * @param createTablesEagerly a flag indicating whether to create physical tables eagerly at start time
+     * @param pollIntervalSeconds the interval in seconds between attempts at checking the status of the table being
+     *     created
+     * @param compactNumericKeys a flag indicating whether numeric keys that are integers in the range of a long are
+     *     written in the compact encoding on physical tables with binary hash keys
+     */
+    public TableMappingFactory(CreateTableRequestFactory createTableRequestFactory,
+                               MtAmazonDynamoDbContextProvider mtContext,
+                               DynamoSecondaryIndexMapper secondaryIndexMapper,
+                               AmazonDynamoDB amazonDynamoDb,
+                               boolean createTablesEagerly,
+                               int pollIntervalSeconds,
+                               boolean compactNumericKeys) {
         this.createTableRequestFactory = createTableRequestFactory;
         this.secondaryIndexMapper = secondaryIndexMapper;
         this.mtContext = mtContext;
         this.amazonDynamoDb = amazonDynamoDb;
         this.dynamoDbAdminUtils = new AmazonDynamoDbAdminUtils(amazonDynamoDb);
         this.pollIntervalSeconds = pollIntervalSeconds;
+        this.compactNumericKeys = compactNumericKeys;
         if (createTablesEagerly) {
             createTablesEagerly(createTableRequestFactory);
         }
@@ -80,18 +122,77 @@ public class TableMappingFactory {
     }
 
     /*
-     * Creates the table mapping, creates the table if it does not exist, sets the physical table description
-     * back onto the table mapping so it includes things that can only be determined after the physical
-     * table is created, like the streamArn.
+     * Returns the interned table mapping of the given virtual table, or creates it.  Creating the table mapping creates
+     * the physical table if it does not exist, and sets the physical table description onto the table mapping so it
+     * includes things that can only be determined after the physical table is created, like the streamArn.
      */
     TableMapping getTableMapping(DynamoTableDescription virtualTableDescription) {
-        TableMapping tableMapping = new TableMapping(virtualTableDescription,
+        return getTableMapping(virtualTableDescription, new HashMap<>());
+    }
+
+    /*
+     * Creates the table mapping like above, but reuses the physical table descriptions in the given map, and adds the
+     * ones it creates or describes to it.  Used to create the mappings of many virtual tables at once, e.g., when
+     * warming up caches, without describing each physical table once per virtual table.
+     */
+    TableMapping getTableMapping(DynamoTableDescription virtualTableDescription,
+                                 Map<String, DynamoTableDescriptionImpl> physicalTables) {
+        TableMapping tableMapping = tableMappings.getIfPresent(virtualTableDescription);
+        if (tableMapping == null) {
+            TableMapping newTableMapping = newTableMapping(virtualTableDescription, physicalTables);
+            // if another thread interned a mapping of the same virtual table in the meantime, use that one
+            tableMapping = tableMappings.asMap().putIfAbsent(virtualTableDescription, newTableMapping);
+            if (tableMapping == null) {
+                tableMapping = newTableMapping;
+                LOG.info("created virtual to physical table mapping: " + tableMapping.toString());
+            }
+        }
+        return tableMapping;
+    }
+
+    /*
+     * Describes the physical table of the interned table mapping of the given virtual table again, and returns the
+     * interned mapping if the physical table description, including its stream, is unchanged.  Otherwise, creates a
+     * new table mapping, creating the physical table if it no longer exists, and interns it in place of the current
+     * mapping, if any, so that tenants whose mappings are created later share the new one.  Tenants that share the
+     * current mapping keep it until their mappings are refreshed as well.
+     */
+    TableMapping refreshTableMapping(DynamoTableDescription virtualTableDescription) {
+        TableMapping tableMapping = tableMappings.getIfPresent(virtualTableDescription);
+        Map<String, DynamoTableDescriptionImpl> physicalTables = new HashMap<>();
+        if (tableMapping != null) {
+            String physicalTableName = tableMapping.getPhysicalTable().getTableName();
+            Optional<TableDescription> physicalTable = getTableDescription(physicalTableName);
+            if (physicalTable.isPresent()) {
+                DynamoTableDescriptionImpl newPhysicalTable = new DynamoTableDescriptionImpl(physicalTable.get());
+                if (isUnchanged(tableMapping.getPhysicalTable(), newPhysicalTable)) {
+                    return tableMapping;
+                }
+                // don't describe the physical table again when creating the new mapping
+                physicalTables.put(physicalTableName, newPhysicalTable);
+            }
+        }
+        tableMapping = newTableMapping(virtualTableDescription, physicalTables);
+        tableMappings.put(virtualTableDescription, tableMapping);
+        LOG.info("refreshed virtual to physical table mapping: " + tableMapping.toString());
+        return tableMapping;
+    }
+
+    private static boolean isUnchanged(DynamoTableDescription physicalTable, DynamoTableDescription newPhysicalTable) {
+        // table descriptions are equal regardless of their streams, so compare the streams too
+        return physicalTable.equals(newPhysicalTable)
+            && Objects.equals(physicalTable.getLastStreamArn(), newPhysicalTable.getLastStreamArn());
+    }
+
+    private TableMapping newTableMapping(DynamoTableDescription virtualTableDescription,
+                                         Map<String, DynamoTableDescriptionImpl> physicalTables) {
+        return new TableMapping(virtualTableDescription,
             createTableRequestFactory,
             secondaryIndexMapper,
-            mtContext);
-        tableMapping.setPhysicalTable(createTableIfNotExists(tableMapping.getPhysicalTable().getCreateTableRequest()));
-        LOG.info("created virtual to physical table mapping: " + tableMapping.toString());
-        return tableMapping;
+            mtContext,
+            compactNumericKeys,
+            physicalTable -> physicalTables.computeIfAbsent(physicalTable.getTableName(),
+                physicalTableName -> createTableIfNotExists(physicalTable.getCreateTableRequest())));
     }
 
     private DynamoTableDescriptionImpl createTableIfNotExists(CreateTableRequest physicalTable) {
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2018, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteRequest;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.RateLimiter;
+import com.salesforce.dynamodbv2.mt.mappers.metadata.PrimaryKey;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Deletes all physical items of a virtual table on behalf of {@code MtAmazonDynamoDbBySharedTable}.  The items are
+ * read with a parallel segmented scan that only returns their keys, and deleted with batch writes of at most 25 keys.
+ * Batch writes across all segments share a rate limiter that bounds the write capacity units consumed per second,
+ * assuming each delete consumes one write capacity unit.  Unprocessed deletes are retried with jittered exponential
+ * backoff.
+ *
+ * <p>After all items of a page have been deleted, the page's last evaluated key is recorded in a
+ * {@link ParallelScanCheckpoint}, which is passed to a progress listener, so that an interrupted truncation can be
+ * resumed from where it left off.
+ */
+public class TruncationEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(TruncationEngine.class);
+
+    static final int MAX_ITEMS_PER_BATCH = 25;
+    private static final int MAX_ATTEMPTS = 10;
+    private static final long BASE_BACKOFF_MILLIS = 25L;
+    private static final long MAX_BACKOFF_MILLIS = 1000L;
+    private static final String HASH_KEY_PLACEHOLDER = "#truncateHk";
+    private static final String RANGE_KEY_PLACEHOLDER = "#truncateRk";
+
+    private final AmazonDynamoDB amazonDynamoDb;
+    private final ExecutorService executor;
+    private final int totalSegments;
+    private final RateLimiter writeRateLimiter;
+    private final Timer truncateTime;
+    private final Counter truncateDeletedItems;
+
+    /**
+     * Creates a truncation engine.
+     *
+     * @param name the name used as the prefix of the reported metrics
+     * @param amazonDynamoDb the physical {@code AmazonDynamoDB} to scan and delete items with
+     * @param executor executor used to truncate segments in parallel
+     * @param totalSegments number of segments that new truncations are split into
+     * @param writeCapacityUnitsPerSecond maximum write capacity units consumed per second across all segments
+     * @param meterRegistry MeterRegistry for reporting metrics
+     */
+    public TruncationEngine(String name,
+                            AmazonDynamoDB amazonDynamoDb,
+                            ExecutorService executor,
+                            int totalSegments,
+                            double writeCapacityUnitsPerSecond,
+                            MeterRegistry meterRegistry) {
+        checkArgument(totalSegments > 0, "totalSegments must be positive");
+        checkArgument(writeCapacityUnitsPerSecond > 0, "writeCapacityUnitsPerSecond must be positive");
+        this.amazonDynamoDb = amazonDynamoDb;
+        this.executor = executor;
+        this.totalSegments = totalSegments;
+        this.writeRateLimiter = RateLimiter.create(writeCapacityUnitsPerSecond);
+        this.truncateTime = meterRegistry.timer(name + ".Truncate.Time");
+        this.truncateDeletedItems = meterRegistry.counter(name + ".Truncate.DeletedItems");
+    }
+
+    ParallelScanCheckpoint newCheckpoint() {
+        return new ParallelScanCheckpoint(totalSegments);
+    }
+
+    /**
+     * Deletes all items returned by the given physical scan request, resuming from the given checkpoint.
+     *
+     * @param scanRequest the mapped physical scan request that selects the items of the virtual table
+     * @param primaryKey the primary key of the physical table
+     * @param checkpoint the checkpoint to resume from and to record progress in
+     * @param progressListener called with the checkpoint whenever it has been updated
+     */
+    void truncate(ScanRequest scanRequest,
+                  PrimaryKey primaryKey,
+                  ParallelScanCheckpoint checkpoint,
+                  Consumer<ParallelScanCheckpoint> progressListener) {
+        truncateTime.record(() -> truncateInternal(scanRequest, primaryKey, checkpoint, progressListener));
+    }
+
+    private void truncateInternal(ScanRequest scanRequest,
+                                  PrimaryKey primaryKey,
+                                  ParallelScanCheckpoint checkpoint,
+                                  Consumer<ParallelScanCheckpoint> progressListener) {
+        // only read the keys of the items to delete
+        ScanRequest keyScanRequest = scanRequest.clone();
+        Map<String, String> expressionAttributeNames = keyScanRequest.getExpressionAttributeNames() == null
+            ? new HashMap<>() : new HashMap<>(keyScanRequest.getExpressionAttributeNames());
+        expressionAttributeNames.put(HASH_KEY_PLACEHOLDER, primaryKey.getHashKey());
+        primaryKey.getRangeKey().ifPresent(rangeKey -> expressionAttributeNames.put(RANGE_KEY_PLACEHOLDER, rangeKey));
+        keyScanRequest.withExpressionAttributeNames(expressionAttributeNames)
+            .withProjectionExpression(HASH_KEY_PLACEHOLDER
+                + primaryKey.getRangeKey().map(rangeKey -> ", " + RANGE_KEY_PLACEHOLDER).orElse(""));
+
+        List<Future<?>> futures = IntStream.range(0, checkpoint.getTotalSegments())
+            .filter(segment -> !checkpoint.isCompleted(segment))
+            .mapToObj(segment -> executor.submit(() ->
+                truncateSegment(keyScanRequest, primaryKey, segment, checkpoint, progressListener)))
+            .collect(Collectors.toList());
+
+        // wait for all segments, so that the recorded progress is final if one of them fails
+        RuntimeException exception = null;
+        for (Future<?> future : futures) {
+            try {
+                getResult(future);
+            } catch (RuntimeException e) {
+                if (exception == null) {
+                    exception = e;
+                } else {
+                    exception.addSuppressed(e);
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    // stop the remaining segments too, e.g., if the delete table job lost its lease
+                    futures.forEach(f -> f.cancel(true));
+                }
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    private void truncateSegment(ScanRequest scanRequest,
+                                 PrimaryKey primaryKey,
+                                 int segment,
+                                 ParallelScanCheckpoint checkpoint,
+                                 Consumer<ParallelScanCheckpoint> progressListener) {
+        ScanRequest segmentScanRequest = scanRequest.clone()
+            .withExclusiveStartKey(checkpoint.getLastEvaluatedKey(segment).orElse(null));
+        if (checkpoint.getTotalSegments() > 1) {
+            segmentScanRequest.withSegment(segment).withTotalSegments(checkpoint.getTotalSegments());
+        }
+        do {
+            ScanResult scanResult = amazonDynamoDb.scan(segmentScanRequest);
+            List<Map<String, AttributeValue>> keys = scanResult.getItems().stream()
+                .map(item -> getKey(item, primaryKey))
+                .collect(Collectors.toList());
+            for (List<Map<String, AttributeValue>> batch : Lists.partition(keys, MAX_ITEMS_PER_BATCH)) {
+                delete(scanRequest.getTableName(), batch);
+            }
+            // record and report progress atomically, so that listeners never see an older checkpoint last
+            synchronized (checkpoint) {
+                checkpoint.update(segment, scanResult.getLastEvaluatedKey());
+                progressListener.accept(checkpoint);
+            }
+            segmentScanRequest.setExclusiveStartKey(scanResult.getLastEvaluatedKey());
+        } while (segmentScanRequest.getExclusiveStartKey() != null);
+    }
+
+    private void delete(String tableName, List<Map<String, AttributeValue>> keys) {
+        List<WriteRequest> writeRequests = keys.stream()
+            .map(key -> new WriteRequest().withDeleteRequest(new DeleteRequest().withKey(key)))
+            .collect(Collectors.toList());
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            if (attempt > 0 && !sleep(getBackoff(attempt))) {
+                break;
+            }
+            writeRateLimiter.acquire(writeRequests.size());
+            try {
+                Map<String, List<WriteRequest>> requestItems = new HashMap<>();
+                requestItems.put(tableName, writeRequests);
+                Map<String, List<WriteRequest>> unprocessedRequestItems = amazonDynamoDb.batchWriteItem(
+                    new BatchWriteItemRequest().withRequestItems(requestItems)).getUnprocessedItems();
+                List<WriteRequest> unprocessedItems = unprocessedRequestItems == null ? List.of()
+                    : unprocessedRequestItems.getOrDefault(tableName, List.of());
+                truncateDeletedItems.increment(writeRequests.size() - unprocessedItems.size());
+                if (unprocessedItems.isEmpty()) {
+                    return;
+                }
+                writeRequests = new ArrayList<>(unprocessedItems);
+            } catch (ProvisionedThroughputExceededException e) {
+                // none of the items were processed, so retry all of them
+                log.debug("truncate batch delete throttled on attempt " + attempt + ", retrying "
+                    + writeRequests.size() + " items");
+            }
+        }
+        throw new RuntimeException("failed to delete " + writeRequests.size() + " items from table=" + tableName
+            + " after " + MAX_ATTEMPTS + " attempts");
+    }
+
+    private static Map<String, AttributeValue> getKey(Map<String, AttributeValue> item, PrimaryKey primaryKey) {
+        Map<String, AttributeValue> key = new HashMap<>();
+        key.put(primaryKey.getHashKey(), item.get(primaryKey.getHashKey()));
+        primaryKey.getRangeKey().ifPresent(rangeKey -> key.put(rangeKey, item.get(rangeKey)));
+        return key;
+    }
+
+    private static long getBackoff(int attempt) {
+        long maxBackoff = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(attempt - 1, 16));
+        return ThreadLocalRandom.current().nextLong(maxBackoff + 1);
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void getResult(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for truncate segment", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("exception truncating segment", e.getCause());
+        }
+    }
+
+}
@@ -8,13 +8,17 @@
 package com.salesforce.dynamodbv2.mt.repo;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBStreams;
 import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.BillingMode;
+import com.amazonaws.services.dynamodbv2.model.ConditionCheck;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
 import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
-import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.Delete;
 import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
 import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndex;
 import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndexDescription;
@@ -22,17 +26,33 @@ import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
 import com.amazonaws.services.dynamodbv2.model.KeyType;
 import com.amazonaws.services.dynamodbv2.model.LocalSecondaryIndex;
 import com.amazonaws.services.dynamodbv2.model.LocalSecondaryIndexDescription;
+import com.amazonaws.services.dynamodbv2.model.Projection;
+import com.amazonaws.services.dynamodbv2.model.ProjectionType;
 import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughput;
+import com.amazonaws.services.dynamodbv2.model.Put;
 import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputDescription;
 import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
 import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
 import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType;
 import com.amazonaws.services.dynamodbv2.model.ScanRequest;
 import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.StreamSpecification;
+import com.amazonaws.services.dynamodbv2.model.StreamViewType;
 import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItem;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactionCanceledException;
+import com.amazonaws.services.dynamodbv2.model.Update;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.google.common.base.Ticker;
+import com.google.common.base.Utf8;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.google.gson.Gson;
 import com.salesforce.dynamodbv2.mt.admin.AmazonDynamoDbAdminUtils;
@@ -40,19 +60,58 @@ import com.salesforce.dynamodbv2.mt.cache.MtCache;
 import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
 import com.salesforce.dynamodbv2.mt.mappers.MtAmazonDynamoDb.TenantTable;
 import com.salesforce.dynamodbv2.mt.util.DynamoDbCapacity;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.jetbrains.annotations.NotNull;
 
 /**
  * Stores table definitions in single table.  Each record represents a table.  Table names are prefixed with context.
  *
+ * <p>Table definitions are stored either as JSON strings or, if binary table descriptions are enabled, as compact
+ * binary values (see {@code TableDescriptionCodec}).  Both formats are always readable, so binary table descriptions
+ * should only be enabled once all readers of the metadata table have been upgraded to a version that can decode them.
+ * Existing JSON entries can then be converted with {@link #rewriteLegacyTableDescriptions()}.
+ *
+ * <p>If the metadata stream is enabled, the metadata table has a keys-only stream, which
+ * {@link #newStreamListener} follows to refresh or invalidate the cached table descriptions that other nodes changed.
+ * Caches can then keep long expiries without serving stale descriptions of dropped or recreated tables.  Unless a
+ * table description cache is given, the default cache then holds up to 100000 descriptions for an hour.  In case the
+ * listener missed a change, a description that is read five minutes after it was loaded is reloaded on the warm-up
+ * executor, while the current description is returned in the meantime.
+ *
+ * <p>If delete-table jobs are enabled, the job to delete a table is kept in a dedicated row next to the table's row,
+ * whose key is the table's key followed by {@code #deleteJob}.  Likewise, the progress of truncating a table's data is
+ * kept in a row whose key is the table's key followed by {@code #truncation}, so that table rows only change when a
+ * table is created or deleted.  Since tenant identifiers and table names cannot contain {@code #}, these rows never
+ * clash with table rows.  Job rows are indexed by a sparse GSI, so that pending jobs are found with a query rather than
+ * a scan of the metadata table.
+ *
+ * <p>Tables that were found not to exist are remembered for a short time, so that repeated lookups of missing tables,
+ * e.g., clients that describe a table before creating it, don't each read the metadata table.  Creating a table on this
+ * node, or a change to the table observed on the metadata stream, forgets that it was missing right away.
+ *
  * <p>The AmazonDynamoDb that it uses must not, itself, be a MtAmazonDynamoDb* instance.  MtAmazonDynamoDbLogger
  * is supported.
  *
@@ -62,7 +121,30 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
 
     private static final String TABLE_METADATA_HK_FIELD = "table";
     private static final String TABLE_METADATA_DATA_FIELD = "data";
+    private static final String TABLE_METADATA_TRUNCATION_FIELD = "truncation";
+    private static final String TABLE_METADATA_DELETE_ENQUEUED_AT_FIELD = "deleteEnqueuedAt";
+    private static final String TABLE_METADATA_DELETE_LEASE_OWNER_FIELD = "deleteLeaseOwner";
+    private static final String TABLE_METADATA_DELETE_LEASE_EXPIRES_AT_FIELD = "deleteLeaseExpiresAt";
+    private static final String TABLE_METADATA_DELETE_JOB_FIELD = "deleteJob";
+    private static final String DELETE_JOB_PENDING = "pending";
+    private static final String DELETE_JOB_INDEX = "deleteJobs";
+    private static final String JOB_KEY_DELIMITER = "#";
+    private static final String DELETE_JOB_KEY_SUFFIX = JOB_KEY_DELIMITER + "deleteJob";
+    private static final String TRUNCATION_KEY_SUFFIX = JOB_KEY_DELIMITER + "truncation";
     private static final String DELIMITER = ".";
+    // the maximum number of tenants whose key prefixes are filtered for on the server during warm-up
+    private static final int MAX_WARM_UP_FILTER_TENANTS = 50;
+    // the default table description cache if the metadata stream is enabled
+    private static final long REFRESHING_CACHE_MAXIMUM_SIZE = 100_000L;
+    private static final long REFRESHING_CACHE_EXPIRY_MINUTES = 60L;
+    private static final long REFRESHING_CACHE_REFRESH_MINUTES = 5L;
+    private static final StreamSpecification METADATA_STREAM_SPECIFICATION = new StreamSpecification()
+        .withStreamEnabled(true)
+        .withStreamViewType(StreamViewType.KEYS_ONLY);
+
+    private static final List<AttributeDefinition> DELETE_JOB_INDEX_ATTRIBUTES = List.of(
+        new AttributeDefinition(TABLE_METADATA_DELETE_JOB_FIELD, ScalarAttributeType.S),
+        new AttributeDefinition(TABLE_METADATA_DELETE_ENQUEUED_AT_FIELD, ScalarAttributeType.N));
 
     private static final Gson GSON = new Gson();
     private final AmazonDynamoDB amazonDynamoDb;
@@ -75,6 +157,15 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
     private final String delimiter;
     private final int pollIntervalSeconds;
     private final MtCache<TableDescription> cache;
+    private final MtCache<Boolean> missingTableCache;
+    private final boolean binaryTableDescriptions;
+    private final boolean metadataStream;
+    private final boolean deleteTableJobs;
+    private final ExecutorService warmUpExecutor;
+    private final Timer decodeJsonTime;
+    private final Timer decodeBinaryTime;
+    private final DistributionSummary decodeJsonSize;
+    private final DistributionSummary decodeBinarySize;
 
     private MtDynamoDbTableDescriptionRepo(AmazonDynamoDB amazonDynamoDb,
                                            BillingMode billingMode,
@@ -85,7 +176,14 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
                                            String tableDescriptionTableDataField,
                                            String delimiter,
                                            int pollIntervalSeconds,
-                                           Cache<Object, TableDescription> tableDescriptionCache) {
+                                           Cache<Object, TableDescription> tableDescriptionCache,
+                                           Cache<Object, Boolean> missingTableCache,
+                                           boolean binaryTableDescriptions,
+                                           boolean metadataStream,
+                                           boolean deleteTableJobs,
+                                           ExecutorService warmUpExecutor,
+                                           Ticker ticker,
+                                           MeterRegistry meterRegistry) {
         this.amazonDynamoDb = amazonDynamoDb;
         this.billingMode = billingMode;
         this.mtContext = mtContext;
@@ -95,13 +193,26 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
         this.tableDescriptionTableDataField = tableDescriptionTableDataField;
         this.delimiter = delimiter;
         this.pollIntervalSeconds = pollIntervalSeconds;
-        this.cache = new MtCache<>(mtContext, tableDescriptionCache);
+        this.cache = new MtCache<>(mtContext, tableDescriptionCache != null ? tableDescriptionCache
+            : newRefreshingCache(mtContext, warmUpExecutor, ticker));
+        this.missingTableCache = new MtCache<>(mtContext, missingTableCache);
+        this.binaryTableDescriptions = binaryTableDescriptions;
+        this.metadataStream = metadataStream;
+        this.deleteTableJobs = deleteTableJobs;
+        this.warmUpExecutor = warmUpExecutor;
+        final String className = MtDynamoDbTableDescriptionRepo.class.getSimpleName();
+        this.decodeJsonTime = meterRegistry.timer(className + ".Decode.Json.Time");
+        this.decodeBinaryTime = meterRegistry.timer(className + ".Decode.Binary.Time");
+        this.decodeJsonSize = meterRegistry.summary(className + ".Decode.Json.Size");
+        this.decodeBinarySize = meterRegistry.summary(className + ".Decode.Binary.Size");
+        GuavaCacheMetrics.monitor(meterRegistry, missingTableCache, className + ".MissingTable");
     }
 
     @Override
     public TableDescription createTable(CreateTableRequest createTableRequest) {
         amazonDynamoDb.putItem(new PutItemRequest().withTableName(getTableDescriptionTableName())
             .withItem(createItem(createTableRequest)));
+        missingTableCache.invalidate(createTableRequest.getTableName());
         return getTableDescription(createTableRequest.getTableName());
     }
 
@@ -115,10 +226,14 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
     }
 
     private TableDescription getTableDescriptionFromCache(String tableName) throws ResourceNotFoundException {
+        if (missingTableCache.getIfPresent(tableName) != null) {
+            throw newTableNotFoundException(tableName);
+        }
         try {
-            return cache.get(tableName, () -> getTableDescriptionNoCache(tableName));
+            return cache.get(tableName, () -> getTableDescriptionNoCache(tableName, false));
         } catch (UncheckedExecutionException e) {
             if (e.getCause() instanceof ResourceNotFoundException) {
+                missingTableCache.put(tableName, Boolean.TRUE);
                 throw (ResourceNotFoundException) e.getCause();
             } else {
                 throw e;
@@ -128,17 +243,47 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
         }
     }
 
-    private TableDescription getTableDescriptionNoCache(String tableName) {
+    private TableDescription getTableDescriptionNoCache(String tableName, boolean consistentRead) {
         Map<String, AttributeValue> item = amazonDynamoDb.getItem(new GetItemRequest()
             .withTableName(getTableDescriptionTableName())
             .withKey(new HashMap<>(ImmutableMap.of(tableDescriptionTableHashKeyField,
-                new AttributeValue(addPrefix(tableName)))))).getItem();
+                new AttributeValue(addPrefix(tableName)))))
+            .withConsistentRead(consistentRead)).getItem();
         if (item == null) {
-            throw new ResourceNotFoundException("table metadata entry for '" + tableName + "' does not exist in "
-                + tableDescriptionTableName);
+            throw newTableNotFoundException(tableName);
         }
-        String tableDataJson = item.get(tableDescriptionTableDataField).getS();
-        return jsonToTableData(tableDataJson);
+        return decodeTableData(item.get(tableDescriptionTableDataField));
+    }
+
+    /*
+     * Returns the default table description cache if the metadata stream is enabled, see the class Javadoc.
+     */
+    private Cache<Object, TableDescription> newRefreshingCache(MtAmazonDynamoDbContextProvider mtContext,
+                                                               ExecutorService warmUpExecutor,
+                                                               Ticker ticker) {
+        return CacheBuilder.newBuilder()
+            .maximumSize(REFRESHING_CACHE_MAXIMUM_SIZE)
+            .expireAfterWrite(REFRESHING_CACHE_EXPIRY_MINUTES, TimeUnit.MINUTES)
+            .refreshAfterWrite(REFRESHING_CACHE_REFRESH_MINUTES, TimeUnit.MINUTES)
+            .ticker(ticker)
+            .build(CacheLoader.asyncReloading(
+                MtCache.newLoader(mtContext, tableName -> reloadTableDescription((String) tableName)),
+                warmUpExecutor));
+    }
+
+    /*
+     * Reloads a cached table description in the background.  The entry of the metadata table itself only records that
+     * the table was created, so it is kept as is.
+     */
+    private TableDescription reloadTableDescription(String tableName) {
+        return tableName.equals(tableDescriptionTableName)
+            ? new TableDescription().withTableName(tableDescriptionTableName)
+            : getTableDescriptionNoCache(tableName, false);
+    }
+
+    private ResourceNotFoundException newTableNotFoundException(String tableName) {
+        return new ResourceNotFoundException("table metadata entry for '" + tableName + "' does not exist in "
+            + tableDescriptionTableName);
     }
 
     @Override
@@ -147,14 +292,166 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
 
         cache.invalidate(tableName);
 
-        amazonDynamoDb.deleteItem(new DeleteItemRequest()
-            .withTableName(getTableDescriptionTableName())
-            .withKey(new HashMap<>(ImmutableMap.of(tableDescriptionTableHashKeyField,
-                new AttributeValue(addPrefix(tableName))))));
+        // remove the truncation progress and the job, if any, along with the table, so that neither is orphaned
+        List<TransactWriteItem> deletes = new ArrayList<>();
+        deletes.add(newDelete(addPrefix(tableName)));
+        deletes.add(newDelete(getTruncationKey(tableName)));
+        if (deleteTableJobs) {
+            deletes.add(newDelete(getDeleteJobKey(tableName)));
+        }
+        amazonDynamoDb.transactWriteItems(new TransactWriteItemsRequest().withTransactItems(deletes));
 
         return tableDescription;
     }
 
+    private TransactWriteItem newDelete(String hashKey) {
+        return new TransactWriteItem().withDelete(new Delete()
+            .withTableName(getTableDescriptionTableName())
+            .withKey(getKey(hashKey)));
+    }
+
+    @Override
+    public void updateTruncationProgress(String tableName, Map<String, AttributeValue> progress) {
+        Map<String, AttributeValue> item = getKey(getTruncationKey(tableName));
+        item.put(TABLE_METADATA_TRUNCATION_FIELD, new AttributeValue().withM(progress));
+        try {
+            // the table row is checked rather than updated, so that progress is not reported on the metadata stream
+            amazonDynamoDb.transactWriteItems(new TransactWriteItemsRequest().withTransactItems(
+                newTableExistsCheck(tableName),
+                new TransactWriteItem().withPut(new Put()
+                    .withTableName(getTableDescriptionTableName())
+                    .withItem(item))));
+        } catch (TransactionCanceledException e) {
+            throw isTableExistsCheckFailed(e) ? newTableNotFoundException(tableName) : e;
+        }
+    }
+
+    @Override
+    public Map<String, AttributeValue> getTruncationProgress(String tableName) {
+        Map<String, AttributeValue> item = amazonDynamoDb.getItem(new GetItemRequest()
+            .withTableName(getTableDescriptionTableName())
+            .withKey(getKey(getTruncationKey(tableName)))
+            .withConsistentRead(true)).getItem();
+        return item == null || !item.containsKey(TABLE_METADATA_TRUNCATION_FIELD) ? null
+            : item.get(TABLE_METADATA_TRUNCATION_FIELD).getM();
+    }
+
+    @Override
+    public void addDeleteTableJob(String tableName, long enqueuedAt) {
+        checkState(deleteTableJobs, "delete table jobs are not enabled");
+        try {
+            amazonDynamoDb.transactWriteItems(new TransactWriteItemsRequest().withTransactItems(
+                newTableExistsCheck(tableName),
+                new TransactWriteItem().withUpdate(new Update()
+                    .withTableName(getTableDescriptionTableName())
+                    .withKey(getKey(getDeleteJobKey(tableName)))
+                    .withUpdateExpression("SET #job = :pending, #enqueuedAt = if_not_exists(#enqueuedAt, :enqueuedAt)")
+                    .withExpressionAttributeNames(ImmutableMap.of(
+                        "#job", TABLE_METADATA_DELETE_JOB_FIELD,
+                        "#enqueuedAt", TABLE_METADATA_DELETE_ENQUEUED_AT_FIELD))
+                    .withExpressionAttributeValues(ImmutableMap.of(
+                        ":pending", new AttributeValue(DELETE_JOB_PENDING),
+                        ":enqueuedAt", new AttributeValue().withN(String.valueOf(enqueuedAt)))))));
+        } catch (TransactionCanceledException e) {
+            throw isTableExistsCheckFailed(e) ? newTableNotFoundException(tableName) : e;
+        }
+    }
+
+    /*
+     * Returns a transaction item that checks that the given table exists, which must be the first item of the
+     * transaction for isTableExistsCheckFailed to recognize its failure.
+     */
+    private TransactWriteItem newTableExistsCheck(String tableName) {
+        return new TransactWriteItem().withConditionCheck(new ConditionCheck()
+            .withTableName(getTableDescriptionTableName())
+            .withKey(getKey(addPrefix(tableName)))
+            .withConditionExpression("attribute_exists(#table)")
+            .withExpressionAttributeNames(ImmutableMap.of("#table", tableDescriptionTableHashKeyField)));
+    }
+
+    private static boolean isTableExistsCheckFailed(TransactionCanceledException e) {
+        return e.getCancellationReasons() != null && !e.getCancellationReasons().isEmpty()
+            && "ConditionalCheckFailed".equals(e.getCancellationReasons().get(0).getCode());
+    }
+
+    @Override
+    public boolean acquireDeleteTableJobLease(String tableName, String owner, long now, long leaseExpiresAt) {
+        checkState(deleteTableJobs, "delete table jobs are not enabled");
+        try {
+            amazonDynamoDb.updateItem(new UpdateItemRequest()
+                .withTableName(getTableDescriptionTableName())
+                .withKey(getKey(getDeleteJobKey(tableName)))
+                .withUpdateExpression("SET #owner = :owner, #expiresAt = :expiresAt")
+                .withConditionExpression("attribute_exists(#enqueuedAt) AND (attribute_not_exists(#owner) "
+                    + "OR #owner = :owner OR #expiresAt < :now)")
+                .withExpressionAttributeNames(ImmutableMap.of(
+                    "#enqueuedAt", TABLE_METADATA_DELETE_ENQUEUED_AT_FIELD,
+                    "#owner", TABLE_METADATA_DELETE_LEASE_OWNER_FIELD,
+                    "#expiresAt", TABLE_METADATA_DELETE_LEASE_EXPIRES_AT_FIELD))
+                .withExpressionAttributeValues(ImmutableMap.of(
+                    ":owner", new AttributeValue(owner),
+                    ":expiresAt", new AttributeValue().withN(String.valueOf(leaseExpiresAt)),
+                    ":now", new AttributeValue().withN(String.valueOf(now)))));
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    /*
+     * Queries the sparse index of job rows, so that the cost of polling depends on the number of jobs rather than the
+     * number of tables.
+     */
+    @Override
+    public List<DeleteTableJob> listDeleteTableJobs(long now) {
+        checkState(deleteTableJobs, "delete table jobs are not enabled");
+        QueryRequest queryRequest = new QueryRequest(getTableDescriptionTableName())
+            .withIndexName(DELETE_JOB_INDEX)
+            .withKeyConditionExpression("#job = :pending")
+            .withFilterExpression("attribute_not_exists(#expiresAt) OR #expiresAt < :now")
+            .withExpressionAttributeNames(ImmutableMap.of(
+                "#job", TABLE_METADATA_DELETE_JOB_FIELD,
+                "#expiresAt", TABLE_METADATA_DELETE_LEASE_EXPIRES_AT_FIELD))
+            .withExpressionAttributeValues(ImmutableMap.of(
+                ":pending", new AttributeValue(DELETE_JOB_PENDING),
+                ":now", new AttributeValue().withN(String.valueOf(now))));
+        List<DeleteTableJob> jobs = new ArrayList<>();
+        QueryResult queryResult;
+        do {
+            queryResult = amazonDynamoDb.query(queryRequest);
+            queryResult.getItems().forEach(item -> {
+                String jobKey = item.get(tableDescriptionTableHashKeyField).getS();
+                jobs.add(new DeleteTableJob(getTenantTableFromDeleteJobKey(jobKey),
+                    Long.parseLong(item.get(TABLE_METADATA_DELETE_ENQUEUED_AT_FIELD).getN())));
+            });
+            queryRequest.setExclusiveStartKey(queryResult.getLastEvaluatedKey());
+        } while (queryResult.getLastEvaluatedKey() != null);
+        return jobs;
+    }
+
+    private Map<String, AttributeValue> getKey(String hashKey) {
+        return new HashMap<>(ImmutableMap.of(tableDescriptionTableHashKeyField, new AttributeValue(hashKey)));
+    }
+
+    private String getDeleteJobKey(String tableName) {
+        return addPrefix(tableName) + DELETE_JOB_KEY_SUFFIX;
+    }
+
+    private String getTruncationKey(String tableName) {
+        return addPrefix(tableName) + TRUNCATION_KEY_SUFFIX;
+    }
+
+    /*
+     * Returns whether the given metadata table key is the key of a table row, as opposed to a job or progress row.
+     */
+    private static boolean isTableKey(String hashKey) {
+        return !hashKey.contains(JOB_KEY_DELIMITER);
+    }
+
+    private TenantTable getTenantTableFromDeleteJobKey(String jobKey) {
+        return getTenantTableFromHashKey(jobKey.substring(0, jobKey.length() - DELETE_JOB_KEY_SUFFIX.length()));
+    }
+
     private TenantTable getTenantTableFromHashKey(String hashKey) {
         String[] parts = hashKey.split(Pattern.quote(delimiter));
         return new TenantTable(parts[1], parts[0]);
@@ -172,6 +469,50 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
         return tableDescriptionTableName;
     }
 
+    /**
+     * Converts all table definitions that are stored as JSON strings to the binary format.  Entries are updated
+     * conditionally, so that entries that are recreated or deleted concurrently are skipped.  Since this scans the
+     * entire metadata table, callers should run it in the background, e.g., once after a deployment that enabled
+     * binary table descriptions.
+     *
+     * @return the number of converted entries
+     */
+    public int rewriteLegacyTableDescriptions() {
+        checkState(binaryTableDescriptions, "binary table descriptions are not enabled");
+        ScanRequest scanRequest = new ScanRequest(tableDescriptionTableName)
+            .withFilterExpression("attribute_type(#data, :string)")
+            .withProjectionExpression("#table, #data")
+            .withExpressionAttributeNames(ImmutableMap.of(
+                "#table", tableDescriptionTableHashKeyField,
+                "#data", tableDescriptionTableDataField))
+            .withExpressionAttributeValues(ImmutableMap.of(":string", new AttributeValue("S")));
+        int converted = 0;
+        ScanResult scanResult;
+        do {
+            scanResult = amazonDynamoDb.scan(scanRequest);
+            for (Map<String, AttributeValue> item : scanResult.getItems()) {
+                AttributeValue json = item.get(tableDescriptionTableDataField);
+                try {
+                    amazonDynamoDb.updateItem(new UpdateItemRequest()
+                        .withTableName(tableDescriptionTableName)
+                        .withKey(new HashMap<>(ImmutableMap.of(tableDescriptionTableHashKeyField,
+                            item.get(tableDescriptionTableHashKeyField))))
+                        .withUpdateExpression("SET #data = :binary")
+                        .withConditionExpression("#data = :json")
+                        .withExpressionAttributeNames(ImmutableMap.of("#data", tableDescriptionTableDataField))
+                        .withExpressionAttributeValues(ImmutableMap.of(
+                            ":binary", encodeTableData(jsonToTableData(json.getS())),
+                            ":json", json)));
+                    converted++;
+                } catch (ConditionalCheckFailedException expected) {
+                    // entry was deleted or replaced since it was scanned
+                }
+            }
+            scanRequest.setExclusiveStartKey(scanResult.getLastEvaluatedKey());
+        } while (scanResult.getLastEvaluatedKey() != null);
+        return converted;
+    }
+
     public void createDefaultDescriptionTable() {
         createTableDescriptionTableIfNotExists(this.pollIntervalSeconds);
     }
@@ -180,14 +521,138 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
         CreateTableRequest createTableRequest = new CreateTableRequest();
         DynamoDbCapacity.setBillingMode(createTableRequest, this.billingMode);
 
-        adminUtils.createTableIfNotExists(
-                createTableRequest.withTableName(tableDescriptionTableName)
-                .withKeySchema(new KeySchemaElement().withAttributeName(tableDescriptionTableHashKeyField)
-                    .withKeyType(KeyType.HASH))
-                .withAttributeDefinitions(new AttributeDefinition()
-                    .withAttributeName(tableDescriptionTableHashKeyField)
-                    .withAttributeType(ScalarAttributeType.S)),
-            pollIntervalSeconds);
+        Optional<TableDescription> existingTable = getExistingTable();
+        Optional<StreamSpecification> existingStream = existingTable.map(table ->
+            Optional.ofNullable(table.getStreamSpecification())
+                .orElseGet(() -> new StreamSpecification().withStreamEnabled(false)));
+        if (existingStream.filter(MtDynamoDbTableDescriptionRepo::isStreamEnabled).isPresent()) {
+            // keep the stream regardless of whether this node needs it, since other nodes may be following it
+            createTableRequest.withStreamSpecification(existingStream.get());
+        } else if (metadataStream) {
+            if (existingStream.isPresent()) {
+                // metadata table was created before the stream was enabled
+                adminUtils.updateStreamSpecification(tableDescriptionTableName, METADATA_STREAM_SPECIFICATION,
+                    pollIntervalSeconds);
+            }
+            createTableRequest.withStreamSpecification(METADATA_STREAM_SPECIFICATION);
+        }
+
+        createTableRequest.withTableName(tableDescriptionTableName)
+            .withKeySchema(new KeySchemaElement().withAttributeName(tableDescriptionTableHashKeyField)
+                .withKeyType(KeyType.HASH))
+            .withAttributeDefinitions(new AttributeDefinition()
+                .withAttributeName(tableDescriptionTableHashKeyField)
+                .withAttributeType(ScalarAttributeType.S));
+        if (deleteTableJobs && existingTable.isPresent() && !hasDeleteJobIndex(existingTable.get())) {
+            // metadata table was created before delete table jobs were enabled
+            adminUtils.createGlobalSecondaryIndex(tableDescriptionTableName, DELETE_JOB_INDEX_ATTRIBUTES,
+                newDeleteJobIndex(isProvisioned(existingTable.get())), pollIntervalSeconds);
+            existingTable = getExistingTable();
+        }
+        if (existingTable.filter(MtDynamoDbTableDescriptionRepo::hasDeleteJobIndex).isPresent()) {
+            // keep the index regardless of whether this node runs jobs, since other nodes may be querying it
+            createTableRequest.withAttributeDefinitions(existingTable.get().getAttributeDefinitions())
+                .withGlobalSecondaryIndexes(getGlobalIndexes(existingTable.get().getGlobalSecondaryIndexes()));
+        } else if (deleteTableJobs) {
+            createTableRequest.getAttributeDefinitions().addAll(DELETE_JOB_INDEX_ATTRIBUTES);
+            createTableRequest.withGlobalSecondaryIndexes(newDeleteJobIndex(
+                BillingMode.PROVISIONED.toString().equals(createTableRequest.getBillingMode())));
+        }
+
+        adminUtils.createTableIfNotExists(createTableRequest, pollIntervalSeconds);
+    }
+
+    private Optional<TableDescription> getExistingTable() {
+        try {
+            return Optional.of(amazonDynamoDb.describeTable(tableDescriptionTableName).getTable());
+        } catch (ResourceNotFoundException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static boolean isProvisioned(TableDescription table) {
+        return table.getBillingModeSummary() == null
+            || BillingMode.PROVISIONED.toString().equals(table.getBillingModeSummary().getBillingMode());
+    }
+
+    private static boolean hasDeleteJobIndex(TableDescription table) {
+        return table.getGlobalSecondaryIndexes() != null && table.getGlobalSecondaryIndexes().stream()
+            .anyMatch(index -> DELETE_JOB_INDEX.equals(index.getIndexName()));
+    }
+
+    /*
+     * Only job rows have the index hash key, so the index contains nothing but pending jobs.  It projects the lease
+     * expiry to filter out leased jobs.
+     */
+    private static GlobalSecondaryIndex newDeleteJobIndex(boolean provisioned) {
+        GlobalSecondaryIndex index = new GlobalSecondaryIndex()
+            .withIndexName(DELETE_JOB_INDEX)
+            .withKeySchema(new KeySchemaElement(TABLE_METADATA_DELETE_JOB_FIELD, KeyType.HASH),
+                new KeySchemaElement(TABLE_METADATA_DELETE_ENQUEUED_AT_FIELD, KeyType.RANGE))
+            .withProjection(new Projection()
+                .withProjectionType(ProjectionType.INCLUDE)
+                .withNonKeyAttributes(TABLE_METADATA_DELETE_LEASE_EXPIRES_AT_FIELD));
+        return provisioned ? index.withProvisionedThroughput(new ProvisionedThroughput(1L, 1L)) : index;
+    }
+
+    private static boolean isStreamEnabled(StreamSpecification streamSpecification) {
+        return Boolean.TRUE.equals(streamSpecification.getStreamEnabled());
+    }
+
+    /**
+     * Creates a listener that follows the stream of the metadata table.  For every tenant table that was created,
+     * updated, or deleted on any node, the listener refreshes the cached table description, if there is one, and then
+     * notifies the given consumer, e.g., to refresh caches derived from the table description.  Changes to job and
+     * progress rows are ignored, since they don't change the table description.  The listener has to be started and
+     * should be closed when no longer needed.
+     *
+     * @param dynamoDbStreams the streams client to read the metadata table stream with
+     * @param listener called with every tenant table whose metadata changed, after its cached description was
+     *     refreshed
+     * @param pollIntervalMillis the delay between polls of the stream
+     * @return a new listener that is not polling yet
+     */
+    public TableMetadataStreamListener newStreamListener(AmazonDynamoDBStreams dynamoDbStreams,
+                                                         Consumer<TenantTable> listener,
+                                                         long pollIntervalMillis) {
+        checkState(metadataStream, "metadata stream is not enabled");
+        checkArgument(pollIntervalMillis > 0, "pollIntervalMillis must be positive");
+        createDefaultDescriptionTable();
+        String streamArn = amazonDynamoDb.describeTable(tableDescriptionTableName).getTable().getLatestStreamArn();
+        checkState(streamArn != null, "metadata table " + tableDescriptionTableName + " has no stream");
+        return new TableMetadataStreamListener(dynamoDbStreams, streamArn,
+            keys -> {
+                String hashKey = keys.get(tableDescriptionTableHashKeyField).getS();
+                return isTableKey(hashKey) ? getTenantTableFromHashKey(hashKey) : null;
+            },
+            tenantTable -> {
+                refresh(tenantTable);
+                listener.accept(tenantTable);
+            },
+            Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("mt-metadata-stream-%d").setDaemon(true).build()),
+            pollIntervalMillis);
+    }
+
+    /**
+     * Reloads the cached description of the given tenant table, or invalidates it if the table no longer exists.
+     * Tables that are not cached are not loaded, but are no longer remembered as missing.  The description is read
+     * with a strongly consistent read, so that it reflects the change that triggered the refresh.
+     *
+     * @param tenantTable the tenant table whose description to refresh
+     */
+    public void refresh(TenantTable tenantTable) {
+        mtContext.withContext(tenantTable.getTenantName(), () -> {
+            String tableName = tenantTable.getVirtualTableName();
+            missingTableCache.invalidate(tableName);
+            if (cache.getIfPresent(tableName) != null) {
+                try {
+                    cache.put(tableName, getTableDescriptionNoCache(tableName, true));
+                } catch (ResourceNotFoundException e) {
+                    cache.invalidate(tableName);
+                }
+            }
+        });
     }
 
     private static CreateTableRequest getCreateTableRequest(TableDescription description) {
@@ -262,10 +727,29 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
                         .withProvisionedThroughput(getProvisionedThroughputDesc(gsi.getProvisionedThroughput()))
                 ).collect(Collectors.toList()));
         }
-        String tableDataJson = tableDataToJson(tableDescription);
         return new HashMap<>(ImmutableMap.of(
                 tableDescriptionTableHashKeyField, new AttributeValue(addPrefix(createTableRequest.getTableName())),
-                tableDescriptionTableDataField, new AttributeValue(tableDataJson)));
+                tableDescriptionTableDataField, encodeTableData(tableDescription)));
+    }
+
+    private AttributeValue encodeTableData(TableDescription tableDescription) {
+        return binaryTableDescriptions
+            ? new AttributeValue().withB(ByteBuffer.wrap(TableDescriptionCodec.encode(tableDescription)))
+            : new AttributeValue(tableDataToJson(tableDescription));
+    }
+
+    /*
+     * Decodes a table definition in either format, recording the decode time and the size of the encoded value, so
+     * that the formats can be compared.
+     */
+    private TableDescription decodeTableData(AttributeValue tableData) {
+        if (tableData.getB() != null) {
+            decodeBinarySize.record(tableData.getB().remaining());
+            return decodeBinaryTime.record(() -> TableDescriptionCodec.decode(tableData.getB()));
+        }
+        // record the encoded size in bytes, like the binary size, rather than the number of UTF-16 chars
+        decodeJsonSize.record(Utf8.encodedLength(tableData.getS()));
+        return decodeJsonTime.record(() -> jsonToTableData(tableData.getS()));
     }
 
     private static String tableDataToJson(TableDescription tableDescription) {
@@ -303,17 +787,128 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
 
         scanReq.setExclusiveStartKey(lastEvaluatedKey);
         scanReq.setLimit(listMetadataRequest.getLimit());
-        scanResult = amazonDynamoDb.scan(scanReq);
-        List<TenantTableMetadata> metadataList = scanResult.getItems().stream()
+        List<Map<String, AttributeValue>> items;
+        do {
+            // skip job rows, scanning on if a page has nothing but job rows
+            scanResult = amazonDynamoDb.scan(scanReq);
+            items = scanResult.getItems().stream()
+                .filter(item -> isTableKey(item.get(tableDescriptionTableHashKeyField).getS()))
+                .collect(Collectors.toList());
+            scanReq.setExclusiveStartKey(scanResult.getLastEvaluatedKey());
+        } while (items.isEmpty() && scanResult.getLastEvaluatedKey() != null);
+        List<TenantTableMetadata> metadataList = items.stream()
             .map(rowMap ->
                 new TenantTableMetadata(getTenantTableFromHashKey(rowMap.get(tableDescriptionTableHashKeyField).getS()),
-                    getCreateTableRequest(jsonToTableData(rowMap.get(tableDescriptionTableDataField).getS()))))
+                    getCreateTableRequest(decodeTableData(rowMap.get(tableDescriptionTableDataField)))))
             .collect(Collectors.toList());
         TenantTableMetadata lastEvaluatedMetadata = scanResult.getLastEvaluatedKey() == null ? null :
             metadataList.get(metadataList.size() - 1);
         return new ListMetadataResult(metadataList, lastEvaluatedMetadata);
     }
 
+    /**
+     * Loads the table descriptions of the given tenants into the cache, e.g., to avoid a burst of cache misses when a
+     * node starts taking traffic.  The metadata table is read with a parallel segmented scan, which only returns the
+     * rows of the given tenants if there are few enough of them to filter by their key prefixes.  Tables with a
+     * pending delete job are skipped.
+     *
+     * @param tenants the tenants whose table descriptions to load
+     * @param totalSegments the number of segments to scan in parallel
+     * @return the loaded table descriptions by tenant table
+     */
+    public Map<TenantTable, TableDescription> warmUp(Set<String> tenants, int totalSegments) {
+        return warmUp(Optional.of(tenants), totalSegments);
+    }
+
+    /**
+     * Loads the table descriptions of all tenants into the cache.  The metadata table is read with a parallel
+     * segmented scan.  Tables with a pending delete job are skipped.
+     *
+     * @param totalSegments the number of segments to scan in parallel
+     * @return the loaded table descriptions by tenant table
+     */
+    public Map<TenantTable, TableDescription> warmUpAll(int totalSegments) {
+        return warmUp(Optional.empty(), totalSegments);
+    }
+
+    private Map<TenantTable, TableDescription> warmUp(Optional<Set<String>> tenants, int totalSegments) {
+        checkArgument(totalSegments > 0, "totalSegments must be positive");
+        if (tenants.isPresent() && tenants.get().isEmpty()) {
+            return new HashMap<>();
+        }
+        ScanRequest scanRequest = new ScanRequest(tableDescriptionTableName)
+            .withProjectionExpression("#table, #data")
+            .withExpressionAttributeNames(new HashMap<>(ImmutableMap.of(
+                "#table", tableDescriptionTableHashKeyField,
+                "#data", tableDescriptionTableDataField)))
+            .withTotalSegments(totalSegments);
+        // job rows start with the key of their table, so the filter returns the job rows of the tenants' tables too
+        tenants.filter(t -> t.size() <= MAX_WARM_UP_FILTER_TENANTS).ifPresent(t -> {
+            Map<String, AttributeValue> values = new HashMap<>();
+            List<String> conditions = new ArrayList<>();
+            for (String tenant : t) {
+                String placeholder = ":t" + values.size();
+                values.put(placeholder, new AttributeValue(tenant + delimiter));
+                conditions.add("begins_with(#table, " + placeholder + ")");
+            }
+            scanRequest.withFilterExpression(String.join(" OR ", conditions)).withExpressionAttributeValues(values);
+        });
+        Predicate<String> tenantFilter = tenants.<Predicate<String>>map(t -> t::contains).orElse(tenant -> true);
+
+        Map<TenantTable, TableDescription> tableDescriptions = new ConcurrentHashMap<>();
+        Set<TenantTable> pendingDeletes = ConcurrentHashMap.newKeySet();
+        List<Future<?>> segments = IntStream.range(0, totalSegments)
+            .mapToObj(segment -> warmUpExecutor.submit(() -> scanSegment(scanRequest.clone().withSegment(segment),
+                tenantFilter, tableDescriptions, pendingDeletes)))
+            .collect(Collectors.toList());
+        try {
+            for (Future<?> segment : segments) {
+                segment.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while loading table descriptions", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            segments.forEach(segment -> segment.cancel(true));
+        }
+        // the job row of a table may be in a different segment than the table row, so skip them once all are read
+        tableDescriptions.keySet().removeAll(pendingDeletes);
+        // like createTable, forget that loaded tables were missing
+        tableDescriptions.forEach((tenantTable, tableDescription) -> mtContext.withContext(
+            tenantTable.getTenantName(), () -> {
+                cache.put(tenantTable.getVirtualTableName(), tableDescription);
+                missingTableCache.invalidate(tenantTable.getVirtualTableName());
+            }));
+        return tableDescriptions;
+    }
+
+    private void scanSegment(ScanRequest scanRequest,
+                             Predicate<String> tenantFilter,
+                             Map<TenantTable, TableDescription> tableDescriptions,
+                             Set<TenantTable> pendingDeletes) {
+        ScanResult scanResult;
+        do {
+            scanResult = amazonDynamoDb.scan(scanRequest);
+            for (Map<String, AttributeValue> item : scanResult.getItems()) {
+                String hashKey = item.get(tableDescriptionTableHashKeyField).getS();
+                if (hashKey.endsWith(DELETE_JOB_KEY_SUFFIX)) {
+                    pendingDeletes.add(getTenantTableFromDeleteJobKey(hashKey));
+                } else if (isTableKey(hashKey)) {
+                    TenantTable tenantTable = getTenantTableFromHashKey(hashKey);
+                    if (tenantFilter.test(tenantTable.getTenantName())) {
+                        tableDescriptions.put(tenantTable, decodeTableData(item.get(tableDescriptionTableDataField)));
+                    }
+                }
+            }
+            scanRequest.setExclusiveStartKey(scanResult.getLastEvaluatedKey());
+        } while (scanResult.getLastEvaluatedKey() != null);
+    }
+
     public static class MtDynamoDbTableDescriptionRepoBuilder {
         private AmazonDynamoDB amazonDynamoDb;
         private MtAmazonDynamoDbContextProvider mtContext;
@@ -325,6 +920,14 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
         private BillingMode billingMode;
         private Optional<String> tablePrefix = Optional.empty();
         private Cache<Object, TableDescription> tableDescriptionCache;
+        private Long missingTableCacheTtlInMillis;
+        private Long maxMissingTableCacheSize;
+        private Ticker ticker;
+        private Boolean binaryTableDescriptions;
+        private Boolean metadataStream;
+        private Boolean deleteTableJobs;
+        private ExecutorService warmUpExecutor;
+        private MeterRegistry meterRegistry;
 
         public MtDynamoDbTableDescriptionRepoBuilder withAmazonDynamoDb(AmazonDynamoDB amazonDynamoDb) {
             this.amazonDynamoDb = amazonDynamoDb;
@@ -373,12 +976,110 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
             return this;
         }
 
+        /**
+         * Cache for table descriptions.  Defaults to an unbounded cache, or, if the metadata stream is enabled, to a
+         * bounded cache that expires descriptions after an hour and reloads them in the background after five minutes.
+         *
+         * @param tableDescriptionCache cache for table descriptions
+         * @return this builder
+         */
         public MtDynamoDbTableDescriptionRepoBuilder withTableDescriptionCache(Cache<Object, TableDescription>
                                                                                    tableDescriptionCache) {
             this.tableDescriptionCache = tableDescriptionCache;
             return this;
         }
 
+        /**
+         * The time that a table that was found not to exist is remembered as missing before the metadata table is read
+         * again.  Defaults to one second.  Zero disables caching missing tables.
+         *
+         * @param missingTableCacheTtlInMillis time in milliseconds for how long to remember missing tables
+         * @return this builder
+         */
+        public MtDynamoDbTableDescriptionRepoBuilder withMissingTableCacheTtlInMillis(
+            long missingTableCacheTtlInMillis) {
+            this.missingTableCacheTtlInMillis = missingTableCacheTtlInMillis;
+            return this;
+        }
+
+        /**
+         * Maximum number of missing tables to remember across all tenants.  Defaults to 10000.
+         *
+         * @param maxMissingTableCacheSize maximum number of missing tables to remember
+         * @return this builder
+         */
+        public MtDynamoDbTableDescriptionRepoBuilder withMaxMissingTableCacheSize(long maxMissingTableCacheSize) {
+            this.maxMissingTableCacheSize = maxMissingTableCacheSize;
+            return this;
+        }
+
+        /**
+         * Ticker used for expiring missing tables and default table description caches.  Defaults to
+         * {@link Ticker#systemTicker()}.
+         *
+         * @param ticker ticker implementation
+         * @return this builder
+         */
+        public MtDynamoDbTableDescriptionRepoBuilder withTicker(Ticker ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        /**
+         * Stores new table definitions in a compact binary format instead of JSON.  Disabled by default, since
+         * versions that predate the binary format cannot read such entries.
+         *
+         * @param binaryTableDescriptions whether to store table definitions in binary format
+         * @return this builder
+         */
+        public MtDynamoDbTableDescriptionRepoBuilder withBinaryTableDescriptions(boolean binaryTableDescriptions) {
+            this.binaryTableDescriptions = binaryTableDescriptions;
+            return this;
+        }
+
+        /**
+         * Enables a keys-only stream on the metadata table, which is required by
+         * {@link MtDynamoDbTableDescriptionRepo#newStreamListener}.  If the metadata table already exists without a
+         * stream, the stream is added to it.  Disabled by default.
+         *
+         * @param metadataStream whether the metadata table should have a stream
+         * @return this builder
+         */
+        public MtDynamoDbTableDescriptionRepoBuilder withMetadataStream(boolean metadataStream) {
+            this.metadataStream = metadataStream;
+            return this;
+        }
+
+        /**
+         * Enables durable delete-table jobs, which are kept in dedicated rows of the metadata table.  The metadata
+         * table gets a sparse GSI on the job rows, which is added to an existing metadata table that lacks it.
+         * Disabled by default.
+         *
+         * @param deleteTableJobs whether delete-table jobs can be added and listed
+         * @return this builder
+         */
+        public MtDynamoDbTableDescriptionRepoBuilder withDeleteTableJobs(boolean deleteTableJobs) {
+            this.deleteTableJobs = deleteTableJobs;
+            return this;
+        }
+
+        /**
+         * The executor that scans the segments of the metadata table during warm-up, e.g., a bounded executor shared
+         * with other parallel scans.  Defaults to a pool of daemon threads that are released when idle.
+         *
+         * @param warmUpExecutor the executor that scans warm-up segments
+         * @return this builder
+         */
+        public MtDynamoDbTableDescriptionRepoBuilder withWarmUpExecutor(ExecutorService warmUpExecutor) {
+            this.warmUpExecutor = warmUpExecutor;
+            return this;
+        }
+
+        public MtDynamoDbTableDescriptionRepoBuilder withMeterRegistry(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+            return this;
+        }
+
         /**
          * Builder. Build!
          *
@@ -398,13 +1099,27 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
                 tableDescriptionTableDataField,
                 delimiter,
                 pollIntervalSeconds,
-                tableDescriptionCache);
+                tableDescriptionCache,
+                CacheBuilder.newBuilder()
+                    .expireAfterWrite(missingTableCacheTtlInMillis, TimeUnit.MILLISECONDS)
+                    .maximumSize(maxMissingTableCacheSize)
+                    .ticker(ticker)
+                    .recordStats()
+                    .build(),
+                binaryTableDescriptions,
+                metadataStream,
+                deleteTableJobs,
+                warmUpExecutor,
+                ticker,
+                meterRegistry);
         }
 
         private void validate() {
             checkArgument(amazonDynamoDb != null, "amazonDynamoDb is required");
             checkArgument(mtContext != null, "mtContext is required");
             checkArgument(tableDescriptionTableName != null, "tableDescriptionTableName is required");
+            checkArgument(missingTableCacheTtlInMillis >= 0, "missingTableCacheTtlInMillis must not be negative");
+            checkArgument(maxMissingTableCacheSize >= 0, "maxMissingTableCacheSize must not be negative");
         }
 
         private void setDefaults() {
@@ -420,9 +1135,35 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
             if (pollIntervalSeconds == null) {
                 pollIntervalSeconds = 5;
             }
-            if (tableDescriptionCache == null) {
+            if (metadataStream == null) {
+                metadataStream = false;
+            }
+            // with the metadata stream, the repo creates a cache that reloads descriptions with its own loader
+            if (tableDescriptionCache == null && !metadataStream) {
                 tableDescriptionCache = CacheBuilder.newBuilder().build();
             }
+            if (missingTableCacheTtlInMillis == null) {
+                missingTableCacheTtlInMillis = 1000L;
+            }
+            if (maxMissingTableCacheSize == null) {
+                maxMissingTableCacheSize = 10000L;
+            }
+            if (ticker == null) {
+                ticker = Ticker.systemTicker();
+            }
+            if (binaryTableDescriptions == null) {
+                binaryTableDescriptions = false;
+            }
+            if (deleteTableJobs == null) {
+                deleteTableJobs = false;
+            }
+            if (warmUpExecutor == null) {
+                warmUpExecutor = Executors.newCachedThreadPool(
+                    new ThreadFactoryBuilder().setNameFormat("mt-metadata-warm-up-%d").setDaemon(true).build());
+            }
+            if (meterRegistry == null) {
+                meterRegistry = new CompositeMeterRegistry();
+            }
         }
 
     }
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2018, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.repo;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
+import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndexDescription;
+import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
+import com.amazonaws.services.dynamodbv2.model.LocalSecondaryIndexDescription;
+import com.amazonaws.services.dynamodbv2.model.Projection;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputDescription;
+import com.amazonaws.services.dynamodbv2.model.StreamSpecification;
+import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Encodes the virtual table descriptions stored in the table metadata table in a compact binary format.  Only the
+ * fields that the repo populates are encoded: table name, key schema, attribute definitions, stream specification,
+ * provisioned throughput, and secondary indexes.  Each encoding starts with a version byte, so that the format can
+ * evolve while existing entries remain readable.
+ *
+ * <p>Strings are written in modified UTF-8 and lists are prefixed with their size, or -1 if they are null, so that
+ * decoded descriptions are equal to the descriptions that were encoded.
+ */
+class TableDescriptionCodec {
+
+    static final byte VERSION = 1;
+
+    private TableDescriptionCodec() {
+    }
+
+    static byte[] encode(TableDescription tableDescription) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            writeString(out, tableDescription.getTableName());
+            writeKeySchema(out, tableDescription.getKeySchema());
+            writeList(out, tableDescription.getAttributeDefinitions(), attributeDefinition -> {
+                out.writeUTF(attributeDefinition.getAttributeName());
+                out.writeUTF(attributeDefinition.getAttributeType());
+            });
+            StreamSpecification streamSpecification = tableDescription.getStreamSpecification();
+            out.writeBoolean(streamSpecification != null);
+            if (streamSpecification != null) {
+                writeBoolean(out, streamSpecification.getStreamEnabled());
+                writeString(out, streamSpecification.getStreamViewType());
+            }
+            writeProvisionedThroughput(out, tableDescription.getProvisionedThroughput());
+            writeList(out, tableDescription.getLocalSecondaryIndexes(), lsi -> {
+                writeString(out, lsi.getIndexName());
+                writeKeySchema(out, lsi.getKeySchema());
+                writeProjection(out, lsi.getProjection());
+            });
+            writeList(out, tableDescription.getGlobalSecondaryIndexes(), gsi -> {
+                writeString(out, gsi.getIndexName());
+                writeKeySchema(out, gsi.getKeySchema());
+                writeProjection(out, gsi.getProjection());
+                writeProvisionedThroughput(out, gsi.getProvisionedThroughput());
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static TableDescription decode(ByteBuffer buffer) {
+        ByteBuffer data = buffer.duplicate();
+        byte[] bytes = new byte[data.remaining()];
+        data.get(bytes);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte version = in.readByte();
+            checkArgument(version == VERSION, "unsupported table description version " + version);
+            TableDescription tableDescription = new TableDescription()
+                .withTableName(readString(in))
+                .withKeySchema(readKeySchema(in))
+                .withAttributeDefinitions(readList(in, () -> new AttributeDefinition(in.readUTF(), in.readUTF())));
+            if (in.readBoolean()) {
+                tableDescription.setStreamSpecification(new StreamSpecification()
+                    .withStreamEnabled(readBoolean(in))
+                    .withStreamViewType(readString(in)));
+            }
+            tableDescription.setProvisionedThroughput(readProvisionedThroughput(in));
+            tableDescription.setLocalSecondaryIndexes(readList(in, () -> new LocalSecondaryIndexDescription()
+                .withIndexName(readString(in))
+                .withKeySchema(readKeySchema(in))
+                .withProjection(readProjection(in))));
+            tableDescription.setGlobalSecondaryIndexes(readList(in, () -> new GlobalSecondaryIndexDescription()
+                .withIndexName(readString(in))
+                .withKeySchema(readKeySchema(in))
+                .withProjection(readProjection(in))
+                .withProvisionedThroughput(readProvisionedThroughput(in))));
+            checkArgument(in.available() == 0, "unexpected trailing bytes in table description");
+            return tableDescription;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("invalid table description encoding", e);
+        }
+    }
+
+    private static void writeKeySchema(DataOutput out, List<KeySchemaElement> keySchema) throws IOException {
+        writeList(out, keySchema, element -> {
+            out.writeUTF(element.getAttributeName());
+            out.writeUTF(element.getKeyType());
+        });
+    }
+
+    private static List<KeySchemaElement> readKeySchema(DataInput in) throws IOException {
+        return readList(in, () -> new KeySchemaElement(in.readUTF(), in.readUTF()));
+    }
+
+    private static void writeProjection(DataOutput out, Projection projection) throws IOException {
+        out.writeBoolean(projection != null);
+        if (projection != null) {
+            writeString(out, projection.getProjectionType());
+            writeList(out, projection.getNonKeyAttributes(), out::writeUTF);
+        }
+    }
+
+    private static Projection readProjection(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return new Projection()
+            .withProjectionType(readString(in))
+            .withNonKeyAttributes(readList(in, in::readUTF));
+    }
+
+    private static void writeProvisionedThroughput(DataOutput out, ProvisionedThroughputDescription throughput)
+        throws IOException {
+        out.writeBoolean(throughput != null);
+        if (throughput != null) {
+            writeLong(out, throughput.getReadCapacityUnits());
+            writeLong(out, throughput.getWriteCapacityUnits());
+        }
+    }
+
+    private static ProvisionedThroughputDescription readProvisionedThroughput(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return new ProvisionedThroughputDescription()
+            .withReadCapacityUnits(readLong(in))
+            .withWriteCapacityUnits(readLong(in));
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeBoolean(DataOutput out, Boolean value) throws IOException {
+        if (value == null) {
+            out.writeByte(-1);
+        } else {
+            out.writeByte(value ? 1 : 0);
+        }
+    }
+
+    private static Boolean readBoolean(DataInput in) throws IOException {
+        byte value = in.readByte();
+        return value < 0 ? null : value == 1;
+    }
+
+    private static void writeLong(DataOutput out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static <T> void writeList(DataOutput out, Collection<T> values, Writer<T> writer) throws IOException {
+        if (values == null) {
+            out.writeShort(-1);
+        } else {
+            checkArgument(values.size() <= Short.MAX_VALUE, "too many elements in table description");
+            out.writeShort(values.size());
+            for (T value : values) {
+                writer.write(value);
+            }
+        }
+    }
+
+    private static <T> List<T> readList(DataInput in, Reader<T> reader) throws IOException {
+        int size = in.readShort();
+        if (size < 0) {
+            return null;
+        }
+        List<T> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(reader.read());
+        }
+        return values;
+    }
+
+    @FunctionalInterface
+    private interface Writer<T> {
+        void write(T value) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Reader<T> {
+        T read() throws IOException;
+    }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2018, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.repo;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBStreams;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.DescribeStreamRequest;
+import com.amazonaws.services.dynamodbv2.model.ExpiredIteratorException;
+import com.amazonaws.services.dynamodbv2.model.GetRecordsRequest;
+import com.amazonaws.services.dynamodbv2.model.GetRecordsResult;
+import com.amazonaws.services.dynamodbv2.model.GetShardIteratorRequest;
+import com.amazonaws.services.dynamodbv2.model.Record;
+import com.amazonaws.services.dynamodbv2.model.Shard;
+import com.amazonaws.services.dynamodbv2.model.ShardIteratorType;
+import com.amazonaws.services.dynamodbv2.model.StreamDescription;
+import com.google.common.annotations.VisibleForTesting;
+import com.salesforce.dynamodbv2.mt.mappers.MtAmazonDynamoDb.TenantTable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Follows the stream of the table metadata table and notifies a listener of every (tenant, virtual table) whose
+ * metadata was created, updated, or deleted, so that each node can refresh or invalidate exactly the cache entries
+ * affected by changes that other nodes made.
+ *
+ * <p>On its first poll, the listener starts reading the open shards of the stream at their latest position, i.e., only
+ * changes made after it started are reported.  Shards discovered later, e.g., after the stream rolled over to new
+ * shards, are read from their beginning, so that no changes are missed.  Changes are reported at least once: the
+ * distinct tenant tables of each page of records are reported in the order in which they were first changed.
+ *
+ * <p>Instances poll on the given scheduled executor once started and should be closed when no longer needed.
+ */
+public class TableMetadataStreamListener implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TableMetadataStreamListener.class);
+
+    private final AmazonDynamoDBStreams dynamoDbStreams;
+    private final String streamArn;
+    private final Function<Map<String, AttributeValue>, TenantTable> tenantTableFunction;
+    private final Consumer<TenantTable> listener;
+    private final ScheduledExecutorService executor;
+    private final long pollIntervalMillis;
+    private final Map<String, String> shardIterators = new HashMap<>();
+    private final Set<String> completedShards = new HashSet<>();
+    private boolean initialized;
+
+    /**
+     * Creates a listener that is not polling yet.
+     *
+     * @param dynamoDbStreams the streams client to read the metadata table stream with
+     * @param streamArn the ARN of the metadata table stream
+     * @param tenantTableFunction returns the tenant table that a metadata table key refers to, or null if changes to
+     *     the row with that key are not reported
+     * @param listener called with every tenant table whose metadata changed
+     * @param executor executor on which to poll the stream
+     * @param pollIntervalMillis the delay between the end of one poll and the start of the next
+     */
+    TableMetadataStreamListener(AmazonDynamoDBStreams dynamoDbStreams,
+                                String streamArn,
+                                Function<Map<String, AttributeValue>, TenantTable> tenantTableFunction,
+                                Consumer<TenantTable> listener,
+                                ScheduledExecutorService executor,
+                                long pollIntervalMillis) {
+        this.dynamoDbStreams = dynamoDbStreams;
+        this.streamArn = streamArn;
+        this.tenantTableFunction = tenantTableFunction;
+        this.listener = listener;
+        this.executor = executor;
+        this.pollIntervalMillis = pollIntervalMillis;
+    }
+
+    /**
+     * Starts polling the stream in the background.
+     */
+    public void start() {
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                poll();
+            } catch (RuntimeException e) {
+                LOG.warn("failed to poll table metadata stream " + streamArn, e);
+            }
+        }, 0L, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /*
+     * Reads one page of records from every shard that is being followed and reports the affected tenant tables.
+     */
+    @VisibleForTesting
+    synchronized void poll() {
+        discoverShards();
+        for (Map.Entry<String, String> entry : new ArrayList<>(shardIterators.entrySet())) {
+            String shardId = entry.getKey();
+            GetRecordsResult result;
+            try {
+                result = dynamoDbStreams.getRecords(new GetRecordsRequest().withShardIterator(entry.getValue()));
+            } catch (ExpiredIteratorException e) {
+                // the shard will be picked up again from its beginning on the next poll
+                shardIterators.remove(shardId);
+                continue;
+            }
+            Set<TenantTable> tenantTables = new LinkedHashSet<>();
+            for (Record record : result.getRecords()) {
+                TenantTable tenantTable = tenantTableFunction.apply(record.getDynamodb().getKeys());
+                if (tenantTable != null) {
+                    tenantTables.add(tenantTable);
+                }
+            }
+            tenantTables.forEach(listener);
+            if (result.getNextShardIterator() == null) {
+                shardIterators.remove(shardId);
+                completedShards.add(shardId);
+            } else {
+                shardIterators.put(shardId, result.getNextShardIterator());
+            }
+        }
+    }
+
+    private void discoverShards() {
+        List<Shard> shards = new ArrayList<>();
+        String exclusiveStartShardId = null;
+        do {
+            StreamDescription streamDescription = dynamoDbStreams.describeStream(new DescribeStreamRequest()
+                .withStreamArn(streamArn)
+                .withExclusiveStartShardId(exclusiveStartShardId)).getStreamDescription();
+            shards.addAll(streamDescription.getShards());
+            exclusiveStartShardId = streamDescription.getLastEvaluatedShardId();
+        } while (exclusiveStartShardId != null);
+
+        for (Shard shard : shards) {
+            String shardId = shard.getShardId();
+            if (shardIterators.containsKey(shardId) || completedShards.contains(shardId)) {
+                continue;
+            }
+            boolean open = shard.getSequenceNumberRange().getEndingSequenceNumber() == null;
+            if (!initialized && !open) {
+                // closed before this listener started, so it contains no changes that need to be reported
+                completedShards.add(shardId);
+                continue;
+            }
+            shardIterators.put(shardId, dynamoDbStreams.getShardIterator(new GetShardIteratorRequest()
+                .withStreamArn(streamArn)
+                .withShardId(shardId)
+                .withShardIteratorType(initialized ? ShardIteratorType.TRIM_HORIZON : ShardIteratorType.LATEST))
+                .getShardIterator());
+        }
+        initialized = true;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+}
@@ -5,6 +5,7 @@
  */
 package com.salesforce.dynamodbv2.mt.repo
 
+import com.amazonaws.services.dynamodbv2.model.AttributeValue
 import com.amazonaws.services.dynamodbv2.model.CreateTableRequest
 import com.amazonaws.services.dynamodbv2.model.TableDescription
 import com.salesforce.dynamodbv2.mt.mappers.MtAmazonDynamoDb.TenantTable
@@ -38,6 +39,45 @@ interface MtTableDescriptionRepo {
      */
     fun deleteTable(tableName: String): TableDescription
 
+    /**
+     * Records the progress of truncating the data of the designated virtual table in its metadata, so that an
+     * interrupted truncation can be resumed.  The progress is removed along with the metadata.
+     * @param tableName of the table being truncated
+     * @param progress opaque progress attributes
+     */
+    fun updateTruncationProgress(tableName: String, progress: Map<String, AttributeValue>)
+
+    /**
+     * @param tableName of the table being truncated
+     * @return the truncation progress last recorded for the given virtual table, or null if there is none
+     */
+    fun getTruncationProgress(tableName: String): Map<String, AttributeValue>?
+
+    /**
+     * Records a durable job to delete the designated virtual table in its metadata.  The job is removed along with the
+     * metadata.
+     * @param tableName of the table to delete
+     * @param enqueuedAt time in milliseconds at which the job was requested
+     */
+    fun addDeleteTableJob(tableName: String, enqueuedAt: Long)
+
+    /**
+     * Acquires or renews the lease on the job to delete the designated virtual table.  The lease can be acquired if it
+     * is not held, is held by the given owner, or has expired.
+     * @param tableName of the table to delete
+     * @param owner identifier of the lease owner
+     * @param now current time in milliseconds
+     * @param leaseExpiresAt time in milliseconds at which the lease expires
+     * @return whether the lease was acquired, which is not the case if the job does not exist (anymore)
+     */
+    fun acquireDeleteTableJobLease(tableName: String, owner: String, now: Long, leaseExpiresAt: Long): Boolean
+
+    /**
+     * @param now current time in milliseconds
+     * @return the delete-table jobs of all tenants whose lease is not held or has expired
+     */
+    fun listDeleteTableJobs(now: Long): List<DeleteTableJob>
+
     /**
      * Utility to enumerate all virtual table metadata managed by this instance. Return up to @param limit results,
      * starting after @param exclusiveStartTableMetadata if specified.
@@ -62,6 +102,7 @@ interface MtTableDescriptionRepo {
         }
     }
     data class TenantTableMetadata(val tenantTable: TenantTable, val createTableRequest: CreateTableRequest)
+    data class DeleteTableJob(val tenantTable: TenantTable, val enqueuedAt: Long)
 }
 
 const val DEFAULT_RESULT_LIMIT = 10
@@ -0,0 +1,117 @@
+package com.salesforce.dynamodbv2;
+
+import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.S;
+import static com.salesforce.dynamodbv2.testsupport.DefaultTestSetup.TABLE1;
+import static com.salesforce.dynamodbv2.testsupport.DefaultTestSetup.TABLE2;
+import static com.salesforce.dynamodbv2.testsupport.DefaultTestSetup.TABLE3;
+import static com.salesforce.dynamodbv2.testsupport.TestSupport.HASH_KEY_OTHER_VALUE;
+import static com.salesforce.dynamodbv2.testsupport.TestSupport.HASH_KEY_VALUE;
+import static com.salesforce.dynamodbv2.testsupport.TestSupport.RANGE_KEY_S_VALUE;
+import static com.salesforce.dynamodbv2.testsupport.TestSupport.SOME_FIELD_VALUE;
+import static com.salesforce.dynamodbv2.testsupport.TestSupport.getItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.DeleteRequest;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.salesforce.dynamodbv2.testsupport.ArgumentBuilder.TestArgument;
+import com.salesforce.dynamodbv2.testsupport.DefaultArgumentProvider;
+import com.salesforce.dynamodbv2.testsupport.ItemBuilder;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+
+/**
+ * Tests batchWriteItem().
+ */
+class BatchWriteTest {
+
+    @ParameterizedTest(name = "{arguments}")
+    @ArgumentsSource(DefaultArgumentProvider.class)
+    void batchWrite(TestArgument testArgument) {
+        testArgument.forEachOrgContext(
+            org -> {
+                final String newHashKeyValue = HASH_KEY_OTHER_VALUE + "0";
+                final Map<String, AttributeValue> table1Item = ItemBuilder.builder(testArgument.getHashKeyAttrType(),
+                        newHashKeyValue)
+                    .someField(S, SOME_FIELD_VALUE + TABLE1 + org + "batchWrite")
+                    .build();
+                final Map<String, AttributeValue> table2Item = ItemBuilder.builder(testArgument.getHashKeyAttrType(),
+                        newHashKeyValue)
+                    .someField(S, SOME_FIELD_VALUE + TABLE2 + org + "batchWrite")
+                    .build();
+                final Map<String, AttributeValue> table3Key = ItemBuilder.builder(testArgument.getHashKeyAttrType(),
+                        HASH_KEY_VALUE)
+                    .rangeKey(S, RANGE_KEY_S_VALUE)
+                    .build();
+                final Map<String, List<WriteRequest>> requestItems = ImmutableMap.of(
+                    TABLE1, ImmutableList.of(new WriteRequest(new PutRequest(table1Item))),
+                    TABLE2, ImmutableList.of(new WriteRequest(new PutRequest(table2Item))),
+                    TABLE3, ImmutableList.of(new WriteRequest(new DeleteRequest(table3Key))));
+                final BatchWriteItemRequest batchWriteItemRequest = new BatchWriteItemRequest()
+                    .withRequestItems(requestItems);
+
+                batchWriteItem(testArgument, batchWriteItemRequest);
+
+                assertEquals(requestItems, batchWriteItemRequest.getRequestItems()); // assert no side effects
+                assertEquals(table1Item, getItem(testArgument.getAmazonDynamoDb(), TABLE1, newHashKeyValue,
+                    testArgument.getHashKeyAttrType(), Optional.empty()));
+                assertEquals(table2Item, getItem(testArgument.getAmazonDynamoDb(), TABLE2, newHashKeyValue,
+                    testArgument.getHashKeyAttrType(), Optional.empty()));
+                assertNull(getItem(testArgument.getAmazonDynamoDb(), TABLE3, HASH_KEY_VALUE,
+                    testArgument.getHashKeyAttrType(), Optional.of(RANGE_KEY_S_VALUE)));
+            });
+    }
+
+    /**
+     * Tests that unprocessed items returned by batch writes reference virtual table names and unqualified items, so
+     * that they can be resubmitted as is.  Writes 25 records that are ~300KB in size in a single batch, which may
+     * exceed the capacity of the underlying table and yield unprocessed items.
+     */
+    @ParameterizedTest(name = "{arguments}")
+    @ArgumentsSource(DefaultArgumentProvider.class)
+    void batchWriteWithUnprocessedItems(TestArgument testArgument) {
+        testArgument.forEachOrgContext(
+            org -> {
+                final int targetRecordLength = 300 * 1024; // 300KB record
+                final int itemCount = 25;
+                final List<Map<String, AttributeValue>> items = IntStream.rangeClosed(1, itemCount)
+                    .mapToObj(i -> ItemBuilder.builder(testArgument.getHashKeyAttrType(),
+                            HASH_KEY_OTHER_VALUE + "0" + i)
+                        .someField(S, "x".repeat(targetRecordLength)).build())
+                    .collect(Collectors.toList());
+
+                batchWriteItem(testArgument, new BatchWriteItemRequest().withRequestItems(ImmutableMap.of(TABLE1,
+                    items.stream().map(item -> new WriteRequest(new PutRequest(item))).collect(Collectors.toList()))));
+
+                IntStream.rangeClosed(1, itemCount).forEach(i -> assertEquals(items.get(i - 1),
+                    getItem(testArgument.getAmazonDynamoDb(), TABLE1, HASH_KEY_OTHER_VALUE + "0" + i,
+                        testArgument.getHashKeyAttrType(), Optional.empty())));
+            });
+    }
+
+    private static void batchWriteItem(TestArgument testArgument, BatchWriteItemRequest batchWriteItemRequest) {
+        Map<String, List<WriteRequest>> requestItems = new HashMap<>(batchWriteItemRequest.getRequestItems());
+        BatchWriteItemResult batchWriteItemResult = testArgument.getAmazonDynamoDb()
+            .batchWriteItem(batchWriteItemRequest);
+        while (!batchWriteItemResult.getUnprocessedItems().isEmpty()) {
+            // unprocessed items must refer to tables in the original request
+            assertTrue(requestItems.keySet().containsAll(batchWriteItemResult.getUnprocessedItems().keySet()));
+            batchWriteItemResult = testArgument.getAmazonDynamoDb().batchWriteItem(
+                new BatchWriteItemRequest().withRequestItems(batchWriteItemResult.getUnprocessedItems()));
+        }
+    }
+
+}
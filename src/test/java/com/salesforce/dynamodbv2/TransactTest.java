@@ -0,0 +1,161 @@
+package com.salesforce.dynamodbv2;
+
+import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.S;
+import static com.salesforce.dynamodbv2.testsupport.DefaultTestSetup.TABLE1;
+import static com.salesforce.dynamodbv2.testsupport.DefaultTestSetup.TABLE2;
+import static com.salesforce.dynamodbv2.testsupport.DefaultTestSetup.TABLE3;
+import static com.salesforce.dynamodbv2.testsupport.ItemBuilder.SOME_FIELD;
+import static com.salesforce.dynamodbv2.testsupport.TestSupport.HASH_KEY_OTHER_VALUE;
+import static com.salesforce.dynamodbv2.testsupport.TestSupport.HASH_KEY_VALUE;
+import static com.salesforce.dynamodbv2.testsupport.TestSupport.RANGE_KEY_S_VALUE;
+import static com.salesforce.dynamodbv2.testsupport.TestSupport.SOME_FIELD_VALUE;
+import static com.salesforce.dynamodbv2.testsupport.TestSupport.createStringAttribute;
+import static com.salesforce.dynamodbv2.testsupport.TestSupport.getItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionCheck;
+import com.amazonaws.services.dynamodbv2.model.Delete;
+import com.amazonaws.services.dynamodbv2.model.Get;
+import com.amazonaws.services.dynamodbv2.model.ItemResponse;
+import com.amazonaws.services.dynamodbv2.model.Put;
+import com.amazonaws.services.dynamodbv2.model.TransactGetItem;
+import com.amazonaws.services.dynamodbv2.model.TransactGetItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItem;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactionCanceledException;
+import com.amazonaws.services.dynamodbv2.model.Update;
+import com.google.common.collect.ImmutableMap;
+import com.salesforce.dynamodbv2.testsupport.ArgumentBuilder.TestArgument;
+import com.salesforce.dynamodbv2.testsupport.DefaultArgumentProvider;
+import com.salesforce.dynamodbv2.testsupport.ItemBuilder;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+
+/**
+ * Tests transactWriteItems() and transactGetItems().
+ */
+class TransactTest {
+
+    @ParameterizedTest(name = "{arguments}")
+    @ArgumentsSource(DefaultArgumentProvider.class)
+    void transactWrite(TestArgument testArgument) {
+        testArgument.forEachOrgContext(
+            org -> {
+                final String newHashKeyValue = HASH_KEY_OTHER_VALUE + "0";
+                final Map<String, AttributeValue> table1Item = ItemBuilder.builder(testArgument.getHashKeyAttrType(),
+                        newHashKeyValue)
+                    .someField(S, SOME_FIELD_VALUE + TABLE1 + org + "transactWrite")
+                    .build();
+                final Map<String, AttributeValue> table2Key = ItemBuilder.builder(testArgument.getHashKeyAttrType(),
+                        HASH_KEY_VALUE)
+                    .build();
+                final Map<String, AttributeValue> table3Key = ItemBuilder.builder(testArgument.getHashKeyAttrType(),
+                        HASH_KEY_VALUE)
+                    .rangeKey(S, RANGE_KEY_S_VALUE)
+                    .build();
+                final Map<String, AttributeValue> table1Key = ItemBuilder.builder(testArgument.getHashKeyAttrType(),
+                        HASH_KEY_VALUE)
+                    .build();
+                final TransactWriteItemsRequest transactWriteItemsRequest = new TransactWriteItemsRequest()
+                    .withTransactItems(
+                        new TransactWriteItem().withPut(new Put().withTableName(TABLE1).withItem(table1Item)
+                            .withConditionExpression("attribute_not_exists(#someField)")
+                            .withExpressionAttributeNames(ImmutableMap.of("#someField", SOME_FIELD))),
+                        new TransactWriteItem().withUpdate(new Update().withTableName(TABLE2).withKey(table2Key)
+                            .withUpdateExpression("set #someField = :newValue")
+                            .withConditionExpression("#someField = :currentValue")
+                            .withExpressionAttributeNames(ImmutableMap.of("#someField", SOME_FIELD))
+                            .withExpressionAttributeValues(ImmutableMap.of(
+                                ":currentValue", createStringAttribute(SOME_FIELD_VALUE + TABLE2 + org),
+                                ":newValue", createStringAttribute(SOME_FIELD_VALUE + TABLE2 + org + "Updated")))),
+                        new TransactWriteItem().withDelete(new Delete().withTableName(TABLE3).withKey(table3Key)),
+                        new TransactWriteItem().withConditionCheck(new ConditionCheck().withTableName(TABLE1)
+                            .withKey(table1Key)
+                            .withConditionExpression("attribute_exists(#someField)")
+                            .withExpressionAttributeNames(ImmutableMap.of("#someField", SOME_FIELD))));
+
+                testArgument.getAmazonDynamoDb().transactWriteItems(transactWriteItemsRequest);
+
+                assertEquals(table1Item, getItem(testArgument.getAmazonDynamoDb(), TABLE1, newHashKeyValue,
+                    testArgument.getHashKeyAttrType(), Optional.empty()));
+                assertEquals(ItemBuilder.builder(testArgument.getHashKeyAttrType(), HASH_KEY_VALUE)
+                        .someField(S, SOME_FIELD_VALUE + TABLE2 + org + "Updated")
+                        .build(),
+                    getItem(testArgument.getAmazonDynamoDb(), TABLE2, HASH_KEY_VALUE,
+                        testArgument.getHashKeyAttrType(), Optional.empty()));
+                assertNull(getItem(testArgument.getAmazonDynamoDb(), TABLE3, HASH_KEY_VALUE,
+                    testArgument.getHashKeyAttrType(), Optional.of(RANGE_KEY_S_VALUE)));
+            });
+    }
+
+    @ParameterizedTest(name = "{arguments}")
+    @ArgumentsSource(DefaultArgumentProvider.class)
+    void transactWriteConditionCheckFailed(TestArgument testArgument) {
+        testArgument.forEachOrgContext(
+            org -> {
+                final String newHashKeyValue = HASH_KEY_OTHER_VALUE + "0";
+                final Map<String, AttributeValue> table1Item = ItemBuilder.builder(testArgument.getHashKeyAttrType(),
+                        newHashKeyValue)
+                    .someField(S, SOME_FIELD_VALUE + TABLE1 + org + "transactWrite")
+                    .build();
+                final Map<String, AttributeValue> table2Key = ItemBuilder.builder(testArgument.getHashKeyAttrType(),
+                        HASH_KEY_VALUE)
+                    .build();
+                final TransactWriteItemsRequest transactWriteItemsRequest = new TransactWriteItemsRequest()
+                    .withTransactItems(
+                        new TransactWriteItem().withPut(new Put().withTableName(TABLE1).withItem(table1Item)),
+                        new TransactWriteItem().withConditionCheck(new ConditionCheck().withTableName(TABLE2)
+                            .withKey(table2Key)
+                            .withConditionExpression("#someField = :value")
+                            .withExpressionAttributeNames(ImmutableMap.of("#someField", SOME_FIELD))
+                            .withExpressionAttributeValues(ImmutableMap.of(":value",
+                                createStringAttribute("invalidValue")))));
+
+                assertThrows(TransactionCanceledException.class,
+                    () -> testArgument.getAmazonDynamoDb().transactWriteItems(transactWriteItemsRequest));
+
+                assertNull(getItem(testArgument.getAmazonDynamoDb(), TABLE1, newHashKeyValue,
+                    testArgument.getHashKeyAttrType(), Optional.empty()));
+            });
+    }
+
+    @ParameterizedTest(name = "{arguments}")
+    @ArgumentsSource(DefaultArgumentProvider.class)
+    void transactGet(TestArgument testArgument) {
+        testArgument.forEachOrgContext(
+            org -> {
+                final TransactGetItemsRequest transactGetItemsRequest = new TransactGetItemsRequest()
+                    .withTransactItems(
+                        new TransactGetItem().withGet(new Get().withTableName(TABLE1).withKey(
+                            ItemBuilder.builder(testArgument.getHashKeyAttrType(), HASH_KEY_VALUE).build())),
+                        new TransactGetItem().withGet(new Get().withTableName(TABLE3).withKey(
+                            ItemBuilder.builder(testArgument.getHashKeyAttrType(), HASH_KEY_VALUE)
+                                .rangeKey(S, RANGE_KEY_S_VALUE).build())),
+                        new TransactGetItem().withGet(new Get().withTableName(TABLE2).withKey(
+                            ItemBuilder.builder(testArgument.getHashKeyAttrType(), HASH_KEY_OTHER_VALUE + "0")
+                                .build())));
+
+                final List<ItemResponse> responses = testArgument.getAmazonDynamoDb()
+                    .transactGetItems(transactGetItemsRequest).getResponses();
+
+                assertEquals(3, responses.size());
+                assertEquals(ItemBuilder.builder(testArgument.getHashKeyAttrType(), HASH_KEY_VALUE)
+                        .someField(S, SOME_FIELD_VALUE + TABLE1 + org)
+                        .build(),
+                    responses.get(0).getItem());
+                assertEquals(ItemBuilder.builder(testArgument.getHashKeyAttrType(), HASH_KEY_VALUE)
+                        .someField(S, SOME_FIELD_VALUE + TABLE3 + org)
+                        .rangeKey(S, RANGE_KEY_S_VALUE)
+                        .build(),
+                    responses.get(1).getItem());
+                assertNull(responses.get(2).getItem());
+            });
+    }
+
+}
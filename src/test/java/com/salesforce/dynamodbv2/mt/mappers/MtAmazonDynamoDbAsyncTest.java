@@ -0,0 +1,226 @@
+package com.salesforce.dynamodbv2.mt.mappers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsync;
+import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
+import com.amazonaws.services.dynamodbv2.model.KeyType;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughput;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.salesforce.dynamodbv2.dynamodblocal.AmazonDynamoDbLocal;
+import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
+import com.salesforce.dynamodbv2.mt.context.impl.MtAmazonDynamoDbContextProviderThreadLocalImpl;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.SharedTableBuilder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Tests MtAmazonDynamoDbAsync.
+ */
+class MtAmazonDynamoDbAsyncTest {
+
+    private static final MtAmazonDynamoDbContextProvider MT_CONTEXT =
+        new MtAmazonDynamoDbContextProviderThreadLocalImpl();
+    private static final String CONTEXT = "ctx";
+    private static final String TABLE = "table";
+    private static final String QUALIFIED_TABLE = CONTEXT + "." + TABLE;
+    private static final Map<String, AttributeValue> KEY = ImmutableMap.of("hk", new AttributeValue("1"));
+    private static final Map<String, AttributeValue> ITEM = ImmutableMap.of("hk", new AttributeValue("1"),
+        "someField", new AttributeValue("someValue"));
+
+    // completes physical calls on a thread that has no context
+    private ExecutorService physicalExecutor;
+    private AmazonDynamoDB amazonDynamoDb;
+    private AmazonDynamoDBAsync amazonDynamoDbAsync;
+    private MtAmazonDynamoDbAsync mtAmazonDynamoDbAsync;
+
+    @BeforeEach
+    void beforeEach() {
+        physicalExecutor = Executors.newSingleThreadExecutor();
+        amazonDynamoDb = mock(AmazonDynamoDB.class);
+        amazonDynamoDbAsync = mock(AmazonDynamoDBAsync.class);
+        mtAmazonDynamoDbAsync = MtAmazonDynamoDbAsync.builder()
+            .withMtAmazonDynamoDb(MtAmazonDynamoDbByTable.builder()
+                .withAmazonDynamoDb(amazonDynamoDb)
+                .withContext(MT_CONTEXT)
+                .build())
+            .withAmazonDynamoDbAsync(amazonDynamoDbAsync)
+            .withContext(MT_CONTEXT)
+            .build();
+        MT_CONTEXT.setContext(CONTEXT);
+    }
+
+    @AfterEach
+    void afterEach() {
+        MT_CONTEXT.setContext(null);
+        physicalExecutor.shutdownNow();
+    }
+
+    @Test
+    void getItemSendsMappedRequestAsynchronously() throws Exception {
+        GetItemResult physicalResult = new GetItemResult().withItem(ITEM);
+        when(amazonDynamoDbAsync.getItemAsync(any(GetItemRequest.class), any())).thenAnswer(invocation -> {
+            GetItemRequest request = invocation.getArgument(0);
+            AsyncHandler<GetItemRequest, GetItemResult> asyncHandler = invocation.getArgument(1);
+            return CompletableFuture.supplyAsync(() -> {
+                asyncHandler.onSuccess(request, physicalResult);
+                return physicalResult;
+            }, physicalExecutor);
+        });
+
+        GetItemResult result = mtAmazonDynamoDbAsync.getItemAsync(new GetItemRequest()
+            .withTableName(TABLE)
+            .withKey(KEY)).get();
+
+        assertSame(physicalResult, result);
+        ArgumentCaptor<GetItemRequest> request = ArgumentCaptor.forClass(GetItemRequest.class);
+        verify(amazonDynamoDbAsync).getItemAsync(request.capture(), any());
+        assertEquals(QUALIFIED_TABLE, request.getValue().getTableName());
+        verify(amazonDynamoDb, never()).getItem(any(GetItemRequest.class));
+    }
+
+    @Test
+    void batchGetItemMapsResultUnderCapturedContext() throws Exception {
+        when(amazonDynamoDbAsync.batchGetItemAsync(any(BatchGetItemRequest.class), any())).thenAnswer(invocation -> {
+            BatchGetItemRequest request = invocation.getArgument(0);
+            AsyncHandler<BatchGetItemRequest, BatchGetItemResult> asyncHandler = invocation.getArgument(1);
+            BatchGetItemResult physicalResult = new BatchGetItemResult()
+                .withResponses(ImmutableMap.of(QUALIFIED_TABLE, ImmutableList.of(ITEM)))
+                .withUnprocessedKeys(new HashMap<>());
+            return CompletableFuture.supplyAsync(() -> {
+                asyncHandler.onSuccess(request, physicalResult);
+                return physicalResult;
+            }, physicalExecutor);
+        });
+
+        BatchGetItemResult result = mtAmazonDynamoDbAsync.batchGetItemAsync(new BatchGetItemRequest()
+            .withRequestItems(ImmutableMap.of(TABLE, new KeysAndAttributes().withKeys(KEY)))).get();
+
+        assertEquals(ImmutableMap.of(TABLE, ImmutableList.of(ITEM)), result.getResponses());
+        assertTrue(result.getUnprocessedKeys().isEmpty());
+    }
+
+    @Test
+    void scanRunsOnExecutorUnderCapturedContext() throws Exception {
+        ScanResult physicalResult = new ScanResult();
+        when(amazonDynamoDb.scan(any(ScanRequest.class))).thenReturn(physicalResult);
+
+        ScanResult result = mtAmazonDynamoDbAsync.scanAsync(new ScanRequest().withTableName(TABLE)).get();
+
+        assertSame(physicalResult, result);
+        ArgumentCaptor<ScanRequest> request = ArgumentCaptor.forClass(ScanRequest.class);
+        verify(amazonDynamoDb).scan(request.capture());
+        assertEquals(QUALIFIED_TABLE, request.getValue().getTableName());
+    }
+
+    @Test
+    void sharedTableMapsRequestsAndResultsUnderCapturedContext() throws Exception {
+        AmazonDynamoDB localAmazonDynamoDb = AmazonDynamoDbLocal.getAmazonDynamoDbLocal();
+        when(amazonDynamoDbAsync.putItemAsync(any(PutItemRequest.class), any()))
+            .thenAnswer(completeWith((PutItemRequest request) -> localAmazonDynamoDb.putItem(request)));
+        when(amazonDynamoDbAsync.getItemAsync(any(GetItemRequest.class), any()))
+            .thenAnswer(completeWith((GetItemRequest request) -> localAmazonDynamoDb.getItem(request)));
+        when(amazonDynamoDbAsync.queryAsync(any(QueryRequest.class), any()))
+            .thenAnswer(completeWith((QueryRequest request) -> localAmazonDynamoDb.query(request)));
+        MtAmazonDynamoDbAsync sharedTableAsync = MtAmazonDynamoDbAsync.builder()
+            .withMtAmazonDynamoDb(SharedTableBuilder.builder()
+                .withAmazonDynamoDb(localAmazonDynamoDb)
+                .withTablePrefix("okToDelete-asyncTest." + System.currentTimeMillis() + ".")
+                .withContext(MT_CONTEXT)
+                .build())
+            .withAmazonDynamoDbAsync(amazonDynamoDbAsync)
+            .withContext(MT_CONTEXT)
+            .build();
+        CreateTableRequest createTableRequest = new CreateTableRequest()
+            .withTableName(TABLE)
+            .withKeySchema(new KeySchemaElement("hk", KeyType.HASH))
+            .withAttributeDefinitions(new AttributeDefinition("hk", ScalarAttributeType.S))
+            .withProvisionedThroughput(new ProvisionedThroughput(1L, 1L));
+        sharedTableAsync.createTableAsync(createTableRequest).get();
+
+        sharedTableAsync.putItemAsync(new PutItemRequest().withTableName(TABLE).withItem(ITEM)).get();
+
+        assertEquals(ITEM, sharedTableAsync.getItemAsync(new GetItemRequest()
+            .withTableName(TABLE)
+            .withKey(KEY)).get().getItem());
+        assertEquals(ImmutableList.of(ITEM), sharedTableAsync.queryAsync(new QueryRequest()
+            .withTableName(TABLE)
+            .withKeyConditionExpression("#hk = :hk")
+            .withExpressionAttributeNames(ImmutableMap.of("#hk", "hk"))
+            .withExpressionAttributeValues(ImmutableMap.of(":hk", KEY.get("hk")))).get().getItems());
+
+        // the physical requests are qualified, so another tenant's table doesn't see the item
+        MT_CONTEXT.setContext("otherCtx");
+        sharedTableAsync.createTableAsync(createTableRequest).get();
+        assertNull(sharedTableAsync.getItemAsync(new GetItemRequest()
+            .withTableName(TABLE)
+            .withKey(KEY)).get().getItem());
+    }
+
+    @Test
+    void mappingFailureCompletesExceptionally() {
+        MT_CONTEXT.setContext(null);
+
+        CompletableFuture<GetItemResult> result = mtAmazonDynamoDbAsync.getItemAsync(new GetItemRequest()
+            .withTableName(TABLE)
+            .withKey(KEY));
+
+        ExecutionException e = assertThrows(ExecutionException.class, result::get);
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        verify(amazonDynamoDbAsync, never()).getItemAsync(any(GetItemRequest.class), any());
+    }
+
+    /*
+     * Completes the physical call on a thread that has no context, like the asynchronous client does.
+     */
+    private <RequestT extends AmazonWebServiceRequest, ResultT> Answer<Future<ResultT>> completeWith(
+        Function<RequestT, ResultT> operation) {
+        return invocation -> {
+            RequestT request = invocation.getArgument(0);
+            AsyncHandler<RequestT, ResultT> asyncHandler = invocation.getArgument(1);
+            return CompletableFuture.supplyAsync(() -> {
+                ResultT result = operation.apply(request);
+                asyncHandler.onSuccess(request, result);
+                return result;
+            }, physicalExecutor);
+        };
+    }
+
+}
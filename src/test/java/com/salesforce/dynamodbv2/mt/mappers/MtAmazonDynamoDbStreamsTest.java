@@ -1,5 +1,6 @@
 package com.salesforce.dynamodbv2.mt.mappers;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
@@ -7,6 +8,7 @@ import static org.mockito.Mockito.when;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBStreams;
+import com.amazonaws.services.dynamodbv2.model.StreamViewType;
 import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.MtAmazonDynamoDbBySharedTable;
 import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.MtAmazonDynamoDbStreamsBySharedTable;
 import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
@@ -58,4 +60,24 @@ class MtAmazonDynamoDbStreamsTest {
             "Expected an instance of MtAmazonDynamoDbStreamsBySharedTable");
     }
 
-}
\ No newline at end of file
+    @Test
+    void testCreateFromDynamoWithRecordProjection() {
+        MtAmazonDynamoDbBySharedTable mtDynamo = mock(MtAmazonDynamoDbBySharedTable.class);
+        when(mtDynamo.getMeterRegistry()).thenReturn(new CompositeMeterRegistry());
+
+        AmazonDynamoDBStreams actual = MtAmazonDynamoDbStreams
+            .createFromDynamo(mtDynamo, mock(AmazonDynamoDBStreams.class), StreamViewType.KEYS_ONLY);
+
+        assertEquals(StreamViewType.KEYS_ONLY, ((MtAmazonDynamoDbStreamsBySharedTable) actual).getRecordProjection());
+    }
+
+    @Test
+    void testCreateFromDynamoByTableWithRecordProjection() {
+        MtAmazonDynamoDbByTable mtDynamo = mock(MtAmazonDynamoDbByTable.class);
+        when(mtDynamo.getMeterRegistry()).thenReturn(new CompositeMeterRegistry());
+
+        assertThrows(IllegalArgumentException.class, () -> MtAmazonDynamoDbStreams
+            .createFromDynamo(mtDynamo, mock(AmazonDynamoDBStreams.class), StreamViewType.KEYS_ONLY));
+    }
+
+}
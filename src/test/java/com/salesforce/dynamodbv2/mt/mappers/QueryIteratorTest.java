@@ -0,0 +1,226 @@
+package com.salesforce.dynamodbv2.mt.mappers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.google.common.collect.ImmutableMap;
+import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
+import com.salesforce.dynamodbv2.mt.context.impl.MtAmazonDynamoDbContextProviderThreadLocalImpl;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests QueryIterator.
+ */
+class QueryIteratorTest {
+
+    private static final String TABLE = "table";
+    private static final int PAGES = 3;
+    private static final int ITEMS_PER_PAGE = 2;
+
+    /*
+     * Simulates a query with PAGES pages of ITEMS_PER_PAGE items each.  Items and keys are encoded as "<page>-<item>"
+     * and "<page>", respectively.
+     */
+    private static final Function<QueryRequest, QueryResult> QUERY = queryRequest -> {
+        int page = queryRequest.getExclusiveStartKey() == null ? 0
+            : Integer.parseInt(queryRequest.getExclusiveStartKey().get("key").getS()) + 1;
+        List<Map<String, AttributeValue>> items = IntStream.range(0, ITEMS_PER_PAGE)
+            .mapToObj(item -> item(page + "-" + item))
+            .collect(Collectors.toList());
+        return new QueryResult()
+            .withItems(items)
+            .withLastEvaluatedKey(page == PAGES - 1 ? null : ImmutableMap.of("key", new AttributeValue("" + page)));
+    };
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void beforeEach() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void afterEach() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void queriesAllPages() {
+        List<Map<String, AttributeValue>> items;
+        try (QueryIterator iterator = newIterator(QUERY, () -> Optional.of("ctx"))) {
+            items = iterator.stream().collect(Collectors.toList());
+        }
+
+        assertEquals(getAllItems(), items);
+    }
+
+    @Test
+    void resumesFromLastEvaluatedKey() {
+        Map<String, AttributeValue> lastEvaluatedKey;
+        try (QueryIterator iterator = newIterator(QUERY, () -> Optional.of("ctx"))) {
+            // consume the first page and one item of the second page
+            for (int i = 0; i < ITEMS_PER_PAGE + 1; i++) {
+                iterator.next();
+            }
+            lastEvaluatedKey = iterator.getLastEvaluatedKey().get();
+        }
+        assertEquals(ImmutableMap.of("key", new AttributeValue("0")), lastEvaluatedKey);
+
+        List<Map<String, AttributeValue>> items;
+        try (QueryIterator iterator = new QueryIterator(
+            new QueryRequest(TABLE).withExclusiveStartKey(lastEvaluatedKey), QUERY,
+            () -> Optional.of("ctx"), executor, 1, 1)) {
+            items = iterator.stream().collect(Collectors.toList());
+            assertFalse(iterator.getLastEvaluatedKey().isPresent());
+        }
+        assertEquals(getAllItems().subList(ITEMS_PER_PAGE, PAGES * ITEMS_PER_PAGE), items);
+    }
+
+    @Test
+    void queriesUnderCallerContext() {
+        MtAmazonDynamoDbContextProvider mtContext = new MtAmazonDynamoDbContextProviderThreadLocalImpl();
+        Set<String> contexts = ConcurrentHashMap.newKeySet();
+
+        mtContext.withContext("tenant", () -> {
+            try (QueryIterator iterator = newIterator(queryRequest -> {
+                contexts.add(mtContext.getContext());
+                return QUERY.apply(queryRequest);
+            }, mtContext)) {
+                while (iterator.hasNext()) {
+                    iterator.next();
+                }
+            }
+        });
+
+        assertEquals(Set.of("tenant"), contexts);
+    }
+
+    @Test
+    void propagatesQueryFailure() {
+        RuntimeException exception = new RuntimeException("query failed");
+
+        try (QueryIterator iterator = newIterator(queryRequest -> {
+            if (queryRequest.getExclusiveStartKey() != null) {
+                throw exception;
+            }
+            return QUERY.apply(queryRequest);
+        }, () -> Optional.of("ctx"))) {
+            assertSame(exception, assertThrows(RuntimeException.class, () -> {
+                while (iterator.hasNext()) {
+                    iterator.next();
+                }
+            }));
+        }
+    }
+
+    @Test
+    void propagatesQueryError() {
+        Error error = new AssertionError("query failed");
+
+        try (QueryIterator iterator = newIterator(queryRequest -> {
+            if (queryRequest.getExclusiveStartKey() != null) {
+                throw error;
+            }
+            return QUERY.apply(queryRequest);
+        }, () -> Optional.of("ctx"))) {
+            assertSame(error, assertThrows(AssertionError.class, () -> {
+                while (iterator.hasNext()) {
+                    iterator.next();
+                }
+            }));
+        }
+    }
+
+    @Test
+    void boundsPrefetchedPagesAndBytes() {
+        // read pages on the calling thread, so that the number of pages read ahead is deterministic
+        Executor directExecutor = Runnable::run;
+        AtomicInteger pagesRead = new AtomicInteger();
+        Function<QueryRequest, QueryResult> query = queryRequest -> {
+            pagesRead.incrementAndGet();
+            return QUERY.apply(queryRequest);
+        };
+
+        try (QueryIterator iterator = new QueryIterator(new QueryRequest(TABLE), query, () -> Optional.of("ctx"),
+            directExecutor, 1, Long.MAX_VALUE)) {
+            assertEquals(1, pagesRead.get());
+            iterator.next();
+            assertEquals(2, pagesRead.get());
+        }
+
+        pagesRead.set(0);
+        try (QueryIterator iterator = new QueryIterator(new QueryRequest(TABLE), query, () -> Optional.of("ctx"),
+            directExecutor, PAGES, 1)) {
+            assertEquals(1, pagesRead.get());
+            iterator.next();
+            assertEquals(2, pagesRead.get());
+        }
+
+        pagesRead.set(0);
+        try (QueryIterator iterator = new QueryIterator(new QueryRequest(TABLE), query, () -> Optional.of("ctx"),
+            directExecutor, PAGES, Long.MAX_VALUE)) {
+            assertEquals(PAGES, pagesRead.get());
+            assertEquals(getAllItems(), iterator.stream().collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void propagatesRejectedExecution() {
+        try (QueryIterator iterator = new QueryIterator(new QueryRequest(TABLE), QUERY, () -> Optional.of("ctx"),
+            command -> {
+                throw new RejectedExecutionException("executor shut down");
+            }, 1, 1)) {
+            assertThrows(RejectedExecutionException.class, iterator::hasNext);
+        }
+    }
+
+    @Test
+    void invalidLimits() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new QueryIterator(new QueryRequest(TABLE), QUERY, () -> Optional.empty(), executor, 0, 1));
+        assertThrows(IllegalArgumentException.class,
+            () -> new QueryIterator(new QueryRequest(TABLE), QUERY, () -> Optional.empty(), executor, 1, 0));
+    }
+
+    private QueryIterator newIterator(Function<QueryRequest, QueryResult> query,
+                                      MtAmazonDynamoDbContextProvider mtContext) {
+        // the byte limit is smaller than a page, so at most one page is prefetched
+        return new QueryIterator(new QueryRequest(TABLE), query, mtContext, executor, 2, 1);
+    }
+
+    private static List<Map<String, AttributeValue>> getAllItems() {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        for (int page = 0; page < PAGES; page++) {
+            for (int item = 0; item < ITEMS_PER_PAGE; item++) {
+                items.add(item(page + "-" + item));
+            }
+        }
+        return items;
+    }
+
+    private static Map<String, AttributeValue> item(String id) {
+        return ImmutableMap.of("id", new AttributeValue(id));
+    }
+
+}
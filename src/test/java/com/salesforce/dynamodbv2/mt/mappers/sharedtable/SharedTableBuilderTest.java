@@ -1,27 +1,60 @@
 package com.salesforce.dynamodbv2.mt.mappers.sharedtable;
 
 import static com.amazonaws.services.dynamodbv2.model.KeyType.HASH;
+import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.N;
 import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.S;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.BillingMode;
+import com.amazonaws.services.dynamodbv2.model.CancellationReason;
+import com.amazonaws.services.dynamodbv2.model.ConditionCheck;
 import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
 import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndex;
 import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
 import com.amazonaws.services.dynamodbv2.model.Projection;
 import com.amazonaws.services.dynamodbv2.model.ProjectionType;
 import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughput;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.StreamSpecification;
+import com.amazonaws.services.dynamodbv2.model.StreamViewType;
+import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItem;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactionCanceledException;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
 import com.salesforce.dynamodbv2.dynamodblocal.AmazonDynamoDbLocal;
 import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
 import com.salesforce.dynamodbv2.mt.context.impl.MtAmazonDynamoDbContextProviderThreadLocalImpl;
+import com.salesforce.dynamodbv2.mt.mappers.MtAmazonDynamoDb.TenantTable;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.MtAmazonDynamoDbBySharedTable;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.TableMapping;
 import com.salesforce.dynamodbv2.mt.util.DynamoDbTestUtils;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
 
 class SharedTableBuilderTest {
 
@@ -175,6 +208,25 @@ class SharedTableBuilderTest {
         DynamoDbTestUtils.assertPayPerRequestIsSet(tablePrefix + metadataTableName, LOCAL_DYNAMO_DB);
     }
 
+    @Test
+    void testStreamViewTypes() {
+        SharedTableBuilder.builder()
+            .withAmazonDynamoDb(LOCAL_DYNAMO_DB)
+            .withTablePrefix(tablePrefix)
+            .withCreateTablesEagerly(true)
+            .withContext(MT_CONTEXT)
+            .withStreamViewType(StreamViewType.KEYS_ONLY)
+            .withStreamViewType("mt_shared_table_static_s_s", StreamViewType.NEW_IMAGE)
+            .build();
+
+        for (String table : testTables) {
+            StreamSpecification streamSpecification = LOCAL_DYNAMO_DB.describeTable(tablePrefix + table).getTable()
+                .getStreamSpecification();
+            assertEquals(table.equals("mt_shared_table_static_s_s") ? "NEW_IMAGE" : "KEYS_ONLY",
+                streamSpecification.getStreamViewType());
+        }
+    }
+
     @Test
     void testTableDescriptionTableName() {
         final String tableDescriptionTableName = "CustomTableDescriptionTableName";
@@ -190,4 +242,208 @@ class SharedTableBuilderTest {
 
         DynamoDbTestUtils.assertPayPerRequestIsSet(tablePrefix + tableDescriptionTableName, LOCAL_DYNAMO_DB);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testWarmUp() {
+        MtAmazonDynamoDbBySharedTable mtDynamoDb = SharedTableBuilder.builder()
+            .withAmazonDynamoDb(LOCAL_DYNAMO_DB)
+            .withTablePrefix(tablePrefix)
+            .withContext(MT_CONTEXT)
+            .build();
+        CreateTableRequest request = new CreateTableRequest()
+            .withTableName(tableName)
+            .withKeySchema(new KeySchemaElement(ID_ATTR_NAME, HASH))
+            .withAttributeDefinitions(new AttributeDefinition(ID_ATTR_NAME, S))
+            .withProvisionedThroughput(new ProvisionedThroughput(1L, 1L));
+        for (String tenant : List.of("1", "2", "3")) {
+            MT_CONTEXT.withContext(tenant, () -> mtDynamoDb.createTable(request));
+        }
+
+        Cache<Object, TableDescription> tableDescriptionCache = CacheBuilder.newBuilder().build();
+        Cache<Object, TableMapping> tableMappingCache = CacheBuilder.newBuilder().build();
+        SharedTableBuilder.builder()
+            .withAmazonDynamoDb(LOCAL_DYNAMO_DB)
+            .withTablePrefix(tablePrefix)
+            .withContext(MT_CONTEXT)
+            .withTableDescriptionCache(tableDescriptionCache)
+            .withTableMappingCache(tableMappingCache)
+            .withWarmUpTenants(Set.of("1", "2"))
+            .withWarmUpSegments(2)
+            .build();
+        assertEquals(2, tableDescriptionCache.size());
+        assertEquals(2, tableMappingCache.size());
+
+        tableDescriptionCache = CacheBuilder.newBuilder().build();
+        tableMappingCache = CacheBuilder.newBuilder().build();
+        SharedTableBuilder.builder()
+            .withAmazonDynamoDb(LOCAL_DYNAMO_DB)
+            .withTablePrefix(tablePrefix)
+            .withContext(MT_CONTEXT)
+            .withTableDescriptionCache(tableDescriptionCache)
+            .withTableMappingCache(tableMappingCache)
+            .withWarmUpAllTenants()
+            .build();
+        assertEquals(3, tableDescriptionCache.size());
+        assertEquals(3, tableMappingCache.size());
+    }
+
+    @Test
+    void testTableMappingsSharedAcrossTenants() {
+        Cache<Object, TableMapping> tableMappingCache = CacheBuilder.newBuilder().build();
+        MtAmazonDynamoDbBySharedTable mtDynamoDb = SharedTableBuilder.builder()
+            .withAmazonDynamoDb(LOCAL_DYNAMO_DB)
+            .withTablePrefix(tablePrefix)
+            .withContext(MT_CONTEXT)
+            .withTableMappingCache(tableMappingCache)
+            .build();
+        CreateTableRequest request = new CreateTableRequest()
+            .withTableName(tableName)
+            .withKeySchema(new KeySchemaElement(ID_ATTR_NAME, HASH))
+            .withAttributeDefinitions(new AttributeDefinition(ID_ATTR_NAME, S))
+            .withProvisionedThroughput(new ProvisionedThroughput(1L, 1L));
+        CreateTableRequest otherRequest = new CreateTableRequest()
+            .withTableName(tableName)
+            .withKeySchema(new KeySchemaElement(ID_ATTR_NAME, HASH))
+            .withAttributeDefinitions(new AttributeDefinition(ID_ATTR_NAME, N))
+            .withProvisionedThroughput(new ProvisionedThroughput(1L, 1L));
+        MT_CONTEXT.withContext("1", () -> mtDynamoDb.createTable(request));
+        MT_CONTEXT.withContext("2", () -> mtDynamoDb.createTable(request));
+        MT_CONTEXT.withContext("3", () -> mtDynamoDb.createTable(otherRequest));
+
+        MT_CONTEXT.withContext("1", () -> mtDynamoDb.putItem(new PutItemRequest(tableName,
+            ImmutableMap.of(ID_ATTR_NAME, new AttributeValue("1")))));
+        MT_CONTEXT.withContext("2", () -> mtDynamoDb.putItem(new PutItemRequest(tableName,
+            ImmutableMap.of(ID_ATTR_NAME, new AttributeValue("2")))));
+        MT_CONTEXT.withContext("3", () -> mtDynamoDb.putItem(new PutItemRequest(tableName,
+            ImmutableMap.of(ID_ATTR_NAME, new AttributeValue().withN("3")))));
+
+        // tenants with the same table share its mapping
+        assertEquals(3, tableMappingCache.size());
+        assertEquals(2, getDistinctTableMappings(tableMappingCache));
+
+        // shared mappings still isolate tenants
+        assertNotNull(MT_CONTEXT.withContext("1", () -> mtDynamoDb.getItem(new GetItemRequest(tableName,
+            ImmutableMap.of(ID_ATTR_NAME, new AttributeValue("1")))).getItem()));
+        assertNull(MT_CONTEXT.withContext("2", () -> mtDynamoDb.getItem(new GetItemRequest(tableName,
+            ImmutableMap.of(ID_ATTR_NAME, new AttributeValue("1")))).getItem()));
+
+        // refreshing a mapping whose physical table is unchanged keeps sharing it with tenants that are mapped later
+        mtDynamoDb.refreshTableMapping(new TenantTable(tableName, "1"));
+        MT_CONTEXT.withContext("4", () -> mtDynamoDb.createTable(request));
+        MT_CONTEXT.withContext("4", () -> mtDynamoDb.getItem(new GetItemRequest(tableName,
+            ImmutableMap.of(ID_ATTR_NAME, new AttributeValue("4")))));
+        assertEquals(4, tableMappingCache.size());
+        assertEquals(2, getDistinctTableMappings(tableMappingCache));
+
+        // once the physical table is recreated, a refreshed mapping is rebuilt and shared by tenants refreshed later
+        LOCAL_DYNAMO_DB.deleteTable(tablePrefix + "mt_shared_table_static_s_no_lsi");
+        mtDynamoDb.refreshTableMapping(new TenantTable(tableName, "2"));
+        assertEquals(3, getDistinctTableMappings(tableMappingCache));
+        mtDynamoDb.refreshTableMapping(new TenantTable(tableName, "1"));
+        mtDynamoDb.refreshTableMapping(new TenantTable(tableName, "4"));
+        assertEquals(2, getDistinctTableMappings(tableMappingCache));
+    }
+
+    private static int getDistinctTableMappings(Cache<Object, TableMapping> tableMappingCache) {
+        Set<TableMapping> tableMappings = Sets.newIdentityHashSet();
+        tableMappings.addAll(tableMappingCache.asMap().values());
+        return tableMappings.size();
+    }
+
+    @Test
+    void testConditionalWritesLeaveExpressionMapsUnmodified() {
+        MtAmazonDynamoDbBySharedTable mtDynamoDb = SharedTableBuilder.builder()
+            .withAmazonDynamoDb(LOCAL_DYNAMO_DB)
+            .withTablePrefix(tablePrefix)
+            .withContext(MT_CONTEXT)
+            .build();
+        CreateTableRequest request = new CreateTableRequest()
+            .withTableName(tableName)
+            .withKeySchema(new KeySchemaElement(ID_ATTR_NAME, HASH))
+            .withAttributeDefinitions(new AttributeDefinition(ID_ATTR_NAME, S))
+            .withProvisionedThroughput(new ProvisionedThroughput(1L, 1L));
+        Map<String, AttributeValue> key = ImmutableMap.of(ID_ATTR_NAME, new AttributeValue("1"));
+        // conditions on the hash key field, whose names and values the condition mapper rewrites
+        Map<String, String> names = new HashMap<>(ImmutableMap.of("#id", ID_ATTR_NAME, "#v", INDEX_ID_ATTR_NAME));
+        Map<String, AttributeValue> values = new HashMap<>(ImmutableMap.of(":id", new AttributeValue("1"),
+            ":v", new AttributeValue("value")));
+        Map<String, String> namesCopy = new HashMap<>(names);
+        Map<String, AttributeValue> valuesCopy = new HashMap<>(values);
+        String putCondition = "attribute_not_exists(id) and attribute_not_exists(#id) and attribute_not_exists(#v)";
+        PutItemRequest putItemRequest = new PutItemRequest(tableName, key)
+            .withConditionExpression(putCondition)
+            .withExpressionAttributeNames(names);
+        UpdateItemRequest updateItemRequest = new UpdateItemRequest()
+            .withTableName(tableName)
+            .withKey(key)
+            .withUpdateExpression("SET #v = :v")
+            .withConditionExpression("#id = :id")
+            .withExpressionAttributeNames(names)
+            .withExpressionAttributeValues(values);
+        DeleteItemRequest deleteItemRequest = new DeleteItemRequest(tableName, key)
+            .withConditionExpression("#id = :id and #v = :v")
+            .withExpressionAttributeNames(names)
+            .withExpressionAttributeValues(values);
+
+        MT_CONTEXT.withContext("1", () -> {
+            mtDynamoDb.createTable(request);
+            mtDynamoDb.putItem(putItemRequest);
+            mtDynamoDb.updateItem(updateItemRequest);
+            mtDynamoDb.deleteItem(deleteItemRequest);
+        });
+
+        assertEquals(namesCopy, names);
+        assertEquals(valuesCopy, values);
+        assertSame(names, putItemRequest.getExpressionAttributeNames());
+        assertSame(names, updateItemRequest.getExpressionAttributeNames());
+        assertSame(values, updateItemRequest.getExpressionAttributeValues());
+        assertSame(names, deleteItemRequest.getExpressionAttributeNames());
+        assertSame(values, deleteItemRequest.getExpressionAttributeValues());
+        assertEquals(putCondition, putItemRequest.getConditionExpression());
+        assertNull(MT_CONTEXT.withContext("1", () -> mtDynamoDb.getItem(new GetItemRequest(tableName, key))
+            .getItem()));
+    }
+
+    @Test
+    void testTransactionCancellationReasonsUnqualified() {
+        // cancel every transaction, returning the physical item of the first action as DynamoDB would
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class, AdditionalAnswers.delegatesTo(LOCAL_DYNAMO_DB));
+        doAnswer(invocation -> {
+            ConditionCheck conditionCheck = ((TransactWriteItemsRequest) invocation.getArgument(0))
+                .getTransactItems().get(0).getConditionCheck();
+            Map<String, AttributeValue> physicalItem = LOCAL_DYNAMO_DB.getItem(conditionCheck.getTableName(),
+                conditionCheck.getKey()).getItem();
+            TransactionCanceledException e = new TransactionCanceledException("Transaction cancelled");
+            e.setCancellationReasons(List.of(
+                new CancellationReason().withCode("ConditionalCheckFailed").withItem(physicalItem)));
+            throw e;
+        }).when(amazonDynamoDb).transactWriteItems(any(TransactWriteItemsRequest.class));
+        MtAmazonDynamoDbBySharedTable mtDynamoDb = SharedTableBuilder.builder()
+            .withAmazonDynamoDb(amazonDynamoDb)
+            .withTablePrefix(tablePrefix)
+            .withContext(MT_CONTEXT)
+            .build();
+        CreateTableRequest request = new CreateTableRequest()
+            .withTableName(tableName)
+            .withKeySchema(new KeySchemaElement(ID_ATTR_NAME, HASH))
+            .withAttributeDefinitions(new AttributeDefinition(ID_ATTR_NAME, S))
+            .withProvisionedThroughput(new ProvisionedThroughput(1L, 1L));
+        Map<String, AttributeValue> item = ImmutableMap.of(ID_ATTR_NAME, new AttributeValue("1"),
+            INDEX_ID_ATTR_NAME, new AttributeValue("value"));
+        MT_CONTEXT.withContext("1", () -> {
+            mtDynamoDb.createTable(request);
+            mtDynamoDb.putItem(new PutItemRequest(tableName, item));
+        });
+
+        TransactionCanceledException e = assertThrows(TransactionCanceledException.class,
+            () -> MT_CONTEXT.withContext("1", () -> mtDynamoDb.transactWriteItems(new TransactWriteItemsRequest()
+                .withTransactItems(new TransactWriteItem().withConditionCheck(new ConditionCheck()
+                    .withTableName(tableName)
+                    .withKey(ImmutableMap.of(ID_ATTR_NAME, new AttributeValue("1")))
+                    .withConditionExpression("attribute_not_exists(#id)")
+                    .withExpressionAttributeNames(ImmutableMap.of("#id", ID_ATTR_NAME))
+                    .withReturnValuesOnConditionCheckFailure("ALL_OLD"))))));
+
+        assertEquals(item, e.getCancellationReasons().get(0).getItem());
+    }
+}
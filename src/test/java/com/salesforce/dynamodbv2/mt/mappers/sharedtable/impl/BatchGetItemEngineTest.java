@@ -0,0 +1,157 @@
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import com.google.common.collect.ImmutableMap;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests BatchGetItemEngine.
+ */
+class BatchGetItemEngineTest {
+
+    private static final String TABLE = "table";
+    private static final String NAME = "test";
+
+    private ExecutorService executor;
+    private SimpleMeterRegistry meterRegistry;
+    private AmazonDynamoDB amazonDynamoDb;
+
+    @BeforeEach
+    void beforeEach() {
+        executor = Executors.newFixedThreadPool(4);
+        meterRegistry = new SimpleMeterRegistry();
+        amazonDynamoDb = mock(AmazonDynamoDB.class);
+    }
+
+    @AfterEach
+    void afterEach() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void splitsDeduplicatesAndMerges() {
+        List<BatchGetItemRequest> requests = Collections.synchronizedList(new ArrayList<>());
+        when(amazonDynamoDb.batchGetItem(any(BatchGetItemRequest.class))).thenAnswer(invocation -> {
+            BatchGetItemRequest request = invocation.getArgument(0);
+            requests.add(request);
+            return new BatchGetItemResult()
+                .withResponses(ImmutableMap.of(TABLE, request.getRequestItems().get(TABLE).getKeys()))
+                .withUnprocessedKeys(new HashMap<>());
+        });
+        List<Map<String, AttributeValue>> keys = getKeys(250);
+        keys.addAll(getKeys(10));
+
+        BatchGetItemResult result = newEngine(5000L).batchGetItem(newRequest(keys));
+
+        assertEquals(3, requests.size());
+        assertTrue(requests.stream().allMatch(request ->
+            request.getRequestItems().get(TABLE).getKeys().size() <= BatchGetItemEngine.MAX_KEYS_PER_REQUEST));
+        assertEquals(new HashSet<>(getKeys(250)), new HashSet<>(result.getResponses().get(TABLE)));
+        assertEquals(250, result.getResponses().get(TABLE).size());
+        assertTrue(result.getUnprocessedKeys().isEmpty());
+        assertEquals(3d, meterRegistry.summary(NAME + ".BatchGetItem.Chunks").totalAmount());
+    }
+
+    @Test
+    void retriesUnprocessedKeys() {
+        AtomicInteger calls = new AtomicInteger();
+        when(amazonDynamoDb.batchGetItem(any(BatchGetItemRequest.class))).thenAnswer(invocation -> {
+            List<Map<String, AttributeValue>> keys = ((BatchGetItemRequest) invocation.getArgument(0))
+                .getRequestItems().get(TABLE).getKeys();
+            if (calls.getAndIncrement() == 0) {
+                // process only the first key
+                return new BatchGetItemResult()
+                    .withResponses(ImmutableMap.of(TABLE, keys.subList(0, 1)))
+                    .withUnprocessedKeys(ImmutableMap.of(TABLE,
+                        new KeysAndAttributes().withKeys(keys.subList(1, keys.size()))));
+            }
+            return new BatchGetItemResult()
+                .withResponses(ImmutableMap.of(TABLE, keys))
+                .withUnprocessedKeys(new HashMap<>());
+        });
+
+        BatchGetItemResult result = newEngine(5000L).batchGetItem(newRequest(getKeys(10)));
+
+        assertEquals(2, calls.get());
+        assertEquals(new HashSet<>(getKeys(10)), new HashSet<>(result.getResponses().get(TABLE)));
+        assertTrue(result.getUnprocessedKeys().isEmpty());
+        assertEquals(1d, meterRegistry.counter(NAME + ".BatchGetItem.Retries").count());
+        assertEquals(0d, meterRegistry.counter(NAME + ".BatchGetItem.ThrottleRetries").count());
+    }
+
+    @Test
+    void retriesThrottledRequests() {
+        AtomicInteger calls = new AtomicInteger();
+        when(amazonDynamoDb.batchGetItem(any(BatchGetItemRequest.class))).thenAnswer(invocation -> {
+            if (calls.getAndIncrement() == 0) {
+                throw new ProvisionedThroughputExceededException("throttled");
+            }
+            return new BatchGetItemResult()
+                .withResponses(ImmutableMap.of(TABLE, ((BatchGetItemRequest) invocation.getArgument(0))
+                    .getRequestItems().get(TABLE).getKeys()))
+                .withUnprocessedKeys(new HashMap<>());
+        });
+
+        BatchGetItemResult result = newEngine(5000L).batchGetItem(newRequest(getKeys(10)));
+
+        assertEquals(2, calls.get());
+        assertEquals(new HashSet<>(getKeys(10)), new HashSet<>(result.getResponses().get(TABLE)));
+        assertEquals(1d, meterRegistry.counter(NAME + ".BatchGetItem.Retries").count());
+        assertEquals(1d, meterRegistry.counter(NAME + ".BatchGetItem.ThrottleRetries").count());
+    }
+
+    @Test
+    void returnsUnprocessedKeysAfterTimeLimit() {
+        when(amazonDynamoDb.batchGetItem(any(BatchGetItemRequest.class))).thenAnswer(invocation ->
+            new BatchGetItemResult()
+                .withResponses(new HashMap<>())
+                .withUnprocessedKeys(((BatchGetItemRequest) invocation.getArgument(0)).getRequestItems()));
+
+        BatchGetItemResult result = newEngine(100L).batchGetItem(newRequest(getKeys(150)));
+
+        assertTrue(result.getResponses().isEmpty());
+        assertEquals(new HashSet<>(getKeys(150)), new HashSet<>(result.getUnprocessedKeys().get(TABLE).getKeys()));
+    }
+
+    private BatchGetItemEngine newEngine(long timeLimit) {
+        return new BatchGetItemEngine(NAME, amazonDynamoDb, executor, timeLimit, Clock.systemUTC(), meterRegistry);
+    }
+
+    private static BatchGetItemRequest newRequest(List<Map<String, AttributeValue>> keys) {
+        return new BatchGetItemRequest().withRequestItems(
+            ImmutableMap.of(TABLE, new KeysAndAttributes().withKeys(keys)));
+    }
+
+    private static List<Map<String, AttributeValue>> getKeys(int count) {
+        return IntStream.range(0, count)
+            .<Map<String, AttributeValue>>mapToObj(i -> ImmutableMap.of("hk", new AttributeValue(String.valueOf(i))))
+            .collect(Collectors.toList());
+    }
+
+}
@@ -30,7 +30,9 @@ class BinaryHashKeyDecoder {
         System.out.println("========================================");
         System.out.println("Context: " + fieldValue.getContext());
         System.out.println("TableName: " + fieldValue.getTableName());
-        System.out.println("Value: " + Base64.getEncoder().encodeToString(fieldValue.getValue().array()));
+        byte[] unqualifiedValue = new byte[fieldValue.getValue().remaining()];
+        fieldValue.getValue().duplicate().get(unqualifiedValue);
+        System.out.println("Value: " + Base64.getEncoder().encodeToString(unqualifiedValue));
         System.out.println("========================================");
     }
 
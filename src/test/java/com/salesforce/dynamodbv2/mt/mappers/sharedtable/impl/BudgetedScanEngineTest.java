@@ -0,0 +1,267 @@
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.google.common.collect.ImmutableMap;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.BudgetedScanEngine.ScanState;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests BudgetedScanEngine.
+ */
+class BudgetedScanEngineTest {
+
+    private static final String TABLE = "table";
+    private static final String NAME = "test";
+    private static final String SCOPE = "ctx.table";
+    private static final Set<String> KEY_NAMES = Set.of("hk");
+    private static final Map<String, AttributeValue> ITEM = ImmutableMap.of("hk", new AttributeValue("ctx.table.1"));
+    private static final SecretKey SECRET = new SecretKeySpec(new byte[32], "AES");
+
+    private ExecutorService executor;
+    private SimpleMeterRegistry meterRegistry;
+    private AmazonDynamoDB amazonDynamoDb;
+
+    @BeforeEach
+    void beforeEach() {
+        executor = Executors.newFixedThreadPool(4);
+        meterRegistry = new SimpleMeterRegistry();
+        amazonDynamoDb = mock(AmazonDynamoDB.class);
+    }
+
+    @AfterEach
+    void afterEach() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void returnsContinuationKeyWhenPagesExhausted() {
+        when(amazonDynamoDb.scan(any(ScanRequest.class))).thenAnswer(invocation ->
+            emptyPage(invocation.getArgument(0)));
+
+        BudgetedScanEngine engine = newEngine(ScanBudget.builder().withMaxPages(3).withMaxLimit(50).build());
+        ScanResult result = engine.scan(new ScanRequest(TABLE).withLimit(10), null, SCOPE, KEY_NAMES);
+
+        assertTrue(result.getItems().isEmpty());
+        assertEquals(10 + 20 + 40, result.getScannedCount().intValue());
+        verify(amazonDynamoDb, times(3)).scan(any(ScanRequest.class));
+        assertEquals(1.0, meterRegistry.counter(NAME + ".Scan.BudgetExhausted").count());
+        assertTrue(BudgetedScanEngine.isContinuationKey(result.getLastEvaluatedKey()));
+        ScanState state = engine.decode(result.getLastEvaluatedKey(), SCOPE);
+        assertEquals(ImmutableMap.of("hk", new AttributeValue("2")),
+            state.getCheckpoint().getLastEvaluatedKey(0).get());
+        // limit doubled after each page, but capped at maxLimit
+        assertEquals(50, state.getLimit().intValue());
+    }
+
+    @Test
+    void returnsContinuationKeyWhenReadCapacityUnitsExhausted() {
+        List<ScanRequest> requests = Collections.synchronizedList(new ArrayList<>());
+        when(amazonDynamoDb.scan(any(ScanRequest.class))).thenAnswer(invocation -> {
+            ScanRequest request = invocation.getArgument(0);
+            requests.add(request);
+            return emptyPage(request).withConsumedCapacity(new ConsumedCapacity().withCapacityUnits(2.0));
+        });
+
+        ScanResult result = newEngine(ScanBudget.builder().withMaxReadCapacityUnits(5).build())
+            .scan(new ScanRequest(TABLE), null, SCOPE, KEY_NAMES);
+
+        assertTrue(result.getItems().isEmpty());
+        assertEquals(3, requests.size());
+        assertEquals("TOTAL", requests.get(0).getReturnConsumedCapacity());
+        assertTrue(BudgetedScanEngine.isContinuationKey(result.getLastEvaluatedKey()));
+        assertNull(result.getConsumedCapacity());
+    }
+
+    @Test
+    void resumesFromContinuationKey() {
+        when(amazonDynamoDb.scan(any(ScanRequest.class))).thenAnswer(invocation -> {
+            ScanRequest request = invocation.getArgument(0);
+            // the third page has a matching item and is the last one
+            return request.getExclusiveStartKey() != null && request.getExclusiveStartKey().get("hk").getS().equals("1")
+                ? new ScanResult().withItems(ITEM).withScannedCount(10)
+                : emptyPage(request);
+        });
+        BudgetedScanEngine engine = newEngine(ScanBudget.builder().withMaxPages(1).build());
+
+        ScanResult result = engine.scan(new ScanRequest(TABLE), null, SCOPE, KEY_NAMES);
+        assertTrue(result.getItems().isEmpty());
+        result = engine.scan(new ScanRequest(TABLE), result.getLastEvaluatedKey(), SCOPE, KEY_NAMES);
+        assertTrue(result.getItems().isEmpty());
+        result = engine.scan(new ScanRequest(TABLE), result.getLastEvaluatedKey(), SCOPE, KEY_NAMES);
+
+        assertEquals(List.of(ITEM), result.getItems());
+        assertNull(result.getLastEvaluatedKey());
+    }
+
+    @Test
+    void stopsAtFirstPageWithMatches() {
+        when(amazonDynamoDb.scan(any(ScanRequest.class))).thenAnswer(invocation -> {
+            ScanRequest request = invocation.getArgument(0);
+            return emptyPage(request).withItems(ITEM);
+        });
+
+        BudgetedScanEngine engine = newEngine(ScanBudget.builder().build());
+        ScanResult result = engine.scan(new ScanRequest(TABLE), null, SCOPE, KEY_NAMES);
+
+        assertEquals(List.of(ITEM), result.getItems());
+        verify(amazonDynamoDb).scan(any(ScanRequest.class));
+        ScanState state = engine.decode(result.getLastEvaluatedKey(), SCOPE);
+        assertEquals(ImmutableMap.of("hk", new AttributeValue("0")),
+            state.getCheckpoint().getLastEvaluatedKey(0).get());
+    }
+
+    @Test
+    void growsParallelSegments() {
+        List<ScanRequest> requests = Collections.synchronizedList(new ArrayList<>());
+        when(amazonDynamoDb.scan(any(ScanRequest.class))).thenAnswer(invocation -> {
+            ScanRequest request = invocation.getArgument(0);
+            requests.add(request);
+            // segment 1 completes after the first page
+            return request.getSegment() == 1 ? new ScanResult().withItems().withScannedCount(10) : emptyPage(request);
+        });
+
+        BudgetedScanEngine engine = newEngine(ScanBudget.builder().withMaxPages(5).withMaxSegments(4).build());
+        ScanResult result = engine.scan(new ScanRequest(TABLE), null, SCOPE, KEY_NAMES);
+
+        // rounds scan segments [0], [0, 1], and [0, 2]
+        assertEquals(5, requests.size());
+        assertTrue(requests.stream().allMatch(request -> request.getTotalSegments() == 4));
+        assertEquals(3, requests.stream().filter(request -> request.getSegment() == 0).count());
+        ScanState state = engine.decode(result.getLastEvaluatedKey(), SCOPE);
+        assertEquals(4, state.getParallelism());
+        assertFalse(state.getCheckpoint().isCompleted(0));
+        assertTrue(state.getCheckpoint().isCompleted(1));
+        assertTrue(state.getCheckpoint().getLastEvaluatedKey(2).isPresent());
+        assertFalse(state.getCheckpoint().getLastEvaluatedKey(3).isPresent());
+    }
+
+    @Test
+    void completesScan() {
+        when(amazonDynamoDb.scan(any(ScanRequest.class))).thenReturn(new ScanResult().withItems().withScannedCount(1));
+
+        ScanResult result = newEngine(ScanBudget.builder().withMaxSegments(2).build())
+            .scan(new ScanRequest(TABLE), null, SCOPE, KEY_NAMES);
+
+        assertTrue(result.getItems().isEmpty());
+        assertNull(result.getLastEvaluatedKey());
+        verify(amazonDynamoDb, times(2)).scan(any(ScanRequest.class));
+    }
+
+    @Test
+    void capsItemsAtRequestLimit() {
+        List<ScanRequest> requests = Collections.synchronizedList(new ArrayList<>());
+        when(amazonDynamoDb.scan(any(ScanRequest.class))).thenAnswer(invocation -> {
+            ScanRequest request = invocation.getArgument(0);
+            requests.add(request);
+            // the first page has no matches, so the limit doubles; the second page has more matches than requested
+            return request.getExclusiveStartKey() == null ? emptyPage(request) : new ScanResult()
+                .withItems(getItems(request.getLimit()))
+                .withScannedCount(request.getLimit())
+                .withLastEvaluatedKey(ImmutableMap.of("hk", new AttributeValue("last")));
+        });
+        BudgetedScanEngine engine = newEngine(ScanBudget.builder().build());
+
+        ScanResult result = engine.scan(new ScanRequest(TABLE).withLimit(5), null, SCOPE, KEY_NAMES);
+
+        assertEquals(10, requests.get(1).getLimit().intValue());
+        assertEquals(getItems(5), result.getItems());
+        assertEquals(5, result.getCount().intValue());
+        // resumes after the last returned item rather than after the last scanned item
+        ScanState state = engine.decode(result.getLastEvaluatedKey(), SCOPE);
+        assertEquals(ImmutableMap.of("hk", new AttributeValue("ctx.table.4")),
+            state.getCheckpoint().getLastEvaluatedKey(0).get());
+    }
+
+    @Test
+    void encryptsContinuationKey() {
+        when(amazonDynamoDb.scan(any(ScanRequest.class))).thenAnswer(invocation ->
+            emptyPage(invocation.getArgument(0)).withLastEvaluatedKey(ImmutableMap.of("hk",
+                new AttributeValue("other.table.secret"))));
+
+        ScanResult result = newEngine(ScanBudget.builder().withMaxPages(1).build())
+            .scan(new ScanRequest(TABLE), null, SCOPE, KEY_NAMES);
+
+        ByteBuffer value = result.getLastEvaluatedKey().get(BudgetedScanEngine.CONTINUATION_KEY).getB();
+        byte[] bytes = new byte[value.remaining()];
+        value.duplicate().get(bytes);
+        assertFalse(new String(bytes, StandardCharsets.ISO_8859_1).contains("other.table.secret"));
+    }
+
+    @Test
+    void rejectsTamperedContinuationKey() {
+        when(amazonDynamoDb.scan(any(ScanRequest.class))).thenAnswer(invocation ->
+            emptyPage(invocation.getArgument(0)));
+        BudgetedScanEngine engine = newEngine(ScanBudget.builder().withMaxPages(1).build());
+        Map<String, AttributeValue> continuationKey = engine.scan(new ScanRequest(TABLE), null, SCOPE, KEY_NAMES)
+            .getLastEvaluatedKey();
+
+        ByteBuffer value = continuationKey.get(BudgetedScanEngine.CONTINUATION_KEY).getB();
+        byte[] bytes = new byte[value.remaining()];
+        value.duplicate().get(bytes);
+        bytes[bytes.length - 1] ^= 1;
+        Map<String, AttributeValue> tampered = ImmutableMap.of(BudgetedScanEngine.CONTINUATION_KEY,
+            new AttributeValue().withB(ByteBuffer.wrap(bytes)));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> engine.scan(new ScanRequest(TABLE), tampered, SCOPE, KEY_NAMES));
+        // the continuation key of one tenant or table cannot be used in another scope
+        assertThrows(IllegalArgumentException.class,
+            () -> engine.scan(new ScanRequest(TABLE), continuationKey, "other.table", KEY_NAMES));
+    }
+
+    private BudgetedScanEngine newEngine(ScanBudget budget) {
+        return new BudgetedScanEngine(NAME, amazonDynamoDb, budget, executor, SECRET, Clock.systemUTC(),
+            meterRegistry);
+    }
+
+    private static List<Map<String, AttributeValue>> getItems(int count) {
+        return IntStream.range(0, count)
+            .<Map<String, AttributeValue>>mapToObj(i -> ImmutableMap.of("hk", new AttributeValue("ctx.table." + i)))
+            .collect(Collectors.toList());
+    }
+
+    /*
+     * Returns an empty page whose last evaluated key is the number of the page within the segment.
+     */
+    private static ScanResult emptyPage(ScanRequest request) {
+        int page = request.getExclusiveStartKey() == null ? 0
+            : Integer.parseInt(request.getExclusiveStartKey().get("hk").getS()) + 1;
+        return new ScanResult()
+            .withItems()
+            .withScannedCount(request.getLimit() == null ? 10 : request.getLimit())
+            .withLastEvaluatedKey(ImmutableMap.of("hk", new AttributeValue(String.valueOf(page))));
+    }
+
+}
@@ -0,0 +1,302 @@
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
+import com.salesforce.dynamodbv2.mt.context.impl.MtAmazonDynamoDbContextProviderThreadLocalImpl;
+import com.salesforce.dynamodbv2.mt.mappers.MtAmazonDynamoDb.TenantTable;
+import com.salesforce.dynamodbv2.mt.repo.MtTableDescriptionRepo;
+import com.salesforce.dynamodbv2.mt.repo.MtTableDescriptionRepo.DeleteTableJob;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests DeleteTableJobExecutor.
+ */
+class DeleteTableJobExecutorTest {
+
+    private static final String NAME = "test";
+    private static final long NOW = 1000L;
+    private static final long LEASE_MILLIS = 100L;
+    private static final MtAmazonDynamoDbContextProvider MT_CONTEXT =
+        new MtAmazonDynamoDbContextProviderThreadLocalImpl();
+
+    private ExecutorService workers;
+    private ScheduledExecutorService poller;
+    private Runnable poll;
+    private SimpleMeterRegistry meterRegistry;
+    private MtTableDescriptionRepo repo;
+    private List<TenantTable> ranJobs;
+
+    @BeforeEach
+    void beforeEach() {
+        workers = Executors.newFixedThreadPool(2);
+        // polls are triggered by the tests
+        poller = mock(ScheduledExecutorService.class);
+        when(poller.scheduleWithFixedDelay(any(Runnable.class), anyLong(), anyLong(), any())).thenAnswer(invocation -> {
+            poll = invocation.getArgument(0);
+            return null;
+        });
+        meterRegistry = new SimpleMeterRegistry();
+        repo = mock(MtTableDescriptionRepo.class);
+        when(repo.acquireDeleteTableJobLease(anyString(), anyString(), anyLong(), anyLong())).thenReturn(true);
+        ranJobs = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @AfterEach
+    void afterEach() {
+        workers.shutdownNow();
+    }
+
+    @Test
+    void runsSubmittedJob() throws InterruptedException {
+        DeleteTableJobExecutor executor = newExecutor(1);
+        executor.start(ranJobs::add);
+
+        MT_CONTEXT.withContext("1", () -> executor.submit("table"));
+        awaitWorkers();
+
+        verify(repo).addDeleteTableJob("table", NOW);
+        verify(repo).acquireDeleteTableJobLease(eq("table"), anyString(), eq(NOW), eq(NOW + LEASE_MILLIS));
+        assertEquals(List.of(new TenantTable("table", "1")), ranJobs);
+        assertEquals(1, meterRegistry.timer(NAME + ".DeleteTable.JobLatency").count());
+        assertEquals(0.0, meterRegistry.get(NAME + ".DeleteTable.QueuedJobs").gauge().value());
+    }
+
+    @Test
+    void queuesJobsBeyondCapacity() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        DeleteTableJobExecutor executor = newExecutor(1);
+        executor.start(tenantTable -> {
+            ranJobs.add(tenantTable);
+            await(release);
+        });
+
+        MT_CONTEXT.withContext("1", () -> executor.submit("table1"));
+        MT_CONTEXT.withContext("1", () -> executor.submit("table2"));
+
+        verify(repo).addDeleteTableJob("table2", NOW);
+        verify(repo, times(1)).acquireDeleteTableJobLease(anyString(), anyString(), anyLong(), anyLong());
+        assertEquals(1.0, meterRegistry.get(NAME + ".DeleteTable.QueuedJobs").gauge().value());
+        assertEquals(1.0, meterRegistry.get(NAME + ".DeleteTable.RunningJobs").gauge().value());
+
+        // the queued job is claimed by the next poll once the running job is done
+        release.countDown();
+        when(repo.listDeleteTableJobs(NOW))
+            .thenReturn(List.of(new DeleteTableJob(new TenantTable("table2", "1"), NOW)));
+        awaitIdle();
+        poll.run();
+        awaitWorkers();
+
+        assertEquals(List.of(new TenantTable("table1", "1"), new TenantTable("table2", "1")), ranJobs);
+        assertEquals(0.0, meterRegistry.get(NAME + ".DeleteTable.QueuedJobs").gauge().value());
+    }
+
+    @Test
+    void resumesJobsOfOtherInstancesAndRenewsLeases() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        DeleteTableJobExecutor executor = newExecutor(2);
+        executor.start(tenantTable -> {
+            ranJobs.add(tenantTable);
+            await(release);
+        });
+        DeleteTableJob job = new DeleteTableJob(new TenantTable("table", "2"), NOW - 5000L);
+        when(repo.listDeleteTableJobs(NOW)).thenReturn(List.of(job));
+
+        poll.run();
+        // the running job is not started again, but its lease is renewed
+        poll.run();
+        release.countDown();
+        awaitWorkers();
+
+        assertEquals(List.of(job.getTenantTable()), ranJobs);
+        verify(repo, times(2)).acquireDeleteTableJobLease(eq("table"), anyString(), anyLong(), anyLong());
+        assertEquals(5000.0, meterRegistry.timer(NAME + ".DeleteTable.JobLatency").totalTime(MILLISECONDS));
+    }
+
+    @Test
+    void stopsJobsWhoseLeaseIsLost() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch stopped = new CountDownLatch(1);
+        DeleteTableJobExecutor executor = newExecutor(1);
+        executor.start(tenantTable -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                stopped.countDown();
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        });
+        MT_CONTEXT.withContext("1", () -> executor.submit("table"));
+        assertTrue(started.await(10, SECONDS));
+
+        // another instance took over the job
+        when(repo.acquireDeleteTableJobLease(anyString(), anyString(), anyLong(), anyLong())).thenReturn(false);
+        when(repo.listDeleteTableJobs(NOW)).thenReturn(List.of());
+        poll.run();
+
+        assertTrue(stopped.await(10, SECONDS));
+        awaitWorkers();
+        assertEquals(1.0, meterRegistry.counter(NAME + ".DeleteTable.LostLeases").count());
+        assertEquals(0.0, meterRegistry.counter(NAME + ".DeleteTable.JobFailures").count());
+        assertEquals(0.0, meterRegistry.get(NAME + ".DeleteTable.RunningJobs").gauge().value());
+    }
+
+    @Test
+    void holdsCapacityUntilStoppedJobReturns() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        DeleteTableJobExecutor executor = newExecutor(1);
+        executor.start(tenantTable -> {
+            ranJobs.add(tenantTable);
+            started.countDown();
+            // keeps deleting for a while after it is interrupted
+            Uninterruptibles.awaitUninterruptibly(release, 10, SECONDS);
+        });
+        MT_CONTEXT.withContext("1", () -> executor.submit("table1"));
+        assertTrue(started.await(10, SECONDS));
+
+        // the lease on the running job is lost, but the next job isn't run until it has stopped
+        when(repo.acquireDeleteTableJobLease(eq("table1"), anyString(), anyLong(), anyLong())).thenReturn(false);
+        when(repo.listDeleteTableJobs(NOW))
+            .thenReturn(List.of(new DeleteTableJob(new TenantTable("table2", "1"), NOW)));
+        poll.run();
+        assertEquals(1.0, meterRegistry.get(NAME + ".DeleteTable.QueuedJobs").gauge().value());
+        assertEquals(1.0, meterRegistry.get(NAME + ".DeleteTable.RunningJobs").gauge().value());
+
+        release.countDown();
+        awaitIdle();
+        poll.run();
+        awaitWorkers();
+
+        assertEquals(List.of(new TenantTable("table1", "1"), new TenantTable("table2", "1")), ranJobs);
+        assertEquals(0.0, meterRegistry.get(NAME + ".DeleteTable.QueuedJobs").gauge().value());
+    }
+
+    @Test
+    void releasesCapacityAndLeaseOfRejectedJobs() {
+        workers.shutdown();
+        DeleteTableJobExecutor executor = newExecutor(1);
+        executor.start(ranJobs::add);
+
+        MT_CONTEXT.withContext("1", () -> executor.submit("table1"));
+        MT_CONTEXT.withContext("1", () -> executor.submit("table2"));
+
+        // both jobs were leased, so the capacity of the first was released, and both leases were given up
+        verify(repo).acquireDeleteTableJobLease(eq("table1"), anyString(), eq(NOW), eq(NOW + LEASE_MILLIS));
+        verify(repo).acquireDeleteTableJobLease(eq("table2"), anyString(), eq(NOW), eq(NOW + LEASE_MILLIS));
+        verify(repo).acquireDeleteTableJobLease(eq("table1"), anyString(), eq(NOW), eq(NOW));
+        verify(repo).acquireDeleteTableJobLease(eq("table2"), anyString(), eq(NOW), eq(NOW));
+        assertTrue(ranJobs.isEmpty());
+        assertEquals(2.0, meterRegistry.get(NAME + ".DeleteTable.QueuedJobs").gauge().value());
+        assertEquals(0.0, meterRegistry.get(NAME + ".DeleteTable.RunningJobs").gauge().value());
+    }
+
+    @Test
+    void closeStopsPollingAndRunningJobs() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch stopped = new CountDownLatch(1);
+        DeleteTableJobExecutor executor = newExecutor(1);
+        executor.start(tenantTable -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                stopped.countDown();
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        });
+        MT_CONTEXT.withContext("1", () -> executor.submit("table"));
+        assertTrue(started.await(10, SECONDS));
+
+        executor.close();
+
+        verify(poller).shutdownNow();
+        assertTrue(stopped.await(10, SECONDS));
+        assertTrue(workers.isTerminated());
+        assertEquals(0.0, meterRegistry.counter(NAME + ".DeleteTable.JobFailures").count());
+        assertEquals(0.0, meterRegistry.get(NAME + ".DeleteTable.RunningJobs").gauge().value());
+    }
+
+    @Test
+    void skipsJobsLeasedByOtherInstances() {
+        when(repo.acquireDeleteTableJobLease(anyString(), anyString(), anyLong(), anyLong())).thenReturn(false);
+        when(repo.listDeleteTableJobs(NOW))
+            .thenReturn(List.of(new DeleteTableJob(new TenantTable("table", "1"), NOW)));
+        DeleteTableJobExecutor executor = newExecutor(1);
+        executor.start(ranJobs::add);
+
+        poll.run();
+
+        assertTrue(ranJobs.isEmpty());
+        assertEquals(0.0, meterRegistry.get(NAME + ".DeleteTable.QueuedJobs").gauge().value());
+        assertEquals(0.0, meterRegistry.get(NAME + ".DeleteTable.RunningJobs").gauge().value());
+    }
+
+    @Test
+    void countsFailedJobs() throws InterruptedException {
+        DeleteTableJobExecutor executor = newExecutor(1);
+        executor.start(tenantTable -> {
+            throw new RuntimeException("delete failed");
+        });
+
+        MT_CONTEXT.withContext("1", () -> executor.submit("table"));
+        awaitWorkers();
+
+        assertEquals(1.0, meterRegistry.counter(NAME + ".DeleteTable.JobFailures").count());
+        assertEquals(0, meterRegistry.timer(NAME + ".DeleteTable.JobLatency").count());
+    }
+
+    private DeleteTableJobExecutor newExecutor(int maxConcurrentJobs) {
+        return new DeleteTableJobExecutor(NAME, repo, MT_CONTEXT, workers, poller, maxConcurrentJobs, LEASE_MILLIS,
+            LEASE_MILLIS / 2, Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC), meterRegistry);
+    }
+
+    private void awaitWorkers() throws InterruptedException {
+        workers.shutdown();
+        assertTrue(workers.awaitTermination(10, SECONDS));
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        while (meterRegistry.get(NAME + ".DeleteTable.RunningJobs").gauge().value() > 0) {
+            Thread.sleep(10L);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+}
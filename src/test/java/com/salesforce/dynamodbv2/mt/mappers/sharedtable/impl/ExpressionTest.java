@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2018, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.Expression.Token;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Tests Expression.
+ */
+class ExpressionTest {
+
+    @Test
+    void valuePlaceholdersOfConditions() {
+        Expression expression = Expression.parse("#hk = :v1 AND (:v2 < #hk OR #hk BETWEEN :v3 AND :v4)"
+            + " AND NOT #hk IN (:v5, :v6) AND begins_with(#hk, :v7) AND contains(#hk, :v8)");
+
+        assertEquals(List.of(":v1", ":v2", ":v3", ":v4", ":v5", ":v6", ":v7"),
+            List.copyOf(expression.getValuePlaceholders("#hk")));
+    }
+
+    @Test
+    void valuePlaceholdersOfNestedPathsAndFunctions() {
+        Expression expression = Expression.parse("#hk.a = :v1 and size(#hk) > :v2 and #hk[0] = :v3 and #rk = :v4");
+
+        assertTrue(expression.getValuePlaceholders("#hk").isEmpty());
+        assertEquals(List.of(":v4"), List.copyOf(expression.getValuePlaceholders("#rk")));
+    }
+
+    @Test
+    void valuePlaceholdersOfUpdate() {
+        Expression expression = Expression.parse("SET #a = :v1, #b = #b + :v2, #c = if_not_exists(#c, :v3)"
+            + " REMOVE #d, #e[1] ADD #f :v4 DELETE #g :v5");
+
+        assertEquals(List.of(":v1"), List.copyOf(expression.getValuePlaceholders("#a")));
+        assertTrue(expression.getValuePlaceholders("#b").isEmpty());
+        assertTrue(expression.getValuePlaceholders("#f").isEmpty());
+    }
+
+    @Test
+    void hasEqualityCondition() {
+        assertTrue(Expression.parse("#hk = :v").hasEqualityCondition("#hk"));
+        assertTrue(Expression.parse(":v = #hk").hasEqualityCondition("#hk"));
+        assertTrue(Expression.parse("#rk > :v1 and (#hk = :v2 and #a = :v3)").hasEqualityCondition("#hk"));
+        assertFalse(Expression.parse("#hk = :v1 or #a = :v2").hasEqualityCondition("#hk"));
+        assertFalse(Expression.parse("not #hk = :v").hasEqualityCondition("#hk"));
+        assertFalse(Expression.parse("#hk >= :v").hasEqualityCondition("#hk"));
+        assertFalse(Expression.parse("#hk = #a").hasEqualityCondition("#hk"));
+    }
+
+    @Test
+    void literalNames() {
+        Expression expression = Expression.parse("field = :v and attribute_exists(other.nested) and #name = :w");
+
+        assertEquals(List.of("field", "other"),
+            expression.getLiteralNames().stream().map(Token::getText).collect(Collectors.toList()));
+    }
+
+    @Test
+    void replace() {
+        Expression expression = Expression.parse("field  =  :v AND field2 = :w AND field=:x");
+        Map<Token, String> replacements = new HashMap<>();
+        expression.getLiteralNames().stream()
+            .filter(token -> token.getText().equals("field"))
+            .forEach(token -> replacements.put(token, "#field1"));
+
+        assertEquals("#field1  =  :v AND field2 = :w AND #field1=:x", expression.replace(replacements));
+    }
+
+    @Test
+    void and() {
+        assertEquals("#a = :v and #b = :w", Expression.parse("#a = :v").and("#b = :w"));
+        assertEquals("(#a = :v or #c = :x) and #b = :w", Expression.parse("#a = :v or #c = :x").and("#b = :w"));
+    }
+
+    @Test
+    void projection() {
+        assertEquals(List.of(List.of("a"), List.of("#b", "c", "[1]", "#d"), List.of("e", "[0]", "[2]")),
+            Expression.parseProjection("a, #b . c [ 1 ].#d,e[0][2]"));
+        assertEquals(Set.of("#b", "#d"), Expression.getNames("#b.c = :v and #d = :w or #b = :x"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "", "a,", ",a", "a b", "a.", "a[b]", "a[1", "#a = :v", "size(a)" })
+    void invalidProjection(String projectionExpression) {
+        assertThrows(IllegalArgumentException.class, () -> Expression.parseProjection(projectionExpression));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "", "#a =", "#a = :v and", "#a = :v)", "#a == :v", "#a = :v; drop", "#a", "SET #a" })
+    void invalid(String expression) {
+        assertThrows(IllegalArgumentException.class, () -> Expression.parse(expression));
+    }
+
+}
@@ -13,19 +13,24 @@ import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.S;
 import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.FieldMapping.IndexType.SECONDARY_INDEX;
 import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.FieldMapping.IndexType.TABLE;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType;
 import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
+import com.salesforce.dynamodbv2.mt.context.impl.MtAmazonDynamoDbContextProviderThreadLocalImpl;
 import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.FieldMapping.Field;
 import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.FieldMapping.IndexType;
+import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Optional;
 import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
@@ -43,6 +48,7 @@ class FieldMapperTest {
     private static final MtAmazonDynamoDbContextProvider CONTEXT_PROVIDER = () -> Optional.of(CONTEXT);
     private static final FieldMapper SFM = new StringFieldMapper(CONTEXT_PROVIDER, TABLE_NAME);
     private static final FieldMapper BFM = new BinaryFieldMapper(CONTEXT_PROVIDER, TABLE_NAME);
+    private static final FieldMapper BFM_COMPACT = new BinaryFieldMapper(CONTEXT_PROVIDER, TABLE_NAME, true);
     private static final byte[] TEST_BYTES = { 0x00, 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07 };
 
     private static ByteBuffer prefix(int valueLength) {
@@ -50,6 +56,16 @@ class FieldMapperTest {
             .put(UTF_8.encode(CONTEXT)).put((byte) 0x00).put(UTF_8.encode(TABLE_NAME)).put((byte) 0x00);
     }
 
+    // copies the given buffer into a direct buffer
+    private static ByteBuffer direct(ByteBuffer buffer) {
+        return ByteBuffer.allocateDirect(buffer.remaining()).put(buffer).flip();
+    }
+
+    // copies the given buffer into a slice of a larger heap buffer, i.e., one with a non-zero array offset
+    private static ByteBuffer withOffset(ByteBuffer buffer) {
+        return ByteBuffer.allocate(buffer.remaining() + 4).position(2).put(buffer).flip().position(2).slice();
+    }
+
     static Stream<Object[]> data() {
         return Arrays.stream(new Object[][] {
             { SFM, S, S, TABLE, new AttributeValue("value"), new AttributeValue(PREFIX + "value") },
@@ -57,6 +73,8 @@ class FieldMapperTest {
             { SFM, N, S, TABLE, new AttributeValue().withN("123"), new AttributeValue(PREFIX + "123") },
             { SFM, B, S, TABLE, new AttributeValue().withB(ByteBuffer.wrap(TEST_BYTES)),
                 new AttributeValue(PREFIX + Base64.getEncoder().encodeToString(TEST_BYTES)) },
+            { SFM, B, S, TABLE, new AttributeValue().withB(withOffset(ByteBuffer.wrap(TEST_BYTES))),
+                new AttributeValue(PREFIX + Base64.getEncoder().encodeToString(TEST_BYTES)) },
             { BFM, S, B, TABLE, new AttributeValue("value"), new AttributeValue()
                 .withB(prefix(5).put(UTF_8.encode("value")).flip()) },
             { BFM, S, B, SECONDARY_INDEX, new AttributeValue("a\u0000b"), new AttributeValue()
@@ -64,7 +82,25 @@ class FieldMapperTest {
             { BFM, N, B, TABLE, new AttributeValue().withN("1.1"), new AttributeValue().withB(
                 prefix(5).put(ByteBuffer.allocate(5).putInt(1).put((byte) 11).array()).flip()) },
             { BFM, B, B, TABLE, new AttributeValue().withB(ByteBuffer.wrap(TEST_BYTES)),
-                new AttributeValue().withB(prefix(TEST_BYTES.length).put(TEST_BYTES).flip()) }
+                new AttributeValue().withB(prefix(TEST_BYTES.length).put(TEST_BYTES).flip()) },
+            { BFM, S, B, TABLE, new AttributeValue("value"), new AttributeValue()
+                .withB(direct(prefix(5).put(UTF_8.encode("value")).flip())) },
+            { BFM, S, B, TABLE, new AttributeValue("value"), new AttributeValue()
+                .withB(withOffset(prefix(5).put(UTF_8.encode("value")).flip())) },
+            { BFM, N, B, TABLE, new AttributeValue().withN("1.1"), new AttributeValue().withB(
+                direct(prefix(5).put(ByteBuffer.allocate(5).putInt(1).put((byte) 11).array()).flip())) },
+            { BFM, N, B, TABLE, new AttributeValue().withN("1.1"), new AttributeValue().withB(
+                withOffset(prefix(5).put(ByteBuffer.allocate(5).putInt(1).put((byte) 11).array()).flip())) },
+            { BFM_COMPACT, N, B, TABLE, new AttributeValue().withN("123"), new AttributeValue().withB(
+                prefix(2).put((byte) 0x01).put((byte) 123).flip()) },
+            { BFM_COMPACT, N, B, TABLE, new AttributeValue().withN("-129"), new AttributeValue().withB(
+                prefix(3).put((byte) 0x01).putShort((short) -129).flip()) },
+            { BFM_COMPACT, N, B, TABLE, new AttributeValue().withN("-999999999999999999"), new AttributeValue().withB(
+                prefix(9).put((byte) 0x01).putLong(-999999999999999999L).flip()) },
+            { BFM_COMPACT, N, B, TABLE, new AttributeValue().withN("1.1"), new AttributeValue().withB(
+                prefix(5).put(ByteBuffer.allocate(5).putInt(1).put((byte) 11).array()).flip()) },
+            { BFM_COMPACT, N, B, TABLE, new AttributeValue().withN("1234567890123456789"), new AttributeValue().withB(
+                prefix(12).putInt(0).put(new BigInteger("1234567890123456789").toByteArray()).flip()) }
         });
     }
 
@@ -142,6 +178,44 @@ class FieldMapperTest {
         assertEquals(expected, fieldMapper.createFilter().test(value));
     }
 
+    @Test
+    void testPrefixPerContext() {
+        MtAmazonDynamoDbContextProviderThreadLocalImpl mtContext = new MtAmazonDynamoDbContextProviderThreadLocalImpl();
+        FieldMapping fieldMapping = buildFieldMapping(S, S, TABLE);
+        FieldMapper fieldMapper = new StringFieldMapper(mtContext, TABLE_NAME);
+        AttributeValue value = new AttributeValue("value");
+
+        assertEquals(new AttributeValue("ctx1/table/value"),
+            mtContext.withContext("ctx1", () -> fieldMapper.apply(fieldMapping, value)));
+        assertEquals(new AttributeValue("ctx2/table/value"),
+            mtContext.withContext("ctx2", () -> fieldMapper.apply(fieldMapping, value)));
+        assertEquals(new AttributeValue("ctx1/table/value"),
+            mtContext.withContext("ctx1", () -> fieldMapper.apply(fieldMapping, value)));
+        assertFalse(mtContext.withContext("ctx2", fieldMapper::createFilter).test(new AttributeValue("ctx1/table/a")));
+    }
+
+    @Test
+    void testReverseReadsBothNumberEncodings() {
+        FieldMapping fieldMapping = reverseFieldMapping(buildFieldMapping(N, B, TABLE));
+        AttributeValue compact = new AttributeValue().withB(prefix(2).put((byte) 0x01).put((byte) 5).flip());
+        AttributeValue scaled = new AttributeValue().withB(prefix(5).putInt(0).put((byte) 5).flip());
+
+        assertEquals(new AttributeValue().withN("5"), BFM.reverse(fieldMapping, compact));
+        assertEquals(new AttributeValue().withN("5"), BFM_COMPACT.reverse(fieldMapping, scaled));
+    }
+
+    @Test
+    void testReverseCopiesBinaryValue() {
+        FieldMapping fieldMapping = reverseFieldMapping(buildFieldMapping(B, B, TABLE));
+        ByteBuffer qualifiedValue = prefix(TEST_BYTES.length).put(TEST_BYTES).flip();
+
+        ByteBuffer value = BFM.reverse(fieldMapping, new AttributeValue().withB(qualifiedValue)).getB();
+        qualifiedValue.put(qualifiedValue.limit() - 1, (byte) 0x7F);
+
+        assertEquals(0, value.arrayOffset());
+        assertArrayEquals(TEST_BYTES, value.array());
+    }
+
     private FieldMapping buildFieldMapping(ScalarAttributeType sourceFieldType, ScalarAttributeType targetFieldType,
                                            IndexType indexType) {
         return new FieldMapping(
@@ -13,6 +13,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
@@ -67,6 +68,22 @@ class FieldPrefixFunctionTest {
         assertEquals(expected, sut.reverse(actual));
     }
 
+    @Test
+    void reverseBinaryReturnsView() {
+        ByteBuffer qualifiedValue = qualifiedBinaryValue("ctx", "table", "value");
+        ByteBuffer direct = ByteBuffer.allocateDirect(qualifiedValue.remaining() + 2);
+        direct.position(2);
+        direct.put(qualifiedValue).flip().position(2);
+
+        FieldValue<ByteBuffer> fieldValue = BinaryFieldPrefixFunction.INSTANCE.reverse(direct);
+
+        assertEquals(new FieldValue<>("ctx", "table", UTF_8.encode("value")), fieldValue);
+        assertEquals(2, direct.position());
+        // the value is not copied
+        direct.put(direct.limit() - 1, (byte) 'x');
+        assertEquals(UTF_8.encode("valux"), fieldValue.getValue());
+    }
+
     private static Stream<Object[]> filterForEach(Stream<Object[]> stream) {
         return stream.flatMap(e -> Stream.of(
             new Object[] { StringFieldPrefixFunction.INSTANCE, e[0], e[1],
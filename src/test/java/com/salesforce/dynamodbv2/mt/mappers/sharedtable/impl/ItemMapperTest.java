@@ -10,6 +10,7 @@ package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
 import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.S;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.google.common.collect.ImmutableMap;
@@ -17,6 +18,7 @@ import com.salesforce.dynamodbv2.mt.mappers.CreateTableRequestBuilder;
 import com.salesforce.dynamodbv2.mt.mappers.index.DynamoSecondaryIndexMapperByTypeImpl;
 import com.salesforce.dynamodbv2.mt.mappers.metadata.DynamoTableDescriptionImpl;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Predicate;
 import org.junit.jupiter.api.Test;
 
@@ -60,9 +62,46 @@ class ItemMapperTest {
         assertEquals(item, reversedItem);
     }
 
+    @Test
+    void applyAndReversePartialKey() {
+        Map<String, AttributeValue> item = ImmutableMap.of(
+            "virtualHk", new AttributeValue().withS("hkValue"),
+            "someField", new AttributeValue().withS("someValue"));
+
+        Map<String, AttributeValue> mappedItem = SUT.apply(item);
+
+        assertEquals(ImmutableMap.of(
+            "physicalHk", new AttributeValue().withS(PREFIX + "hkValue"),
+            "someField", new AttributeValue().withS("someValue")), mappedItem);
+        assertEquals(item, SUT.reverse(mappedItem));
+    }
+
     @Test
     void reverseNull() {
         assertNull(SUT.reverse(null));
+        assertNull(SUT.reverseView(null));
+    }
+
+    @Test
+    void reverseView() {
+        Map<String, AttributeValue> mappedItem = ImmutableMap.of(
+            "physicalHk", new AttributeValue().withS(PREFIX + "hkValue"),
+            "physicalRk", new AttributeValue().withS("rkValue"),
+            "someField", new AttributeValue().withS("someValue"));
+
+        Map<String, AttributeValue> view = SUT.reverseView(mappedItem);
+
+        assertEquals(SUT.reverse(mappedItem), view);
+        assertEquals(new AttributeValue().withS("hkValue"), view.get("virtualHk"));
+        assertNull(view.get("physicalHk"));
+        assertEquals(3, view.size());
+        assertThrows(UnsupportedOperationException.class,
+            () -> view.put("someField", new AttributeValue().withS("otherValue")));
+        assertThrows(UnsupportedOperationException.class, () -> view.keySet().remove("someField"));
+
+        Map<String, AttributeValue> retainedView = ((ReverseMappedItemView) view).retain(Set.of("virtualHk", "a"));
+        assertEquals(ImmutableMap.of("virtualHk", new AttributeValue().withS("hkValue")), retainedView);
+        assertNull(retainedView.get("someField"));
     }
 
     private static class MockFieldMapper implements FieldMapper {
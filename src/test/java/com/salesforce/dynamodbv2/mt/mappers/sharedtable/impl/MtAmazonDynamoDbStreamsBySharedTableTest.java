@@ -177,6 +177,44 @@ class MtAmazonDynamoDbStreamsBySharedTableTest {
         }
     }
 
+    /**
+     * Verifies that GetRecords without context returns the records of interleaved tenants in stream order, even though
+     * they are mapped per tenant.
+     */
+    @Test
+    void testRecordsInterleavedTenants() {
+        String tablePrefix = TABLE_PREFIX + "testRecordsInterleavedTenants.";
+
+        MtAmazonDynamoDbBySharedTable mtDynamoDb = SharedTableBuilder.builder()
+            .withCreateTableRequests(MtAmazonDynamoDbStreamsBaseTestUtils
+                .newCreateTableRequest(MtAmazonDynamoDbStreamsBaseTestUtils.SHARED_TABLE_NAME, true))
+            .withAmazonDynamoDb(AmazonDynamoDbLocal.getAmazonDynamoDbLocal())
+            .withTablePrefix(tablePrefix)
+            .withCreateTablesEagerly(true)
+            .withContext(MT_CONTEXT)
+            .build();
+        try {
+            MtAmazonDynamoDbStreamsBaseTestUtils.createTenantTables(mtDynamoDb);
+
+            MtRecord expected1 = MtAmazonDynamoDbStreamsBaseTestUtils
+                .putTestItem(mtDynamoDb, MtAmazonDynamoDbStreamsBaseTestUtils.TENANTS[0], 0);
+            MtRecord expected2 = MtAmazonDynamoDbStreamsBaseTestUtils
+                .putTestItem(mtDynamoDb, MtAmazonDynamoDbStreamsBaseTestUtils.TENANTS[1], 0);
+            MtRecord expected3 = MtAmazonDynamoDbStreamsBaseTestUtils
+                .putTestItem(mtDynamoDb, MtAmazonDynamoDbStreamsBaseTestUtils.TENANTS[0], 1);
+            MtRecord expected4 = MtAmazonDynamoDbStreamsBaseTestUtils
+                .putTestItem(mtDynamoDb, MtAmazonDynamoDbStreamsBaseTestUtils.TENANTS[1], 1);
+
+            MtAmazonDynamoDbStreams mtDynamoDbStreams = MtAmazonDynamoDbStreams.createFromDynamo(mtDynamoDb,
+                AmazonDynamoDbLocal.getAmazonDynamoDbStreamsLocal());
+            String iterator = getShardIterator(mtDynamoDbStreams);
+            MtAmazonDynamoDbStreamsBaseTestUtils
+                .assertGetRecords(mtDynamoDbStreams, iterator, expected1, expected2, expected3, expected4);
+        } finally {
+            MtAmazonDynamoDbStreamsBaseTestUtils.deleteMtTables(mtDynamoDb);
+        }
+    }
+
     /**
      * Verifies that GetRecords attempts to fetch multiple pages if result below limit after filtering, but stops if
      * next page contains more records than needed.
@@ -0,0 +1,155 @@
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests ParallelScanIterator.
+ */
+class ParallelScanIteratorTest {
+
+    private static final String TABLE = "table";
+    private static final int PAGES_PER_SEGMENT = 3;
+    private static final int ITEMS_PER_PAGE = 2;
+
+    private static final UnaryOperator<List<Map<String, AttributeValue>>> IDENTITY = items -> items;
+
+    /*
+     * Simulates a table in which every segment has PAGES_PER_SEGMENT pages with ITEMS_PER_PAGE items each.  Items and
+     * keys are encoded as "<segment>-<page>-<item>" and "<segment>-<page>", respectively.
+     */
+    private static final Function<ScanRequest, ScanResult> SCAN = scanRequest -> {
+        int segment = scanRequest.getSegment();
+        int page = scanRequest.getExclusiveStartKey() == null ? 0
+            : Integer.parseInt(scanRequest.getExclusiveStartKey().get("key").getS().split("-")[1]) + 1;
+        List<Map<String, AttributeValue>> items = IntStream.range(0, ITEMS_PER_PAGE)
+            .mapToObj(item -> item(segment + "-" + page + "-" + item))
+            .collect(Collectors.toList());
+        return new ScanResult()
+            .withItems(items)
+            .withLastEvaluatedKey(page == PAGES_PER_SEGMENT - 1 ? null
+                : ImmutableMap.of("key", new AttributeValue(segment + "-" + page)));
+    };
+
+    // fewer threads than segments, so that segments wait for threads to become available
+    private ExecutorService executor;
+
+    @BeforeEach
+    void beforeEach() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void afterEach() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void scansAllSegments() {
+        ParallelScanCheckpoint checkpoint = new ParallelScanCheckpoint(4);
+
+        Set<Map<String, AttributeValue>> items;
+        try (ParallelScanIterator iterator = newIterator(SCAN, checkpoint)) {
+            items = iterator.stream().collect(Collectors.toSet());
+        }
+
+        assertEquals(getAllItems(4), items);
+        assertTrue(checkpoint.isCompleted());
+    }
+
+    @Test
+    void resumesFromCheckpoint() {
+        ParallelScanCheckpoint checkpoint = new ParallelScanCheckpoint(2);
+        checkpoint.update(0, null);
+        checkpoint.update(1, ImmutableMap.of("key", new AttributeValue("1-0")));
+
+        Set<Map<String, AttributeValue>> items;
+        try (ParallelScanIterator iterator = newIterator(SCAN, checkpoint)) {
+            items = iterator.stream().collect(Collectors.toSet());
+        }
+
+        assertEquals(getAllItems(2).stream()
+            .filter(item -> item.get("id").getS().startsWith("1-") && !item.get("id").getS().startsWith("1-0"))
+            .collect(Collectors.toSet()), items);
+        assertTrue(checkpoint.isCompleted());
+    }
+
+    @Test
+    void checkpointsConsumedPages() {
+        ParallelScanCheckpoint checkpoint = new ParallelScanCheckpoint(1);
+
+        try (ParallelScanIterator iterator = newIterator(SCAN, checkpoint)) {
+            // consume the first page and one item of the second page
+            for (int i = 0; i < ITEMS_PER_PAGE + 1; i++) {
+                iterator.next();
+            }
+        }
+
+        assertFalse(checkpoint.isCompleted());
+        assertEquals(ImmutableMap.of("key", new AttributeValue("0-0")), checkpoint.getLastEvaluatedKey(0).get());
+    }
+
+    @Test
+    void propagatesScanFailure() {
+        RuntimeException exception = new RuntimeException("scan failed");
+        ParallelScanCheckpoint checkpoint = new ParallelScanCheckpoint(2);
+
+        try (ParallelScanIterator iterator = newIterator(scanRequest -> {
+            if (scanRequest.getSegment() == 1) {
+                throw exception;
+            }
+            return SCAN.apply(scanRequest);
+        }, checkpoint)) {
+            assertSame(exception, assertThrows(RuntimeException.class, () -> {
+                while (iterator.hasNext()) {
+                    iterator.next();
+                }
+            }));
+        }
+
+        assertFalse(checkpoint.isCompleted(1));
+    }
+
+    private ParallelScanIterator newIterator(Function<ScanRequest, ScanResult> scan,
+                                             ParallelScanCheckpoint checkpoint) {
+        return new ParallelScanIterator(new ScanRequest(TABLE), scan, IDENTITY, checkpoint, 2, executor);
+    }
+
+    private static Set<Map<String, AttributeValue>> getAllItems(int totalSegments) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        for (int segment = 0; segment < totalSegments; segment++) {
+            for (int page = 0; page < PAGES_PER_SEGMENT; page++) {
+                for (int item = 0; item < ITEMS_PER_PAGE; item++) {
+                    items.add(item(segment + "-" + page + "-" + item));
+                }
+            }
+        }
+        return Set.copyOf(items);
+    }
+
+    private static Map<String, AttributeValue> item(String id) {
+        return ImmutableMap.of("id", new AttributeValue(id));
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2018, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.S;
+import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.FieldMapping.IndexType.SECONDARY_INDEX;
+import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.FieldMapping.IndexType.TABLE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.collect.ImmutableMap;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.FieldMapping.Field;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.ProjectionMapper.Projection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests ProjectionMapper.
+ */
+class ProjectionMapperTest {
+
+    private static final ProjectionMapper SUT = new ProjectionMapper(ImmutableMap.of(
+        "virtualHk", List.of(
+            new FieldMapping(new Field("virtualHk", S), new Field("physicalHk", S), null, null, TABLE, true)),
+        "virtualRk", List.of(
+            new FieldMapping(new Field("virtualRk", S), new Field("physicalRk", S), null, null, TABLE, false),
+            new FieldMapping(new Field("virtualRk", S), new Field("physicalGsiHk", S), "gsi", "gsi",
+                SECONDARY_INDEX, true))));
+
+    @Test
+    void noProjection() {
+        assertFalse(SUT.apply(null, null, null, List.of("virtualHk")).isPresent());
+    }
+
+    @Test
+    void mapsKeyFieldsAndNames() {
+        Projection projection = SUT.apply("virtualHk, #a.b[1], #rk", null,
+            ImmutableMap.of("#a", "a", "#rk", "virtualRk"), List.of()).get();
+
+        Map<String, String> expressionAttributeNames = new HashMap<>();
+        assertEquals("#___attr1___, #___attr2___.#___attr3___[1], #___attr4___, #___attr5___",
+            projection.toExpression(expressionAttributeNames));
+        assertEquals(ImmutableMap.of(
+            "#___attr1___", "physicalHk",
+            "#___attr2___", "a",
+            "#___attr3___", "b",
+            "#___attr4___", "physicalRk",
+            "#___attr5___", "physicalGsiHk"), expressionAttributeNames);
+    }
+
+    @Test
+    void addsAndStripsRequiredAttributes() {
+        Projection projection = SUT.apply(null, List.of("a", "virtualRk"), null, List.of("virtualHk", "virtualRk"))
+            .get();
+
+        Map<String, String> expressionAttributeNames = new HashMap<>();
+        assertEquals("#___attr1___, #___attr2___, #___attr3___, #___attr4___",
+            projection.toExpression(expressionAttributeNames));
+        assertEquals("physicalHk", expressionAttributeNames.get("#___attr4___"));
+
+        Map<String, AttributeValue> item = new HashMap<>(ImmutableMap.of(
+            "a", new AttributeValue("1"),
+            "virtualHk", new AttributeValue("2"),
+            "virtualRk", new AttributeValue("3")));
+        assertEquals(ImmutableMap.of("a", new AttributeValue("1"), "virtualRk", new AttributeValue("3")),
+            projection.strip(item));
+    }
+
+    @Test
+    void unionRemovesOverlappingPaths() {
+        Projection projection = SUT.apply("a.b, c", null, null, List.of()).get()
+            .union(SUT.apply("a, c", null, null, List.of()).get());
+
+        Map<String, String> expressionAttributeNames = new HashMap<>();
+        assertEquals("#___attr1___, #___attr2___", projection.toExpression(expressionAttributeNames));
+        assertEquals(ImmutableMap.of("#___attr1___", "c", "#___attr2___", "a"), expressionAttributeNames);
+    }
+
+    @Test
+    void getReferencedNames() {
+        assertEquals(ImmutableMap.of("#field1", "physicalHk"), ProjectionMapper.getReferencedNames(
+            ImmutableMap.of("#field1", "physicalHk", "#field", "a"), "#field1 = :value", null));
+    }
+
+    @Test
+    void ignoresWhitespace() {
+        Projection projection = SUT.apply(" #rk [ 0 ] ,  a . b ", null, ImmutableMap.of("#rk", "virtualRk"), List.of())
+            .get();
+
+        Map<String, String> expressionAttributeNames = new HashMap<>();
+        assertEquals("#___attr1___[0], #___attr2___[0], #___attr3___.#___attr4___",
+            projection.toExpression(expressionAttributeNames));
+        assertEquals(ImmutableMap.of(
+            "#___attr1___", "physicalRk",
+            "#___attr2___", "physicalGsiHk",
+            "#___attr3___", "a",
+            "#___attr4___", "b"), expressionAttributeNames);
+    }
+
+    @Test
+    void undefinedName() {
+        assertThrows(IllegalArgumentException.class, () -> SUT.apply("#a", null, null, List.of()));
+    }
+
+    @Test
+    void projectionExpressionAndAttributesToGet() {
+        assertThrows(IllegalArgumentException.class, () -> SUT.apply("a", List.of("a"), null, List.of()));
+    }
+
+}
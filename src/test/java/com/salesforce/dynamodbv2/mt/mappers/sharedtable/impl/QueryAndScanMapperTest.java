@@ -10,6 +10,7 @@ package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
 import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.S;
 import static com.salesforce.dynamodbv2.mt.mappers.index.DynamoSecondaryIndex.DynamoSecondaryIndexType.GSI;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
@@ -18,6 +19,7 @@ import static org.mockito.Mockito.when;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.ConditionalOperator;
 import com.amazonaws.services.dynamodbv2.model.QueryRequest;
 import com.amazonaws.services.dynamodbv2.model.ScanRequest;
 import com.google.common.collect.ImmutableMap;
@@ -64,6 +66,15 @@ class QueryAndScanMapperTest {
         }
     );
 
+    private static final TableMapping RANGE_KEY_TABLE_MAPPING = new TableMapping(
+            new DynamoTableDescriptionImpl(CreateTableRequestBuilder.builder()
+                    .withTableName("virtualTable")
+                    .withTableKeySchema("virtualHk", S, "virtualRk", S).build()),
+            new SingletonCreateTableRequestFactory(CreateTableRequestBuilder.builder()
+                    .withTableKeySchema("physicalHk", S, "physicalRk", S).build()),
+            new DynamoSecondaryIndexMapperByTypeImpl(),
+            () -> Optional.of("ctx"));
+
     private QueryAndScanMapper getMockQueryMapper() {
         return new QueryAndScanMapper(TABLE_MAPPING, null);
     }
@@ -86,8 +97,8 @@ class QueryAndScanMapperTest {
     }
 
     /*
-     * not testing with GT, GE, LT, or LE parameters since test would fail, since queryContainsHashKeyCondition will
-     * return false (it currently looks for a " = " substring)
+     * not testing with GT, GE, LT, or LE parameters since test would fail, since only an equality condition on the hash
+     * key restricts the query to a single hash key, so a begins_with condition would be added
      */
     @ParameterizedTest
     @EnumSource(value = ComparisonOperator.class, names = { "EQ" })
@@ -108,6 +119,117 @@ class QueryAndScanMapperTest {
                 queryRequest);
     }
 
+    @Test
+    void queryWithRangeKeyConditions() {
+        QueryRequest queryRequest = new QueryRequest()
+                .withKeyConditions(ImmutableMap.of(
+                        "virtualHk", new Condition()
+                                .withComparisonOperator(ComparisonOperator.EQ)
+                                .withAttributeValueList(new AttributeValue().withS("hkValue")),
+                        "virtualRk", new Condition()
+                                .withComparisonOperator(ComparisonOperator.BETWEEN)
+                                .withAttributeValueList(new AttributeValue().withS("a"),
+                                        new AttributeValue().withS("c"))));
+
+        RANGE_KEY_TABLE_MAPPING.getQueryAndScanMapper().apply(queryRequest);
+
+        // the range key condition is part of the physical key condition
+        assertEquals(new QueryRequest()
+                        .withKeyConditionExpression("#field1 = :value1 AND #field2 BETWEEN :value2 AND :value3")
+                        .withExpressionAttributeNames(ImmutableMap.of("#field1", "physicalHk", "#field2", "physicalRk"))
+                        .withExpressionAttributeValues(ImmutableMap.of(
+                                ":value1", new AttributeValue().withS("ctx/virtualTable/hkValue"),
+                                ":value2", new AttributeValue().withS("a"),
+                                ":value3", new AttributeValue().withS("c"))),
+                queryRequest);
+    }
+
+    @Test
+    void queryWithLegacyQueryFilter() {
+        assertThrows(IllegalArgumentException.class, () -> getMockQueryMapper()
+                .apply(new QueryRequest()
+                        .withKeyConditionExpression("virtualHk = :value")
+                        .withExpressionAttributeValues(ImmutableMap.of(":value", new AttributeValue().withS("hk")))
+                        .withQueryFilter(ImmutableMap.of("someField", new Condition()
+                                .withComparisonOperator(ComparisonOperator.NOT_NULL)))));
+    }
+
+    @Test
+    void queryWithUnsupportedKeyConditionOperator() {
+        assertThrows(IllegalArgumentException.class, () -> getMockQueryMapper()
+                .apply(new QueryRequest().withKeyConditions(ImmutableMap.of("virtualHk",
+                        new Condition()
+                                .withComparisonOperator(ComparisonOperator.IN)
+                                .withAttributeValueList(new AttributeValue().withS("hkValue"))))));
+    }
+
+    @Test
+    void scanWithLegacyFilterOperators() {
+        ScanRequest scanRequest = new ScanRequest()
+                .withScanFilter(ImmutableMap.of(
+                        "virtualHk", new Condition()
+                                .withComparisonOperator(ComparisonOperator.BEGINS_WITH)
+                                .withAttributeValueList(new AttributeValue().withS("hk")),
+                        "someField", new Condition()
+                                .withComparisonOperator(ComparisonOperator.IN)
+                                .withAttributeValueList(new AttributeValue().withS("a"),
+                                        new AttributeValue().withS("b")),
+                        "otherField", new Condition()
+                                .withComparisonOperator(ComparisonOperator.NULL)));
+
+        TABLE_MAPPING.getQueryAndScanMapper().apply(scanRequest);
+
+        assertEquals(new ScanRequest()
+                        .withFilterExpression("begins_with(#field1, :value1) AND #field2 IN (:value2, :value3)"
+                                + " AND attribute_not_exists(#field3) and begins_with(#___name___, :___value___)")
+                        .withExpressionAttributeNames(ImmutableMap.of(
+                                "#field1", "physicalHk",
+                                "#field2", "someField",
+                                "#field3", "otherField",
+                                "#___name___", "physicalHk"))
+                        .withExpressionAttributeValues(ImmutableMap.of(
+                                ":value1", new AttributeValue().withS("ctx/virtualTable/hk"),
+                                ":value2", new AttributeValue().withS("a"),
+                                ":value3", new AttributeValue().withS("b"),
+                                ":___value___", new AttributeValue().withS("ctx/virtualTable/"))),
+                scanRequest);
+    }
+
+    @Test
+    void scanWithLegacyFilterDisjunction() {
+        ScanRequest scanRequest = new ScanRequest()
+                .withScanFilter(ImmutableMap.of(
+                        "someField", new Condition()
+                                .withComparisonOperator(ComparisonOperator.EQ)
+                                .withAttributeValueList(new AttributeValue().withS("a")),
+                        "otherField", new Condition()
+                                .withComparisonOperator(ComparisonOperator.NOT_NULL)))
+                .withConditionalOperator(ConditionalOperator.OR);
+
+        TABLE_MAPPING.getQueryAndScanMapper().apply(scanRequest);
+
+        assertEquals(new ScanRequest()
+                        .withFilterExpression("(#field1 = :value1 OR attribute_exists(#field2))"
+                                + " and begins_with(#___name___, :___value___)")
+                        .withExpressionAttributeNames(ImmutableMap.of(
+                                "#field1", "someField",
+                                "#field2", "otherField",
+                                "#___name___", "physicalHk"))
+                        .withExpressionAttributeValues(ImmutableMap.of(
+                                ":value1", new AttributeValue().withS("a"),
+                                ":___value___", new AttributeValue().withS("ctx/virtualTable/"))),
+                scanRequest);
+    }
+
+    @Test
+    void scanWithMissingAttributeValues() {
+        assertThrows(IllegalArgumentException.class, () -> getMockQueryMapper()
+                .apply(new ScanRequest().withScanFilter(ImmutableMap.of("someField",
+                        new Condition()
+                                .withComparisonOperator(ComparisonOperator.BETWEEN)
+                                .withAttributeValueList(new AttributeValue().withS("a"))))));
+    }
+
     @Test
     void nonIndexQueryWithLiterals() {
         QueryRequest queryRequest = new QueryRequest()
@@ -207,6 +329,49 @@ class QueryAndScanMapperTest {
                 scanRequest);
     }
 
+    @Test
+    void scanWithDisjunction() {
+        ScanRequest scanRequest = new ScanRequest()
+                .withFilterExpression("virtualHk = :value OR #field = :value2")
+                .withExpressionAttributeNames(ImmutableMap.of("#field", "someField"))
+                .withExpressionAttributeValues(ImmutableMap.of(
+                        ":value", new AttributeValue().withS("hkValue"),
+                        ":value2", new AttributeValue().withS("someValue")));
+
+        TABLE_MAPPING.getQueryAndScanMapper().apply(scanRequest);
+
+        // an equality condition in a disjunction does not restrict the scan to the tenant's hash keys
+        assertEquals(new ScanRequest()
+                        .withFilterExpression(
+                                "(#field1 = :value OR #field = :value2) and begins_with(#___name___, :___value___)")
+                        .withExpressionAttributeNames(ImmutableMap.of(
+                                "#field", "someField",
+                                "#field1", "physicalHk",
+                                "#___name___", "physicalHk"))
+                        .withExpressionAttributeValues(ImmutableMap.of(
+                                ":value", new AttributeValue().withS("ctx/virtualTable/hkValue"),
+                                ":value2", new AttributeValue().withS("someValue"),
+                                ":___value___", new AttributeValue().withS("ctx/virtualTable/"))),
+                scanRequest);
+    }
+
+    @Test
+    void repeatedQueryMapsValues() {
+        QueryAndScanMapper sut = getMockQueryMapper();
+        for (String hkValue : new String[] { "hkValue1", "hkValue2" }) {
+            QueryRequest queryRequest = new QueryRequest()
+                    .withKeyConditionExpression("#field = :value")
+                    .withExpressionAttributeNames(ImmutableMap.of("#field", "virtualHk"))
+                    .withExpressionAttributeValues(ImmutableMap.of(":value", new AttributeValue().withS(hkValue)));
+
+            sut.apply(queryRequest);
+
+            assertEquals(ImmutableMap.of("#field", "physicalHk"), queryRequest.getExpressionAttributeNames());
+            assertEquals(ImmutableMap.of(":value", new AttributeValue().withS("ctx/virtualTable/" + hkValue)),
+                    queryRequest.getExpressionAttributeValues());
+        }
+    }
+
     @ParameterizedTest
     @EnumSource(value = ComparisonOperator.class, names = { "EQ", "GT", "GE", "LT", "LE" })
     void scanWithFilterExpressionAndScanFilter(ComparisonOperator comparisonOperator) {
@@ -3,6 +3,7 @@ package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
 import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.S;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.amazonaws.regions.Regions;
@@ -103,4 +104,35 @@ class RecordMapperTest {
         assertEquals(expected, sut.apply(record));
     }
 
+    @Test
+    void testMapProjection() {
+        final AttributeValue physicalHkVal = new AttributeValue("context/table/hkVal");
+        final AttributeValue rkVal = new AttributeValue("rkVal");
+        final AttributeValue virtualHkVal = new AttributeValue("hkVal");
+        final Record record = new Record()
+            .withDynamodb(
+                new StreamRecord()
+                    .withKeys(ImmutableMap.of(physicalHk, physicalHkVal, physicalRk, rkVal))
+                    .withOldImage(ImmutableMap.of(physicalHk, physicalHkVal, physicalRk, rkVal))
+                    .withNewImage(ImmutableMap.of(physicalHk, physicalHkVal, physicalRk, rkVal))
+                    .withStreamViewType(StreamViewType.NEW_AND_OLD_IMAGES)
+            );
+
+        final StreamRecord keysOnly = sut.apply(record, StreamViewType.KEYS_ONLY).getDynamodb();
+        assertEquals(ImmutableMap.of(virtualHk, virtualHkVal, virtualRk, rkVal), keysOnly.getKeys());
+        assertNull(keysOnly.getNewImage());
+        assertNull(keysOnly.getOldImage());
+        assertEquals(StreamViewType.KEYS_ONLY.toString(), keysOnly.getStreamViewType());
+
+        final StreamRecord newImage = sut.apply(record, StreamViewType.NEW_IMAGE).getDynamodb();
+        assertEquals(ImmutableMap.of(virtualHk, virtualHkVal, virtualRk, rkVal), newImage.getNewImage());
+        assertNull(newImage.getOldImage());
+        assertEquals(StreamViewType.NEW_IMAGE.toString(), newImage.getStreamViewType());
+
+        // the projection cannot add images that the record doesn't have
+        record.getDynamodb().withOldImage(null).withStreamViewType(StreamViewType.NEW_IMAGE);
+        assertEquals(StreamViewType.KEYS_ONLY.toString(),
+            sut.apply(record, StreamViewType.OLD_IMAGE).getDynamodb().getStreamViewType());
+    }
+
 }
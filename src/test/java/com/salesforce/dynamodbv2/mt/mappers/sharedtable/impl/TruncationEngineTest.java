@@ -0,0 +1,182 @@
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.S;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.google.common.collect.ImmutableMap;
+import com.salesforce.dynamodbv2.mt.mappers.metadata.PrimaryKey;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests TruncationEngine.
+ */
+class TruncationEngineTest {
+
+    private static final String TABLE = "table";
+    private static final String NAME = "test";
+    private static final PrimaryKey PRIMARY_KEY = new PrimaryKey("hk", S, "rk", S);
+    private static final int FIRST_PAGE_SIZE = 30;
+    private static final int SECOND_PAGE_SIZE = 5;
+
+    private ExecutorService executor;
+    private SimpleMeterRegistry meterRegistry;
+    private AmazonDynamoDB amazonDynamoDb;
+    private List<ScanRequest> scanRequests;
+    private List<BatchWriteItemRequest> batchWriteItemRequests;
+
+    @BeforeEach
+    void beforeEach() {
+        executor = Executors.newFixedThreadPool(2);
+        meterRegistry = new SimpleMeterRegistry();
+        amazonDynamoDb = mock(AmazonDynamoDB.class);
+        scanRequests = Collections.synchronizedList(new ArrayList<>());
+        batchWriteItemRequests = Collections.synchronizedList(new ArrayList<>());
+        // every segment has two pages
+        when(amazonDynamoDb.scan(any(ScanRequest.class))).thenAnswer(invocation -> {
+            ScanRequest request = invocation.getArgument(0);
+            scanRequests.add(request);
+            int segment = request.getSegment() == null ? 0 : request.getSegment();
+            boolean firstPage = request.getExclusiveStartKey() == null;
+            List<Map<String, AttributeValue>> items = IntStream.range(0, firstPage ? FIRST_PAGE_SIZE : SECOND_PAGE_SIZE)
+                .mapToObj(i -> ImmutableMap.of(
+                    "hk", new AttributeValue(String.valueOf(segment)),
+                    "rk", new AttributeValue((firstPage ? "a" : "b") + i)))
+                .collect(Collectors.toList());
+            return new ScanResult().withItems(items).withLastEvaluatedKey(firstPage ? items.get(items.size() - 1)
+                : null);
+        });
+    }
+
+    @AfterEach
+    void afterEach() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void deletesAllItemsInBatches() {
+        when(amazonDynamoDb.batchWriteItem(any(BatchWriteItemRequest.class))).thenAnswer(invocation -> {
+            batchWriteItemRequests.add(invocation.getArgument(0));
+            return new BatchWriteItemResult().withUnprocessedItems(new HashMap<>());
+        });
+        ParallelScanCheckpoint checkpoint = new ParallelScanCheckpoint(2);
+        AtomicInteger progressUpdates = new AtomicInteger();
+
+        newEngine().truncate(new ScanRequest(TABLE), PRIMARY_KEY, checkpoint, c -> progressUpdates.incrementAndGet());
+
+        assertTrue(checkpoint.isCompleted());
+        assertEquals(4, progressUpdates.get());
+        assertEquals("#truncateHk, #truncateRk", scanRequests.get(0).getProjectionExpression());
+        // per segment: 25 + 5 items of the first page, 5 items of the second page
+        assertEquals(6, batchWriteItemRequests.size());
+        assertTrue(batchWriteItemRequests.stream()
+            .allMatch(request -> request.getRequestItems().get(TABLE).size() <= TruncationEngine.MAX_ITEMS_PER_BATCH));
+        assertEquals(2 * (FIRST_PAGE_SIZE + SECOND_PAGE_SIZE), getDeletedKeys().size());
+        assertEquals(2.0 * (FIRST_PAGE_SIZE + SECOND_PAGE_SIZE),
+            meterRegistry.counter(NAME + ".Truncate.DeletedItems").count());
+    }
+
+    @Test
+    void retriesUnprocessedItems() {
+        AtomicBoolean first = new AtomicBoolean(true);
+        when(amazonDynamoDb.batchWriteItem(any(BatchWriteItemRequest.class))).thenAnswer(invocation -> {
+            BatchWriteItemRequest request = invocation.getArgument(0);
+            batchWriteItemRequests.add(request);
+            Map<String, List<WriteRequest>> unprocessedItems = new HashMap<>();
+            if (first.getAndSet(false)) {
+                unprocessedItems.put(TABLE, request.getRequestItems().get(TABLE).subList(0, 1));
+            }
+            return new BatchWriteItemResult().withUnprocessedItems(unprocessedItems);
+        });
+        ParallelScanCheckpoint checkpoint = new ParallelScanCheckpoint(1);
+
+        newEngine().truncate(new ScanRequest(TABLE), PRIMARY_KEY, checkpoint, TruncationEngineTest::ignoreProgress);
+
+        assertTrue(checkpoint.isCompleted());
+        assertEquals(4, batchWriteItemRequests.size());
+        assertEquals(1, batchWriteItemRequests.get(1).getRequestItems().get(TABLE).size());
+        assertEquals(FIRST_PAGE_SIZE + SECOND_PAGE_SIZE, getDeletedKeys().size());
+    }
+
+    @Test
+    void resumesFromCheckpoint() {
+        when(amazonDynamoDb.batchWriteItem(any(BatchWriteItemRequest.class))).thenAnswer(invocation -> {
+            batchWriteItemRequests.add(invocation.getArgument(0));
+            return new BatchWriteItemResult().withUnprocessedItems(new HashMap<>());
+        });
+        ParallelScanCheckpoint checkpoint = new ParallelScanCheckpoint(2);
+        checkpoint.update(0, null);
+        checkpoint.update(1, ImmutableMap.of("hk", new AttributeValue("1"), "rk", new AttributeValue("a29")));
+
+        newEngine().truncate(new ScanRequest(TABLE), PRIMARY_KEY, ParallelScanCheckpoint.fromItem(checkpoint.toItem()),
+            TruncationEngineTest::ignoreProgress);
+
+        assertEquals(1, scanRequests.size());
+        assertEquals(1, scanRequests.get(0).getSegment().intValue());
+        assertEquals(SECOND_PAGE_SIZE, getDeletedKeys().size());
+    }
+
+    @Test
+    void recordsProgressOfCompletedSegmentsOnFailure() {
+        RuntimeException exception = new RuntimeException("batch write failed");
+        when(amazonDynamoDb.batchWriteItem(any(BatchWriteItemRequest.class))).thenAnswer(invocation -> {
+            BatchWriteItemRequest request = invocation.getArgument(0);
+            if (request.getRequestItems().get(TABLE).get(0).getDeleteRequest().getKey().get("hk").getS().equals("1")) {
+                throw exception;
+            }
+            return new BatchWriteItemResult().withUnprocessedItems(new HashMap<>());
+        });
+        ParallelScanCheckpoint checkpoint = new ParallelScanCheckpoint(2);
+
+        assertSame(exception, assertThrows(RuntimeException.class, () -> newEngine()
+            .truncate(new ScanRequest(TABLE), PRIMARY_KEY, checkpoint, TruncationEngineTest::ignoreProgress)));
+
+        assertTrue(checkpoint.isCompleted(0));
+        assertFalse(checkpoint.isCompleted(1));
+        assertFalse(checkpoint.getLastEvaluatedKey(1).isPresent());
+    }
+
+    private TruncationEngine newEngine() {
+        return new TruncationEngine(NAME, amazonDynamoDb, executor, 2, Double.POSITIVE_INFINITY, meterRegistry);
+    }
+
+    private static void ignoreProgress(ParallelScanCheckpoint checkpoint) {
+    }
+
+    private Set<Map<String, AttributeValue>> getDeletedKeys() {
+        Set<Map<String, AttributeValue>> keys = new HashSet<>();
+        batchWriteItemRequests.forEach(request -> request.getRequestItems().get(TABLE)
+            .forEach(writeRequest -> keys.add(writeRequest.getDeleteRequest().getKey())));
+        return keys;
+    }
+
+}
@@ -1,28 +1,53 @@
 package com.salesforce.dynamodbv2.mt.repo;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.BillingMode;
 import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
 import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndex;
 import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
 import com.amazonaws.services.dynamodbv2.model.KeyType;
+import com.amazonaws.services.dynamodbv2.model.Projection;
+import com.amazonaws.services.dynamodbv2.model.ProjectionType;
 import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughput;
+import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
+import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType;
+import com.amazonaws.services.dynamodbv2.model.TableDescription;
 import com.amazonaws.services.dynamodbv2.model.UpdateTableRequest;
 import com.amazonaws.services.dynamodbv2.util.TableUtils;
+import com.google.common.base.Ticker;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.salesforce.dynamodbv2.dynamodblocal.AmazonDynamoDbLocal;
 import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
 import com.salesforce.dynamodbv2.mt.context.impl.MtAmazonDynamoDbContextProviderThreadLocalImpl;
 import com.salesforce.dynamodbv2.mt.mappers.MtAmazonDynamoDb.TenantTable;
 import com.salesforce.dynamodbv2.mt.repo.MtDynamoDbTableDescriptionRepo.MtDynamoDbTableDescriptionRepoBuilder;
+import com.salesforce.dynamodbv2.mt.repo.MtTableDescriptionRepo.DeleteTableJob;
 import com.salesforce.dynamodbv2.mt.repo.MtTableDescriptionRepo.ListMetadataRequest;
 import com.salesforce.dynamodbv2.mt.repo.MtTableDescriptionRepo.ListMetadataResult;
 import com.salesforce.dynamodbv2.mt.repo.MtTableDescriptionRepo.TenantTableMetadata;
 import com.salesforce.dynamodbv2.mt.util.DynamoDbTestUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -165,4 +190,277 @@ class MtDynamoDbTableDescriptionRepoTest {
             repo.listVirtualTableMetadata(new ListMetadataRequest().withExclusiveStartKey(tenantTable1)));
 
     }
+
+    @Test
+    void testTruncationProgress() {
+        MtDynamoDbTableDescriptionRepo repo = mtDynamoDbTableDescriptionRepoBuilder.build();
+        CreateTableRequest createTableRequest = new CreateTableRequest()
+            .withTableName("table")
+            .withKeySchema(new KeySchemaElement("id", KeyType.HASH));
+        Map<String, AttributeValue> progress = ImmutableMap.of("totalSegments", new AttributeValue().withN("2"));
+
+        MT_CONTEXT.withContext("1", () -> {
+            repo.createTable(createTableRequest);
+            assertNull(repo.getTruncationProgress("table"));
+            assertThrows(ResourceNotFoundException.class, () -> repo.updateTruncationProgress("other", progress));
+
+            repo.updateTruncationProgress("table", progress);
+            assertEquals(progress, repo.getTruncationProgress("table"));
+            assertEquals("table", repo.getTableDescription("table").getTableName());
+
+            repo.deleteTable("table");
+            repo.createTable(createTableRequest);
+            assertNull(repo.getTruncationProgress("table"));
+        });
+    }
+
+    @Test
+    void testDeleteTableJobs() {
+        MtDynamoDbTableDescriptionRepo repo = mtDynamoDbTableDescriptionRepoBuilder.withDeleteTableJobs(true).build();
+        CreateTableRequest createTableRequest = new CreateTableRequest()
+            .withTableName("table")
+            .withKeySchema(new KeySchemaElement("id", KeyType.HASH));
+        DeleteTableJob job = new DeleteTableJob(new TenantTable("table", "1"), 100L);
+
+        MT_CONTEXT.withContext("1", () -> {
+            assertThrows(ResourceNotFoundException.class, () -> repo.addDeleteTableJob("table", 100L));
+            repo.createTable(createTableRequest);
+            assertFalse(repo.acquireDeleteTableJobLease("table", "a", 100L, 200L));
+            assertTrue(repo.listDeleteTableJobs(100L).isEmpty());
+
+            repo.addDeleteTableJob("table", 100L);
+            // the time a job was first requested is retained
+            repo.addDeleteTableJob("table", 150L);
+            assertEquals(List.of(job), repo.listDeleteTableJobs(150L));
+
+            assertTrue(repo.acquireDeleteTableJobLease("table", "a", 150L, 200L));
+            assertTrue(repo.listDeleteTableJobs(150L).isEmpty());
+            assertFalse(repo.acquireDeleteTableJobLease("table", "b", 150L, 250L));
+            // renew
+            assertTrue(repo.acquireDeleteTableJobLease("table", "a", 180L, 300L));
+
+            // expired leases can be taken over
+            assertEquals(List.of(job), repo.listDeleteTableJobs(301L));
+            assertTrue(repo.acquireDeleteTableJobLease("table", "b", 301L, 400L));
+            assertEquals("table", repo.getTableDescription("table").getTableName());
+
+            repo.deleteTable("table");
+            assertTrue(repo.listDeleteTableJobs(500L).isEmpty());
+        });
+    }
+
+    /**
+     * Verifies that job rows are not mistaken for tables, that tables with a pending delete job are not warmed up, and
+     * that the job index is added to existing metadata tables.
+     */
+    @Test
+    void testDeleteTableJobRows() {
+        MtDynamoDbTableDescriptionRepo tableRepo = mtDynamoDbTableDescriptionRepoBuilder.build();
+        MT_CONTEXT.withContext("1", () -> tableRepo.createTable(new CreateTableRequest()
+            .withTableName("table")
+            .withKeySchema(new KeySchemaElement("id", KeyType.HASH))));
+
+        MtDynamoDbTableDescriptionRepo jobRepo = newRepoBuilder().withDeleteTableJobs(true).build();
+        MT_CONTEXT.withContext("1", () -> jobRepo.addDeleteTableJob("table", 100L));
+
+        assertEquals(List.of(new DeleteTableJob(new TenantTable("table", "1"), 100L)),
+            jobRepo.listDeleteTableJobs(100L));
+        ListMetadataResult result = tableRepo.listVirtualTableMetadata(new ListMetadataRequest());
+        assertEquals(List.of(new TenantTable("table", "1")), result.getMetadataList().stream()
+            .map(TenantTableMetadata::getTenantTable).collect(Collectors.toList()));
+        // tables with a pending delete job are not warmed up
+        MT_CONTEXT.withContext("2", () -> tableRepo.createTable(new CreateTableRequest()
+            .withTableName("table")
+            .withKeySchema(new KeySchemaElement("id", KeyType.HASH))));
+        assertEquals(Set.of(new TenantTable("table", "2")), tableRepo.warmUpAll(2).keySet());
+        assertEquals(Set.of(new TenantTable("table", "2")), tableRepo.warmUp(Set.of("1", "2"), 2).keySet());
+        assertEquals(Set.of(), tableRepo.warmUp(Set.of("1"), 2).keySet());
+    }
+
+    @Test
+    void testBinaryTableDescriptions() {
+        MtDynamoDbTableDescriptionRepo jsonRepo = mtDynamoDbTableDescriptionRepoBuilder.build();
+        MtDynamoDbTableDescriptionRepo binaryRepo = newRepoBuilder().withBinaryTableDescriptions(true).build();
+        CreateTableRequest createTableRequest = new CreateTableRequest()
+            .withTableName("table")
+            .withKeySchema(new KeySchemaElement("id", KeyType.HASH))
+            .withAttributeDefinitions(new AttributeDefinition("id", ScalarAttributeType.S),
+                new AttributeDefinition("secondary-id", ScalarAttributeType.N))
+            .withProvisionedThroughput(new ProvisionedThroughput(1L, 1L))
+            .withGlobalSecondaryIndexes(new GlobalSecondaryIndex()
+                .withIndexName("index")
+                .withKeySchema(new KeySchemaElement("secondary-id", KeyType.HASH))
+                .withProjection(new Projection().withProjectionType(ProjectionType.INCLUDE)
+                    .withNonKeyAttributes("a", "b"))
+                .withProvisionedThroughput(new ProvisionedThroughput(2L, 3L)));
+
+        TableDescription jsonDescription = MT_CONTEXT.withContext("1", jsonRepo::createTable, createTableRequest);
+        TableDescription binaryDescription = MT_CONTEXT.withContext("2", binaryRepo::createTable, createTableRequest);
+        assertEquals(jsonDescription, binaryDescription);
+        assertTrue(getTableData("1.table").getS() != null);
+        assertTrue(getTableData("2.table").getB() != null);
+
+        // existing JSON entries are converted once
+        assertThrows(IllegalStateException.class, jsonRepo::rewriteLegacyTableDescriptions);
+        assertEquals(1, binaryRepo.rewriteLegacyTableDescriptions());
+        assertEquals(0, binaryRepo.rewriteLegacyTableDescriptions());
+        assertTrue(getTableData("1.table").getB() != null);
+
+        // both formats are readable regardless of the format that is written
+        MtDynamoDbTableDescriptionRepo repo = newRepoBuilder().build();
+        assertEquals(jsonDescription, MT_CONTEXT.withContext("1", repo::getTableDescription, "table"));
+        assertEquals(jsonDescription, MT_CONTEXT.withContext("2", repo::getTableDescription, "table"));
+    }
+
+    @Test
+    void testMetadataStreamListener() {
+        // the stream is added to an existing metadata table, and nodes without the stream accept it
+        MtDynamoDbTableDescriptionRepo otherNodeRepo = mtDynamoDbTableDescriptionRepoBuilder.build();
+        otherNodeRepo.createDefaultDescriptionTable();
+        MtDynamoDbTableDescriptionRepo repo = newRepoBuilder().withMetadataStream(true).build();
+        repo.createDefaultDescriptionTable();
+        newRepoBuilder().build().createDefaultDescriptionTable();
+        Set<TenantTable> changed = ConcurrentHashMap.newKeySet();
+        assertThrows(IllegalStateException.class, () -> otherNodeRepo.newStreamListener(
+            AmazonDynamoDbLocal.getAmazonDynamoDbStreamsLocal(), changed::add, 1000L));
+
+        try (TableMetadataStreamListener listener = repo.newStreamListener(
+            AmazonDynamoDbLocal.getAmazonDynamoDbStreamsLocal(), changed::add, 1000L)) {
+            listener.poll();
+
+            MT_CONTEXT.withContext("1", () -> otherNodeRepo.createTable(new CreateTableRequest()
+                .withTableName("table")
+                .withKeySchema(new KeySchemaElement("id", KeyType.HASH))));
+            MT_CONTEXT.withContext("1", repo::getTableDescription, "table");
+
+            // another node recreates the table with a different schema
+            MT_CONTEXT.withContext("1", () -> {
+                otherNodeRepo.deleteTable("table");
+                otherNodeRepo.createTable(new CreateTableRequest()
+                    .withTableName("table")
+                    .withKeySchema(new KeySchemaElement("otherId", KeyType.HASH)));
+            });
+            listener.poll();
+            assertEquals(Set.of(new TenantTable("table", "1")), changed);
+            assertEquals(List.of(new KeySchemaElement("otherId", KeyType.HASH)),
+                MT_CONTEXT.withContext("1", repo::getTableDescription, "table").getKeySchema());
+
+            // progress rows don't change the table description, so they are not reported
+            changed.clear();
+            MT_CONTEXT.withContext("1", () -> otherNodeRepo.updateTruncationProgress("table",
+                ImmutableMap.of("totalSegments", new AttributeValue().withN("2"))));
+            listener.poll();
+            assertTrue(changed.isEmpty());
+
+            // another node drops the table
+            MT_CONTEXT.withContext("1", otherNodeRepo::deleteTable, "table");
+            listener.poll();
+            assertThrows(ResourceNotFoundException.class,
+                () -> MT_CONTEXT.withContext("1", repo::getTableDescription, "table"));
+        }
+    }
+
+    @Test
+    void testRefreshingTableDescriptionCache() {
+        AtomicLong nanos = new AtomicLong();
+        MtDynamoDbTableDescriptionRepo repo = newRepoBuilder()
+            .withMetadataStream(true)
+            .withWarmUpExecutor(MoreExecutors.newDirectExecutorService())
+            .withTicker(new Ticker() {
+                @Override
+                public long read() {
+                    return nanos.get();
+                }
+            })
+            .build();
+        repo.createDefaultDescriptionTable();
+        MtDynamoDbTableDescriptionRepo otherNodeRepo = newRepoBuilder().build();
+        MT_CONTEXT.withContext("1", () -> repo.createTable(new CreateTableRequest()
+            .withTableName("table")
+            .withKeySchema(new KeySchemaElement("id", KeyType.HASH))));
+
+        // another node recreates the table, which this node misses without a listener
+        MT_CONTEXT.withContext("1", () -> {
+            otherNodeRepo.deleteTable("table");
+            otherNodeRepo.createTable(new CreateTableRequest()
+                .withTableName("table")
+                .withKeySchema(new KeySchemaElement("otherId", KeyType.HASH)));
+        });
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(4));
+        assertEquals(List.of(new KeySchemaElement("id", KeyType.HASH)),
+            MT_CONTEXT.withContext("1", repo::getTableDescription, "table").getKeySchema());
+
+        // the cached description is reloaded once it is read five minutes after it was loaded
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        assertEquals(List.of(new KeySchemaElement("otherId", KeyType.HASH)),
+            MT_CONTEXT.withContext("1", repo::getTableDescription, "table").getKeySchema());
+    }
+
+    @Test
+    void testMissingTableCache() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AtomicLong nanos = new AtomicLong();
+        MtDynamoDbTableDescriptionRepo repo = newRepoBuilder()
+            .withMeterRegistry(meterRegistry)
+            .withTicker(new Ticker() {
+                @Override
+                public long read() {
+                    return nanos.get();
+                }
+            })
+            .build();
+        MtDynamoDbTableDescriptionRepo otherNodeRepo = newRepoBuilder().build();
+        CreateTableRequest createTableRequest = new CreateTableRequest()
+            .withTableName("table")
+            .withKeySchema(new KeySchemaElement("id", KeyType.HASH));
+
+        // missing tables are remembered until they expire, even if another node creates them in the meantime
+        assertThrows(ResourceNotFoundException.class,
+            () -> MT_CONTEXT.withContext("1", repo::getTableDescription, "table"));
+        MT_CONTEXT.withContext("1", otherNodeRepo::createTable, createTableRequest);
+        assertThrows(ResourceNotFoundException.class,
+            () -> MT_CONTEXT.withContext("1", repo::getTableDescription, "table"));
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(createTableRequest.getKeySchema(),
+            MT_CONTEXT.withContext("1", repo::getTableDescription, "table").getKeySchema());
+
+        // missing tables are remembered per tenant and forgotten when they are created on this node
+        assertThrows(ResourceNotFoundException.class,
+            () -> MT_CONTEXT.withContext("2", repo::getTableDescription, "table"));
+        MT_CONTEXT.withContext("2", repo::createTable, createTableRequest);
+        assertEquals(createTableRequest.getKeySchema(),
+            MT_CONTEXT.withContext("2", repo::getTableDescription, "table").getKeySchema());
+
+        assertEquals(1.0, getMissingTableCacheGets(meterRegistry, "hit"));
+        assertEquals(5.0, getMissingTableCacheGets(meterRegistry, "miss"));
+
+        // missing tables are forgotten when they are loaded by a warm-up
+        assertThrows(ResourceNotFoundException.class,
+            () -> MT_CONTEXT.withContext("3", repo::getTableDescription, "table"));
+        MT_CONTEXT.withContext("3", otherNodeRepo::createTable, createTableRequest);
+        assertEquals(Set.of(new TenantTable("table", "3")), repo.warmUp(Set.of("3"), 2).keySet());
+        assertEquals(createTableRequest.getKeySchema(),
+            MT_CONTEXT.withContext("3", repo::getTableDescription, "table").getKeySchema());
+    }
+
+    private static double getMissingTableCacheGets(MeterRegistry meterRegistry, String result) {
+        return meterRegistry.get("cache.gets")
+            .tag("cache", "MtDynamoDbTableDescriptionRepo.MissingTable")
+            .tag("result", result)
+            .functionCounter()
+            .count();
+    }
+
+    private MtDynamoDbTableDescriptionRepoBuilder newRepoBuilder() {
+        return MtDynamoDbTableDescriptionRepo.builder()
+            .withAmazonDynamoDb(localDynamoDb)
+            .withContext(MT_CONTEXT)
+            .withTablePrefix(tablePrefix)
+            .withTableDescriptionTableName(tableName);
+    }
+
+    private AttributeValue getTableData(String hashKey) {
+        return localDynamoDb.getItem(new GetItemRequest(fullTableName,
+            ImmutableMap.of("table", new AttributeValue(hashKey)))).getItem().get("data");
+    }
 }
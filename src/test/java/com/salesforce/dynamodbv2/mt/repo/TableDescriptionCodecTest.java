@@ -0,0 +1,90 @@
+package com.salesforce.dynamodbv2.mt.repo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
+import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndexDescription;
+import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
+import com.amazonaws.services.dynamodbv2.model.KeyType;
+import com.amazonaws.services.dynamodbv2.model.LocalSecondaryIndexDescription;
+import com.amazonaws.services.dynamodbv2.model.Projection;
+import com.amazonaws.services.dynamodbv2.model.ProjectionType;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputDescription;
+import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType;
+import com.amazonaws.services.dynamodbv2.model.StreamSpecification;
+import com.amazonaws.services.dynamodbv2.model.StreamViewType;
+import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import com.google.gson.Gson;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests TableDescriptionCodec.
+ */
+class TableDescriptionCodecTest {
+
+    private static final TableDescription TABLE_DESCRIPTION = new TableDescription()
+        .withTableName("table")
+        .withKeySchema(new KeySchemaElement("hk", KeyType.HASH), new KeySchemaElement("rk", KeyType.RANGE))
+        .withAttributeDefinitions(new AttributeDefinition("hk", ScalarAttributeType.S),
+            new AttributeDefinition("rk", ScalarAttributeType.N),
+            new AttributeDefinition("gsiHk", ScalarAttributeType.B))
+        .withStreamSpecification(new StreamSpecification().withStreamEnabled(true)
+            .withStreamViewType(StreamViewType.NEW_AND_OLD_IMAGES))
+        .withProvisionedThroughput(new ProvisionedThroughputDescription()
+            .withReadCapacityUnits(1L).withWriteCapacityUnits(2L))
+        .withLocalSecondaryIndexes(new LocalSecondaryIndexDescription()
+            .withIndexName("lsi")
+            .withKeySchema(new KeySchemaElement("hk", KeyType.HASH), new KeySchemaElement("gsiHk", KeyType.RANGE))
+            .withProjection(new Projection().withProjectionType(ProjectionType.KEYS_ONLY)))
+        .withGlobalSecondaryIndexes(new GlobalSecondaryIndexDescription()
+            .withIndexName("gsi")
+            .withKeySchema(new KeySchemaElement("gsiHk", KeyType.HASH))
+            .withProjection(new Projection().withProjectionType(ProjectionType.INCLUDE).withNonKeyAttributes("a", "b"))
+            .withProvisionedThroughput(new ProvisionedThroughputDescription().withReadCapacityUnits(3L)));
+
+    @Test
+    void roundTrip() {
+        assertEquals(TABLE_DESCRIPTION, decode(TableDescriptionCodec.encode(TABLE_DESCRIPTION)));
+    }
+
+    @Test
+    void roundTripMinimal() {
+        TableDescription tableDescription = new TableDescription()
+            .withTableName("table")
+            .withKeySchema(new KeySchemaElement("hk", KeyType.HASH));
+
+        assertEquals(tableDescription, decode(TableDescriptionCodec.encode(tableDescription)));
+    }
+
+    @Test
+    void smallerThanJson() {
+        int jsonSize = new Gson().toJson(TABLE_DESCRIPTION).getBytes(StandardCharsets.UTF_8).length;
+
+        assertTrue(TableDescriptionCodec.encode(TABLE_DESCRIPTION).length < jsonSize);
+    }
+
+    @Test
+    void unsupportedVersion() {
+        byte[] bytes = TableDescriptionCodec.encode(TABLE_DESCRIPTION);
+        bytes[0] = TableDescriptionCodec.VERSION + 1;
+
+        assertThrows(IllegalArgumentException.class, () -> decode(bytes));
+    }
+
+    @Test
+    void truncated() {
+        byte[] bytes = TableDescriptionCodec.encode(TABLE_DESCRIPTION);
+
+        assertThrows(IllegalArgumentException.class, () -> decode(Arrays.copyOf(bytes, bytes.length - 1)));
+    }
+
+    private static TableDescription decode(byte[] bytes) {
+        return TableDescriptionCodec.decode(ByteBuffer.wrap(bytes));
+    }
+
+}